@@ -0,0 +1,44 @@
+package spengergasse.at.sj2425scherzerrabar;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportProperties;
+
+import java.util.concurrent.Callable;
+
+@Configuration
+@EnableConfigurationProperties(CollectionExportProperties.class)
+public class CollectionExportConfiguration implements WebMvcConfigurer {
+
+    private final CollectionExportProperties properties;
+
+    public CollectionExportConfiguration(CollectionExportProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Große NDJSON-Exporte brauchen länger als der Default-Timeout des Containers (30s). Der Timeout wird nur
+     * für diese Antworten verlängert: die Header (Content-Type) sind geschrieben, bevor der Async-Request startet.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                HttpServletResponse response = request.getNativeResponse(HttpServletResponse.class);
+                if (request instanceof AsyncWebRequest asyncRequest && response != null
+                        && response.getContentType() != null
+                        && MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(response.getContentType()))) {
+                    asyncRequest.setTimeout(properties.requestTimeout().toMillis());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package spengergasse.at.sj2425scherzerrabar;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import spengergasse.at.sj2425scherzerrabar.service.EntityCacheProperties;
+import spengergasse.at.sj2425scherzerrabar.service.EntityCaches;
+
+@Configuration
+@EnableCaching
+public class EntityCacheConfiguration {
+
+    /**
+     * Ein Caffeine-Cache pro Entity, alle mit derselben Größe und TTL aus entities.cache.*.
+     * recordStats liefert die cache.gets/puts/evictions Metriken (CaffeineCacheMeterBinder von Spring Boot).
+     * Transaktionsbewusst: put/evict innerhalb einer Transaktion wirken erst nach dem Commit, damit kein
+     * paralleler Read den alten Stand zwischen Evict und Commit wieder in den Cache legt.
+     */
+    @Bean
+    public CacheManager cacheManager(EntityCacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.timeToLive())
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCacheNames(EntityCaches.ALL);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,25 @@
+package spengergasse.at.sj2425scherzerrabar;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import spengergasse.at.sj2425scherzerrabar.persistence.SelectStatementRecorder;
+import spengergasse.at.sj2425scherzerrabar.service.IndexAdvisorProperties;
+
+@Configuration
+public class IndexAdvisorConfiguration {
+
+    @Bean
+    public SelectStatementRecorder selectStatementRecorder(IndexAdvisorProperties properties) {
+        return new SelectStatementRecorder(properties.maxStatements());
+    }
+
+    /**
+     * Hibernate reicht jedes SQL vor der Ausführung an den Recorder weiter
+     */
+    @Bean
+    public HibernatePropertiesCustomizer selectStatementRecorderCustomizer(SelectStatementRecorder recorder) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, recorder);
+    }
+}
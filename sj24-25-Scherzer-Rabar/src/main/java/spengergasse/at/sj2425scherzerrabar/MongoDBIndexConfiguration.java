@@ -1,196 +1,338 @@
 package spengergasse.at.sj2425scherzerrabar;
 
-import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
 import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
 import org.springframework.stereotype.Component;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocument;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
-
+import spengergasse.at.sj2425scherzerrabar.service.MongoIndexProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Declares the MongoDB indexes and brings the collections in line with them: missing indexes are created,
+ * changed ones recreated and, with mongo.indexes.drop-undeclared, undeclared idx_ indexes dropped. This runs after
+ * startup on a background thread, so startup no longer depends on collection size; until it is done
+ * {@link #isReady()} is false, the readiness probe reports OUT_OF_SERVICE (MongoIndexHealthIndicator) and
+ * BookReadRouter reads from PostgreSQL. A failed run (e.g. MongoDB not reachable yet) is retried with exponential
+ * backoff until the indexes are READY, otherwise one bad start would keep reads on PostgreSQL until the next restart.
+ */
 @Component
 public class MongoDBIndexConfiguration {
 
+    public enum Status {
+        PENDING, BUILDING, READY, FAILED
+    }
+
     private static final Logger log = LoggerFactory.getLogger(MongoDBIndexConfiguration.class);
 
+    /** Prefix of all declared indexes; indexes without it are never dropped */
+    static final String MANAGED_PREFIX = "idx_";
+    /** Options that only affect how an index is built, not what it is */
+    private static final Set<String> BUILD_OPTIONS = Set.of("name", "background", "v", "ns");
+
     private final MongoTemplate mongoTemplate;
+    private final MongoIndexProperties properties;
+    private final Map<Class<?>, List<IndexDefinition>> declaredIndexes = declaredIndexes();
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile Status status = Status.PENDING;
+    private volatile String error;
 
-    public MongoDBIndexConfiguration(MongoTemplate mongoTemplate) {
+    public MongoDBIndexConfiguration(MongoTemplate mongoTemplate, MongoIndexProperties properties) {
         this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexesAfterStartup() {
+        if (properties.buildInBackground()) {
+            virtualThreads.execute(() -> retryUntilReady(0));
+        } else if (!initIndexes()) {
+            // the synchronous attempt is for tests; retries must not block startup
+            virtualThreads.execute(() -> retryUntilReady(1));
+        }
+    }
+
+    /**
+     * @param failedAttempts attempts that already failed, they count towards the backoff
+     */
+    private void retryUntilReady(int failedAttempts) {
+        for (int attempt = failedAttempts; ; attempt++) {
+            if (attempt > 0) {
+                Duration backoff = properties.backoffFor(attempt);
+                log.warn("Retrying MongoDB index synchronization in {} (attempt {})", backoff, attempt + 1);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (initIndexes()) return;
+        }
+    }
+
+    /**
+     * Synchronizes all collections with the declared indexes; safe to call again (only the differences are applied)
+     * @return true if all indexes are in place (status READY)
+     */
+    public synchronized boolean initIndexes() {
+        log.info("Synchronizing MongoDB indexes...");
+        status = Status.BUILDING;
+        error = null;
+        try {
+            declaredIndexes.forEach(this::synchronize);
+            status = Status.READY;
+            log.info("MongoDB indexes synchronized");
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            status = Status.FAILED;
+            log.error("Synchronizing MongoDB indexes failed", e);
+        }
+        return isReady();
+    }
+
+    public boolean isReady() {
+        return status == Status.READY;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
     }
 
-    @PostConstruct
-    public void initIndexes() {
-        log.info("Creating MongoDB indexes...");
+    private void synchronize(Class<?> document, List<IndexDefinition> declared) {
+        IndexOperations indexOps = mongoTemplate.indexOps(document);
+        List<Document> existing = mongoTemplate.getCollection(mongoTemplate.getCollectionName(document))
+                .listIndexes().into(new ArrayList<>());
+        IndexPlan plan = plan(existing, declared, properties.dropUndeclared());
+
+        // drop first: an undeclared index with the same key as a declared one would make createIndex fail
+        for (String name : plan.drop()) {
+            indexOps.dropIndex(name);
+            log.info("Dropped index {} on {}", name, mongoTemplate.getCollectionName(document));
+        }
+        for (IndexDefinition definition : plan.create()) {
+            indexOps.ensureIndex(definition);
+            log.info("Created index {} on {}", definition.getIndexOptions().getString("name"),
+                    mongoTemplate.getCollectionName(document));
+        }
+    }
+
+    // ==================== DIFF ====================
 
-        createAuthorIndexes();
-        createBookIndexes();
-        createBookEmbeddedIndexes();
+    /**
+     * @param drop   existing idx_ indexes that are not declared (only with dropUndeclared) or declared differently
+     * @param create declared indexes that are missing or declared differently
+     */
+    record IndexPlan(List<String> drop, List<IndexDefinition> create) {
+    }
 
-        log.info("MongoDB indexes created successfully");
+    static IndexPlan plan(List<Document> existing, List<IndexDefinition> declared, boolean dropUndeclared) {
+        Map<String, Document> existingByName = new LinkedHashMap<>();
+        existing.forEach(index -> existingByName.put(index.getString("name"), index));
+        Set<String> declaredNames = new HashSet<>();
+
+        List<String> drop = new ArrayList<>();
+        List<IndexDefinition> create = new ArrayList<>();
+        for (IndexDefinition definition : declared) {
+            String name = definition.getIndexOptions().getString("name");
+            declaredNames.add(name);
+            Document current = existingByName.get(name);
+            if (current == null) {
+                create.add(definition);
+            } else if (!matches(current, definition)) {
+                drop.add(name);
+                create.add(definition);
+            }
+        }
+        if (dropUndeclared) {
+            existingByName.keySet().stream()
+                    .filter(name -> name.startsWith(MANAGED_PREFIX) && !declaredNames.contains(name))
+                    .forEach(drop::add);
+        }
+        return new IndexPlan(drop, create);
     }
 
     /**
-     * Creates indexes for the Author collection
+     * Same key (text indexes store their key as _fts/_ftsx, their fields are compared via the weights)
+     * and the same declared options; an existing unique index never matches a non-unique declaration
      */
-    private void createAuthorIndexes() {
-        IndexOperations indexOps = mongoTemplate.indexOps(AuthorDocument.class);
+    private static boolean matches(Document existing, IndexDefinition definition) {
+        Document key = definition.getIndexKeys();
+        boolean text = key.values().stream().anyMatch("text"::equals);
+        if (!text && !fields(existing.get("key", Document.class)).equals(fields(key))) {
+            return false;
+        }
+        Document options = definition.getIndexOptions();
+        if (existing.getBoolean("unique", false) != options.getBoolean("unique", false)) {
+            return false;
+        }
+        if (text && !normalize(existing.get("weights")).equals(normalize(textWeights(key, options)))) {
+            return false;
+        }
+        return options.entrySet().stream()
+                .filter(option -> !BUILD_OPTIONS.contains(option.getKey()) && !"weights".equals(option.getKey()))
+                .allMatch(option -> normalize(option.getValue()).equals(normalize(existing.get(option.getKey()))));
+    }
 
-        // Index on API Key (unique, most common query)
-        indexOps.ensureIndex(new Index()
-                .on("api_key", Sort.Direction.ASC)
-                .unique()
-                .named("idx_author_api_key"));
+    /**
+     * Weight of every text field as the server stores it: Spring only declares weights other than 1
+     */
+    private static Document textWeights(Document key, Document options) {
+        Document weights = new Document();
+        key.keySet().forEach(field -> weights.put(field, 1));
+        weights.putAll(options.get("weights", new Document()));
+        return weights;
+    }
 
-        // Index on Postgres ID for sync operations
-        indexOps.ensureIndex(new Index()
-                .on("postgres_id", Sort.Direction.ASC)
-                .named("idx_author_postgres_id"));
+    /**
+     * Key fields in order - unlike Map.equals the order of a compound key matters
+     */
+    private static List<Map.Entry<String, Object>> fields(Document key) {
+        return key.entrySet().stream().map(field -> Map.entry(field.getKey(), normalize(field.getValue()))).toList();
+    }
 
-        // Index on Penname (common query)
-        indexOps.ensureIndex(new Index()
-                .on("pen_name", Sort.Direction.ASC)
-                .named("idx_author_penname"));
+    /**
+     * Numbers as double (the server returns weights and directions as int, Spring declares floats) and
+     * documents as ordered maps, so equal specs compare equal
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof Number number) return number.doubleValue();
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> normalized = new LinkedHashMap<>();
+            map.forEach((k, v) -> normalized.put(k, normalize(v)));
+            return normalized;
+        }
+        return value;
+    }
 
-        // Index on Email (for lookups)
-        indexOps.ensureIndex(new Index()
-                .on("email", Sort.Direction.ASC)
-                .named("idx_author_email"));
+    // ==================== DECLARED INDEXES ====================
 
-        // Compound index on first and last name (for name searches)
-        indexOps.ensureIndex(new Index()
-                .on("first_name", Sort.Direction.ASC)
-                .on("last_name", Sort.Direction.ASC)
-                .named("idx_author_fullname"));
+    private static Map<Class<?>, List<IndexDefinition>> declaredIndexes() {
+        Map<Class<?>, List<IndexDefinition>> indexes = new LinkedHashMap<>();
+        indexes.put(AuthorDocument.class, authorIndexes());
+        indexes.put(BookDocument.class, bookIndexes());
+        indexes.put(BookDocumentEmbedded.class, bookEmbeddedIndexes());
+        return indexes;
+    }
 
-        log.info("Created indexes for Author collection");
+    /**
+     * Indexes of the Author collection
+     */
+    private static List<IndexDefinition> authorIndexes() {
+        return List.of(
+                // Index on API Key (unique, most common query)
+                new Index().on("api_key", Sort.Direction.ASC).unique().named("idx_author_api_key"),
+                // Index on Postgres ID for sync operations
+                new Index().on("postgres_id", Sort.Direction.ASC).named("idx_author_postgres_id"),
+                // Index on Penname (common query)
+                new Index().on("pen_name", Sort.Direction.ASC).named("idx_author_penname"),
+                // Index on Email (for lookups)
+                new Index().on("email", Sort.Direction.ASC).named("idx_author_email"),
+                // Compound index on first and last name (for name searches)
+                new Index().on("first_name", Sort.Direction.ASC).on("last_name", Sort.Direction.ASC)
+                        .named("idx_author_fullname"),
+                // Normalized search keys (SearchKey): case- and accent-insensitive exact/prefix matches
+                new Index().on("pen_name_key", Sort.Direction.ASC).named("idx_author_penname_key"),
+                new Index().on("addresses.cityKey", Sort.Direction.ASC).named("idx_author_city_key"));
     }
 
     /**
-     * Creates indexes for the Book collection (Referencing)
+     * Indexes of the Book collection (Referencing).
+     * idx_book_text_search was an ascending index on name/description, not a text index; it is no longer
+     * declared and dropped with mongo.indexes.drop-undeclared. Full-text search runs on books_with_embedded_authors
+     * (idx_book_emb_text_search).
      */
-    private void createBookIndexes() {
-        IndexOperations indexOps = mongoTemplate.indexOps(BookDocument.class);
-
-        // Index on API Key (unique, most common query)
-        indexOps.ensureIndex(new Index()
-                .on("api_key", Sort.Direction.ASC)
-                .unique()
-                .named("idx_book_api_key"));
-
-        // Index on Postgres ID for sync operations
-        indexOps.ensureIndex(new Index()
-                .on("postgres_id", Sort.Direction.ASC)
-                .named("idx_book_postgres_id"));
-
-        // Index on Name (for sorting and searching)
-        indexOps.ensureIndex(new Index()
-                .on("name", Sort.Direction.ASC)
-                .named("idx_book_name"));
-
-        // Index on Release Date (for date range queries and sorting)
-        indexOps.ensureIndex(new Index()
-                .on("release_date", Sort.Direction.DESC)
-                .named("idx_book_release_date"));
-
-        // Index on Author API Keys (for finding books by author)
-        indexOps.ensureIndex(new Index()
-                .on("author_api_keys", Sort.Direction.ASC)
-                .named("idx_book_author_keys"));
-
-        // Index on Genres (for filtering by genre)
-        indexOps.ensureIndex(new Index()
-                .on("genres", Sort.Direction.ASC)
-                .named("idx_book_genres"));
-
-        // Index on Book Types (for filtering by type)
-        indexOps.ensureIndex(new Index()
-                .on("book_types", Sort.Direction.ASC)
-                .named("idx_book_types"));
-
-        // Index on Available Online (for filtering)
-        indexOps.ensureIndex(new Index()
-                .on("available_online", Sort.Direction.ASC)
-                .named("idx_book_available"));
-
-        // Compound index for common query: available online + genre
-        indexOps.ensureIndex(new Index()
-                .on("available_online", Sort.Direction.ASC)
-                .on("genres", Sort.Direction.ASC)
-                .named("idx_book_available_genre"));
-
-        // Text index on name and description for full-text search
-        indexOps.ensureIndex(new Index()
-                .on("name", Sort.Direction.ASC)
-                .on("description", Sort.Direction.ASC)
-                .named("idx_book_text_search"));
-
-        log.info("Created indexes for Book collection (Referencing)");
+    private static List<IndexDefinition> bookIndexes() {
+        return List.of(
+                // Index on API Key (unique, most common query)
+                new Index().on("api_key", Sort.Direction.ASC).unique().named("idx_book_api_key"),
+                // Index on Postgres ID for sync operations
+                new Index().on("postgres_id", Sort.Direction.ASC).named("idx_book_postgres_id"),
+                // Index on Name (for sorting and searching)
+                new Index().on("name", Sort.Direction.ASC).named("idx_book_name"),
+                // Index on Release Date (for date range queries and sorting)
+                new Index().on("release_date", Sort.Direction.DESC).named("idx_book_release_date"),
+                // Index on Author API Keys (for finding books by author)
+                new Index().on("author_api_keys", Sort.Direction.ASC).named("idx_book_author_keys"),
+                // Index on Genres (for filtering by genre)
+                new Index().on("genres", Sort.Direction.ASC).named("idx_book_genres"),
+                // Index on Book Types (for filtering by type)
+                new Index().on("book_types", Sort.Direction.ASC).named("idx_book_types"),
+                // Index on Available Online (for filtering)
+                new Index().on("available_online", Sort.Direction.ASC).named("idx_book_available"),
+                // Compound index for common query: available online + genre
+                new Index().on("available_online", Sort.Direction.ASC).on("genres", Sort.Direction.ASC)
+                        .named("idx_book_available_genre"));
     }
 
     /**
-     * Creates indexes for the BookEmbedded collection (Embedding)
+     * Indexes of the BookEmbedded collection (Embedding)
      */
-    private void createBookEmbeddedIndexes() {
-        IndexOperations indexOps = mongoTemplate.indexOps(BookDocumentEmbedded.class);
-
-        // Index on API Key (unique, most common query)
-        indexOps.ensureIndex(new Index()
-                .on("api_key", Sort.Direction.ASC)
-                .unique()
-                .named("idx_book_emb_api_key"));
-
-        // Index on Postgres ID
-        indexOps.ensureIndex(new Index()
-                .on("postgres_id", Sort.Direction.ASC)
-                .named("idx_book_emb_postgres_id"));
-
-        // Index on Name
-        indexOps.ensureIndex(new Index()
-                .on("name", Sort.Direction.ASC)
-                .named("idx_book_emb_name"));
-
-        // Index on Release Date
-        indexOps.ensureIndex(new Index()
-                .on("release_date", Sort.Direction.DESC)
-                .named("idx_book_emb_release_date"));
-
-        // Index on Embedded Author API Key (for finding books by author)
-        indexOps.ensureIndex(new Index()
-                .on("authors.api_key", Sort.Direction.ASC)
-                .named("idx_book_emb_author_apikey"));
-
-        // Index on Embedded Author Penname (for finding books by penname)
-        indexOps.ensureIndex(new Index()
-                .on("authors.penname", Sort.Direction.ASC)
-                .named("idx_book_emb_author_penname"));
-
-        // Index on Genres
-        indexOps.ensureIndex(new Index()
-                .on("genres", Sort.Direction.ASC)
-                .named("idx_book_emb_genres"));
-
-        // Index on Book Types
-        indexOps.ensureIndex(new Index()
-                .on("book_types", Sort.Direction.ASC)
-                .named("idx_book_emb_types"));
-
-        // Index on Available Online
-        indexOps.ensureIndex(new Index()
-                .on("available_online", Sort.Direction.ASC)
-                .named("idx_book_emb_available"));
-
-        // Compound index on embedded author fields
-        indexOps.ensureIndex(new Index()
-                .on("authors.first_name", Sort.Direction.ASC)
-                .on("authors.last_name", Sort.Direction.ASC)
-                .named("idx_book_emb_author_name"));
-
-        log.info("Created indexes for BookEmbedded collection (Embedding)");
+    private static List<IndexDefinition> bookEmbeddedIndexes() {
+        return List.of(
+                // Index on API Key (unique, most common query)
+                new Index().on("api_key", Sort.Direction.ASC).unique().named("idx_book_emb_api_key"),
+                // Index on Postgres ID
+                new Index().on("postgres_id", Sort.Direction.ASC).named("idx_book_emb_postgres_id"),
+                // Index on Name
+                new Index().on("name", Sort.Direction.ASC).named("idx_book_emb_name"),
+                // Index on Release Date
+                new Index().on("release_date", Sort.Direction.DESC).named("idx_book_emb_release_date"),
+                // Index on Embedded Author API Key (for finding books by author)
+                new Index().on("authors.api_key", Sort.Direction.ASC).named("idx_book_emb_author_apikey"),
+                // Index on Embedded Author Penname (for finding books by penname)
+                new Index().on("authors.penname", Sort.Direction.ASC).named("idx_book_emb_author_penname"),
+                // Index on Genres
+                new Index().on("genres", Sort.Direction.ASC).named("idx_book_emb_genres"),
+                // Index on Book Types
+                new Index().on("book_types", Sort.Direction.ASC).named("idx_book_emb_types"),
+                // Index on Available Online
+                new Index().on("available_online", Sort.Direction.ASC).named("idx_book_emb_available"),
+                // Compound index on embedded author fields
+                new Index().on("authors.first_name", Sort.Direction.ASC).on("authors.last_name", Sort.Direction.ASC)
+                        .named("idx_book_emb_author_name"),
+                // Normalized search keys (SearchKey): case- and accent-insensitive exact/prefix matches
+                new Index().on("name_key", Sort.Direction.ASC).named("idx_book_emb_name_key"),
+                new Index().on("authors.penname_key", Sort.Direction.ASC).named("idx_book_emb_author_penname_key"),
+                new Index().on("authors.addresses.cityKey", Sort.Direction.ASC).named("idx_book_emb_author_city_key"),
+                // Weighted text index for /api/books/search: a hit in the title counts more than one in
+                // the author's penname, the description least. "none" = no stemming/stop words, the books are mixed language.
+                new TextIndexDefinition.TextIndexDefinitionBuilder()
+                        .onField("name", 10F)
+                        .onField("authors.penname", 5F)
+                        .onField("description", 1F)
+                        .withDefaultLanguage("none")
+                        .named("idx_book_emb_text_search")
+                        .build());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        virtualThreads.shutdownNow();
     }
 
     /**
@@ -202,7 +344,8 @@ public class MongoDBIndexConfiguration {
         mongoTemplate.indexOps(AuthorDocument.class).dropAllIndexes();
         mongoTemplate.indexOps(BookDocument.class).dropAllIndexes();
         mongoTemplate.indexOps(BookDocumentEmbedded.class).dropAllIndexes();
+        status = Status.PENDING;
 
         log.info("All MongoDB indexes dropped");
     }
-}
\ No newline at end of file
+}
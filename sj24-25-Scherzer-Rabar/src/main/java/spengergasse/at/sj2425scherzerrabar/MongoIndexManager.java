@@ -1,5 +1,7 @@
 package spengergasse.at.sj2425scherzerrabar;
 
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -8,11 +10,145 @@ import org.springframework.stereotype.Service;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocument;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.dtos.MongoIndexReport;
+import spengergasse.at.sj2425scherzerrabar.dtos.MongoIndexReport.CollectionIndexes;
+import spengergasse.at.sj2425scherzerrabar.dtos.MongoIndexReport.IndexUsage;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Reports size and usage of the MongoDB indexes created by MongoDBIndexConfiguration (and any others, e.g. from
+ * {@code @Indexed}). Every index costs write throughput and RAM, so unused indexes and indexes whose key is a
+ * prefix of another index are flagged. Access counters from $indexStats start at zero whenever mongod restarts.
+ */
 @Service
 public class MongoIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    private static final List<Class<?>> DOCUMENTS =
+            List.of(AuthorDocument.class, BookDocument.class, BookDocumentEmbedded.class);
+    private static final String ID_INDEX = "_id_";
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexManager(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public MongoIndexReport report() {
+        List<CollectionIndexes> collections = DOCUMENTS.stream()
+                .map(mongoTemplate::getCollectionName)
+                .map(this::collectionIndexes)
+                .toList();
+        collections.forEach(collection -> collection.indexes().stream()
+                .filter(index -> index.unused() || index.redundantWith() != null)
+                .forEach(index -> log.info("{}.{}: unused={}, redundant with {}",
+                        collection.collection(), index.name(), index.unused(), index.redundantWith())));
+        return new MongoIndexReport(collections);
+    }
+
+    public List<IndexStatistics> getIndexStatistics() {
+        return DOCUMENTS.stream().map(document -> {
+            List<IndexInfo> indexes = mongoTemplate.indexOps(document).getIndexInfo();
+            return new IndexStatistics(mongoTemplate.getCollectionName(document), indexes.size(),
+                    (int) indexes.stream().filter(IndexInfo::isUnique).count(),
+                    (int) indexes.stream().filter(IndexInfo::isSparse).count());
+        }).toList();
+    }
+
+    private CollectionIndexes collectionIndexes(String name) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(name);
+
+        List<Document> specs = collection.listIndexes().into(new ArrayList<>());
+        Map<String, Document> accesses = new HashMap<>();
+        collection.aggregate(List.of(new Document("$indexStats", new Document())))
+                .forEach(stats -> accesses.put(stats.getString("name"), stats.get("accesses", Document.class)));
+        Document storage = collection.aggregate(List.of(new Document("$collStats",
+                        new Document("storageStats", new Document()))))
+                .first();
+        Document storageStats = storage == null ? new Document() : storage.get("storageStats", new Document());
+        Document indexSizes = storageStats.get("indexSizes", new Document());
+
+        Map<String, String> redundant = redundantIndexes(specs);
+        List<IndexUsage> indexes = specs.stream().map(spec -> {
+            String index = spec.getString("name");
+            Document access = accesses.getOrDefault(index, new Document());
+            long ops = longValue(access.get("ops"));
+            Date since = access.getDate("since");
+            boolean unique = spec.getBoolean("unique", false);
+            return new IndexUsage(index, new LinkedHashMap<>(spec.get("key", Document.class)), unique,
+                    longValue(indexSizes.get(index)), ops, since == null ? null : since.toInstant(),
+                    ops == 0 && !unique && !ID_INDEX.equals(index), redundant.get(index));
+        }).toList();
+        return new CollectionIndexes(name, longValue(storageStats.get("count")),
+                longValue(storageStats.get("totalIndexSize")), indexes);
+    }
+
+    /**
+     * An index is redundant when its key is a prefix of another index's key (same fields in the same order,
+     * directions equal or all inverted): every query and sort it serves can use the longer index instead.
+     * Unique indexes enforce a constraint and are never redundant; sparse, partial and non-B-tree (text, hashed, geo)
+     * indexes neither are redundant nor replace one. Of two indexes with the same key the unique one is kept,
+     * otherwise the one with the smaller name.
+     *
+     * @param specs index documents as returned by listIndexes
+     * @return name of the redundant index -> name of the index that covers it
+     */
+    static Map<String, String> redundantIndexes(List<Document> specs) {
+        Map<String, String> redundant = new LinkedHashMap<>();
+        for (Document candidate : specs) {
+            if (!isPlainBtree(candidate) || candidate.getBoolean("unique", false)
+                    || ID_INDEX.equals(candidate.getString("name"))) continue;
+            for (Document other : specs) {
+                if (other == candidate || !isPlainBtree(other)) continue;
+                Document key = other.get("key", Document.class);
+                Document candidateKey = candidate.get("key", Document.class);
+                if (coversKey(key, candidateKey) && (key.size() > candidateKey.size()
+                        || other.getBoolean("unique", false)
+                        || other.getString("name").compareTo(candidate.getString("name")) < 0)) {
+                    redundant.put(candidate.getString("name"), other.getString("name"));
+                    break;
+                }
+            }
+        }
+        return redundant;
+    }
+
+    private static boolean isPlainBtree(Document spec) {
+        return !spec.getBoolean("sparse", false)
+                && !spec.containsKey("partialFilterExpression")
+                && spec.get("key", Document.class).values().stream().allMatch(Number.class::isInstance);
+    }
+
+    /**
+     * @return true when prefix has no more fields than key and matches its leading fields
+     */
+    private static boolean coversKey(Document key, Document prefix) {
+        if (prefix.size() > key.size()) return false;
+        List<Map.Entry<String, Object>> keyFields = new ArrayList<>(key.entrySet());
+        List<Map.Entry<String, Object>> prefixFields = new ArrayList<>(prefix.entrySet());
+        boolean same = true;
+        boolean inverted = true;
+        for (int i = 0; i < prefixFields.size(); i++) {
+            if (!keyFields.get(i).getKey().equals(prefixFields.get(i).getKey())) return false;
+            int direction = Integer.signum(((Number) keyFields.get(i).getValue()).intValue());
+            int prefixDirection = Integer.signum(((Number) prefixFields.get(i).getValue()).intValue());
+            same &= direction == prefixDirection;
+            inverted &= direction == -prefixDirection;
+        }
+        return same || inverted;
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
     /**
      * Statistics class
      */
@@ -51,4 +187,4 @@ public class MongoIndexManager {
             return sparseIndexes;
         }
     }
-}
\ No newline at end of file
+}
@@ -3,9 +3,11 @@ package spengergasse.at.sj2425scherzerrabar;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ConfigurationPropertiesScan
+@EnableScheduling
 public class Sj2425ScherzerRabarApplication {
 
     public static void main(String[] args) {
@@ -33,11 +33,15 @@ public class Borrowing {
 
 
     public Borrowing() {
-        this.borrowingApiKey = new ApiKeyFactory().generate(30);
+    }
+
+    @PrePersist
+    void assignApiKey() {
+        if (borrowingApiKey == null) borrowingApiKey = ApiKeyFactory.newApiKey();
     }
 
     public Borrowing(Customer customer, List<Copy> copies, LocalDate fromDate, int extendedByDays) {
-        this.borrowingApiKey = new ApiKeyFactory().generate(30);
+        this.borrowingApiKey = ApiKeyFactory.newApiKey();
         this.customer = customer;
         this.copies = copies;
         this.fromDate = fromDate;
@@ -75,5 +79,5 @@ public class Borrowing {
 
     @SuppressWarnings("JpaObjectClassSignatureInspection")
     @Embeddable
-    record BorrowingId (@GeneratedValue @NotNull Long id){}
+    record BorrowingId (@GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long id){}
 }
@@ -2,14 +2,21 @@ package spengergasse.at.sj2425scherzerrabar.domain;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
 import spengergasse.at.sj2425scherzerrabar.foundation.ApiKeyFactory;
 
 @Entity
 @Table(name = "branch")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Branch {
     @EmbeddedId
     BranchId branchId;
+    @NaturalId
     @Embedded
     @AttributeOverride(name = "apiKey", column = @Column(name = "branch_api_key"))
 
@@ -25,14 +32,18 @@ public class Branch {
 
     @SuppressWarnings("JpaObjectClassSignatureInspection")
     @Embeddable
-    record BranchId (@GeneratedValue @NotNull Long id){}
+    record BranchId (@GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long id){}
 
     public Branch() {
-        this.branchApiKey = new ApiKeyFactory().generate(30);
+    }
+
+    @PrePersist
+    void assignApiKey() {
+        if (branchApiKey == null) branchApiKey = ApiKeyFactory.newApiKey();
     }
 
     public Branch( Library library, Address address) {
-        this.branchApiKey = new ApiKeyFactory().generate(30);
+        this.branchApiKey = ApiKeyFactory.newApiKey();
         this.library = library;
         this.address = address;
     }
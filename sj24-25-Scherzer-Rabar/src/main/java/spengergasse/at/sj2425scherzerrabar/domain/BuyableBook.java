@@ -4,14 +4,21 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
 import spengergasse.at.sj2425scherzerrabar.foundation.ApiKeyFactory;
 
 @Entity
 @Table(name = "buyableBook")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class BuyableBook extends BookSpecification {
         @EmbeddedId
         private BuyableBookId buyableBookId;
+        @NaturalId
         @Embedded
         @AttributeOverride(name = "apiKey", column = @Column(name = "buyablebook_api_key"))
         private ApiKey buyableBookApiKey;
@@ -22,15 +29,19 @@ public class BuyableBook extends BookSpecification {
 
         @SuppressWarnings("JpaObjectClassSignatureInspection")
         @Embeddable
-        record BuyableBookId(@GeneratedValue @NotNull Long buyableBookId) {}
+        record BuyableBookId(@GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long buyableBookId) {}
 
-        public BuyableBook(){
-                this.buyableBookApiKey = new ApiKeyFactory().generate(30);
+        public BuyableBook() {
+        }
+
+        @PrePersist
+        void assignApiKey() {
+                if (buyableBookApiKey == null) buyableBookApiKey = ApiKeyFactory.newApiKey();
         }
         public BuyableBook(Publisher publisher, BookType bookType, Integer pageCount, Book book, Float price) {
                 super(publisher, bookType, pageCount, book);
                 this.price = price;
-                this.buyableBookApiKey = new ApiKeyFactory().generate(30);
+                this.buyableBookApiKey = ApiKeyFactory.newApiKey();
                 this.book = book;
         }
 
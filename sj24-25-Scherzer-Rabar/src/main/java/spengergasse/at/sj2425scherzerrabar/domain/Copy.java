@@ -19,17 +19,24 @@ public class Copy extends BookSpecification {
     @ManyToOne(cascade = CascadeType.PERSIST)
     @JoinColumn(name = "branch_id",foreignKey = @ForeignKey(name = "FK_copy_2_branch"))
     private Branch inBranch;
+    /** dient auch als ETag (Conditional GET) */
+    @Version
+    private Long version;
 
     public Copy(Publisher publisher, BookType bookType, Integer pageCount, Book book, Branch inBranch) {
         super(publisher,bookType,pageCount,book);
-        this.copyApiKey = new ApiKeyFactory().generate(30);
+        this.copyApiKey = ApiKeyFactory.newApiKey();
         this.inBranch = inBranch;
     }
 
 
 
     public Copy() {
-        this.copyApiKey = new ApiKeyFactory().generate(30);
+    }
+
+    @PrePersist
+    void assignApiKey() {
+        if (copyApiKey == null) copyApiKey = ApiKeyFactory.newApiKey();
     }
 
     public ApiKey getCopyApiKey() {
@@ -78,7 +85,11 @@ public class Copy extends BookSpecification {
         this.inBranch = inBranch;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     @SuppressWarnings("JpaObjectClassSignatureInspection")
     @Embeddable
-    record CopyId (@GeneratedValue @NotNull Long id){}
+    record CopyId (@GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long id){}
 }
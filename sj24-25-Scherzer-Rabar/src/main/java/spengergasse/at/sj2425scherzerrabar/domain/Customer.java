@@ -19,11 +19,15 @@ public class Customer extends Person {
     public Customer(String firstName, String lastName, EmailAddress emailAddress, List<Address> address) {
         super(firstName, lastName, emailAddress);
         this.address = address;
-        this.customerApiKey = new ApiKeyFactory().generate(30);
+        this.customerApiKey = ApiKeyFactory.newApiKey();
     }
-    public Customer(){
+    public Customer() {
         super();
-        customerApiKey = new ApiKeyFactory().generate(30);
+    }
+
+    @PrePersist
+    void assignApiKey() {
+        if (customerApiKey == null) customerApiKey = ApiKeyFactory.newApiKey();
     }
 
     public List<Address> getAddress() {
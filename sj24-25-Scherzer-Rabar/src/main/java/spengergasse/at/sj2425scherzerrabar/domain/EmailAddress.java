@@ -5,13 +5,12 @@ import jakarta.persistence.Embeddable;
 @SuppressWarnings("JpaObjectClassSignatureInspection")
 @Embeddable
 public record EmailAddress(String email) {
-    private static final String EMAIL_REGEX =  "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
     public EmailAddress(String email) {
 
         if(email == null || email.isEmpty()) {
             throw EmailAddressException.forNull();
         }
-        if (!email.matches(EMAIL_REGEX)) {
+        if (!isValid(email)) {
             throw EmailAddressException.forInvalidMail(email);
         }else {
             this.email = email;
@@ -19,6 +18,42 @@ public record EmailAddress(String email) {
 
     }
 
+    /**
+     * Entspricht ^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\.[a-zA-Z]{2,}$, aber in einem Durchlauf ohne Regex - läuft für
+     * jeden geladenen Author/Customer (EmailConverter) und jedes Mapping.
+     */
+    public static boolean isValid(String email) {
+        int at = -1;
+        int lastDot = -1;
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                if (at >= 0) return false;
+                at = i;
+            } else if (at < 0) {
+                if (!isAsciiLetterOrDigit(c) && c != '.' && c != '_' && c != '%' && c != '+' && c != '-') return false;
+            } else if (c == '.') {
+                lastDot = i;
+            } else if (!isAsciiLetterOrDigit(c) && c != '-') {
+                return false;
+            }
+        }
+        // mindestens ein Zeichen vor @, zwischen @ und dem letzten Punkt und zwei Buchstaben danach
+        if (at < 1 || lastDot < at + 2 || email.length() - lastDot - 1 < 2) return false;
+        for (int i = lastDot + 1; i < email.length(); i++) {
+            if (!isAsciiLetter(email.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+
     @Override
     public String toString() {
         return email;
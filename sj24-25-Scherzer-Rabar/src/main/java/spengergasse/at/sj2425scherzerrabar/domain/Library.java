@@ -2,6 +2,10 @@ package spengergasse.at.sj2425scherzerrabar.domain;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
 import spengergasse.at.sj2425scherzerrabar.foundation.ApiKeyFactory;
 
@@ -9,11 +13,14 @@ import java.util.List;
 
 @Entity
 @Table(name = "library")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Library {
     @EmbeddedId
     private LibraryId libraryId;
     @NotNull
     private String name;
+    @NaturalId
     @Embedded
     @AttributeOverride(name = "apiKey", column = @Column(name = "library_api_key"))
     private ApiKey libraryApiKey;
@@ -28,12 +35,15 @@ public class Library {
     private List<BookInLibraries> booksInLibraries;
 
     public Library() {
-        this.libraryApiKey = new ApiKeyFactory().generate(30);
+    }
 
+    @PrePersist
+    void assignApiKey() {
+        if (libraryApiKey == null) libraryApiKey = ApiKeyFactory.newApiKey();
     }
 
     public Library( String name, Address headquarters, List<BookInLibraries> booksInLibraries) {
-        this.libraryApiKey = new ApiKeyFactory().generate(30);
+        this.libraryApiKey = ApiKeyFactory.newApiKey();
         this.name = name;
         this.headquarters = headquarters;
         this.booksInLibraries = booksInLibraries;
@@ -70,6 +80,6 @@ public class Library {
 
     @SuppressWarnings("JpaObjectClassSignatureInspection")
     @Embeddable
-    record LibraryId (@GeneratedValue @NotNull Long id){}
+    record LibraryId (@GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long id){}
 
 }
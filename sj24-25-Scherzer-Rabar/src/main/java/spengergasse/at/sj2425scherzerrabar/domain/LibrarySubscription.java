@@ -4,13 +4,20 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import spengergasse.at.sj2425scherzerrabar.foundation.ApiKeyFactory;
 
 @Entity
 @Table(name = "librarysubscription")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class LibrarySubscription {
     @EmbeddedId
     private LibrarySubscriptionId librarySubscriptionId;
+    @NaturalId
     @Embedded
     @AttributeOverride(name = "apiKey", column = @Column(name = "librarysubscription_api_key"))
     private ApiKey librarySubscriptionApiKey;
@@ -27,11 +34,15 @@ public class LibrarySubscription {
     private Library library;
 
     public LibrarySubscription() {
-        this.librarySubscriptionApiKey = new ApiKeyFactory().generate(30);
+    }
+
+    @PrePersist
+    void assignApiKey() {
+        if (librarySubscriptionApiKey == null) librarySubscriptionApiKey = ApiKeyFactory.newApiKey();
     }
 
     public LibrarySubscription(String name, String description, Double monthlyCost, Library library) {
-        this.librarySubscriptionApiKey = new ApiKeyFactory().generate(30);
+        this.librarySubscriptionApiKey = ApiKeyFactory.newApiKey();
         this.name = name;
         this.description = description;
         this.monthlyCost = monthlyCost;
@@ -46,5 +57,5 @@ public class LibrarySubscription {
 
     @SuppressWarnings("JpaObjectClassSignatureInspection")
     @Embeddable
-    record LibrarySubscriptionId (@GeneratedValue @NotNull Long id){}
+    record LibrarySubscriptionId (@GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long id){}
 }
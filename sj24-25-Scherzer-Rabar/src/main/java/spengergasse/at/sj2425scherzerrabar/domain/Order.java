@@ -39,14 +39,18 @@ public class Order {
     private List<BuyableBook> books;
 
     public Order() {
-        this.orderApiKey = new ApiKeyFactory().generate(30);
+    }
+
+    @PrePersist
+    void assignApiKey() {
+        if (orderApiKey == null) orderApiKey = ApiKeyFactory.newApiKey();
     }
     public Order(Customer customer,  List<LibrarySubscription> subscriptions, LocalDate date, List<BuyableBook> books) {
         this.customer = customer;
         this.subscriptions = subscriptions;
         this.date = date;
         this.books = books;
-        this.orderApiKey = new ApiKeyFactory().generate(30);
+        this.orderApiKey = ApiKeyFactory.newApiKey();
 
     }
 
@@ -89,5 +93,5 @@ public class Order {
 
     @SuppressWarnings("JpaObjectClassSignatureInspection")
     @Embeddable
-    record OrderId(@GeneratedValue @NotNull Long id){}
+    record OrderId(@GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long id){}
 }
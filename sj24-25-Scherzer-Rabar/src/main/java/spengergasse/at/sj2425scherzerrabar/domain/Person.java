@@ -18,7 +18,7 @@ public class Person {
     @SuppressWarnings("JpaObjectClassSignatureInspection")
     @Embeddable
     public record PersonId(
-            @GeneratedValue @NotNull Long id){
+            @GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long id){
     }
 
 
@@ -2,14 +2,21 @@ package spengergasse.at.sj2425scherzerrabar.domain;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
 import spengergasse.at.sj2425scherzerrabar.foundation.ApiKeyFactory;
 
 @Entity
 @Table(name = "publisher")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Publisher  {
     @EmbeddedId
     private PublisherId publisherId;
+    @NaturalId
     @Embedded
     @AttributeOverride(name = "apiKey", column = @Column(name = "publisher_api_key"))
     private ApiKey publisherApiKey;
@@ -21,18 +28,22 @@ public class Publisher  {
     private Address address;
 
     public Publisher() {
-        this.publisherApiKey = new ApiKeyFactory().generate(30);
+    }
+
+    @PrePersist
+    void assignApiKey() {
+        if (publisherApiKey == null) publisherApiKey = ApiKeyFactory.newApiKey();
     }
 
     public Publisher(String name, Address address) {
-        this.publisherApiKey = new ApiKeyFactory().generate(30);
+        this.publisherApiKey = ApiKeyFactory.newApiKey();
         this.name = name;
         this.address = address;
     }
 
     @SuppressWarnings("JpaObjectClassSignatureInspection")
     @Embeddable
-    record PublisherId (@GeneratedValue @NotNull Long id){}
+    record PublisherId (@GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long id){}
 
     public PublisherId getPublisherId() {
         return publisherId;
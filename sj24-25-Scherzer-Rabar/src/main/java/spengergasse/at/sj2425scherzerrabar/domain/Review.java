@@ -39,7 +39,7 @@ public class Review {
 
 
     public Review(String title, Integer rating, String description, Customer customer, Book book, Branch branch, Publisher publisher) {
-        this.reviewApiKey = new ApiKeyFactory().generate(30);
+        this.reviewApiKey = ApiKeyFactory.newApiKey();
         this.title = title;
         this.rating = rating;
         this.description = description;
@@ -50,12 +50,16 @@ public class Review {
     }
 
     public Review() {
-        this.reviewApiKey = new ApiKeyFactory().generate(30);
+    }
+
+    @PrePersist
+    void assignApiKey() {
+        if (reviewApiKey == null) reviewApiKey = ApiKeyFactory.newApiKey();
     }
 
     @SuppressWarnings("JpaObjectClassSignatureInspection")
     @Embeddable
-    record ReviewId( @GeneratedValue @NotNull Long reviewId) {
+    record ReviewId( @GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long reviewId) {
 
     }
 
@@ -45,9 +45,28 @@ public class Address {
         return streetAndNumber + "-" + city + '-' + zip;
     }
 
+    /**
+     * Liest das Format von toString (street-city-zip) in einem Durchlauf: zwei indexOf, zwei substring,
+     * die PLZ wird direkt aus dem String geparst. Was nach einem weiteren '-' folgt, wird wie bisher ignoriert.
+     */
     public static Address addressFromString(String address) {
-        String[] addressAttributes = address.split("-");
-        return new Address(addressAttributes[0], addressAttributes[1], Integer.parseInt(addressAttributes[2]));
+        if (address == null) {
+            throw AddressException.forNull();
+        }
+        int cityStart = address.indexOf('-') + 1;
+        int zipStart = cityStart == 0 ? 0 : address.indexOf('-', cityStart) + 1;
+        if (zipStart == 0) {
+            throw AddressException.forInvalidAddress(address);
+        }
+        int zipEnd = address.indexOf('-', zipStart);
+        if (zipEnd < 0) zipEnd = address.length();
+        int zip;
+        try {
+            zip = Integer.parseInt(address, zipStart, zipEnd, 10);
+        } catch (NumberFormatException e) {
+            throw AddressException.forInvalidAddress(address);
+        }
+        return new Address(address.substring(0, cityStart - 1), address.substring(cityStart, zipStart - 1), zip);
     }
 
     public static class AddressException extends RuntimeException {
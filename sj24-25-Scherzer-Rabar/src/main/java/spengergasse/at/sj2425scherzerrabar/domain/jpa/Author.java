@@ -1,16 +1,23 @@
 package spengergasse.at.sj2425scherzerrabar.domain.jpa;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.EmailAddress;
 import spengergasse.at.sj2425scherzerrabar.domain.Person;
 import spengergasse.at.sj2425scherzerrabar.foundation.ApiKeyFactory;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "author")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Author extends Person {
     private String penname;
 
@@ -19,11 +26,20 @@ public class Author extends Person {
     @JoinTable(name = "addresses_in_authors", foreignKey = @ForeignKey(name = "FK_adresses_2_author"))
     protected List<Address> address;
     
+    @NaturalId
     @Embedded
     @AttributeOverride(name = "apiKey", column = @Column(name = "author_api_key"))
     private ApiKey authorApiKey;
     @ManyToMany(mappedBy = "authors")
     private List<Book> books = new ArrayList<>();
+    @Version
+    private Long version;
+    /** wird per Trigger von der Datenbank gesetzt (Delta-Sync nach MongoDB) */
+    @Column(insertable = false, updatable = false)
+    private Instant lastModified;
+    /** Transaktions-Id der letzten Änderung, per Trigger gesetzt - Position des Delta-Syncs */
+    @Column(insertable = false, updatable = false)
+    private Long changeXid;
 
 
     public Author(String firstName, String lastName, List<Address> address, EmailAddress emailAddress, String penname) {
@@ -31,13 +47,16 @@ public class Author extends Person {
         this.penname = penname;
         this.address = address;
 
-        this.authorApiKey = new ApiKeyFactory().generate(30);
+        this.authorApiKey = ApiKeyFactory.newApiKey();
     }
 
     public Author() {
         super();
+    }
 
-        this.authorApiKey = new ApiKeyFactory().generate(30);
+    @PrePersist
+    void assignApiKey() {
+        if (authorApiKey == null) authorApiKey = ApiKeyFactory.newApiKey();
     }
 
     public String getPenname() {
@@ -52,6 +71,14 @@ public class Author extends Person {
         return authorApiKey;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
 
     public List<Address> getAddress() {
         return address;
@@ -11,6 +11,7 @@ import spengergasse.at.sj2425scherzerrabar.foundation.ApiKeyFactory;
 import spengergasse.at.sj2425scherzerrabar.persistence.converter.BookGenreConverter;
 import spengergasse.at.sj2425scherzerrabar.persistence.converter.BookTypeConverter;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -53,13 +54,25 @@ public class Book {
                     foreignKey = @ForeignKey(name = "FK_authors_2_books"))
     )
     private List<Author> authors = new ArrayList<>();
+    @Version
+    private Long version;
+    /** wird per Trigger von der Datenbank gesetzt (Delta-Sync nach MongoDB) */
+    @Column(insertable = false, updatable = false)
+    private Instant lastModified;
+    /** Transaktions-Id der letzten Änderung, per Trigger gesetzt - Position des Delta-Syncs */
+    @Column(insertable = false, updatable = false)
+    private Long changeXid;
 
     public Book() {
-        this.bookApiKey = new ApiKeyFactory().generate(30);
+    }
+
+    @PrePersist
+    void assignApiKey() {
+        if (bookApiKey == null) bookApiKey = ApiKeyFactory.newApiKey();
     }
 
     public Book(String name, LocalDate releaseDate, Boolean availableOnline, Integer wordCount, List<BookGenre> genres, List<Author> authors, List<BookType> bookTypes, String description) {
-        this.bookApiKey = new ApiKeyFactory().generate(30);
+        this.bookApiKey = ApiKeyFactory.newApiKey();
         this.name = name;
         this.releaseDate = releaseDate;
         this.availableOnline = availableOnline;
@@ -147,9 +160,17 @@ public class Book {
         return bookId;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
     @SuppressWarnings("JpaObjectClassSignatureInspection")
     @Embeddable
-    public record BookId(@GeneratedValue @NotNull Long id) {
+    public record BookId(@GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long id) {
 
 
     }
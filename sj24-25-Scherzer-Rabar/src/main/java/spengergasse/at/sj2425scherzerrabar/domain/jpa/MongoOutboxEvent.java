@@ -0,0 +1,119 @@
+package spengergasse.at.sj2425scherzerrabar.domain.jpa;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Instant;
+
+/**
+ * Eintrag in der Outbox-Tabelle: wird in derselben PostgreSQL-Transaktion wie die
+ * eigentliche Änderung geschrieben und danach vom MongoOutboxRelay nach MongoDB übertragen.
+ */
+@Entity
+@Table(name = "mongo_outbox")
+public class MongoOutboxEvent {
+
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    @EmbeddedId
+    private MongoOutboxEventId id;
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private AggregateType aggregateType;
+    @NotNull
+    private Long aggregateId;
+    @NotNull
+    private String apiKey;
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private Operation operation;
+    @NotNull
+    private Instant createdAt;
+    @NotNull
+    private Integer attempts;
+    @NotNull
+    private Instant nextAttemptAt;
+    @Column(length = MAX_ERROR_LENGTH)
+    private String lastError;
+
+    protected MongoOutboxEvent() {
+    }
+
+    public MongoOutboxEvent(AggregateType aggregateType, Long aggregateId, String apiKey, Operation operation) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.apiKey = apiKey;
+        this.operation = operation;
+        this.createdAt = Instant.now();
+        this.attempts = 0;
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    /**
+     * Stellt das Event frühestens ab nextAttemptAt zu
+     */
+    public MongoOutboxEvent deferUntil(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+        return this;
+    }
+
+    /**
+     * Merkt einen fehlgeschlagenen Versuch und verschiebt den nächsten Versuch nach hinten.
+     */
+    public void failed(String error, Instant nextAttemptAt) {
+        this.attempts++;
+        this.nextAttemptAt = nextAttemptAt;
+        this.lastError = error == null || error.length() <= MAX_ERROR_LENGTH
+                ? error
+                : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    public MongoOutboxEventId getId() {
+        return id;
+    }
+
+    public AggregateType getAggregateType() {
+        return aggregateType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public enum AggregateType {
+        BOOK, AUTHOR
+    }
+
+    public enum Operation {
+        UPSERT, DELETE
+    }
+
+    @SuppressWarnings("JpaObjectClassSignatureInspection")
+    @Embeddable
+    public record MongoOutboxEventId(@GeneratedValue(strategy = GenerationType.SEQUENCE) @NotNull Long id) {
+    }
+}
@@ -0,0 +1,119 @@
+package spengergasse.at.sj2425scherzerrabar.domain.jpa;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+
+import java.time.Instant;
+
+/**
+ * Fortschritt einer Partition (Id-Bereich) beim vollständigen Resync PostgreSQL -> MongoDB.
+ * Ein abgebrochener Resync setzt bei lastSyncedId fort. Die Instanz, die eine Partition bearbeitet,
+ * hält eine Lease (leaseOwner, leaseUntil) und verlängert sie mit jeder Seite.
+ */
+@Entity
+@Table(name = "mongo_resync_checkpoint")
+public class MongoResyncCheckpoint {
+
+    @EmbeddedId
+    private MongoResyncCheckpointId id;
+    /** exklusive Untergrenze des Id-Bereichs */
+    @NotNull
+    private Long rangeStart;
+    /** inklusive Obergrenze des Id-Bereichs */
+    @NotNull
+    private Long rangeEnd;
+    @NotNull
+    private Long lastSyncedId;
+    @NotNull
+    private Long syncedCount;
+    @NotNull
+    private Boolean completed;
+    @NotNull
+    private Instant startedAt;
+    @NotNull
+    private Instant updatedAt;
+    private String leaseOwner;
+    private Instant leaseUntil;
+
+    protected MongoResyncCheckpoint() {
+    }
+
+    public MongoResyncCheckpoint(AggregateType aggregateType, Integer partitionNo, Long rangeStart, Long rangeEnd) {
+        this.id = new MongoResyncCheckpointId(aggregateType, partitionNo);
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.lastSyncedId = rangeStart;
+        this.syncedCount = 0L;
+        this.completed = false;
+        this.startedAt = Instant.now();
+        this.updatedAt = this.startedAt;
+    }
+
+    public void advance(Long lastSyncedId, int synced) {
+        this.lastSyncedId = lastSyncedId;
+        this.syncedCount += synced;
+        this.updatedAt = Instant.now();
+    }
+
+    public void complete() {
+        this.completed = true;
+        this.updatedAt = Instant.now();
+        this.leaseOwner = null;
+        this.leaseUntil = null;
+    }
+
+    public void lease(String owner, Instant until) {
+        this.leaseOwner = owner;
+        this.leaseUntil = until;
+    }
+
+    public boolean isLeasedAt(Instant now) {
+        return leaseUntil != null && leaseUntil.isAfter(now);
+    }
+
+    public MongoResyncCheckpointId getId() {
+        return id;
+    }
+
+    public Long getRangeStart() {
+        return rangeStart;
+    }
+
+    public Long getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public Long getLastSyncedId() {
+        return lastSyncedId;
+    }
+
+    public Long getSyncedCount() {
+        return syncedCount;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public Instant getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    @Embeddable
+    public record MongoResyncCheckpointId(@NotNull @Enumerated(EnumType.STRING) AggregateType aggregateType,
+                                          @NotNull Integer partitionNo) {
+    }
+}
@@ -0,0 +1,62 @@
+package spengergasse.at.sj2425scherzerrabar.domain.jpa;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+
+import java.time.Instant;
+
+/**
+ * Bis wohin der Delta-Sync PostgreSQL -> MongoDB geänderte Zeilen übertragen hat.
+ * Die Position ist (lastXid, lastId) - die Transaktions-Id der Änderung ist nach Commit geordnet lesbar
+ * (siehe MongoDeltaSyncService), die Id trennt mehrere Zeilen derselben Transaktion.
+ */
+@Entity
+@Table(name = "mongo_sync_watermark")
+public class MongoSyncWatermark {
+
+    @EmbeddedId
+    private MongoSyncWatermarkId id;
+    @NotNull
+    private Long lastXid;
+    @NotNull
+    private Long lastId;
+    @NotNull
+    private Instant updatedAt;
+
+    protected MongoSyncWatermark() {
+    }
+
+    public MongoSyncWatermark(AggregateType aggregateType, Long lastXid) {
+        this.id = new MongoSyncWatermarkId(aggregateType);
+        this.lastXid = lastXid;
+        this.lastId = 0L;
+        this.updatedAt = Instant.now();
+    }
+
+    public void advance(Long lastXid, Long lastId) {
+        this.lastXid = lastXid;
+        this.lastId = lastId;
+        this.updatedAt = Instant.now();
+    }
+
+    public MongoSyncWatermarkId getId() {
+        return id;
+    }
+
+    public Long getLastXid() {
+        return lastXid;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @Embeddable
+    public record MongoSyncWatermarkId(@NotNull @Enumerated(EnumType.STRING) AggregateType aggregateType) {
+    }
+}
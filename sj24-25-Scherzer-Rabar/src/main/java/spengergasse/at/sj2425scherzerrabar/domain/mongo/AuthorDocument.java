@@ -4,6 +4,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
+import spengergasse.at.sj2425scherzerrabar.foundation.SearchKey;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,6 +27,10 @@ public class AuthorDocument {
     @Field("pen_name")
     private String penname;
 
+    /** SearchKey von penname */
+    @Field("pen_name_key")
+    private String pennameKey;
+
     @Field("email")
     private String email;
 
@@ -44,6 +49,7 @@ public class AuthorDocument {
         this.firstName = firstName;
         this.lastName = lastName;
         this.penname = penname;
+        this.pennameKey = SearchKey.of(penname);
         this.email = email;
         this.apiKey = apiKey;
     }
@@ -87,6 +93,15 @@ public class AuthorDocument {
 
     public void setPenname(String penname) {
         this.penname = penname;
+        this.pennameKey = SearchKey.of(penname);
+    }
+
+    public String getPennameKey() {
+        return pennameKey;
+    }
+
+    public void setPennameKey(String pennameKey) {
+        this.pennameKey = pennameKey;
     }
 
     public String getEmail() {
@@ -119,6 +134,8 @@ public class AuthorDocument {
     public static class AddressMongo {
         private String streetAndNumber;
         private String city;
+        /** SearchKey von city */
+        private String cityKey;
         private Integer zip;
 
         public AddressMongo() {
@@ -127,6 +144,7 @@ public class AuthorDocument {
         public AddressMongo(String streetAndNumber, String city, Integer zip) {
             this.streetAndNumber = streetAndNumber;
             this.city = city;
+            this.cityKey = SearchKey.of(city);
             this.zip = zip;
         }
 
@@ -156,6 +174,15 @@ public class AuthorDocument {
 
         public void setCity(String city) {
             this.city = city;
+            this.cityKey = SearchKey.of(city);
+        }
+
+        public String getCityKey() {
+            return cityKey;
+        }
+
+        public void setCityKey(String cityKey) {
+            this.cityKey = cityKey;
         }
 
         public Integer getZip() {
@@ -45,6 +45,10 @@ public class BookDocument {
     private List<String> authorApiKeys = new ArrayList<>();
     private List<String> authorIds;
 
+    /** @Version des Books in PostgreSQL; ältere Writes dürfen einen neueren Stand nicht überschreiben */
+    @Field("version")
+    private Long version;
+
     public BookDocument() {
     }
 
@@ -156,4 +160,12 @@ public class BookDocument {
     public void setAuthorIds(List<String> authorIds) {
         this.authorIds = authorIds;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
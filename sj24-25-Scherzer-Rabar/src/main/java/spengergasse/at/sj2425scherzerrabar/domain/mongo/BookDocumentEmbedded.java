@@ -1,10 +1,11 @@
 package spengergasse.at.sj2425scherzerrabar.domain.mongo;
 
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import spengergasse.at.sj2425scherzerrabar.foundation.SearchKey;
+
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,13 +20,16 @@ public class BookDocumentEmbedded {
     @Id
     private String id;
 
-    @Indexed // Wichtig für Vergleichbarkeit beim Suchen nach ID
     @Field("postgres_id")
     private Long postgresId;
 
     @Field("name")
     private String name;
 
+    /** SearchKey von name */
+    @Field("name_key")
+    private String nameKey;
+
     @Field("release_date")
     private LocalDate releaseDate;
 
@@ -38,10 +42,13 @@ public class BookDocumentEmbedded {
     @Field("description")
     private String description;
 
-    @Indexed
     @Field("api_key")
     private String apiKey;
 
+    /** @Version des Books in PostgreSQL, damit ETag und Body aus demselben Stand kommen */
+    @Field("version")
+    private Long version;
+
     @Field("book_types")
     private List<String> bookTypes = new ArrayList<>();
 
@@ -74,6 +81,8 @@ public class BookDocumentEmbedded {
     public void setPostgresId(Long postgresId) { this.postgresId = postgresId; }
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
+    public String getNameKey() { return nameKey; }
+    public void setNameKey(String nameKey) { this.nameKey = nameKey; }
     public LocalDate getReleaseDate() { return releaseDate; }
     public void setReleaseDate(LocalDate releaseDate) { this.releaseDate = releaseDate; }
     public Boolean getAvailableOnline() { return availableOnline; }
@@ -84,6 +93,8 @@ public class BookDocumentEmbedded {
     public void setDescription(String description) { this.description = description; }
     public String getApiKey() { return apiKey; }
     public void setApiKey(String apiKey) { this.apiKey = apiKey; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public List<String> getBookTypes() { return bookTypes; }
     public void setBookTypes(List<String> bookTypes) { this.bookTypes = bookTypes; }
     public List<String> getGenres() { return genres; }
@@ -92,13 +103,16 @@ public class BookDocumentEmbedded {
     public void setAuthors(List<EmbeddedAuthor> authors) { this.authors = authors; }
 
     public static class EmbeddedAuthor {
-        @Indexed // Wichtig: Wir wollen nach Autoren in Büchern suchen
         @Field("api_key")
         private String apiKey;
 
         @Field("penname")
         private String penname;
 
+        /** SearchKey von penname */
+        @Field("penname_key")
+        private String pennameKey;
+
         @Field("first_name")
         private String firstName;
 
@@ -108,6 +122,10 @@ public class BookDocumentEmbedded {
         @Field("email")
         private String email;
 
+        /** @Version des Authors in PostgreSQL */
+        @Field("version")
+        private Long version;
+
         @Field("addresses")
         private List<AuthorDocument.AddressMongo> addresses = new ArrayList<>();
 
@@ -117,6 +135,7 @@ public class BookDocumentEmbedded {
                               String lastName, String email) {
             this.apiKey = apiKey;
             this.penname = penname;
+            this.pennameKey = SearchKey.of(penname);
             this.firstName = firstName;
             this.lastName = lastName;
             this.email = email;
@@ -126,13 +145,20 @@ public class BookDocumentEmbedded {
         public String getApiKey() { return apiKey; }
         public void setApiKey(String apiKey) { this.apiKey = apiKey; }
         public String getPenname() { return penname; }
-        public void setPenname(String penname) { this.penname = penname; }
+        public void setPenname(String penname) {
+            this.penname = penname;
+            this.pennameKey = SearchKey.of(penname);
+        }
+        public String getPennameKey() { return pennameKey; }
+        public void setPennameKey(String pennameKey) { this.pennameKey = pennameKey; }
         public String getFirstName() { return firstName; }
         public void setFirstName(String firstName) { this.firstName = firstName; }
         public String getLastName() { return lastName; }
         public void setLastName(String lastName) { this.lastName = lastName; }
         public String getEmail() { return email; }
         public void setEmail(String email) { this.email = email; }
+        public Long getVersion() { return version; }
+        public void setVersion(Long version) { this.version = version; }
         public List<AuthorDocument.AddressMongo> getAddresses() { return addresses; }
         public void setAddresses(List<AuthorDocument.AddressMongo> addresses) { this.addresses = addresses; }
     }
@@ -1,6 +1,6 @@
 package spengergasse.at.sj2425scherzerrabar.dtos;
 
-
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
 
@@ -13,18 +13,19 @@ public record AuthorDto(
         List<String> address,
         String firstname,
         String lastname,
-        String emailAddress
+        String emailAddress,
+        @JsonIgnore Long version
 ) {
 
     public AuthorDto (Author author) {
-        this(author.getAuthorApiKey().apiKey(),author.getPenname(),author.getAddress().stream().map(Address::toString).toList(),author.getFirstName(),author.getLastName(),author.getEmailAddress().email());
+        this(author.getAuthorApiKey().apiKey(),author.getPenname(),author.getAddress().stream().map(Address::toString).toList(),author.getFirstName(),author.getLastName(),author.getEmailAddress().email(),author.getVersion());
     }
 
     public static AuthorDto authorDtoFromAuthor(Author author) {
         return new AuthorDto(
                 author.getAuthorApiKey().apiKey(), author.getPenname(),
                 author.getAddress().stream().map((Address::toString)).toList(),
-                author.getFirstName(), author.getLastName(), author.getEmailAddress().email()
+                author.getFirstName(), author.getLastName(), author.getEmailAddress().email(), author.getVersion()
         );
     }
 }
@@ -0,0 +1,18 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import java.time.Instant;
+
+/**
+ * Fortschritt eines Hintergrund-Jobs, der eine Author-Änderung in books_with_embedded_authors überträgt
+ */
+public record AuthorPropagationProgress(String authorApiKey,
+                                        String operation,
+                                        long total,
+                                        long processed,
+                                        double percent,
+                                        Instant requestedAt,
+                                        Instant startedAt,
+                                        int attempt,
+                                        boolean newerChangePending,
+                                        String error) {
+}
@@ -0,0 +1,20 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import java.util.List;
+
+/**
+ * Eine Seite der gefilterten Books und die Anzahl aller gefilterten Books je Genre, Typ und Erscheinungsjahr.
+ * Die Zählungen beziehen sich auf den ganzen Filter, nicht nur auf die Seite.
+ */
+public record BookFacets(KeysetPage<BookDto> page,
+                         List<FacetCount> genres,
+                         List<FacetCount> types,
+                         List<FacetCount> releaseYears) {
+
+    public record FacetCount(String value, long count) {
+    }
+
+    public BookFacets withPage(KeysetPage<BookDto> page) {
+        return new BookFacets(page, genres, types, releaseYears);
+    }
+}
@@ -0,0 +1,29 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import spengergasse.at.sj2425scherzerrabar.domain.BookGenre;
+import spengergasse.at.sj2425scherzerrabar.domain.BookType;
+
+import java.time.LocalDate;
+
+/**
+ * Filter für /api/books/filter (PostgreSQL) und /api/books/facets (Read-Model); null heißt "nicht eingeschränkt",
+ * alle gesetzten Felder müssen zutreffen. Bereiche sind inklusive.
+ * @param author Api-Key eines Authors
+ */
+public record BookFilter(BookGenre genre, BookType type, Boolean availableOnline,
+                         Integer minWordCount, Integer maxWordCount,
+                         LocalDate releasedFrom, LocalDate releasedTo, String author) {
+
+    /**
+     * @return Beschreibung des ersten leeren Bereichs (von > bis), null wenn alle Bereiche gültig sind
+     */
+    public String invalidRange() {
+        if (minWordCount != null && maxWordCount != null && minWordCount > maxWordCount) {
+            return "minWordCount (%d) must not be greater than maxWordCount (%d)".formatted(minWordCount, maxWordCount);
+        }
+        if (releasedFrom != null && releasedTo != null && releasedFrom.isAfter(releasedTo)) {
+            return "releasedFrom (%s) must not be after releasedTo (%s)".formatted(releasedFrom, releasedTo);
+        }
+        return null;
+    }
+}
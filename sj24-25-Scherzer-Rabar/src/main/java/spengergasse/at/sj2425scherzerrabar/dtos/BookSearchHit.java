@@ -0,0 +1,10 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Treffer der Volltextsuche; score ist der MongoDB textScore (höher = relevanter)
+ */
+public record BookSearchHit(String apiKey, String name, LocalDate releaseDate, List<String> pennames, double score) {
+}
@@ -0,0 +1,10 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import java.util.List;
+
+public record BulkImportReport(long rowsRead, long rowsImported, long rowsFailed, int chunks,
+                               long durationMillis, double rowsPerSecond, List<RowError> errors,
+                               boolean errorsTruncated) {
+
+    public record RowError(long row, String message) {}
+}
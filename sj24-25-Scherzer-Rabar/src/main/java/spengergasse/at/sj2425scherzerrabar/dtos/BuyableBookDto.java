@@ -1,11 +1,17 @@
 package spengergasse.at.sj2425scherzerrabar.dtos;
 
+import spengergasse.at.sj2425scherzerrabar.domain.BookType;
 import spengergasse.at.sj2425scherzerrabar.domain.BuyableBook;
 
 public record BuyableBookDto(
         String buyableBookApiKey,Float price, String publisherApiKey,
         String bookType, Integer pageCount, String bookApiKey
 ) {
+    public BuyableBookDto(String buyableBookApiKey, Float price, String publisherApiKey,
+                          BookType bookType, Integer pageCount, String bookApiKey) {
+        this(buyableBookApiKey, price, publisherApiKey, bookType != null ? bookType.name() : null, pageCount, bookApiKey);
+    }
+
     public static BuyableBookDto buyableBookDtoFromBuyableBook(BuyableBook buyableBook) {
         return new BuyableBookDto(
           buyableBook.getBuyableBookApiKey().apiKey(),buyableBook.getPrice(),
@@ -0,0 +1,9 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import java.time.Instant;
+
+/**
+ * Id, Transaktions-Id und Änderungszeitpunkt einer geänderten Zeile (Delta-Sync)
+ */
+public record ChangeMarker(Long id, Long changeXid, Instant lastModified) {
+}
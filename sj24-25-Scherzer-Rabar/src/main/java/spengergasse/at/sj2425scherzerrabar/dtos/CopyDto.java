@@ -1,14 +1,16 @@
 package spengergasse.at.sj2425scherzerrabar.dtos;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import spengergasse.at.sj2425scherzerrabar.domain.*;
 
-public record CopyDto(String apiKey, String publisherApiKey, String bookType, Integer pageCount, String bookApiKey, String branchApiKey) {
+public record CopyDto(String apiKey, String publisherApiKey, String bookType, Integer pageCount, String bookApiKey, String branchApiKey,
+                      @JsonIgnore Long version) {
 
-    public CopyDto(String apiKey, String publisherApiKey, BookType bookType, Integer pageCount, String bookApiKey, String branchApiKey) {
-        this(apiKey, publisherApiKey, bookType != null ? bookType.name() : null, pageCount, bookApiKey, branchApiKey);
+    public CopyDto(String apiKey, String publisherApiKey, BookType bookType, Integer pageCount, String bookApiKey, String branchApiKey, Long version) {
+        this(apiKey, publisherApiKey, bookType != null ? bookType.name() : null, pageCount, bookApiKey, branchApiKey, version);
     }
 
     public static CopyDto copyDtoFromCopy(Copy copy) {
-        return new CopyDto(copy.getCopyApiKey().apiKey(), copy.getPublisher().getPublisherApiKey().apiKey(), copy.getBookType().name(), copy.getPageCount(), copy.getBook().getBookApiKey().apiKey(),copy.getInBranch().getBranchApiKey().apiKey());
+        return new CopyDto(copy.getCopyApiKey().apiKey(), copy.getPublisher().getPublisherApiKey().apiKey(), copy.getBookType().name(), copy.getPageCount(), copy.getBook().getBookApiKey().apiKey(),copy.getInBranch().getBranchApiKey().apiKey(), copy.getVersion());
     }
 }
@@ -0,0 +1,21 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import java.util.List;
+
+/**
+ * Ergebnis von /actuator/indexadvisor
+ * @param statements Anzahl der untersuchten SELECTs
+ * @param seqScans   Seq Scans auf großen Tabellen, größte Tabelle zuerst
+ * @param failures   SELECTs, für die EXPLAIN fehlgeschlagen ist
+ */
+public record IndexAdvisorReport(int statements, long largeTableRows, List<SeqScan> seqScans, List<Failure> failures) {
+
+    /**
+     * @param filter Bedingung, die der Seq Scan pro Zeile prüft - Kandidat für einen Index
+     */
+    public record SeqScan(String relation, long liveRows, String filter, String sql) {
+    }
+
+    public record Failure(String sql, String error) {
+    }
+}
@@ -0,0 +1,57 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import org.springframework.data.domain.Limit;
+import spengergasse.at.sj2425scherzerrabar.foundation.ETags;
+import spengergasse.at.sj2425scherzerrabar.foundation.KeysetCursor;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Eine Seite einer Collection (Keyset-Pagination über die Id).
+ * nextCursor ist null auf der letzten Seite, next ist der fertige Link darauf (setzt der Controller).
+ */
+public record KeysetPage<T>(List<T> items, int limit, String nextCursor, String next) {
+
+    /**
+     * Lädt limit + 1 Ids nach dem Cursor (Primary-Key-Index, kein OFFSET) und projiziert nur die Ids der Seite
+     * @param idsAfter       Ids größer als afterId, aufsteigend sortiert
+     * @param projectedByIds DTOs zu den Ids, in derselben Reihenfolge
+     */
+    public static <T> KeysetPage<T> fetch(String after, Integer limit,
+                                          BiFunction<Long, Limit, List<Long>> idsAfter,
+                                          Function<List<Long>, List<T>> projectedByIds) {
+        int pageSize = KeysetCursor.limit(limit);
+        List<Long> ids = idsAfter.apply(KeysetCursor.decode(after), Limit.of(pageSize + 1));
+
+        boolean hasNext = ids.size() > pageSize;
+        List<Long> pageIds = hasNext ? ids.subList(0, pageSize) : ids;
+        List<T> items = pageIds.isEmpty() ? List.of() : projectedByIds.apply(pageIds);
+        return new KeysetPage<>(items, pageSize, hasNext ? KeysetCursor.encode(pageIds.getLast()) : null, null);
+    }
+
+    /**
+     * ETag der Seite, die fetch mit denselben Parametern liefern würde: Hash über Id und @Version jeder Zeile
+     * und darüber, ob es eine nächste Seite gibt. Liest nur (id, version), keine DTOs.
+     * @param versionsAfter Id und Version der Zeilen mit Id größer als afterId, aufsteigend nach Id sortiert
+     */
+    public static String etag(String after, Integer limit, BiFunction<Long, Limit, List<RowVersion>> versionsAfter) {
+        int pageSize = KeysetCursor.limit(limit);
+        List<RowVersion> rows = versionsAfter.apply(KeysetCursor.decode(after), Limit.of(pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<RowVersion> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+        long[] values = new long[pageRows.size() * 2 + 1];
+        for (int i = 0; i < pageRows.size(); i++) {
+            values[2 * i] = pageRows.get(i).id();
+            values[2 * i + 1] = pageRows.get(i).version();
+        }
+        values[values.length - 1] = hasNext ? 1 : 0;
+        return ETags.digest(values);
+    }
+
+    public KeysetPage<T> withNext(String nextLink) {
+        return new KeysetPage<>(items, limit, nextCursor, nextLink);
+    }
+}
@@ -0,0 +1,32 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ergebnis von /actuator/mongoindexes: Größe und Zugriffe ($indexStats) jedes Index der MongoDB-Collections
+ */
+public record MongoIndexReport(List<CollectionIndexes> collections) {
+
+    /**
+     * @param totalIndexSizeBytes Summe aller Indizes der Collection - liegt im Idealfall komplett im WiredTiger-Cache
+     */
+    public record CollectionIndexes(String collection, long documents, long totalIndexSizeBytes, List<IndexUsage> indexes) {
+    }
+
+    /**
+     * @param accesses     Zugriffe seit since (Neustart von mongod bzw. Anlegen des Index)
+     * @param unused       keine Zugriffe seit since und weder _id_ noch unique
+     * @param redundantWith Index, dessen Key mit dem Key dieses Index beginnt und ihn damit ersetzen kann, sonst null
+     */
+    public record IndexUsage(String name,
+                             Map<String, Object> key,
+                             boolean unique,
+                             long sizeBytes,
+                             long accesses,
+                             Instant since,
+                             boolean unused,
+                             String redundantWith) {
+    }
+}
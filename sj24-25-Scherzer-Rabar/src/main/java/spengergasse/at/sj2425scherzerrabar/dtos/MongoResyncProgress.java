@@ -0,0 +1,12 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import java.time.Instant;
+import java.util.List;
+
+public record MongoResyncProgress(String aggregateType, String status, long total, long synced, double percent,
+                                  double rowsPerSecond, Long etaSeconds, Instant startedAt, String error,
+                                  List<PartitionProgress> partitions) {
+
+    public record PartitionProgress(int partition, long rangeStart, long rangeEnd, long lastSyncedId,
+                                    long synced, boolean completed) {}
+}
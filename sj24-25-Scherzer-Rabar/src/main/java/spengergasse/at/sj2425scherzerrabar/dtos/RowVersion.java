@@ -0,0 +1,7 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+/**
+ * Id und @Version einer Zeile (ETag einer Collection-Seite)
+ */
+public record RowVersion(Long id, Long version) {
+}
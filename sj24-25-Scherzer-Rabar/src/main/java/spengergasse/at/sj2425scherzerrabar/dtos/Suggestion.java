@@ -0,0 +1,7 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+/**
+ * Treffer der Typeahead-Suche: value wird übernommen (Penname, ApiKey), label wird angezeigt
+ */
+public record Suggestion(String value, String label) {
+}
@@ -1,21 +1,63 @@
 package spengergasse.at.sj2425scherzerrabar.foundation;
 import org.springframework.stereotype.Component;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
+
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 
+/**
+ * Erzeugt ApiKeys aus dem Base58-Alphabet (ohne 0, O, I, l).
+ * Die Entities vergeben ihren Key nur für neue Objekte (fachliche Konstruktoren bzw. @PrePersist), nicht im
+ * Default-Konstruktor - den benutzt Hibernate für jede geladene Zeile, der Key würde sofort überschrieben.
+ * Zufall kommt aus mehreren DRBG-Instanzen (nach Thread-Id verteilt), damit parallele Requests nicht an einem
+ * gemeinsamen SecureRandom warten; pro Key wird ein Block Bytes auf einmal geholt statt ein nextInt pro Zeichen.
+ */
 @Component
 public class ApiKeyFactory {
-    private static final char[] ALPHABET = "123456789abcdefghijkmnopqrstuvwxyzABCDEFGHJKLMNPQRSTUVWXQZ".toCharArray();
-    private static final SecureRandom RANDOM = new SecureRandom();
+    public static final int DEFAULT_LENGTH = 30;
+
+    private static final char[] ALPHABET = "123456789abcdefghijkmnopqrstuvwxyzABCDEFGHJKLMNPQRSTUVWXYZ".toCharArray();
+    /** 6 Bit pro Byte; Werte >= 58 werden verworfen, damit jedes Zeichen gleich wahrscheinlich ist */
+    private static final int MASK = 0x3F;
+    private static final SecureRandom[] GENERATORS = generators(Math.max(1, Runtime.getRuntime().availableProcessors()));
 
     public ApiKeyFactory(){}
 
+    public static ApiKey newApiKey() {
+        return new ApiKey(randomKey(DEFAULT_LENGTH));
+    }
+
     public ApiKey generate(int lenght){
-        char[] result = new char[lenght];
-        for(int i = 0; i < lenght; i++){
-            char pick = ALPHABET[RANDOM.nextInt(ALPHABET.length)];
-            result[i] = pick;
+        return new ApiKey(randomKey(lenght));
+    }
+
+    static String randomKey(int length) {
+        SecureRandom random = GENERATORS[(int) (Thread.currentThread().threadId() % GENERATORS.length)];
+        char[] result = new char[length];
+        // 58 von 64 Werten werden genommen - ein Viertel Reserve reicht fast immer für einen Durchgang
+        byte[] bytes = new byte[length + length / 4 + 1];
+        int filled = 0;
+        while (filled < length) {
+            random.nextBytes(bytes);
+            for (int i = 0; i < bytes.length && filled < length; i++) {
+                int value = bytes[i] & MASK;
+                if (value < ALPHABET.length) {
+                    result[filled++] = ALPHABET[value];
+                }
+            }
+        }
+        return new String(result);
+    }
+
+    private static SecureRandom[] generators(int count) {
+        SecureRandom[] generators = new SecureRandom[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                generators[i] = SecureRandom.getInstance("DRBG");
+            } catch (NoSuchAlgorithmException e) {
+                generators[i] = new SecureRandom();
+            }
         }
-        return new ApiKey(new String(result));
+        return generators;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package spengergasse.at.sj2425scherzerrabar.foundation;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Starke ETags (RFC 9110) aus Zeilenversionen - der Body muss dafür nicht gebaut werden.
+ */
+public final class ETags {
+
+    /** gekürzter SHA-256, reicht für die Unterscheidung zweier Stände einer Seite */
+    private static final int DIGEST_BYTES = 16;
+
+    private ETags() {
+    }
+
+    /**
+     * @param version @Version der Zeile, ändert sich mit jedem Update
+     */
+    public static String of(long version) {
+        return quote(Long.toString(version));
+    }
+
+    /**
+     * @param values Ids, Versionen und was sonst die Darstellung bestimmt, in fester Reihenfolge
+     */
+    public static String digest(long... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Long.BYTES);
+        for (long value : values) {
+            buffer.putLong(value);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(buffer.array());
+            return quote(HexFormat.of().formatHex(hash, 0, DIGEST_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
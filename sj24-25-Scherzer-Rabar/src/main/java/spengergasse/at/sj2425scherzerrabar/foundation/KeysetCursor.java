@@ -0,0 +1,126 @@
+package spengergasse.at.sj2425scherzerrabar.foundation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaker Cursor für Keyset-Pagination: enthält die Id der letzten Zeile der vorherigen Seite.
+ * Der Client soll den Wert nur zurückschicken, nicht interpretieren.
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String PREFIX = "id:";
+    private static final String SCORE_PREFIX = "score:";
+    private static final String DOCUMENT_PREFIX = "doc:";
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return die Id, nach der die Seite beginnt; 0 für die erste Seite (kein Cursor)
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!decoded.startsWith(PREFIX)) {
+                throw KeysetCursorException.invalidCursor(cursor);
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw KeysetCursorException.invalidCursor(cursor);
+        }
+    }
+
+    /**
+     * Position in nach Relevanz sortierten Ergebnissen (Score absteigend, dann Id): der letzte Treffer der Seite
+     */
+    public record Scored(double score, String id) {
+    }
+
+    public static String encode(Scored last) {
+        // Bits statt Dezimaldarstellung, damit der Score beim Vergleich exakt derselbe ist
+        String value = SCORE_PREFIX + Long.toHexString(Double.doubleToRawLongBits(last.score())) + ":" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return der letzte Treffer der vorherigen Seite; null für die erste Seite (kein Cursor)
+     */
+    public static Scored decodeScored(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = decoded.indexOf(':', SCORE_PREFIX.length());
+            if (!decoded.startsWith(SCORE_PREFIX) || separator < 0 || separator == decoded.length() - 1) {
+                throw KeysetCursorException.invalidCursor(cursor);
+            }
+            double score = Double.longBitsToDouble(Long.parseUnsignedLong(decoded.substring(SCORE_PREFIX.length(), separator), 16));
+            return new Scored(score, decoded.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw KeysetCursorException.invalidCursor(cursor);
+        }
+    }
+
+    /**
+     * Cursor über die _id eines MongoDB-Documents (ObjectId als Hex-String)
+     */
+    public static String encodeDocumentId(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((DOCUMENT_PREFIX + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return die _id, nach der die Seite beginnt; null für die erste Seite (kein Cursor)
+     */
+    public static String decodeDocumentId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!decoded.startsWith(DOCUMENT_PREFIX) || decoded.length() == DOCUMENT_PREFIX.length()) {
+                throw KeysetCursorException.invalidCursor(cursor);
+            }
+            return decoded.substring(DOCUMENT_PREFIX.length());
+        } catch (IllegalArgumentException e) {
+            throw KeysetCursorException.invalidCursor(cursor);
+        }
+    }
+
+    public static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (requested < 1 || requested > MAX_LIMIT) {
+            throw KeysetCursorException.invalidLimit(requested);
+        }
+        return requested;
+    }
+
+    public static class KeysetCursorException extends RuntimeException {
+        public KeysetCursorException(String message) {
+            super(message);
+        }
+
+        public static KeysetCursorException invalidCursor(String cursor) {
+            return new KeysetCursorException("Invalid page cursor (%s)".formatted(cursor));
+        }
+
+        public static KeysetCursorException invalidLimit(int limit) {
+            return new KeysetCursorException("Page limit must be between 1 and %d, was %d".formatted(MAX_LIMIT, limit));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package spengergasse.at.sj2425scherzerrabar.foundation;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalisierte Suchschlüssel für MongoDB (city_key, penname_key, name_key): ohne Akzente, klein geschrieben,
+ * Whitespace zusammengefasst. Gespeichert neben dem Originalwert und indiziert, damit Suchen ohne Groß-/Kleinschreibung
+ * als exakter Match oder verankerter Präfix-Regex (^...) über den Index laufen statt mit $options: 'i' zu scannen.
+ */
+public final class SearchKey {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern REGEX_METACHARACTERS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
+    private SearchKey() {
+    }
+
+    /**
+     * "  Wien-Döbling " -> "wien-dobling", "Straße" -> "strasse"
+     * @return null für null
+     */
+    public static String of(String value) {
+        if (value == null) return null;
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFKD);
+        String withoutMarks = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        String folded = withoutMarks.toLowerCase(Locale.ROOT).replace("ß", "ss");
+        return WHITESPACE.matcher(folded.strip()).replaceAll(" ");
+    }
+
+    /**
+     * Verankerter Regex für eine Präfix-Suche auf einem Key-Feld; MongoDB begrenzt ihn auf einen Index-Bereich
+     */
+    public static String prefixRegex(String input) {
+        return "^" + REGEX_METACHARACTERS.matcher(of(input)).replaceAll("\\\\$0");
+    }
+}
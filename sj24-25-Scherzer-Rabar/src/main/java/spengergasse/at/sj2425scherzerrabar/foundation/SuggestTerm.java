@@ -0,0 +1,32 @@
+package spengergasse.at.sj2425scherzerrabar.foundation;
+
+import java.util.Locale;
+
+/**
+ * Eingabe der Typeahead-Suche, aufbereitet für die Trigramm-Queries (lower(...) LIKE prefix ESCAPE '\' und word_similarity)
+ */
+public record SuggestTerm(String term, String prefix) {
+
+    /** Darunter liefern Trigramme kaum Unterscheidung, es wird gar nicht erst gesucht */
+    public static final int MIN_LENGTH = 2;
+    public static final int MAX_LIMIT = 25;
+
+    /**
+     * @return null, wenn die Eingabe zu kurz ist
+     */
+    public static SuggestTerm of(String input) {
+        if (input == null || input.strip().length() < MIN_LENGTH) {
+            return null;
+        }
+        String term = input.strip().toLowerCase(Locale.ROOT);
+        return new SuggestTerm(term, escapeLike(term) + "%");
+    }
+
+    public static int limit(int requested) {
+        return Math.clamp(requested, 1, MAX_LIMIT);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -5,6 +5,9 @@ import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.dtos.AuthorDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookDto;
+import spengergasse.at.sj2425scherzerrabar.foundation.SearchKey;
 
 import java.util.stream.Collectors;
 
@@ -19,10 +22,12 @@ public class BookEmbeddedMapper {
         doc.setPostgresId(book.getBookId().id());
         doc.setApiKey(book.getBookApiKey().apiKey());
         doc.setName(book.getName());
+        doc.setNameKey(SearchKey.of(book.getName()));
         doc.setReleaseDate(book.getReleaseDate());
         doc.setAvailableOnline(book.getAvailableOnline());
         doc.setWordCount(book.getWordCount());
         doc.setDescription(book.getDescription());
+        doc.setVersion(book.getVersion());
 
         // Convert enums to strings
         doc.setBookTypes(
@@ -49,7 +54,7 @@ public class BookEmbeddedMapper {
     /**
      * Konvertiert Author Domain-Objekt zu Embedded Author
      */
-    private BookDocumentEmbedded.EmbeddedAuthor toEmbeddedAuthor(Author author) {
+    public BookDocumentEmbedded.EmbeddedAuthor toEmbeddedAuthor(Author author) {
         BookDocumentEmbedded.EmbeddedAuthor embedded = new BookDocumentEmbedded.EmbeddedAuthor(
                 author.getAuthorApiKey().apiKey(),
                 author.getPenname(),
@@ -57,8 +62,9 @@ public class BookEmbeddedMapper {
                 author.getLastName(),
                 author.getEmailAddress() != null ? author.getEmailAddress().email() : null
         );
+        embedded.setVersion(author.getVersion());
 
-        // Convert addresses
+        // Convert addresses (AddressMongo setzt cityKey)
         if (author.getAddress() != null) {
             embedded.setAddresses(
                     author.getAddress().stream()
@@ -69,4 +75,20 @@ public class BookEmbeddedMapper {
 
         return embedded;
     }
-}
\ No newline at end of file
+
+    /**
+     * Read-Model -> BookDto, Felder wie BookRepository.findProjectedBookByBookApiKey
+     */
+    public BookDto toBookDto(BookDocumentEmbedded doc) {
+        return new BookDto(doc.getApiKey(), doc.getName(), doc.getReleaseDate(), doc.getAvailableOnline(),
+                doc.getBookTypes(), doc.getWordCount(), doc.getDescription(),
+                doc.getAuthors().stream().map(BookDocumentEmbedded.EmbeddedAuthor::getApiKey).toList(),
+                doc.getGenres(), doc.getVersion());
+    }
+
+    public AuthorDto toAuthorDto(BookDocumentEmbedded.EmbeddedAuthor author) {
+        return new AuthorDto(author.getApiKey(), author.getPenname(),
+                author.getAddresses().stream().map(address -> address.toAddress().toString()).toList(),
+                author.getFirstName(), author.getLastName(), author.getEmail(), author.getVersion());
+    }
+}
@@ -16,6 +16,7 @@ public class BookMapper {
         doc.setAvailableOnline(book.getAvailableOnline());
         doc.setWordCount(book.getWordCount());
         doc.setDescription(book.getDescription());
+        doc.setVersion(book.getVersion());
 
         // Convert enums to strings
         doc.setBookTypes(
@@ -0,0 +1,28 @@
+package spengergasse.at.sj2425scherzerrabar.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import spengergasse.at.sj2425scherzerrabar.dtos.AuthorPropagationProgress;
+import spengergasse.at.sj2425scherzerrabar.service.MongoAuthorPropagator;
+
+import java.util.List;
+
+/**
+ * /actuator/authorpropagation - laufende Hintergrund-Jobs für Author-Änderungen in books_with_embedded_authors
+ */
+@Component
+@Endpoint(id = "authorpropagation")
+public class AuthorPropagationEndpoint {
+
+    private final MongoAuthorPropagator authorPropagator;
+
+    public AuthorPropagationEndpoint(MongoAuthorPropagator authorPropagator) {
+        this.authorPropagator = authorPropagator;
+    }
+
+    @ReadOperation
+    public List<AuthorPropagationProgress> progress() {
+        return authorPropagator.progress();
+    }
+}
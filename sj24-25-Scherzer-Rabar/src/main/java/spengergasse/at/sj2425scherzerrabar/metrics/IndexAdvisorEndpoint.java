@@ -0,0 +1,26 @@
+package spengergasse.at.sj2425scherzerrabar.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import spengergasse.at.sj2425scherzerrabar.dtos.IndexAdvisorReport;
+import spengergasse.at.sj2425scherzerrabar.service.IndexAdvisorService;
+
+/**
+ * /actuator/indexadvisor - Seq Scans auf großen PostgreSQL-Tabellen in den bisher abgesetzten SELECTs
+ */
+@Component
+@Endpoint(id = "indexadvisor")
+public class IndexAdvisorEndpoint {
+
+    private final IndexAdvisorService indexAdvisorService;
+
+    public IndexAdvisorEndpoint(IndexAdvisorService indexAdvisorService) {
+        this.indexAdvisorService = indexAdvisorService;
+    }
+
+    @ReadOperation
+    public IndexAdvisorReport report() {
+        return indexAdvisorService.report();
+    }
+}
@@ -0,0 +1,26 @@
+package spengergasse.at.sj2425scherzerrabar.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import spengergasse.at.sj2425scherzerrabar.MongoIndexManager;
+import spengergasse.at.sj2425scherzerrabar.dtos.MongoIndexReport;
+
+/**
+ * /actuator/mongoindexes - Größe und Zugriffe der MongoDB-Indizes, ungenutzte und redundante markiert
+ */
+@Component
+@Endpoint(id = "mongoindexes")
+public class MongoIndexEndpoint {
+
+    private final MongoIndexManager indexManager;
+
+    public MongoIndexEndpoint(MongoIndexManager indexManager) {
+        this.indexManager = indexManager;
+    }
+
+    @ReadOperation
+    public MongoIndexReport report() {
+        return indexManager.report();
+    }
+}
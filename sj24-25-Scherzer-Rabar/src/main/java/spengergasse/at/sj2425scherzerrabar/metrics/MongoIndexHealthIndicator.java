@@ -0,0 +1,30 @@
+package spengergasse.at.sj2425scherzerrabar.metrics;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import spengergasse.at.sj2425scherzerrabar.MongoDBIndexConfiguration;
+
+/**
+ * health/mongoIndexes - OUT_OF_SERVICE, solange die deklarierten MongoDB-Indizes noch gebaut werden (oder der Build
+ * fehlgeschlagen ist). Teil der Readiness-Gruppe: ohne Indizes würde jede Read-Model-Query die Collection scannen.
+ */
+@Component("mongoIndexes")
+public class MongoIndexHealthIndicator implements HealthIndicator {
+
+    private final MongoDBIndexConfiguration indexConfiguration;
+
+    public MongoIndexHealthIndicator(MongoDBIndexConfiguration indexConfiguration) {
+        this.indexConfiguration = indexConfiguration;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = indexConfiguration.isReady() ? Health.up() : Health.outOfService();
+        builder.withDetail("status", indexConfiguration.getStatus());
+        if (indexConfiguration.getError() != null) {
+            builder.withDetail("error", indexConfiguration.getError());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,51 @@
+package spengergasse.at.sj2425scherzerrabar.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.dtos.MongoResyncProgress;
+import spengergasse.at.sj2425scherzerrabar.service.MongoResyncService;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * /actuator/mongoresync - Fortschritt und ETA des Resyncs, POST /actuator/mongoresync/{type} startet/setzt fort
+ */
+@Component
+@Endpoint(id = "mongoresync")
+public class MongoResyncEndpoint {
+
+    private final MongoResyncService resyncService;
+
+    public MongoResyncEndpoint(MongoResyncService resyncService) {
+        this.resyncService = resyncService;
+    }
+
+    @ReadOperation
+    public List<MongoResyncProgress> progress() {
+        return resyncService.progress();
+    }
+
+    @ReadOperation
+    public MongoResyncProgress progress(@Selector String type) {
+        return resyncService.progress(aggregateType(type));
+    }
+
+    @WriteOperation
+    public MongoResyncProgress start(@Selector String type, @Nullable Boolean restart) {
+        return resyncService.start(aggregateType(type), Boolean.TRUE.equals(restart));
+    }
+
+    private static AggregateType aggregateType(String type) {
+        try {
+            return AggregateType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw MongoResyncService.MongoResyncServiceException.unknownType(type);
+        }
+    }
+}
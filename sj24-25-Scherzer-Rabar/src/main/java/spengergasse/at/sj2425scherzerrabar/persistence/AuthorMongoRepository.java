@@ -1,9 +1,12 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
+import spengergasse.at.sj2425scherzerrabar.foundation.SearchKey;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,5 +20,25 @@ public interface AuthorMongoRepository extends MongoRepository<AuthorDocument, S
 
     Optional<AuthorDocument> findByEmail(String email);
 
+    /**
+     * Authors, deren Penname mit prefix beginnt, ohne Groß-/Kleinschreibung und Akzente (idx_author_penname_key)
+     */
+    default List<AuthorDocument> findByPennamePrefix(String prefix) {
+        return findByPennameKeyMatching(SearchKey.prefixRegex(prefix));
+    }
+
+    @Query("{ 'pen_name_key': { $regex: ?0 } }")
+    List<AuthorDocument> findByPennameKeyMatching(String prefixRegex);
+
+    /**
+     * Authors mit einer Adresse in der Stadt (idx_author_city_key)
+     */
+    default List<AuthorDocument> findByAddressCity(String city) {
+        return findByAddressCityKey(SearchKey.of(city));
+    }
+
+    @Query("{ 'addresses.cityKey': ?0 }")
+    List<AuthorDocument> findByAddressCityKey(String cityKey);
+
     void deleteByPostgresId(Long postgresId);
 }
\ No newline at end of file
@@ -1,19 +1,30 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
 import spengergasse.at.sj2425scherzerrabar.dtos.AuthorDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.ChangeMarker;
+import spengergasse.at.sj2425scherzerrabar.dtos.RowVersion;
+import spengergasse.at.sj2425scherzerrabar.dtos.Suggestion;
+import spengergasse.at.sj2425scherzerrabar.foundation.SuggestTerm;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AuthorRepository extends JpaRepository<Author, Long> {
-    Optional<Author> findAuthorByAuthorApiKey(ApiKey apiKey);
+public interface AuthorRepository extends JpaRepository<Author, Long>, NaturalIdRepository<Author> {
+    // Natural-Id Lookup: trifft bei wiederholten Referenzen den Second-Level Cache statt der DB
+    default Optional<Author> findAuthorByAuthorApiKey(ApiKey apiKey) {
+        return findByNaturalId(apiKey);
+    }
 
     Optional<Author> findAuthorsByPenname(String penname);
 
@@ -27,12 +38,19 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
     """)
     Optional<AuthorDto> findProjectedAuthorByAuthorApiKey(String apiKey);
 
-    @Query("""
-    select new spengergasse.at.sj2425scherzerrabar.dtos.AuthorDto(
-        a
-    ) from Author a
-    """)
-    List<AuthorDto> findAllProjected();
+    /**
+     * Authors mit Adressen in einem Statement (JOIN FETCH), die DTOs werden danach gebaut.
+     * new AuthorDto(a) in der Query hätte pro Zeile die Adressen nachgeladen (N+1)
+     */
+    @Query("SELECT DISTINCT a FROM Author a LEFT JOIN FETCH a.address")
+    List<Author> findAllWithAddresses();
+
+    @Transactional(readOnly = true)
+    default List<AuthorDto> findAllProjected() {
+        return findAllWithAddresses().stream()
+                .map(AuthorDto::authorDtoFromAuthor)
+                .toList();
+    }
 
     @Query("""
     select new spengergasse.at.sj2425scherzerrabar.dtos.AuthorDto(
@@ -49,4 +67,92 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
     Optional<AuthorDto> findProjectedAuthorByEmailAddress_Email(String email);
     @Query("SELECT a FROM Author a LEFT JOIN FETCH a.books WHERE a.authorApiKey = :apiKey")
     Optional<Author> findAuthorWithBooks(@Param("apiKey") ApiKey apiKey);
+
+    @Query("SELECT DISTINCT a FROM Author a LEFT JOIN FETCH a.address WHERE a.personId.id IN :authorIds")
+    List<Author> findAuthorsWithAddressesByIds(@Param("authorIds") List<Long> authorIds);
+
+    @Query("SELECT min(a.personId.id) FROM Author a")
+    Optional<Long> findMinAuthorId();
+
+    @Query("SELECT max(a.personId.id) FROM Author a")
+    Optional<Long> findMaxAuthorId();
+
+    @Query("""
+        SELECT a.personId.id FROM Author a
+        WHERE a.personId.id > :afterId AND a.personId.id <= :upToId
+        ORDER BY a.personId.id
+        """)
+    List<Long> findAuthorIdsAfter(long afterId, long upToId, Limit limit);
+
+    /**
+     * Welche der Ids es noch gibt - der Resync löscht MongoDB-Documents nur, wenn die Zeile wirklich fehlt
+     */
+    @Query("SELECT a.personId.id FROM Author a WHERE a.personId.id IN :ids")
+    List<Long> findExistingAuthorIds(Collection<Long> ids);
+
+    @Query("""
+        SELECT new spengergasse.at.sj2425scherzerrabar.dtos.ChangeMarker(a.personId.id, a.changeXid, a.lastModified)
+        FROM Author a
+        WHERE (a.changeXid > :afterXid OR (a.changeXid = :afterXid AND a.personId.id > :afterId))
+          AND a.changeXid < :belowXid
+        ORDER BY a.changeXid, a.personId.id
+        """)
+    List<ChangeMarker> findAuthorsChangedSince(long afterXid, long afterId, long belowXid, Limit limit);
+
+    @Query("SELECT a FROM Author a WHERE a.authorApiKey.apiKey IN :apiKeys")
+    List<Author> findAuthorsByApiKeys(@Param("apiKeys") Collection<String> apiKeys);
+
+    @Query("SELECT DISTINCT a FROM Author a LEFT JOIN FETCH a.address WHERE a.authorApiKey.apiKey IN :apiKeys")
+    List<Author> findAuthorsWithAddressesByApiKeys(@Param("apiKeys") Collection<String> apiKeys);
+
+    // ==================== KEYSET PAGINATION (REST) ====================
+
+    @Query("""
+        SELECT DISTINCT a FROM Author a LEFT JOIN FETCH a.address
+        WHERE a.personId.id IN :ids ORDER BY a.personId.id
+        """)
+    List<Author> findAllWithAddressesByIdsOrdered(Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    default List<AuthorDto> findProjectedByIds(Collection<Long> ids) {
+        return findAllWithAddressesByIdsOrdered(ids).stream()
+                .map(AuthorDto::authorDtoFromAuthor)
+                .toList();
+    }
+
+    // ==================== ETAG (CONDITIONAL GET) ====================
+
+    @Query("""
+        SELECT new spengergasse.at.sj2425scherzerrabar.dtos.RowVersion(a.personId.id, a.version)
+        FROM Author a WHERE a.personId.id > :afterId ORDER BY a.personId.id
+        """)
+    List<RowVersion> findAuthorVersionsAfter(long afterId, Limit limit);
+
+    // ==================== SUGGEST (TYPEAHEAD) ====================
+
+    /**
+     * Präfix-Treffer auf Penname oder Nachname zuerst, dann nach Ähnlichkeit (pg_trgm, ix_author_*_trgm)
+     * @param term   Eingabe in Kleinbuchstaben
+     * @param prefix term mit escapten LIKE-Wildcards und angehängtem %
+     */
+    @Query(value = """
+        SELECT a.penname, a.first_name, a.last_name FROM author a
+        WHERE lower(a.penname) LIKE :prefix ESCAPE '\\'
+           OR lower(a.last_name) LIKE :prefix ESCAPE '\\'
+           OR :term <% lower(a.penname)
+           OR :term <% lower(a.last_name)
+        ORDER BY (lower(a.penname) LIKE :prefix ESCAPE '\\' OR lower(a.last_name) LIKE :prefix ESCAPE '\\') DESC,
+                 greatest(word_similarity(:term, lower(a.penname)), word_similarity(:term, coalesce(lower(a.last_name), ''))) DESC,
+                 a.penname
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Tuple> findSuggestionRows(String term, String prefix, int limit);
+
+    default List<Suggestion> findSuggestions(SuggestTerm term, int limit) {
+        return findSuggestionRows(term.term(), term.prefix(), limit).stream()
+                .map(row -> new Suggestion(row.get("penname", String.class),
+                        "%s (%s %s)".formatted(row.get("penname", String.class),
+                                row.get("first_name", String.class), row.get("last_name", String.class))))
+                .toList();
+    }
 }
@@ -4,6 +4,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.foundation.SearchKey;
 
 import java.util.List;
 import java.util.Optional;
@@ -38,11 +39,54 @@ public interface BookEmbeddedMongoRepository extends MongoRepository<BookDocumen
     List<BookDocumentEmbedded> findByEmbeddedAuthorEmail(String email);
 
     /**
-     * Optimized Query: Find books by embedded author city directly in DB.
-     * Queries nested arrays: authors -> addresses -> city.
+     * Books mit einem Author aus der Stadt, ohne Groß-/Kleinschreibung und Akzente (idx_book_emb_author_city_key).
+     * Queries nested arrays: authors -> addresses -> cityKey.
      */
-    @Query("{ 'authors.addresses.city': { $regex: ?0, $options: 'i' } }")
-    List<BookDocumentEmbedded> findByEmbeddedAuthorAddressCity(String city);
+    default List<BookDocumentEmbedded> findByEmbeddedAuthorAddressCity(String city) {
+        return findByEmbeddedAuthorAddressCityKey(SearchKey.of(city));
+    }
+
+    @Query("{ 'authors.addresses.cityKey': ?0 }")
+    List<BookDocumentEmbedded> findByEmbeddedAuthorAddressCityKey(String cityKey);
+
+    /**
+     * Books mit einem Author aus einer Stadt, die mit prefix beginnt (verankerter Regex auf cityKey)
+     */
+    default List<BookDocumentEmbedded> findByEmbeddedAuthorAddressCityPrefix(String prefix) {
+        return findByEmbeddedAuthorAddressCityKeyMatching(SearchKey.prefixRegex(prefix));
+    }
+
+    @Query("{ 'authors.addresses.cityKey': { $regex: ?0 } }")
+    List<BookDocumentEmbedded> findByEmbeddedAuthorAddressCityKeyMatching(String prefixRegex);
+
+    /**
+     * Books mit einem Author, dessen Penname mit prefix beginnt (idx_book_emb_author_penname_key)
+     */
+    default List<BookDocumentEmbedded> findByEmbeddedAuthorPennamePrefix(String prefix) {
+        return findByEmbeddedAuthorPennameKeyMatching(SearchKey.prefixRegex(prefix));
+    }
+
+    @Query("{ 'authors.penname_key': { $regex: ?0 } }")
+    List<BookDocumentEmbedded> findByEmbeddedAuthorPennameKeyMatching(String prefixRegex);
+
+    /**
+     * Books, deren Name mit prefix beginnt (idx_book_emb_name_key)
+     */
+    default List<BookDocumentEmbedded> findByNamePrefix(String prefix) {
+        return findByNameKeyMatching(SearchKey.prefixRegex(prefix));
+    }
+
+    @Query("{ 'name_key': { $regex: ?0 } }")
+    List<BookDocumentEmbedded> findByNameKeyMatching(String prefixRegex);
+
+    /**
+     * Irgendein Book des Authors - für Author-Lookups aus den eingebetteten Kopien (BookReadRouter)
+     */
+    Optional<BookDocumentEmbedded> findFirstByAuthorsApiKey(String authorApiKey);
+
+    Optional<BookDocumentEmbedded> findFirstByAuthorsPenname(String penname);
+
+    Optional<BookDocumentEmbedded> findFirstByAuthorsEmail(String email);
 
     void deleteByPostgresId(Long postgresId);
 }
\ No newline at end of file
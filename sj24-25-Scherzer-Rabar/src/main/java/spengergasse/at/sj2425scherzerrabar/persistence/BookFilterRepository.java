@@ -0,0 +1,19 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+
+import java.util.List;
+
+/**
+ * Fragment für dynamische Filter mit Keyset-Pagination: liefert nur die Ids, die DTOs lädt
+ * BookRepository.findProjectedByIds (wie bei findBookIdsAfter).
+ */
+public interface BookFilterRepository {
+
+    /**
+     * @return Ids der Books, auf die spec zutrifft und die größer als afterId sind, aufsteigend sortiert
+     */
+    List<Long> findBookIdsMatching(Specification<Book> spec, long afterId, Limit limit);
+}
@@ -0,0 +1,42 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+
+import java.util.List;
+
+class BookFilterRepositoryImpl implements BookFilterRepository {
+
+    private final EntityManager entityManager;
+
+    BookFilterRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Long> findBookIdsMatching(Specification<Book> spec, long afterId, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Book> book = query.from(Book.class);
+        Path<Long> id = book.get("bookId").get("id");
+
+        // Keyset über den Primary Key: die Seite beginnt hinter afterId, kein OFFSET
+        Predicate afterCursor = cb.greaterThan(id, afterId);
+        Predicate filter = spec.toPredicate(book, query, cb);
+        query.select(id)
+                .where(filter == null ? afterCursor : cb.and(afterCursor, filter))
+                .orderBy(cb.asc(id));
+        var typedQuery = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typedQuery.setMaxResults(limit.max());
+        }
+        return typedQuery.getResultList();
+    }
+}
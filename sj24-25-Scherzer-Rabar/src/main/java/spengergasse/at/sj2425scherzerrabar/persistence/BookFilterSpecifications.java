@@ -0,0 +1,83 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import jakarta.persistence.criteria.Join;
+import org.springframework.data.jpa.domain.Specification;
+import spengergasse.at.sj2425scherzerrabar.domain.BookGenre;
+import spengergasse.at.sj2425scherzerrabar.domain.BookType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookFilter;
+
+import java.time.LocalDate;
+
+/**
+ * Bausteine für BookFilter als JPA-Specifications. Jede Bedingung trifft einen Index aus V1_3_7_0__BookFilterIndexes:
+ * Genre und Typ als Semi-Join auf genres_of_book/book_types, der Author über authors_of_book, die Bereiche
+ * auf book selbst.
+ */
+public final class BookFilterSpecifications {
+
+    private BookFilterSpecifications() {
+    }
+
+    /**
+     * @return alle gesetzten Felder des Filters UND-verknüpft; ohne Einschränkung trifft sie jedes Book
+     */
+    public static Specification<Book> matching(BookFilter filter) {
+        return Specification.allOf(
+                filter.genre() == null ? null : hasGenre(filter.genre()),
+                filter.type() == null ? null : hasType(filter.type()),
+                filter.availableOnline() == null ? null : availableOnline(filter.availableOnline()),
+                filter.minWordCount() == null && filter.maxWordCount() == null ? null
+                        : wordCountBetween(filter.minWordCount(), filter.maxWordCount()),
+                filter.releasedFrom() == null && filter.releasedTo() == null ? null
+                        : releasedBetween(filter.releasedFrom(), filter.releasedTo()),
+                filter.author() == null || filter.author().isBlank() ? null : writtenBy(filter.author()));
+    }
+
+    public static Specification<Book> hasGenre(BookGenre genre) {
+        return (root, query, cb) -> cb.isMember(genre, root.get("genres"));
+    }
+
+    public static Specification<Book> hasType(BookType type) {
+        return (root, query, cb) -> cb.isMember(type, root.get("bookTypes"));
+    }
+
+    public static Specification<Book> availableOnline(boolean availableOnline) {
+        return (root, query, cb) -> cb.equal(root.get("availableOnline"), availableOnline);
+    }
+
+    /**
+     * @param min inklusive, null für offen
+     * @param max inklusive, null für offen
+     */
+    public static Specification<Book> wordCountBetween(Integer min, Integer max) {
+        return (root, query, cb) -> {
+            if (min == null) return cb.lessThanOrEqualTo(root.get("wordCount"), max);
+            if (max == null) return cb.greaterThanOrEqualTo(root.get("wordCount"), min);
+            return cb.between(root.get("wordCount"), min, max);
+        };
+    }
+
+    /**
+     * @param from inklusive, null für offen
+     * @param to   inklusive, null für offen
+     */
+    public static Specification<Book> releasedBetween(LocalDate from, LocalDate to) {
+        return (root, query, cb) -> {
+            if (from == null) return cb.lessThanOrEqualTo(root.get("releaseDate"), to);
+            if (to == null) return cb.greaterThanOrEqualTo(root.get("releaseDate"), from);
+            return cb.between(root.get("releaseDate"), from, to);
+        };
+    }
+
+    /**
+     * Inner Join über authors_of_book; ein Author kommt pro Book nur einmal vor, es entstehen keine Duplikate
+     */
+    public static Specification<Book> writtenBy(String authorApiKey) {
+        return (root, query, cb) -> {
+            Join<Book, Author> author = root.join("authors");
+            return cb.equal(author.get("authorApiKey").get("apiKey"), authorApiKey);
+        };
+    }
+}
@@ -1,5 +1,7 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,7 +12,13 @@ import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
 import spengergasse.at.sj2425scherzerrabar.dtos.BookDto;
 import spengergasse.at.sj2425scherzerrabar.dtos.BookDto2;
+import spengergasse.at.sj2425scherzerrabar.dtos.ChangeMarker;
+import spengergasse.at.sj2425scherzerrabar.dtos.RowVersion;
+import spengergasse.at.sj2425scherzerrabar.dtos.Suggestion;
+import spengergasse.at.sj2425scherzerrabar.foundation.SuggestTerm;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -19,7 +27,7 @@ import java.util.stream.Collectors;
  * If you MUST keep Lists in Book entity, use this approach
  */
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookFilterRepository {
 
     Optional<Book> findBookByBookApiKey(ApiKey apiKey);
 
@@ -87,6 +95,76 @@ public interface BookRepository extends JpaRepository<Book, Long> {
         return books;
     }
 
+    /**
+     * Step 1 for a known set of books (used by the MongoDB outbox relay)
+     */
+    @Query("""
+        SELECT DISTINCT b FROM Book b
+        LEFT JOIN FETCH b.authors
+        WHERE b.bookId.id IN :bookIds
+        """)
+    List<Book> findBooksWithAuthorsByIds(@Param("bookIds") List<Long> bookIds);
+
+    /**
+     * Same as findAllWithAllCollections(), restricted to the given book IDs
+     */
+    @Transactional(readOnly = true)
+    default List<Book> findAllWithAllCollectionsByIds(List<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<Book> books = findBooksWithAuthorsByIds(bookIds);
+        if (!books.isEmpty()) {
+            List<Long> foundIds = books.stream()
+                    .map(b -> b.getBookId().id())
+                    .toList();
+            fetchBookTypesForBooks(foundIds);
+            fetchGenresForBooks(foundIds);
+        }
+        return books;
+    }
+
+    // ============ KEYSET PAGINATION OVER THE ID (Mongo resync) ============
+
+    @Query("SELECT min(b.bookId.id) FROM Book b")
+    Optional<Long> findMinBookId();
+
+    @Query("SELECT max(b.bookId.id) FROM Book b")
+    Optional<Long> findMaxBookId();
+
+    /**
+     * Next page of IDs after afterId (exclusive) up to upToId (inclusive) - uses the primary key index,
+     * no OFFSET scan
+     */
+    @Query("""
+        SELECT b.bookId.id FROM Book b
+        WHERE b.bookId.id > :afterId AND b.bookId.id <= :upToId
+        ORDER BY b.bookId.id
+        """)
+    List<Long> findBookIdsAfter(long afterId, long upToId, Limit limit);
+
+    /**
+     * Welche der Ids es noch gibt - der Resync löscht MongoDB-Documents nur, wenn die Zeile wirklich fehlt
+     */
+    @Query("SELECT b.bookId.id FROM Book b WHERE b.bookId.id IN :ids")
+    List<Long> findExistingBookIds(Collection<Long> ids);
+
+    // ============ CHANGE TRACKING (Mongo delta sync) ============
+
+    /**
+     * Books changed after the watermark (afterXid, afterId) by transactions below belowXid,
+     * ordered so that the last element is the next watermark
+     */
+    @Query("""
+        SELECT new spengergasse.at.sj2425scherzerrabar.dtos.ChangeMarker(b.bookId.id, b.changeXid, b.lastModified)
+        FROM Book b
+        WHERE (b.changeXid > :afterXid OR (b.changeXid = :afterXid AND b.bookId.id > :afterId))
+          AND b.changeXid < :belowXid
+        ORDER BY b.changeXid, b.bookId.id
+        """)
+    List<ChangeMarker> findBooksChangedSince(long afterXid, long afterId, long belowXid, Limit limit);
+
     /**
      * BETTER: Use this for DTOs - avoids multiple queries
      * ADDED @Transactional: Needed here too because stream mapping occurs lazily/inside this method scope.
@@ -126,23 +204,74 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     """)
     Optional<BookDto2> findProjectedBookByBookApiKey2(String bookApiKey);
 
-    /**
-     * WARNING: This causes N+1 queries!
-     * Use findAllProjectedOptimized() instead
-     */
-    @Query("""
-    select new spengergasse.at.sj2425scherzerrabar.dtos.BookDto(b) from Book b
-    """)
-    List<BookDto> findAllProjected();
+    // ============ LIST PROJECTIONS (3 Statements, unabhängig von der Anzahl der Books) ============
+    // new BookDto(b) in der Query hat pro Zeile authors, bookTypes und genres nachgeladen (N+1),
+    // daher laden alle Listen-Projektionen über findAllWithAllCollections / findAllWithAllCollectionsByIds
 
-    @Query("""
-    select new spengergasse.at.sj2425scherzerrabar.dtos.BookDto2(b) from Book b
-    """)
-    List<BookDto2> findAllProjected2();
+    @Transactional(readOnly = true)
+    default List<BookDto> findAllProjected() {
+        return findAllProjectedOptimized();
+    }
+
+    @Transactional(readOnly = true)
+    default List<BookDto2> findAllProjected2() {
+        return findAllWithAllCollections().stream()
+                .map(BookDto2::bookDtoFromBook)
+                .toList();
+    }
 
     @Query("""
-    select new spengergasse.at.sj2425scherzerrabar.dtos.BookDto(b) from Book b
+    SELECT b.bookId.id FROM Book b
     WHERE exists (select a from b.authors a where a.authorApiKey.apiKey = :authorApiKey)
     """)
-    List<BookDto> findProjectedBooksByAuthorsContains(String authorApiKey);
-}
\ No newline at end of file
+    List<Long> findBookIdsByAuthorApiKey(String authorApiKey);
+
+    @Transactional(readOnly = true)
+    default List<BookDto> findProjectedBooksByAuthorsContains(String authorApiKey) {
+        return findAllWithAllCollectionsByIds(findBookIdsByAuthorApiKey(authorApiKey)).stream()
+                .map(BookDto::bookDtoFromBook)
+                .toList();
+    }
+
+    // ==================== KEYSET PAGINATION (REST) ====================
+
+    @Transactional(readOnly = true)
+    default List<BookDto> findProjectedByIds(Collection<Long> ids) {
+        return findAllWithAllCollectionsByIds(List.copyOf(ids)).stream()
+                .sorted(Comparator.comparing(b -> b.getBookId().id()))
+                .map(BookDto::bookDtoFromBook)
+                .toList();
+    }
+
+    // ==================== ETAG (CONDITIONAL GET) ====================
+
+    @Query("""
+        SELECT new spengergasse.at.sj2425scherzerrabar.dtos.RowVersion(b.bookId.id, b.version)
+        FROM Book b WHERE b.bookId.id > :afterId ORDER BY b.bookId.id
+        """)
+    List<RowVersion> findBookVersionsAfter(long afterId, Limit limit);
+
+    // ==================== SUGGEST (TYPEAHEAD) ====================
+
+    /**
+     * Präfix-Treffer auf den Namen zuerst, dann nach Ähnlichkeit (pg_trgm, ix_book_name_trgm)
+     * @param term   Eingabe in Kleinbuchstaben
+     * @param prefix term mit escapten LIKE-Wildcards und angehängtem %
+     */
+    @Query(value = """
+        SELECT b.book_api_key, b.name FROM book b
+        WHERE lower(b.name) LIKE :prefix ESCAPE '\\'
+           OR :term <% lower(b.name)
+        ORDER BY (lower(b.name) LIKE :prefix ESCAPE '\\') DESC,
+                 word_similarity(:term, lower(b.name)) DESC,
+                 b.name
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Tuple> findSuggestionRows(String term, String prefix, int limit);
+
+    default List<Suggestion> findSuggestions(SuggestTerm term, int limit) {
+        return findSuggestionRows(term.term(), term.prefix(), limit).stream()
+                .map(row -> new Suggestion(row.get("book_api_key", String.class), row.get("name", String.class)))
+                .toList();
+    }
+}
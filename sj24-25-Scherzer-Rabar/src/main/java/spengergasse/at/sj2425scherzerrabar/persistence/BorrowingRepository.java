@@ -1,14 +1,17 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.Borrowing;
 import spengergasse.at.sj2425scherzerrabar.domain.Copy;
 import spengergasse.at.sj2425scherzerrabar.domain.Customer;
 import spengergasse.at.sj2425scherzerrabar.dtos.BorrowingDto;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,20 +28,67 @@ public interface BorrowingRepository extends JpaRepository<Borrowing, Long> {
     """)
     Optional<BorrowingDto> findProjectedBorrowingByBorrowingApiKey(String apiKey);
 
+    // ============ LIST PROJECTIONS: Customer und Copies per JOIN FETCH statt N+1 ============
+
     @Query("""
-        select new spengergasse.at.sj2425scherzerrabar.dtos.BorrowingDto(b) from Borrowing b
+        SELECT DISTINCT b FROM Borrowing b
+        JOIN FETCH b.customer
+        LEFT JOIN FETCH b.copies
     """)
-    List<BorrowingDto> findAllProjected();
+    List<Borrowing> findAllWithCustomerAndCopies();
 
     @Query("""
-        select new spengergasse.at.sj2425scherzerrabar.dtos.BorrowingDto(b) from Borrowing b
-            where b.customer.customerApiKey.apiKey = :customerApiKey
+        SELECT DISTINCT b FROM Borrowing b
+        JOIN FETCH b.customer c
+        LEFT JOIN FETCH b.copies
+            where c.customerApiKey.apiKey = :customerApiKey
     """)
-    List<BorrowingDto> findProjectedBorrowingsByCustomerByCustomer(String customerApiKey);
+    List<Borrowing> findWithCustomerAndCopiesByCustomer(String customerApiKey);
 
     @Query("""
-        select new spengergasse.at.sj2425scherzerrabar.dtos.BorrowingDto(b) from Borrowing b
+        SELECT DISTINCT b FROM Borrowing b
+        JOIN FETCH b.customer
+        LEFT JOIN FETCH b.copies
             where EXISTS (SELECT c FROM b.copies c WHERE c.copyApiKey.apiKey = :copyApiKey)
     """)
-    List<BorrowingDto> findProjectedBorrowingsByCopiesContains(String copyApiKey);
+    List<Borrowing> findWithCustomerAndCopiesByCopy(String copyApiKey);
+
+    @Query("""
+        SELECT DISTINCT b FROM Borrowing b
+        JOIN FETCH b.customer
+        LEFT JOIN FETCH b.copies
+            where b.borrowingId.id IN :ids ORDER BY b.borrowingId.id
+    """)
+    List<Borrowing> findWithCustomerAndCopiesByIdsOrdered(Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    default List<BorrowingDto> findAllProjected() {
+        return toDtos(findAllWithCustomerAndCopies());
+    }
+
+    @Transactional(readOnly = true)
+    default List<BorrowingDto> findProjectedBorrowingsByCustomerByCustomer(String customerApiKey) {
+        return toDtos(findWithCustomerAndCopiesByCustomer(customerApiKey));
+    }
+
+    @Transactional(readOnly = true)
+    default List<BorrowingDto> findProjectedBorrowingsByCopiesContains(String copyApiKey) {
+        return toDtos(findWithCustomerAndCopiesByCopy(copyApiKey));
+    }
+
+    private static List<BorrowingDto> toDtos(List<Borrowing> borrowings) {
+        return borrowings.stream()
+                .map(BorrowingDto::borrowingDtoFromBorrowing)
+                .toList();
+    }
+
+    // ==================== KEYSET PAGINATION ====================
+
+    @Query("SELECT b.borrowingId.id FROM Borrowing b WHERE b.borrowingId.id > :afterId ORDER BY b.borrowingId.id")
+    List<Long> findBorrowingIdsAfter(long afterId, Limit limit);
+
+    @Transactional(readOnly = true)
+    default List<BorrowingDto> findProjectedByIds(Collection<Long> ids) {
+        return toDtos(findWithCustomerAndCopiesByIdsOrdered(ids));
+    }
 }
@@ -1,5 +1,6 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -8,12 +9,16 @@ import spengergasse.at.sj2425scherzerrabar.domain.Branch;
 import spengergasse.at.sj2425scherzerrabar.domain.Library;
 import spengergasse.at.sj2425scherzerrabar.dtos.BranchDto;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BranchRepository extends JpaRepository<Branch,Long> {
-    Optional<Branch> findBranchByBranchApiKey(ApiKey apiKey);
+public interface BranchRepository extends JpaRepository<Branch,Long>, NaturalIdRepository<Branch> {
+    // Natural-Id Lookup: trifft bei wiederholten Referenzen den Second-Level Cache statt der DB
+    default Optional<Branch> findBranchByBranchApiKey(ApiKey apiKey) {
+        return findByNaturalId(apiKey);
+    }
     List<Branch> findBranchesByLibrary(Library book);
 
     @Query("""
@@ -37,4 +42,16 @@ public interface BranchRepository extends JpaRepository<Branch,Long> {
         ) from Branch b where b.library.libraryApiKey.apiKey = :apiKey
         """)
     List<BranchDto> findProjectedBranchesByLibrary(String apiKey);
+
+    // ==================== KEYSET PAGINATION ====================
+
+    @Query("SELECT b.branchId.id FROM Branch b WHERE b.branchId.id > :afterId ORDER BY b.branchId.id")
+    List<Long> findBranchIdsAfter(long afterId, Limit limit);
+
+    @Query("""
+        select new spengergasse.at.sj2425scherzerrabar.dtos.BranchDto(
+            b.branchApiKey,b.library.libraryApiKey,b.address
+        ) from Branch b where b.branchId.id in :ids order by b.branchId.id
+        """)
+    List<BranchDto> findProjectedByIds(Collection<Long> ids);
 }
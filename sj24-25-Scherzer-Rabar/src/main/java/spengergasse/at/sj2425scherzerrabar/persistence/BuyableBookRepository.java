@@ -1,6 +1,7 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
 import jakarta.validation.constraints.NotNull;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -9,12 +10,16 @@ import spengergasse.at.sj2425scherzerrabar.domain.BookType;
 import spengergasse.at.sj2425scherzerrabar.domain.BuyableBook;
 import spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BuyableBookRepository extends JpaRepository<BuyableBook, Long> {
-    Optional<BuyableBook> findBuyableBookByBuyableBookApiKey(ApiKey apiKey);
+public interface BuyableBookRepository extends JpaRepository<BuyableBook, Long>, NaturalIdRepository<BuyableBook> {
+    // Natural-Id Lookup: trifft bei wiederholten Referenzen den Second-Level Cache statt der DB
+    default Optional<BuyableBook> findBuyableBookByBuyableBookApiKey(ApiKey apiKey) {
+        return findByNaturalId(apiKey);
+    }
 
     List<BuyableBook> findAllByPublisher_PublisherApiKey_ApiKey(String publisherPublisherApiKeyApiKey);
 
@@ -27,44 +32,55 @@ public interface BuyableBookRepository extends JpaRepository<BuyableBook, Long>
 
     @Query("""
         select new spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto(
-            bb
+            bb.buyableBookApiKey.apiKey, bb.price, bb.publisher.publisherApiKey.apiKey, bb.bookType, bb.pageCount, bb.book.bookApiKey.apiKey
         ) from BuyableBook bb where bb.buyableBookApiKey.apiKey = :apiKey
         """)
     Optional<BuyableBookDto> findProjectedBuyableBookByBuyableBookApiKey(String apiKey);
 
     @Query("""
         select new spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto(
-            bb
+            bb.buyableBookApiKey.apiKey, bb.price, bb.publisher.publisherApiKey.apiKey, bb.bookType, bb.pageCount, bb.book.bookApiKey.apiKey
         ) from BuyableBook bb
         """)
     List<BuyableBookDto> findAllProjected();
 
     @Query("""
         select new spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto(
-            bb
+            bb.buyableBookApiKey.apiKey, bb.price, bb.publisher.publisherApiKey.apiKey, bb.bookType, bb.pageCount, bb.book.bookApiKey.apiKey
         ) from BuyableBook bb where bb.publisher.publisherApiKey.apiKey = :apiKey
         """)
     List<BuyableBookDto> findProjectedByPublisher(String apiKey);
 
     @Query("""
         select new spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto(
-            bb
+            bb.buyableBookApiKey.apiKey, bb.price, bb.publisher.publisherApiKey.apiKey, bb.bookType, bb.pageCount, bb.book.bookApiKey.apiKey
         ) from BuyableBook bb where bb.bookType = :bookType
         """)
     List<BuyableBookDto> findProjectedByBookType(BookType bookType);
 
     @Query("""
         select new spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto(
-            bb
+            bb.buyableBookApiKey.apiKey, bb.price, bb.publisher.publisherApiKey.apiKey, bb.bookType, bb.pageCount, bb.book.bookApiKey.apiKey
         ) from BuyableBook bb where bb.price <= :price
         """)
     List<BuyableBookDto> findProjectedByPrice(Float price);
 
     @Query("""
         select new spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto(
-            bb
+            bb.buyableBookApiKey.apiKey, bb.price, bb.publisher.publisherApiKey.apiKey, bb.bookType, bb.pageCount, bb.book.bookApiKey.apiKey
         ) from BuyableBook bb where bb.book.bookApiKey.apiKey = :apiKey
         """)
     List<BuyableBookDto> findProjectedByBook(String apiKey);
 
+    // ==================== KEYSET PAGINATION ====================
+
+    @Query("SELECT bb.buyableBookId.buyableBookId FROM BuyableBook bb WHERE bb.buyableBookId.buyableBookId > :afterId ORDER BY bb.buyableBookId.buyableBookId")
+    List<Long> findBuyableBookIdsAfter(long afterId, Limit limit);
+
+    @Query("""
+        select new spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto(
+            bb.buyableBookApiKey.apiKey, bb.price, bb.publisher.publisherApiKey.apiKey, bb.bookType, bb.pageCount, bb.book.bookApiKey.apiKey
+        ) from BuyableBook bb where bb.buyableBookId.buyableBookId in :ids order by bb.buyableBookId.buyableBookId
+        """)
+    List<BuyableBookDto> findProjectedByIds(Collection<Long> ids);
 }
@@ -1,12 +1,15 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
 import jakarta.validation.constraints.NotNull;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import spengergasse.at.sj2425scherzerrabar.domain.*;
 import spengergasse.at.sj2425scherzerrabar.dtos.CopyDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.RowVersion;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,7 +28,7 @@ public interface CopyRepository extends JpaRepository<Copy, Long> {
 
     @Query("""
     select new spengergasse.at.sj2425scherzerrabar.dtos.CopyDto(
-        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey
+        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey, c.version
     ) from Copy c where c.copyApiKey.apiKey=:apiKey
     """)
     Optional<CopyDto> findProjectedByCopyApiKey(String apiKey);
@@ -33,7 +36,7 @@ public interface CopyRepository extends JpaRepository<Copy, Long> {
 
     @Query("""
     select new spengergasse.at.sj2425scherzerrabar.dtos.CopyDto(
-        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey
+        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey, c.version
     ) from Copy c
     """)
     List<CopyDto> findAllProjected();
@@ -42,7 +45,7 @@ public interface CopyRepository extends JpaRepository<Copy, Long> {
 
     @Query("""
     select new spengergasse.at.sj2425scherzerrabar.dtos.CopyDto(
-        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey
+        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey, c.version
     ) from Copy c where c.book.bookApiKey.apiKey = :bookApiKey
     """)
     List<CopyDto> findAllProjectedByBook_BookApiKey(String bookApiKey);
@@ -50,7 +53,7 @@ public interface CopyRepository extends JpaRepository<Copy, Long> {
 
     @Query("""
     select new spengergasse.at.sj2425scherzerrabar.dtos.CopyDto(
-        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey
+        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey, c.version
     ) from Copy c where c.publisher.publisherApiKey.apiKey = :publisherApiKey
     """)
     List<CopyDto> findAllProjectedByPublisher_PublisherApiKey(String publisherApiKey);
@@ -59,16 +62,35 @@ public interface CopyRepository extends JpaRepository<Copy, Long> {
 
     @Query("""
     select new spengergasse.at.sj2425scherzerrabar.dtos.CopyDto(
-        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey
+        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey, c.version
     ) from Copy c where c.bookType = :bookType
     """)
     List<CopyDto> findAllProjectedByBookType(@NotNull BookType bookType);
 
     @Query("""
     select new spengergasse.at.sj2425scherzerrabar.dtos.CopyDto(
-        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey
+        c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey, c.version
     ) from Copy c where c.inBranch.branchApiKey.apiKey = :branchApiKey
     """)
     List<CopyDto> findAllProjectedByInBranch_BranchApiKey(String branchApiKey);
 
+    // ==================== KEYSET PAGINATION ====================
+
+    @Query("SELECT c.copyId.id FROM Copy c WHERE c.copyId.id > :afterId ORDER BY c.copyId.id")
+    List<Long> findCopyIdsAfter(long afterId, Limit limit);
+
+    @Query("""
+        select new spengergasse.at.sj2425scherzerrabar.dtos.CopyDto(
+            c.copyApiKey.apiKey,c.publisher.publisherApiKey.apiKey, c.bookType, c.pageCount ,c.book.bookApiKey.apiKey, c.inBranch.branchApiKey.apiKey, c.version
+        ) from Copy c where c.copyId.id in :ids order by c.copyId.id
+        """)
+    List<CopyDto> findProjectedByIds(Collection<Long> ids);
+
+    // ==================== ETAG (CONDITIONAL GET) ====================
+
+    @Query("""
+        SELECT new spengergasse.at.sj2425scherzerrabar.dtos.RowVersion(c.copyId.id, c.version)
+        FROM Copy c WHERE c.copyId.id > :afterId ORDER BY c.copyId.id
+        """)
+    List<RowVersion> findCopyVersionsAfter(long afterId, Limit limit);
 }
@@ -1,12 +1,15 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.Customer;
 import spengergasse.at.sj2425scherzerrabar.dtos.CustomerDto;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,12 +27,18 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<CustomerDto> findProjectedCustomerByCustomerApiKey(String apiKey);
 
 
-    @Query("""
-        select new spengergasse.at.sj2425scherzerrabar.dtos.CustomerDto(
-            c
-        ) from Customer c
-        """)
-    List<CustomerDto> findAllProjected();
+    /**
+     * Customers mit Adressen in einem Statement, statt die Adressen pro Zeile nachzuladen (N+1)
+     */
+    @Query("SELECT DISTINCT c FROM Customer c LEFT JOIN FETCH c.address")
+    List<Customer> findAllWithAddresses();
+
+    @Transactional(readOnly = true)
+    default List<CustomerDto> findAllProjected() {
+        return findAllWithAddresses().stream()
+                .map(CustomerDto::customerDtoFromCustomer)
+                .toList();
+    }
 
 
     @Query("""
@@ -38,4 +47,22 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
         ) from Customer c where c.emailAddress.email = :email
         """)
     Optional<CustomerDto> findProjectedCustomerByEmailAddress_Email(String email);
+
+    // ==================== KEYSET PAGINATION ====================
+
+    @Query("SELECT c.personId.id FROM Customer c WHERE c.personId.id > :afterId ORDER BY c.personId.id")
+    List<Long> findCustomerIdsAfter(long afterId, Limit limit);
+
+    @Query("""
+        SELECT DISTINCT c FROM Customer c LEFT JOIN FETCH c.address
+        WHERE c.personId.id IN :ids ORDER BY c.personId.id
+        """)
+    List<Customer> findAllWithAddressesByIdsOrdered(Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    default List<CustomerDto> findProjectedByIds(Collection<Long> ids) {
+        return findAllWithAddressesByIdsOrdered(ids).stream()
+                .map(CustomerDto::customerDtoFromCustomer)
+                .toList();
+    }
 }
@@ -1,28 +1,41 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.Library;
 import spengergasse.at.sj2425scherzerrabar.dtos.LibraryDto;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 
-public interface LibraryRepository extends JpaRepository<Library, Integer> {
-    Optional<Library> findLibraryByLibraryApiKey(ApiKey apiKey);
+public interface LibraryRepository extends JpaRepository<Library, Integer>, NaturalIdRepository<Library> {
+    // Natural-Id Lookup: trifft bei wiederholten Referenzen den Second-Level Cache statt der DB
+    default Optional<Library> findLibraryByLibraryApiKey(ApiKey apiKey) {
+        return findByNaturalId(apiKey);
+    }
 
     Optional<Library> findLibraryByName(String name);
 
-    @Query("""
-        select new spengergasse.at.sj2425scherzerrabar.dtos.LibraryDto(
-            l
-        ) from Library l
-        """)
-    List<LibraryDto> findAllProjected();
+    /**
+     * Libraries mit booksInLibraries in einem Statement; die Books darin kommen per Batch Fetching
+     * (hibernate.default_batch_fetch_size) nach, nicht einzeln pro Library
+     */
+    @Query("SELECT DISTINCT l FROM Library l LEFT JOIN FETCH l.booksInLibraries")
+    List<Library> findAllWithBooks();
+
+    @Transactional(readOnly = true)
+    default List<LibraryDto> findAllProjected() {
+        return findAllWithBooks().stream()
+                .map(LibraryDto::libraryDtoFromLibrary)
+                .toList();
+    }
 
     @Query("""
         select new spengergasse.at.sj2425scherzerrabar.dtos.LibraryDto(
@@ -37,4 +50,22 @@ public interface LibraryRepository extends JpaRepository<Library, Integer> {
         ) from Library l where l.name = :name
         """)
     Optional<LibraryDto> findProjectedByName(String name);
+
+    // ==================== KEYSET PAGINATION ====================
+
+    @Query("SELECT l.libraryId.id FROM Library l WHERE l.libraryId.id > :afterId ORDER BY l.libraryId.id")
+    List<Long> findLibraryIdsAfter(long afterId, Limit limit);
+
+    @Query("""
+        SELECT DISTINCT l FROM Library l LEFT JOIN FETCH l.booksInLibraries
+        WHERE l.libraryId.id IN :ids ORDER BY l.libraryId.id
+        """)
+    List<Library> findAllWithBooksByIdsOrdered(Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    default List<LibraryDto> findProjectedByIds(Collection<Long> ids) {
+        return findAllWithBooksByIdsOrdered(ids).stream()
+                .map(LibraryDto::libraryDtoFromLibrary)
+                .toList();
+    }
 }
@@ -2,13 +2,17 @@ package spengergasse.at.sj2425scherzerrabar.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.LibrarySubscription;
 
 import java.util.Optional;
 
 @Repository
-public interface LibrarySubscriptionRepository extends JpaRepository<LibrarySubscription, Long> {
-    Optional<LibrarySubscription> findLibrarySubscriptionByLibrarySubscriptionApiKey(String apiKey);
+public interface LibrarySubscriptionRepository extends JpaRepository<LibrarySubscription, Long>, NaturalIdRepository<LibrarySubscription> {
+    // Natural-Id Lookup: trifft bei wiederholten Referenzen den Second-Level Cache statt der DB
+    default Optional<LibrarySubscription> findLibrarySubscriptionByLibrarySubscriptionApiKey(String apiKey) {
+        return findByNaturalId(new ApiKey(apiKey));
+    }
 }
 // An den Herr Lehrern: Wir haben uns dazu entschieden, dass wir Review und Subscription
 // erstmals nicht umsetzten um uns auf die Richtigkeit und Vollständigkeit
@@ -0,0 +1,43 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MongoOutboxRepository extends JpaRepository<MongoOutboxEvent, MongoOutboxEvent.MongoOutboxEventId> {
+
+    /**
+     * Holt die nächsten fälligen Events und sperrt sie für diese Transaktion.
+     * SKIP LOCKED erlaubt mehrere Relay-Instanzen ohne doppelte Verarbeitung.
+     */
+    @Query(value = """
+        SELECT * FROM mongo_outbox
+        WHERE attempts < :maxAttempts AND next_attempt_at <= :now
+        ORDER BY id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<MongoOutboxEvent> lockNextBatch(int maxAttempts, Instant now, int limit);
+
+    /**
+     * Sperrt ein einzelnes Event; leer, wenn es schon gelöscht ist oder eine andere Relay-Instanz es gerade hält
+     */
+    @Query(value = "SELECT * FROM mongo_outbox WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<MongoOutboxEvent> lockById(Long id);
+
+    @Query("""
+        SELECT min(e.createdAt) FROM MongoOutboxEvent e
+        WHERE e.attempts < :maxAttempts
+        """)
+    Optional<Instant> findOldestPendingCreatedAt(int maxAttempts);
+
+    long countByAttemptsLessThan(int maxAttempts);
+
+    long countByAttemptsGreaterThanEqual(int maxAttempts);
+}
@@ -0,0 +1,65 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoResyncCheckpoint;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface MongoResyncCheckpointRepository
+        extends JpaRepository<MongoResyncCheckpoint, MongoResyncCheckpoint.MongoResyncCheckpointId> {
+
+    @Query("""
+        SELECT c FROM MongoResyncCheckpoint c
+        WHERE c.id.aggregateType = :aggregateType
+        ORDER BY c.id.partitionNo
+        """)
+    List<MongoResyncCheckpoint> findByAggregateType(AggregateType aggregateType);
+
+    /**
+     * Sperrt die offenen Partitionen ohne gültige Lease. SKIP LOCKED, damit gleichzeitig startende
+     * Instanzen sich die Partitionen aufteilen, statt dieselben doppelt fortzusetzen.
+     */
+    @Query(value = """
+        SELECT * FROM mongo_resync_checkpoint
+        WHERE aggregate_type = :aggregateType AND completed = false
+          AND (lease_until IS NULL OR lease_until < :now)
+        ORDER BY partition_no
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<MongoResyncCheckpoint> lockClaimable(String aggregateType, Instant now);
+
+    /**
+     * Schreibt den Fortschritt einer Seite und verlängert die Lease, solange owner sie noch hält.
+     * @return 0, wenn die Lease abgelaufen ist oder eine andere Instanz die Partition übernommen hat
+     */
+    @Modifying
+    @Query("""
+        UPDATE MongoResyncCheckpoint c
+        SET c.lastSyncedId = :lastSyncedId, c.syncedCount = :syncedCount, c.updatedAt = :now, c.leaseUntil = :leaseUntil
+        WHERE c.id = :id AND c.leaseOwner = :owner AND c.leaseUntil >= :now
+        """)
+    int advanceLeased(MongoResyncCheckpoint.MongoResyncCheckpointId id, String owner,
+                      Long lastSyncedId, Long syncedCount, Instant leaseUntil, Instant now);
+
+    /**
+     * Schließt eine Partition ab, solange owner die Lease noch hält
+     * @return 0, wenn die Lease abgelaufen ist oder eine andere Instanz die Partition übernommen hat
+     */
+    @Modifying
+    @Query("""
+        UPDATE MongoResyncCheckpoint c
+        SET c.completed = true, c.updatedAt = :now, c.leaseOwner = null, c.leaseUntil = null
+        WHERE c.id = :id AND c.leaseOwner = :owner AND c.leaseUntil >= :now
+        """)
+    int completeLeased(MongoResyncCheckpoint.MongoResyncCheckpointId id, String owner, Instant now);
+
+    @Modifying
+    @Query("DELETE FROM MongoResyncCheckpoint c WHERE c.id.aggregateType = :aggregateType")
+    void deleteByAggregateType(AggregateType aggregateType);
+}
@@ -0,0 +1,17 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoSyncWatermark;
+
+@Repository
+public interface MongoSyncWatermarkRepository
+        extends JpaRepository<MongoSyncWatermark, MongoSyncWatermark.MongoSyncWatermarkId> {
+
+    /**
+     * Älteste noch laufende Transaktion - alle Transaktionen darunter sind beendet, ihre Änderungen sichtbar
+     */
+    @Query(value = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", nativeQuery = true)
+    Long findOldestRunningXid();
+}
@@ -0,0 +1,14 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
+
+import java.util.Optional;
+
+/**
+ * Fragment für Entities mit @NaturalId auf dem ApiKey: der Lookup geht über Session#bySimpleNaturalId
+ * und damit über Natural-Id- und Entity-Cache (Second-Level Cache), statt jedes Mal eine Query abzusetzen.
+ */
+public interface NaturalIdRepository<T> {
+
+    Optional<T> findByNaturalId(ApiKey apiKey);
+}
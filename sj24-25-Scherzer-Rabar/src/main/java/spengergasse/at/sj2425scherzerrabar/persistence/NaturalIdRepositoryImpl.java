@@ -0,0 +1,30 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.data.repository.core.RepositoryMethodContext;
+import org.springframework.data.repository.core.support.RepositoryMetadataAccess;
+import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
+
+import java.util.Optional;
+
+class NaturalIdRepositoryImpl<T> implements NaturalIdRepository<T>, RepositoryMetadataAccess {
+
+    private final EntityManager entityManager;
+
+    NaturalIdRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<T> findByNaturalId(ApiKey apiKey) {
+        // Ein Fragment für alle Repositories - der Entity-Typ kommt aus dem aufrufenden Repository
+        Class<T> entityType = (Class<T>) RepositoryMethodContext.getContext().getMetadata().getDomainType();
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(entityType)
+                // ApiKeys sind unveränderlich, der Abgleich mit ungeflushten Änderungen ist unnötig
+                .setSynchronizationEnabled(false)
+                .loadOptional(apiKey);
+    }
+}
@@ -2,14 +2,17 @@ package spengergasse.at.sj2425scherzerrabar.persistence;
 
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.Order;
 import spengergasse.at.sj2425scherzerrabar.dtos.OrderDto;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,12 +25,26 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findAllByDate(@NotNull @PastOrPresent LocalDate date);
 
 
-    @Query("""
-        select new spengergasse.at.sj2425scherzerrabar.dtos.OrderDto(
-            o
-        ) from Order o
-        """)
-    List<OrderDto> findAllProjected();
+    // ============ LIST PROJECTIONS ============
+    // Customer per JOIN FETCH; subscriptions und books sind zwei Bags (kein doppelter JOIN FETCH möglich)
+    // und kommen per Batch Fetching (hibernate.default_batch_fetch_size) mit je einem Statement nach
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.customer")
+    List<Order> findAllWithCustomer();
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.customer c WHERE c.customerApiKey.apiKey = :apiKey")
+    List<Order> findWithCustomerByCustomerApiKey(String apiKey);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.customer WHERE o.date = :date")
+    List<Order> findWithCustomerByDate(LocalDate date);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.customer WHERE o.id.id IN :ids ORDER BY o.id.id")
+    List<Order> findWithCustomerByIdsOrdered(Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    default List<OrderDto> findAllProjected() {
+        return toDtos(findAllWithCustomer());
+    }
 
     @Query("""
         select new spengergasse.at.sj2425scherzerrabar.dtos.OrderDto(
@@ -38,21 +55,29 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
 
 
-    @Query("""
-        select new spengergasse.at.sj2425scherzerrabar.dtos.OrderDto(
-            o
-        ) from Order o where o.customer.customerApiKey.apiKey = :apiKey
-        """)
-    List<OrderDto> findAllProjectedByCustomerApiKey(String apiKey);
+    @Transactional(readOnly = true)
+    default List<OrderDto> findAllProjectedByCustomerApiKey(String apiKey) {
+        return toDtos(findWithCustomerByCustomerApiKey(apiKey));
+    }
 
+    @Transactional(readOnly = true)
+    default List<OrderDto> findAllProjectedByDate(@NotNull @PastOrPresent LocalDate date) {
+        return toDtos(findWithCustomerByDate(date));
+    }
 
-    @Query("""
-        select new spengergasse.at.sj2425scherzerrabar.dtos.OrderDto(
-        o
-        ) from Order o where o.date =  :date
-        """)
-    List<OrderDto> findAllProjectedByDate(@NotNull @PastOrPresent LocalDate date);
+    // ==================== KEYSET PAGINATION ====================
 
+    @Query("SELECT o.id.id FROM Order o WHERE o.id.id > :afterId ORDER BY o.id.id")
+    List<Long> findOrderIdsAfter(long afterId, Limit limit);
 
+    @Transactional(readOnly = true)
+    default List<OrderDto> findProjectedByIds(Collection<Long> ids) {
+        return toDtos(findWithCustomerByIdsOrdered(ids));
+    }
 
+    private static List<OrderDto> toDtos(List<Order> orders) {
+        return orders.stream()
+                .map(OrderDto::orderDtoFromOrder)
+                .toList();
+    }
 }
@@ -1,5 +1,6 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -7,12 +8,16 @@ import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.Publisher;
 import spengergasse.at.sj2425scherzerrabar.dtos.PublisherDto;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PublisherRepository extends JpaRepository<Publisher, Long> {
-    Optional<Publisher> findPublisherByPublisherApiKey(ApiKey apiKey);
+public interface PublisherRepository extends JpaRepository<Publisher, Long>, NaturalIdRepository<Publisher> {
+    // Natural-Id Lookup: trifft bei wiederholten Referenzen den Second-Level Cache statt der DB
+    default Optional<Publisher> findPublisherByPublisherApiKey(ApiKey apiKey) {
+        return findByNaturalId(apiKey);
+    }
 
     Optional<Publisher> findPublisherByName(String name);
 
@@ -37,5 +42,15 @@ public interface PublisherRepository extends JpaRepository<Publisher, Long> {
     """)
     Optional<PublisherDto> findProjectedByName(String name);
 
+    // ==================== KEYSET PAGINATION ====================
 
+    @Query("SELECT p.publisherId.id FROM Publisher p WHERE p.publisherId.id > :afterId ORDER BY p.publisherId.id")
+    List<Long> findPublisherIdsAfter(long afterId, Limit limit);
+
+    @Query("""
+        select new spengergasse.at.sj2425scherzerrabar.dtos.PublisherDto(
+            p.publisherApiKey, p.name, p.address
+        ) from Publisher p where p.publisherId.id in :ids order by p.publisherId.id
+        """)
+    List<PublisherDto> findProjectedByIds(Collection<Long> ids);
 }
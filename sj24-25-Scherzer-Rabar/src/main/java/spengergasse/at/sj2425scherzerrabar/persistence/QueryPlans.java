@@ -0,0 +1,39 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import java.util.regex.Pattern;
+
+/**
+ * Aufbereitung von Hibernate-SQL für EXPLAIN (GENERIC_PLAN): PostgreSQL plant dann ohne Parameterwerte,
+ * braucht die Platzhalter aber als $1, $2, ... statt als JDBC-?
+ */
+public final class QueryPlans {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+    private QueryPlans() {
+    }
+
+    public static String numberedParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        boolean inLiteral = false;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            if (c == '?' && !inLiteral) {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    /**
+     * in (?, ?, ?) -> in (?); der Plan hängt nicht von der Anzahl der Werte ab
+     */
+    public static String collapseInLists(String sql) {
+        return IN_LIST.matcher(sql).replaceAll("(?)");
+    }
+}
@@ -0,0 +1,43 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Merkt sich jedes unterschiedliche SELECT, das Hibernate absetzt (Repository-Methoden, Criteria, native Queries),
+ * als Eingabe für den IndexAdvisor. IN-Listen werden auf einen Platzhalter reduziert, damit dieselbe Query mit
+ * unterschiedlich vielen Ids nur einmal zählt. Höchstens maxStatements Einträge, danach wird nichts mehr aufgenommen.
+ */
+public class SelectStatementRecorder implements StatementInspector {
+
+    private final Set<String> statements = ConcurrentHashMap.newKeySet();
+    private final int maxStatements;
+
+    public SelectStatementRecorder(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (statements.size() < maxStatements && isSelect(sql)) {
+            statements.add(QueryPlans.collapseInLists(sql));
+        }
+        return sql;
+    }
+
+    public List<String> statements() {
+        return statements.stream().sorted().toList();
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    private static boolean isSelect(String sql) {
+        String trimmed = sql.stripLeading();
+        return trimmed.regionMatches(true, 0, "select", 0, 6) || trimmed.regionMatches(true, 0, "with", 0, 4);
+    }
+}
@@ -9,11 +9,17 @@ import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import spengergasse.at.sj2425scherzerrabar.commands.AuthorCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
 import spengergasse.at.sj2425scherzerrabar.dtos.AuthorDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.dtos.MongoResyncProgress;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.AuthorService;
 
 import java.util.List;
@@ -28,39 +34,66 @@ public class AuthorRestController {
 
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
     private final AuthorService authorService;
+    private final CollectionExportService collectionExportService;
 
-    public AuthorRestController(AuthorService authorService) {
+    public AuthorRestController(AuthorService authorService, CollectionExportService collectionExportService) {
         this.authorService = authorService;
+        this.collectionExportService = collectionExportService;
     }
 
     @Operation(summary = "Get all Authors",
-            description = "To get every Author object in the database.")
+            description = "To get the Author objects in the database, one page at a time ordered by their id. "
+                    + "Follow the next link (body and Link header) until it is missing.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = Author.class))})})
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "304", description = "Page unchanged (If-None-Match)",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content)})
     @GetMapping
-    public ResponseEntity<List<AuthorDto>> getAllAuthors() {
+    public ResponseEntity<KeysetPage<AuthorDto>> getAllAuthors(@RequestParam(required = false) Integer limit,
+                                                               @RequestParam(required = false) String after,
+                                                               WebRequest request) {
         logger.debug("entered authorrestcontroller getAllAuthors");
-        List<AuthorDto> authors = authorService.getAuthors();
-        return ResponseEntity.ok(authors);
+        return ConditionalResponses.ifNoneMatch(request, authorService.getAuthorsPageETag(after, limit), () -> {
+            KeysetPage<AuthorDto> page = authorService.getAuthorsPage(after, limit);
+            return KeysetResponses.ok(page, cursor -> methodOn(AuthorRestController.class).getAllAuthors(page.limit(), cursor, null));
+        });
+    }
+
+    @Operation(summary = "Stream all Authors",
+            description = "To get every Author object as NDJSON (one JSON object per line), written while it is "
+                    + "read from the database. Send Accept: application/x-ndjson.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = AuthorDto.class))})})
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAuthors() {
+        logger.debug("entered authorrestcontroller streamAllAuthors");
+        return NdjsonResponses.ok(collectionExportService, authorService.exportAuthors());
     }
 
     @Operation(summary = "Get an Author",
-            description = "To get an specific Author by either their Apikey, Penname or Email-Adresse. The response is the requested Author object.")
+            description = "To get an specific Author by either their Apikey, Penname or Email-Adresse. The response is the requested Author object. "
+                    + "Lookups by Apikey carry an ETag and answer If-None-Match with 304.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = Author.class))}),
+            @ApiResponse(responseCode = "304", description = "Author unchanged (If-None-Match)",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Author not found",
                     content = @Content)})
     @GetMapping("/author")
     public ResponseEntity<AuthorDto> getAuthor(
             @RequestParam Optional<String> apiKey,
             @RequestParam Optional<String> penname,
-            @RequestParam Optional<String> email) throws BadRequestException {
+            @RequestParam Optional<String> email,
+            WebRequest request) throws BadRequestException {
         logger.debug("entered authorrestcontroller getAuthor");
         AuthorDto author;
         if(apiKey.isPresent()) {
-            author = authorService.getAuthor(apiKey.get());
+            return ConditionalResponses.ifNoneMatch(request, authorService.getAuthor(apiKey.get()), AuthorDto::version);
         }else if(penname.isPresent()) {
             author = authorService.getAuthorByPenname(penname.get());
         }else if(email.isPresent()) {
@@ -83,7 +116,7 @@ public class AuthorRestController {
         // Ruft die Standard-Methode auf, die ÜBERALL speichert
         AuthorDto createdAuthor = authorService.createAuthor(authorCommand);
 
-        Link selfLink = linkTo(methodOn(AuthorRestController.class).getAuthor(Optional.of(createdAuthor.apiKey()),Optional.empty(),Optional.empty())).withSelfRel();
+        Link selfLink = linkTo(methodOn(AuthorRestController.class).getAuthor(Optional.of(createdAuthor.apiKey()),Optional.empty(),Optional.empty(),null)).withSelfRel();
         return ResponseEntity.created(selfLink.toUri()).body(createdAuthor);
     }
 
@@ -97,7 +130,7 @@ public class AuthorRestController {
         logger.debug("entered authorrestcontroller createAuthorJpaOnly");
         AuthorDto createdAuthor = authorService.createAuthorJpaOnly(authorCommand);
 
-        Link selfLink = linkTo(methodOn(AuthorRestController.class).getAuthor(Optional.of(createdAuthor.apiKey()),Optional.empty(),Optional.empty())).withSelfRel();
+        Link selfLink = linkTo(methodOn(AuthorRestController.class).getAuthor(Optional.of(createdAuthor.apiKey()),Optional.empty(),Optional.empty(),null)).withSelfRel();
         return ResponseEntity.created(selfLink.toUri()).body(createdAuthor);
     }
 
@@ -111,7 +144,7 @@ public class AuthorRestController {
         logger.debug("entered authorrestcontroller createAuthorWithMongo");
         AuthorDto createdAuthor = authorService.createAuthorWithMongo(authorCommand);
 
-        Link selfLink = linkTo(methodOn(AuthorRestController.class).getAuthor(Optional.of(createdAuthor.apiKey()),Optional.empty(),Optional.empty())).withSelfRel();
+        Link selfLink = linkTo(methodOn(AuthorRestController.class).getAuthor(Optional.of(createdAuthor.apiKey()),Optional.empty(),Optional.empty(),null)).withSelfRel();
         return ResponseEntity.created(selfLink.toUri()).body(createdAuthor);
     }
 
@@ -175,13 +208,16 @@ public class AuthorRestController {
     }
 
     @Operation(summary = "Sync all Authors to MongoDB",
-            description = "Synchronizes all Authors from PostgreSQL to MongoDB.")
+            description = "Synchronizes all Authors from PostgreSQL to MongoDB. "
+                    + "Runs in the background with partitioned keyset pagination and resumes from its checkpoints; "
+                    + "progress and ETA are available at /actuator/mongoresync.")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Sync completed successfully")})
+            @ApiResponse(responseCode = "202", description = "Sync started or resumed"),
+            @ApiResponse(responseCode = "409", description = "Sync already running", content = @Content)})
     @PostMapping("/sync-to-mongo")
-    public ResponseEntity<String> syncAllToMongo() {
+    public ResponseEntity<MongoResyncProgress> syncAllToMongo() {
         logger.debug("entered authorrestcontroller syncAllToMongo");
-        authorService.syncAllToMongo();
-        return ResponseEntity.ok("Sync completed successfully");
+        MongoResyncProgress progress = authorService.syncAllToMongo();
+        return ResponseEntity.accepted().body(progress);
     }
 }
\ No newline at end of file
@@ -9,14 +9,38 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import spengergasse.at.sj2425scherzerrabar.commands.BookCommand;
+import spengergasse.at.sj2425scherzerrabar.domain.BookGenre;
+import spengergasse.at.sj2425scherzerrabar.domain.BookType;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
 import spengergasse.at.sj2425scherzerrabar.dtos.BookDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookFacets;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookFilter;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookSearchHit;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.dtos.BulkImportReport;
+import spengergasse.at.sj2425scherzerrabar.dtos.MongoResyncProgress;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
+import spengergasse.at.sj2425scherzerrabar.service.BookBulkImportService;
+import spengergasse.at.sj2425scherzerrabar.service.BookFacetService;
+import spengergasse.at.sj2425scherzerrabar.service.BookFilterService;
+import spengergasse.at.sj2425scherzerrabar.service.BookSearchService;
 import spengergasse.at.sj2425scherzerrabar.service.BookService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -26,25 +50,60 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/api/books")
 public class BookRestController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
     private final BookService bookService;
+    private final CollectionExportService collectionExportService;
+    private final BookBulkImportService bulkImportService;
+    private final BookSearchService bookSearchService;
+    private final BookFacetService bookFacetService;
+    private final BookFilterService bookFilterService;
 
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
-    public BookRestController(BookService bookService) {
+    public BookRestController(BookService bookService, BookBulkImportService bulkImportService,
+                              CollectionExportService collectionExportService, BookSearchService bookSearchService,
+                              BookFacetService bookFacetService, BookFilterService bookFilterService) {
         this.bookService = bookService;
+        this.bookSearchService = bookSearchService;
+        this.bookFacetService = bookFacetService;
+        this.bookFilterService = bookFilterService;
+        this.bulkImportService = bulkImportService;
+        this.collectionExportService = collectionExportService;
     }
 
     @Operation(summary = "Get all Books",
-            description = "To get every Book object in the database.")
+            description = "To get the Book objects in the database, one page at a time ordered by their id. "
+                    + "Follow the next link (body and Link header) until it is missing.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = Book.class))})})
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "304", description = "Page unchanged (If-None-Match)",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content)})
     @GetMapping
-    public ResponseEntity<List<BookDto>> getAllBooks() {
+    public ResponseEntity<KeysetPage<BookDto>> getAllBooks(@RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String after,
+                                                           WebRequest request) {
         logger.debug("entered bookrestcontroller getAllBooks");
-        List<BookDto> books;
-        books = bookService.getBooks(null);
-        return ResponseEntity.ok(books);
+        return ConditionalResponses.ifNoneMatch(request, bookService.getBooksPageETag(after, limit), () -> {
+            KeysetPage<BookDto> page = bookService.getBooksPage(after, limit);
+            return KeysetResponses.ok(page, cursor -> methodOn(BookRestController.class).getAllBooks(page.limit(), cursor, null));
+        });
+    }
+
+    @Operation(summary = "Stream all Books",
+            description = "To get every Book object as NDJSON (one JSON object per line), written while it is "
+                    + "read from the database. Send Accept: application/x-ndjson.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = BookDto.class))})})
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        logger.debug("entered bookrestcontroller streamAllBooks");
+        return NdjsonResponses.ok(collectionExportService, bookService.exportBooks());
     }
 
 
@@ -64,23 +123,100 @@ public class BookRestController {
     }
 
 
+    @Operation(summary = "Search Books",
+            description = "Full-text search over the name, the authors' pennames and the description, most relevant first. "
+                    + "Words are OR-ed, \"...\" matches a phrase and -word excludes. Follow the next link for more hits.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Empty query, invalid cursor or limit",
+                    content = @Content)})
+    @GetMapping("/search")
+    public ResponseEntity<KeysetPage<BookSearchHit>> searchBooks(@RequestParam String q,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 @RequestParam(required = false) String after) {
+        logger.debug("entered bookrestcontroller searchBooks");
+        KeysetPage<BookSearchHit> page = bookSearchService.search(q, after, limit);
+        return KeysetResponses.ok(page, cursor -> methodOn(BookRestController.class).searchBooks(q, page.limit(), cursor));
+    }
+
+    @Operation(summary = "Filter Books",
+            description = "To get the Books matching the filter, one page at a time ordered by their id. Every filter is "
+                    + "optional, all given filters must match. Follow the next link (body and Link header) until it is missing.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid filter, cursor or limit",
+                    content = @Content)})
+    @GetMapping("/filter")
+    public ResponseEntity<KeysetPage<BookDto>> filterBooks(@RequestParam(required = false) BookGenre genre,
+                                                           @RequestParam(required = false) BookType type,
+                                                           @RequestParam(required = false) Boolean availableOnline,
+                                                           @RequestParam(required = false) Integer minWordCount,
+                                                           @RequestParam(required = false) Integer maxWordCount,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+                                                           @RequestParam(required = false) String author,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           @RequestParam(required = false) String after) {
+        logger.debug("entered bookrestcontroller filterBooks");
+        var filter = new BookFilter(genre, type, availableOnline, minWordCount, maxWordCount, releasedFrom, releasedTo, author);
+        KeysetPage<BookDto> page = bookFilterService.filter(filter, after, limit);
+        return KeysetResponses.ok(page, cursor -> methodOn(BookRestController.class)
+                .filterBooks(genre, type, availableOnline, minWordCount, maxWordCount, releasedFrom, releasedTo, author,
+                        page.limit(), cursor));
+    }
+
+    @Operation(summary = "Browse Books by facets",
+            description = "To get one page of the Books matching the filter together with the number of matching Books "
+                    + "per genre, per type and per release year. Every filter is optional, all given filters must match. "
+                    + "Follow the next link for the next page; the counts are the same on every page.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = BookFacets.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid filter, cursor or limit",
+                    content = @Content)})
+    @GetMapping("/facets")
+    public ResponseEntity<BookFacets> getBookFacets(@RequestParam(required = false) BookGenre genre,
+                                                    @RequestParam(required = false) BookType type,
+                                                    @RequestParam(required = false) Boolean availableOnline,
+                                                    @RequestParam(required = false) Integer minWordCount,
+                                                    @RequestParam(required = false) Integer maxWordCount,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+                                                    @RequestParam(required = false) String author,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    @RequestParam(required = false) String after) {
+        logger.debug("entered bookrestcontroller getBookFacets");
+        var filter = new BookFilter(genre, type, availableOnline, minWordCount, maxWordCount, releasedFrom, releasedTo, author);
+        BookFacets facets = bookFacetService.facets(filter, after, limit);
+        Link next = KeysetResponses.nextLink(facets.page(), cursor -> methodOn(BookRestController.class)
+                .getBookFacets(genre, type, availableOnline, minWordCount, maxWordCount, releasedFrom, releasedTo, author,
+                        facets.page().limit(), cursor));
+        if (next == null) {
+            return ResponseEntity.ok(facets);
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, next.toString())
+                .body(facets.withPage(facets.page().withNext(next.getHref())));
+    }
+
     @Operation(summary = "Get a Book",
             description = "To get an specific Book by their Apikey. The response is the requested Book object.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = Book.class))}),
+            @ApiResponse(responseCode = "304", description = "Book unchanged (If-None-Match)",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Book not found",
                     content = @Content)})
     @GetMapping("/book")
     public ResponseEntity<BookDto> getBook(
-            @RequestParam String apiKey
+            @RequestParam String apiKey,
+            WebRequest request
     ) throws BadRequestException {
         logger.debug("entered bookrestcontroller getBook");
-        BookDto bookDto;
-
-        bookDto = bookService.getBook(apiKey);
-
-        return ResponseEntity.ok(bookDto);
+        return ConditionalResponses.ifNoneMatch(request, bookService.getBook(apiKey), BookDto::version);
     }
 
     @Operation(summary = "Create a Book",
@@ -94,7 +230,7 @@ public class BookRestController {
         // Ruft die Standard-Methode auf, die ÜBERALL speichert
         BookDto createdBook = bookService.createBook(bookCommand);
 
-        Link selfLink = linkTo(methodOn(BookRestController.class).getBook(createdBook.apiKey())).withSelfRel();
+        Link selfLink = linkTo(methodOn(BookRestController.class).getBook(createdBook.apiKey(), null)).withSelfRel();
         return ResponseEntity.created(selfLink.toUri()).body(createdBook);
     }
 
@@ -108,7 +244,7 @@ public class BookRestController {
         logger.debug("entered bookrestcontroller createBookJpaOnly");
         BookDto createdBook = bookService.createBookJpaOnly(bookCommand);
 
-        Link selfLink = linkTo(methodOn(BookRestController.class).getBook(createdBook.apiKey())).withSelfRel();
+        Link selfLink = linkTo(methodOn(BookRestController.class).getBook(createdBook.apiKey(), null)).withSelfRel();
         return ResponseEntity.created(selfLink.toUri()).body(createdBook);
     }
 
@@ -122,7 +258,7 @@ public class BookRestController {
         logger.debug("entered bookrestcontroller createBookWithReferencing");
         BookDto createdBook = bookService.createBookWithReferencing(bookCommand);
 
-        Link selfLink = linkTo(methodOn(BookRestController.class).getBook(createdBook.apiKey())).withSelfRel();
+        Link selfLink = linkTo(methodOn(BookRestController.class).getBook(createdBook.apiKey(), null)).withSelfRel();
         return ResponseEntity.created(selfLink.toUri()).body(createdBook);
     }
 
@@ -136,10 +272,34 @@ public class BookRestController {
         logger.debug("entered bookrestcontroller createBookWithEmbedding");
         BookDto createdBook = bookService.createBookWithEmbedding(bookCommand);
 
-        Link selfLink = linkTo(methodOn(BookRestController.class).getBook(createdBook.apiKey())).withSelfRel();
+        Link selfLink = linkTo(methodOn(BookRestController.class).getBook(createdBook.apiKey(), null)).withSelfRel();
         return ResponseEntity.created(selfLink.toUri()).body(createdBook);
     }
 
+    @Operation(summary = "Bulk import Books",
+            description = "Streams an NDJSON (one BookCommand per line) or CSV upload (header: "
+                    + "name,releaseDate,availableOnline,types,wordCount,description,authorIds,genre; "
+                    + "list values separated by '|') into PostgreSQL and both MongoDB collections. "
+                    + "Rows are committed in chunks; the response reports per-row errors and throughput.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = BulkImportReport.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid chunk size or CSV header",
+                    content = @Content)})
+    @PostMapping(value = "/bulk", consumes = {APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public ResponseEntity<BulkImportReport> bulkImportBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                            @RequestParam(required = false) Integer chunkSize,
+                                                            InputStream body) throws IOException {
+        logger.debug("entered bookrestcontroller bulkImportBooks");
+        BookBulkImportService.Format format = MediaType.parseMediaType(TEXT_CSV_VALUE).includes(contentType)
+                ? BookBulkImportService.Format.CSV
+                : BookBulkImportService.Format.NDJSON;
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+
+        BulkImportReport report = bulkImportService.importBooks(new InputStreamReader(body, charset), format, chunkSize);
+        return ResponseEntity.ok(report);
+    }
+
     @Operation(summary = "Update a Book",
             description = "Update an existing Book (JPA + both MongoDB collections). The response is an updated Book object.")
     @ApiResponses({
@@ -171,14 +331,17 @@ public class BookRestController {
     }
 
     @Operation(summary = "Sync all Books to MongoDB",
-            description = "Synchronizes all Books from PostgreSQL to both MongoDB collections (Referencing + Embedding).")
+            description = "Synchronizes all Books from PostgreSQL to both MongoDB collections (Referencing + Embedding). "
+                    + "Runs in the background with partitioned keyset pagination and resumes from its checkpoints; "
+                    + "progress and ETA are available at /actuator/mongoresync.")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Sync completed successfully")})
+            @ApiResponse(responseCode = "202", description = "Sync started or resumed"),
+            @ApiResponse(responseCode = "409", description = "Sync already running", content = @Content)})
     @PostMapping("/sync-to-mongo")
-    public ResponseEntity<String> syncAllToMongo() {
+    public ResponseEntity<MongoResyncProgress> syncAllToMongo() {
         logger.debug("entered bookrestcontroller syncAllToMongo");
-        bookService.syncAllToMongo();
-        return ResponseEntity.ok("Sync completed successfully");
+        MongoResyncProgress progress = bookService.syncAllToMongo();
+        return ResponseEntity.accepted().body(progress);
     }
 
 }
\ No newline at end of file
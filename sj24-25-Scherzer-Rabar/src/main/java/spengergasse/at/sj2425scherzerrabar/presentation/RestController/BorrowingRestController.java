@@ -8,11 +8,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import spengergasse.at.sj2425scherzerrabar.domain.*;
 import spengergasse.at.sj2425scherzerrabar.dtos.BorrowingDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.commands.BorrowingCommand;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.BorrowingService;
 
 import java.util.List;
@@ -25,22 +29,40 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 public class BorrowingRestController {
 
     private final BorrowingService borrowingService;
+    private final CollectionExportService collectionExportService;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
-    public BorrowingRestController(BorrowingService borrowingService) {
+    public BorrowingRestController(BorrowingService borrowingService, CollectionExportService collectionExportService) {
         this.borrowingService = borrowingService;
+        this.collectionExportService = collectionExportService;
     }
 
     @Operation(summary = "Get all Borrowings",
-            description = "To get every Borrowing object in the database.")
+            description = "To get the Borrowing objects in the database, one page at a time ordered by their id. "
+                    + "Follow the next link (body and Link header) until it is missing.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = Borrowing.class))})})
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content)})
     @GetMapping
-    public ResponseEntity<List<BorrowingDto>> getAllBorrowings() {
+    public ResponseEntity<KeysetPage<BorrowingDto>> getAllBorrowings(@RequestParam(required = false) Integer limit,
+                                                                     @RequestParam(required = false) String after) {
         logger.debug("entered borrowingrestcontroller getAllBorrowings");
-        List<BorrowingDto> borrowings = borrowingService.getAllBorrowings();
-        return ResponseEntity.ok(borrowings);
+        KeysetPage<BorrowingDto> page = borrowingService.getBorrowingsPage(after, limit);
+        return KeysetResponses.ok(page, cursor -> methodOn(BorrowingRestController.class).getAllBorrowings(page.limit(), cursor));
+    }
+
+    @Operation(summary = "Stream all Borrowings",
+            description = "To get every Borrowing object as NDJSON (one JSON object per line), written while it is "
+                    + "read from the database. Send Accept: application/x-ndjson.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = BorrowingDto.class))})})
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBorrowings() {
+        logger.debug("entered borrowingrestcontroller streamAllBorrowings");
+        return NdjsonResponses.ok(collectionExportService, borrowingService.exportBorrowings());
     }
 
     @Operation(summary = "Get a Borrowing",
@@ -8,11 +8,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import spengergasse.at.sj2425scherzerrabar.commands.BranchCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.Branch;
 import spengergasse.at.sj2425scherzerrabar.dtos.BranchDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.BranchService;
 
 import java.util.List;
@@ -24,22 +28,40 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/api/branches")
 public class BranchRestController {
     private final BranchService branchService;
+    private final CollectionExportService collectionExportService;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
-    public BranchRestController(BranchService branchService) {
+    public BranchRestController(BranchService branchService, CollectionExportService collectionExportService) {
         this.branchService = branchService;
+        this.collectionExportService = collectionExportService;
     }
 
     @Operation(summary = "Get all Branches",
-            description = "To get every Branch object in the database.")
+            description = "To get the Branch objects in the database, one page at a time ordered by their id. "
+                    + "Follow the next link (body and Link header) until it is missing.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = Branch.class))})})
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content)})
     @GetMapping
-    public ResponseEntity<List<BranchDto>> getAllBranches() {
+    public ResponseEntity<KeysetPage<BranchDto>> getAllBranches(@RequestParam(required = false) Integer limit,
+                                                                @RequestParam(required = false) String after) {
         logger.debug("entered branchrestcontroller getAllBranches");
-        List<BranchDto> response = branchService.getAllBranches();
-        return ResponseEntity.ok(response);
+        KeysetPage<BranchDto> page = branchService.getBranchesPage(after, limit);
+        return KeysetResponses.ok(page, cursor -> methodOn(BranchRestController.class).getAllBranches(page.limit(), cursor));
+    }
+
+    @Operation(summary = "Stream all Branches",
+            description = "To get every Branch object as NDJSON (one JSON object per line), written while it is "
+                    + "read from the database. Send Accept: application/x-ndjson.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = BranchDto.class))})})
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBranches() {
+        logger.debug("entered branchrestcontroller streamAllBranches");
+        return NdjsonResponses.ok(collectionExportService, branchService.exportBranches());
     }
 
     @Operation(summary = "Get a Branch",
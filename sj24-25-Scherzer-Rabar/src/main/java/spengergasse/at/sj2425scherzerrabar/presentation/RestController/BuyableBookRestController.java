@@ -8,11 +8,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import spengergasse.at.sj2425scherzerrabar.commands.BuyableBookCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.BuyableBook;
 import spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.BuyableBookService;
 
 import java.util.List;
@@ -24,21 +28,39 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/api/buyableBooks")
 public class BuyableBookRestController {
     private final BuyableBookService buyableBookService;
-    public BuyableBookRestController(BuyableBookService buyableBookService) {
+    private final CollectionExportService collectionExportService;
+    public BuyableBookRestController(BuyableBookService buyableBookService, CollectionExportService collectionExportService) {
         this.buyableBookService = buyableBookService;
+        this.collectionExportService = collectionExportService;
     }
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
     @Operation(summary = "Get all buyable Books",
-            description = "To get every buyable Book object in the database.")
+            description = "To get the buyable Book objects in the database, one page at a time ordered by their id. "
+                    + "Follow the next link (body and Link header) until it is missing.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = BuyableBook.class))})})
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content)})
     @GetMapping
-    public ResponseEntity<List<BuyableBookDto>> getAllBuyableBooks() {
+    public ResponseEntity<KeysetPage<BuyableBookDto>> getAllBuyableBooks(@RequestParam(required = false) Integer limit,
+                                                                         @RequestParam(required = false) String after) {
         logger.debug("entered buyablebookrestcontroller getAllBuyableBooks");
-        List<BuyableBookDto> response = buyableBookService.getAllBuyableBooks();
-        return ResponseEntity.ok(response);
+        KeysetPage<BuyableBookDto> page = buyableBookService.getBuyableBooksPage(after, limit);
+        return KeysetResponses.ok(page, cursor -> methodOn(BuyableBookRestController.class).getAllBuyableBooks(page.limit(), cursor));
+    }
+
+    @Operation(summary = "Stream all buyable Books",
+            description = "To get every buyable Book object as NDJSON (one JSON object per line), written while it is "
+                    + "read from the database. Send Accept: application/x-ndjson.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = BuyableBookDto.class))})})
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBuyableBooks() {
+        logger.debug("entered buyablebookrestcontroller streamAllBuyableBooks");
+        return NdjsonResponses.ok(collectionExportService, buyableBookService.exportBuyableBooks());
     }
 
     @Operation(summary = "Get a buyable Book",
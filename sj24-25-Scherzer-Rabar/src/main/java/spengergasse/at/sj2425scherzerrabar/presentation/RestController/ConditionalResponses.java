@@ -0,0 +1,46 @@
+package spengergasse.at.sj2425scherzerrabar.presentation.RestController;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import spengergasse.at.sj2425scherzerrabar.foundation.ETags;
+
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Conditional GET: passt If-None-Match auf das ETag, gibt es 304 ohne Body.
+ * Seiten: das ETag muss vor dem Body gelesen werden, damit es nie neuer ist als der Body - das DTO wird bei 304 gar
+ * nicht gebaut. Einzelne Entities: ETag und Body kommen aus demselben (gecachten oder gerouteten) DTO.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * @param response baut die Antwort, nur wenn der Client das ETag noch nicht hat
+     */
+    static <T> ResponseEntity<T> ifNoneMatch(WebRequest request, String etag, Supplier<ResponseEntity<T>> response) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity<T> modified = response.get();
+        return ResponseEntity.status(modified.getStatusCode())
+                .headers(modified.getHeaders())
+                .eTag(etag)
+                .body(modified.getBody());
+    }
+
+    /**
+     * @param body    ein Read, liefert auch die Version - Cache und Read-Model bleiben so im Spiel
+     * @param version @Version, aus der das ETag gebildet wird
+     */
+    static <T> ResponseEntity<T> ifNoneMatch(WebRequest request, T body, ToLongFunction<T> version) {
+        String etag = ETags.of(version.applyAsLong(body));
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(body);
+    }
+}
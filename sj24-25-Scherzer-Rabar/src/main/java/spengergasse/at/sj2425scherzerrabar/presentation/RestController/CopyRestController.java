@@ -8,11 +8,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import spengergasse.at.sj2425scherzerrabar.commands.CopyCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.Copy;
 import spengergasse.at.sj2425scherzerrabar.dtos.CopyDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.CopyService;
 
 import java.util.List;
@@ -24,21 +29,44 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/api/copies")
 public class CopyRestController {
     private final CopyService copyService;
-    public CopyRestController(CopyService copyService) {
+    private final CollectionExportService collectionExportService;
+    public CopyRestController(CopyService copyService, CollectionExportService collectionExportService) {
         this.copyService = copyService;
+        this.collectionExportService = collectionExportService;
     }
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
     @Operation(summary = "Get all Copies",
-            description = "To get every Copy object in the database.")
+            description = "To get the Copy objects in the database, one page at a time ordered by their id. "
+                    + "Follow the next link (body and Link header) until it is missing.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = Copy.class))})})
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "304", description = "Page unchanged (If-None-Match)",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content)})
     @GetMapping
-    public ResponseEntity<List<CopyDto>> getAllCopies() {
+    public ResponseEntity<KeysetPage<CopyDto>> getAllCopies(@RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String after,
+                                                            WebRequest request) {
         logger.debug("entered copyrestcontroller getAllCopies");
-        List<CopyDto> response = copyService.getCopies();
-        return ResponseEntity.ok(response);
+        return ConditionalResponses.ifNoneMatch(request, copyService.getCopiesPageETag(after, limit), () -> {
+            KeysetPage<CopyDto> page = copyService.getCopiesPage(after, limit);
+            return KeysetResponses.ok(page, cursor -> methodOn(CopyRestController.class).getAllCopies(page.limit(), cursor, null));
+        });
+    }
+
+    @Operation(summary = "Stream all Copies",
+            description = "To get every Copy object as NDJSON (one JSON object per line), written while it is "
+                    + "read from the database. Send Accept: application/x-ndjson.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = CopyDto.class))})})
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCopies() {
+        logger.debug("entered copyrestcontroller streamAllCopies");
+        return NdjsonResponses.ok(collectionExportService, copyService.exportCopies());
     }
 
     @Operation(summary = "Get a Copy",
@@ -46,13 +74,14 @@ public class CopyRestController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = Copy.class))}),
+            @ApiResponse(responseCode = "304", description = "Copy unchanged (If-None-Match)",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Copy not found",
                     content = @Content)})
     @GetMapping("/copy")
-    public ResponseEntity<CopyDto> getCopy(@RequestParam String apiKey) {
+    public ResponseEntity<CopyDto> getCopy(@RequestParam String apiKey, WebRequest request) {
         logger.debug("entered copyrestcontroller getCopy");
-        CopyDto response = copyService.getCopy(apiKey);
-        return ResponseEntity.ok(response);
+        return ConditionalResponses.ifNoneMatch(request, copyService.getCopy(apiKey), CopyDto::version);
     }
 
     @Operation(summary = "Get all Copies by a Book",
@@ -119,7 +148,7 @@ public class CopyRestController {
         logger.debug("entered copyrestcontroller createCopy");
         CopyDto response = copyService.createCopy(command);
 
-        Link selfLink = linkTo(methodOn(CopyRestController.class).getCopy(response.apiKey())).withSelfRel();
+        Link selfLink = linkTo(methodOn(CopyRestController.class).getCopy(response.apiKey(), null)).withSelfRel();
         return ResponseEntity.created(selfLink.toUri()).body(response);
     }
 
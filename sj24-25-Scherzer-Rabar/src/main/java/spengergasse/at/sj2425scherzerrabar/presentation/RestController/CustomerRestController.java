@@ -9,11 +9,15 @@ import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import spengergasse.at.sj2425scherzerrabar.commands.CustomerCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.Customer;
 import spengergasse.at.sj2425scherzerrabar.dtos.CustomerDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.CustomerService;
 
 import java.util.List;
@@ -26,20 +30,40 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/api/customers")
 public class CustomerRestController {
     private final CustomerService customerService;
-    public CustomerRestController(CustomerService customerService) {this.customerService = customerService;}
+    private final CollectionExportService collectionExportService;
+    public CustomerRestController(CustomerService customerService, CollectionExportService collectionExportService) {
+        this.customerService = customerService;
+        this.collectionExportService = collectionExportService;
+    }
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
 
     @Operation(summary = "Get all Customers",
-            description = "To get every Customer object in the database.")
+            description = "To get the Customer objects in the database, one page at a time ordered by their id. "
+                    + "Follow the next link (body and Link header) until it is missing.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = Customer.class))})})
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content)})
     @GetMapping
-    public ResponseEntity<List<CustomerDto>> getAllCustomers() {
+    public ResponseEntity<KeysetPage<CustomerDto>> getAllCustomers(@RequestParam(required = false) Integer limit,
+                                                                   @RequestParam(required = false) String after) {
         logger.debug("entered customerrestcontroller getAllCustomers");
-        List<CustomerDto> response = customerService.getCustomers();
-        return ResponseEntity.ok(response);
+        KeysetPage<CustomerDto> page = customerService.getCustomersPage(after, limit);
+        return KeysetResponses.ok(page, cursor -> methodOn(CustomerRestController.class).getAllCustomers(page.limit(), cursor));
+    }
+
+    @Operation(summary = "Stream all Customers",
+            description = "To get every Customer object as NDJSON (one JSON object per line), written while it is "
+                    + "read from the database. Send Accept: application/x-ndjson.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = CustomerDto.class))})})
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCustomers() {
+        logger.debug("entered customerrestcontroller streamAllCustomers");
+        return NdjsonResponses.ok(collectionExportService, customerService.exportCustomers());
     }
 
     @Operation(summary = "Get a Customer",
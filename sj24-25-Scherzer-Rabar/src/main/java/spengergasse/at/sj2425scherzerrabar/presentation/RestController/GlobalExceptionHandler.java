@@ -12,6 +12,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
+import spengergasse.at.sj2425scherzerrabar.foundation.KeysetCursor;
 import spengergasse.at.sj2425scherzerrabar.service.*;
 
 import java.nio.file.AccessDeniedException;
@@ -32,6 +33,46 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(problemDetail, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(BookBulkImportService.BookBulkImportServiceException.class)
+    public ResponseEntity<ProblemDetail> handleBookBulkImportServiceException(BookBulkImportService.BookBulkImportServiceException ex) {
+        logger.debug("entererd globalexceptionhandler handleBookBulkImportServiceException");
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+        problemDetail.setTitle("Book Bulk Import Error");
+        return new ResponseEntity<>(problemDetail, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(BookSearchService.BookSearchServiceException.class)
+    public ResponseEntity<ProblemDetail> handleBookSearchServiceException(BookSearchService.BookSearchServiceException ex) {
+        logger.debug("entererd globalexceptionhandler handleBookSearchServiceException");
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+        problemDetail.setTitle("Book Search Error");
+        return new ResponseEntity<>(problemDetail, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(BookFacetService.BookFacetServiceException.class)
+    public ResponseEntity<ProblemDetail> handleBookFacetServiceException(BookFacetService.BookFacetServiceException ex) {
+        logger.debug("entererd globalexceptionhandler handleBookFacetServiceException");
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+        problemDetail.setTitle("Book Facet Error");
+        return new ResponseEntity<>(problemDetail, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(BookFilterService.BookFilterServiceException.class)
+    public ResponseEntity<ProblemDetail> handleBookFilterServiceException(BookFilterService.BookFilterServiceException ex) {
+        logger.debug("entererd globalexceptionhandler handleBookFilterServiceException");
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+        problemDetail.setTitle("Book Filter Error");
+        return new ResponseEntity<>(problemDetail, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(MongoResyncService.MongoResyncServiceException.class)
+    public ResponseEntity<ProblemDetail> handleMongoResyncServiceException(MongoResyncService.MongoResyncServiceException ex) {
+        logger.debug("entererd globalexceptionhandler handleMongoResyncServiceException");
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
+        problemDetail.setTitle("Mongo Resync Error");
+        return new ResponseEntity<>(problemDetail, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(AuthorService.AuthorServiceException.class)
     public ResponseEntity<ProblemDetail> handleAuthorServiceException(AuthorService.AuthorServiceException ex) {
         logger.debug("entererd globalexceptionhandler handleAuthorServiceException");
@@ -113,6 +154,14 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(problemDetail, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(KeysetCursor.KeysetCursorException.class)
+    public ResponseEntity<ProblemDetail> handleKeysetCursorException(KeysetCursor.KeysetCursorException ex){
+        logger.debug("entererd globalexceptionhandler handleKeysetCursorException");
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+        problemDetail.setTitle("Invalid Page Request");
+        return new ResponseEntity<>(problemDetail, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<ProblemDetail> handleHttpStatusCodeException(BadRequestException ex){
         logger.debug("entererd globalexceptionhandler handleHttpStatusCodeException");
@@ -0,0 +1,44 @@
+package spengergasse.at.sj2425scherzerrabar.presentation.RestController;
+
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+
+import java.util.function.Function;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * Baut die Antwort für Keyset-paginierte Collections: next-Link im Body und als Link-Header (rel="next")
+ */
+final class KeysetResponses {
+
+    private KeysetResponses() {
+    }
+
+    /**
+     * @param nextPage methodOn(...)-Aufruf des Endpoints mit dem übergebenen Cursor
+     */
+    static <T> ResponseEntity<KeysetPage<T>> ok(KeysetPage<T> page, Function<String, Object> nextPage) {
+        Link next = nextLink(page, nextPage);
+        if (next == null) {
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, next.toString())
+                .body(page.withNext(next.getHref()));
+    }
+
+    /**
+     * Für Antworten, die die Seite nur enthalten (z.B. BookFacets)
+     * @return null auf der letzten Seite
+     */
+    static Link nextLink(KeysetPage<?> page, Function<String, Object> nextPage) {
+        if (page.nextCursor() == null) {
+            return null;
+        }
+        return linkTo(nextPage.apply(page.nextCursor())).withRel(IanaLinkRelations.NEXT);
+    }
+}
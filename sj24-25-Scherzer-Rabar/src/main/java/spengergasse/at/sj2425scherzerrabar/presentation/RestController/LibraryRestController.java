@@ -9,11 +9,15 @@ import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import spengergasse.at.sj2425scherzerrabar.commands.LibraryCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.Library;
 import spengergasse.at.sj2425scherzerrabar.dtos.LibraryDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.LibraryService;
 
 import java.util.List;
@@ -26,21 +30,39 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/api/libraries")
 public class LibraryRestController {
     private final LibraryService libraryService;
-    public LibraryRestController(LibraryService libraryService) {
+    private final CollectionExportService collectionExportService;
+    public LibraryRestController(LibraryService libraryService, CollectionExportService collectionExportService) {
         this.libraryService = libraryService;
+        this.collectionExportService = collectionExportService;
     }
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
     @Operation(summary = "Get all Libraries",
-            description = "To get every Library object in the database.")
+            description = "To get the Library objects in the database, one page at a time ordered by their id. "
+                    + "Follow the next link (body and Link header) until it is missing.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = Library.class))})})
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content)})
     @GetMapping
-    public ResponseEntity<List<LibraryDto>> getAllLibraries() {
+    public ResponseEntity<KeysetPage<LibraryDto>> getAllLibraries(@RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) String after) {
         logger.debug("entered libraryrestcontroller getAllLibraries");
-        List<LibraryDto> response = libraryService.getLibraries();
-        return ResponseEntity.ok(response);
+        KeysetPage<LibraryDto> page = libraryService.getLibrariesPage(after, limit);
+        return KeysetResponses.ok(page, cursor -> methodOn(LibraryRestController.class).getAllLibraries(page.limit(), cursor));
+    }
+
+    @Operation(summary = "Stream all Libraries",
+            description = "To get every Library object as NDJSON (one JSON object per line), written while it is "
+                    + "read from the database. Send Accept: application/x-ndjson.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = LibraryDto.class))})})
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllLibraries() {
+        logger.debug("entered libraryrestcontroller streamAllLibraries");
+        return NdjsonResponses.ok(collectionExportService, libraryService.exportLibraries());
     }
 
     @Operation(summary = "Get a Library",
@@ -0,0 +1,23 @@
+package spengergasse.at.sj2425scherzerrabar.presentation.RestController;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
+
+/**
+ * Antwort für Accept: application/x-ndjson auf den Collection-Endpoints.
+ * Der Body wird asynchron geschrieben, die Zeilen gehen chunkweise direkt in den Response-Stream.
+ */
+final class NdjsonResponses {
+
+    private NdjsonResponses() {
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> ok(CollectionExportService exportService,
+                                                        CollectionExportService.Source<T> source) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> exportService.writeNdjson(source, out));
+    }
+}
@@ -8,11 +8,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import spengergasse.at.sj2425scherzerrabar.commands.OrderCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.Order;
 import spengergasse.at.sj2425scherzerrabar.dtos.OrderDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.OrderService;
 
 import java.time.LocalDate;
@@ -25,22 +29,40 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/api/orders")
 public class OrderRestController {
     private final OrderService orderService;
+    private final CollectionExportService collectionExportService;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
-    public OrderRestController(OrderService orderService) {
+    public OrderRestController(OrderService orderService, CollectionExportService collectionExportService) {
         this.orderService = orderService;
+        this.collectionExportService = collectionExportService;
     }
 
     @Operation(summary = "Get all Orders",
-            description = "To get every Order object in the database.")
+            description = "To get the Order objects in the database, one page at a time ordered by their id. "
+                    + "Follow the next link (body and Link header) until it is missing.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = Order.class))})})
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content)})
     @GetMapping
-    public ResponseEntity<List<OrderDto>> getAllOrders() {
+    public ResponseEntity<KeysetPage<OrderDto>> getAllOrders(@RequestParam(required = false) Integer limit,
+                                                             @RequestParam(required = false) String after) {
         logger.debug("entered orderrestcontroller getAllOrders");
-        List<OrderDto> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+        KeysetPage<OrderDto> page = orderService.getOrdersPage(after, limit);
+        return KeysetResponses.ok(page, cursor -> methodOn(OrderRestController.class).getAllOrders(page.limit(), cursor));
+    }
+
+    @Operation(summary = "Stream all Orders",
+            description = "To get every Order object as NDJSON (one JSON object per line), written while it is "
+                    + "read from the database. Send Accept: application/x-ndjson.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = OrderDto.class))})})
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllOrders() {
+        logger.debug("entered orderrestcontroller streamAllOrders");
+        return NdjsonResponses.ok(collectionExportService, orderService.exportOrders());
     }
     @Operation(summary = "Get all Orders by a Date",
             description = "To get all Orders by their Date. The response is the requested Orders objects.")
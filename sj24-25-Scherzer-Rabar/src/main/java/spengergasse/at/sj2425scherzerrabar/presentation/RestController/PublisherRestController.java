@@ -9,11 +9,15 @@ import org.apache.coyote.BadRequestException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import spengergasse.at.sj2425scherzerrabar.commands.PublisherCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.Publisher;
 import spengergasse.at.sj2425scherzerrabar.dtos.PublisherDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.PublisherService;
 
 import java.util.List;
@@ -26,22 +30,40 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/api/publishers")
 public class PublisherRestController {
     private final PublisherService publisherService;
+    private final CollectionExportService collectionExportService;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
-    public PublisherRestController(PublisherService publisherService) {
+    public PublisherRestController(PublisherService publisherService, CollectionExportService collectionExportService) {
         this.publisherService = publisherService;
+        this.collectionExportService = collectionExportService;
     }
 
     @Operation(summary = "Get all Publishers",
-            description = "To get every Publisher object in the database.")
+            description = "To get the Publisher objects in the database, one page at a time ordered by their id. "
+                    + "Follow the next link (body and Link header) until it is missing.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", content = {@Content(mediaType = "application/json",
-                    schema = @Schema(implementation = Publisher.class))})})
+                    schema = @Schema(implementation = KeysetPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+                    content = @Content)})
     @GetMapping
-    public ResponseEntity<List<PublisherDto>> getAllPublishers() {
+    public ResponseEntity<KeysetPage<PublisherDto>> getAllPublishers(@RequestParam(required = false) Integer limit,
+                                                                     @RequestParam(required = false) String after) {
         logger.debug("entered publisherrestcontroller getAllPublishers");
-        List<PublisherDto> publishers = publisherService.getAllPublishers();
-        return ResponseEntity.ok(publishers);
+        KeysetPage<PublisherDto> page = publisherService.getPublishersPage(after, limit);
+        return KeysetResponses.ok(page, cursor -> methodOn(PublisherRestController.class).getAllPublishers(page.limit(), cursor));
+    }
+
+    @Operation(summary = "Stream all Publishers",
+            description = "To get every Publisher object as NDJSON (one JSON object per line), written while it is "
+                    + "read from the database. Send Accept: application/x-ndjson.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = PublisherDto.class))})})
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPublishers() {
+        logger.debug("entered publisherrestcontroller streamAllPublishers");
+        return NdjsonResponses.ok(collectionExportService, publisherService.exportPublishers());
     }
 
     @Operation(summary = "Get a Publisher",
@@ -19,6 +19,9 @@ import java.util.List;
 @RequestMapping("/www/authors")
 public class AuthorController implements RedirectForwardSupport {
 
+    /** Treffer pro Typeahead-Abfrage */
+    static final int SUGGEST_LIMIT = 10;
+
     private final AuthorService authorService;
     private Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
@@ -35,6 +38,13 @@ public class AuthorController implements RedirectForwardSupport {
         return "authors/index";
     }
 
+    @GetMapping("/suggest")
+    public String suggestAuthors(@RequestParam(defaultValue = "") String q, Model model) {
+        logger.debug("entered Web AuthorController suggestAuthors");
+        model.addAttribute("suggestions", authorService.suggestAuthors(q, SUGGEST_LIMIT));
+        return "authors/suggest :: suggestions";
+    }
+
     @GetMapping("/add")
     public String showAddForm(Model model) {
         logger.debug("entered Web AuthorController showAddForm");
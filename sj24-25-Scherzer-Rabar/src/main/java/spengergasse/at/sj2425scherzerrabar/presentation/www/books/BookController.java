@@ -12,7 +12,6 @@ import spengergasse.at.sj2425scherzerrabar.domain.BookGenre;
 import spengergasse.at.sj2425scherzerrabar.domain.BookType;
 import spengergasse.at.sj2425scherzerrabar.presentation.www.RedirectForwardSupport;
 import spengergasse.at.sj2425scherzerrabar.presentation.www.authors.CreateAuthorForm;
-import spengergasse.at.sj2425scherzerrabar.service.AuthorService;
 import spengergasse.at.sj2425scherzerrabar.service.BookService;
 
 import java.time.Duration;
@@ -21,7 +20,6 @@ import java.time.Duration;
 @RequestMapping(BookController.BASE_URL)
 public class BookController implements RedirectForwardSupport {
     private final BookService bookService;
-    private final AuthorService authorService;
 
     public static final String BASE_URL = "/www/books";
     public static final String ROUTE_INDEX = "";
@@ -29,12 +27,15 @@ public class BookController implements RedirectForwardSupport {
     public static final String ROUTE_EDIT = "/edit";
     public static final String ROUTE_DELETE = "/delete";
     public static final String ROUTE_NEW = "/add";
+    public static final String ROUTE_SUGGEST = "/suggest";
+
+    /** Treffer pro Typeahead-Abfrage */
+    static final int SUGGEST_LIMIT = 10;
 
     private Logger logger = LoggerFactory.getLogger(BookController.class);
 
-    public BookController(BookService bookService, AuthorService authorService) {
+    public BookController(BookService bookService) {
         this.bookService = bookService;
-        this.authorService = authorService;
     }
 
     @GetMapping(ROUTE_INDEX)
@@ -59,10 +60,17 @@ public class BookController implements RedirectForwardSupport {
         return "books/show";
     }
 
+    // Authors werden im Formular per Typeahead (/www/authors/suggest) gewählt statt aus einer Liste aller Authors
+    @GetMapping(ROUTE_SUGGEST)
+    public String suggestBooks(@RequestParam(defaultValue = "") String q, Model model) {
+        logger.debug("entered Web BookController suggestBooks");
+        model.addAttribute("suggestions", bookService.suggestBooks(q, SUGGEST_LIMIT));
+        return "books/suggest :: suggestions";
+    }
+
     @GetMapping(ROUTE_NEW)
     public String showCreateForm(Model model) {
         logger.debug("entered Web BookController showCreateForm");
-        model.addAttribute("existingAuthors", authorService.getAuthors());
         model.addAttribute("newAuthor", new CreateAuthorForm());
         model.addAttribute("newBook", new CreateBookForm());
         return "books/create";
@@ -72,7 +80,6 @@ public class BookController implements RedirectForwardSupport {
     public String handleCreateForm(@Valid @ModelAttribute("newBook") CreateBookForm book, BindingResult brNewBook, Model model) {
         logger.debug("entered Web BookController handleCreateForm");
         if (brNewBook.hasErrors()) {
-            model.addAttribute("existingAuthors", authorService.getAuthors());
             return "books/create";
         }
 
@@ -85,7 +92,6 @@ public class BookController implements RedirectForwardSupport {
     public String showEditForm(@RequestParam String apiKey, Model model) {
         logger.debug("entered Web BookController showEditForm");
         var book = bookService.getBook2(apiKey);
-        model.addAttribute("existingAuthors", authorService.getAuthors());
 
         CreateBookForm bookForm = new CreateBookForm();
         bookForm.setName(book.name());
@@ -106,7 +112,6 @@ public class BookController implements RedirectForwardSupport {
     public String handleEditForm(@RequestParam String apiKey, @Valid @ModelAttribute("form") CreateBookForm form, BindingResult result, Model model) {
         logger.debug("entered Web BookController handleEditForm");
         if (result.hasErrors()) {
-            model.addAttribute("existingAuthors", authorService.getAuthors());
             model.addAttribute("apiKey", apiKey);
             return "books/edit";
         }
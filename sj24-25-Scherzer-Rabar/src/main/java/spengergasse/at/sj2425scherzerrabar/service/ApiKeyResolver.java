@@ -0,0 +1,111 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.stereotype.Service;
+import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Löst ApiKeys in Referenzen auf, ohne die Zeile zu laden: abgefragt wird nur die Id (unique Index auf dem
+ * ApiKey), getReference liefert dazu einen Proxy, der beim Flush als Fremdschlüssel geschrieben wird.
+ * Die Abfrage geht bewusst immer an die Datenbank: ein Cache pro JVM - ein eigener Index genauso wie der
+ * Natural-Id Cache von Hibernate (30 Minuten TTL) - sieht Deletes anderer Instanzen nicht und würde Ids
+ * gelöschter Zeilen liefern. Fehlt die Zeile, ist das Ergebnis leer und der Service wirft seine
+ * not-found Exception statt beim Flush an einer Fremdschlüssel-Verletzung zu scheitern.
+ */
+@Service
+public class ApiKeyResolver {
+
+    private final EntityManager entityManager;
+    private final Map<Class<?>, Target> targets = new ConcurrentHashMap<>();
+
+    public ApiKeyResolver(EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.entityManager = entityManager;
+        entityManagerFactory.getMetamodel().getEntities().forEach(this::register);
+    }
+
+    /**
+     * Entity mit ApiKey-Attribut und @EmbeddedId aus genau einer Long-Komponente
+     */
+    private record Target(String entityName, String idPath, String apiKeyAttribute,
+                          Constructor<?> idConstructor) {
+
+        Object newId(long id) {
+            try {
+                return idConstructor.newInstance(id);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create id of " + entityName, e);
+            }
+        }
+
+        String apiKeyPath() {
+            return "x." + apiKeyAttribute + ".apiKey";
+        }
+    }
+
+    private void register(EntityType<?> entity) {
+        if (!entity.hasSingleIdAttribute()) return;
+        Class<?> idType = entity.getIdType().getJavaType();
+        Optional<SingularAttribute<?, ?>> apiKeyAttribute = entity.getSingularAttributes().stream()
+                .filter(attribute -> attribute.getJavaType() == ApiKey.class)
+                .<SingularAttribute<?, ?>>map(attribute -> attribute)
+                .findFirst();
+        if (!idType.isRecord() || idType.getRecordComponents().length != 1
+                || idType.getRecordComponents()[0].getType() != Long.class || apiKeyAttribute.isEmpty()) {
+            return;
+        }
+        RecordComponent component = idType.getRecordComponents()[0];
+        try {
+            Constructor<?> constructor = idType.getDeclaredConstructor(Long.class);
+            // die Id-Records sind package-private
+            constructor.setAccessible(true);
+            String idPath = "x." + entity.getId(idType).getName() + "." + component.getName();
+            targets.put(entity.getJavaType(),
+                    new Target(entity.getName(), idPath, apiKeyAttribute.get().getName(), constructor));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("No canonical constructor on " + idType.getName(), e);
+        }
+    }
+
+    // ==================== RESOLVE ====================
+
+    /**
+     * @return einen nicht initialisierten Proxy für die Entity mit diesem ApiKey, leer wenn es keine gibt.
+     * Nur zum Verknüpfen gedacht - jeder Getter außer der Id lädt die Zeile nach.
+     */
+    public <T> Optional<T> reference(Class<T> type, String apiKey) {
+        Target target = target(type);
+        if (apiKey == null) return Optional.empty();
+        List<Long> ids = entityManager.createQuery(
+                        "select " + target.idPath() + " from " + target.entityName() + " x where " + target.apiKeyPath() + " = :apiKey",
+                        Long.class)
+                .setParameter("apiKey", apiKey)
+                .getResultList();
+        if (ids.isEmpty()) return Optional.empty();
+        return Optional.of(entityManager.getReference(type, target.newId(ids.getFirst())));
+    }
+
+    public <T> List<T> references(Class<T> type, List<String> apiKeys) {
+        return apiKeys.stream()
+                .map(apiKey -> reference(type, apiKey))
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    private Target target(Class<?> type) {
+        Target target = targets.get(type);
+        if (target == null) {
+            throw new IllegalArgumentException(type.getSimpleName() + " has no ApiKey with a single Long id");
+        }
+        return target;
+    }
+}
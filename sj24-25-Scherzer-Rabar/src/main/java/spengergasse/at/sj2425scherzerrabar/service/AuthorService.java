@@ -2,21 +2,36 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
 import spengergasse.at.sj2425scherzerrabar.commands.AuthorCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.*;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
 import spengergasse.at.sj2425scherzerrabar.dtos.AuthorDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.dtos.MongoResyncProgress;
+import spengergasse.at.sj2425scherzerrabar.dtos.Suggestion;
+import spengergasse.at.sj2425scherzerrabar.foundation.SuggestTerm;
 import spengergasse.at.sj2425scherzerrabar.mapper.AuthorMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
 import spengergasse.at.sj2425scherzerrabar.persistence.AuthorMongoRepository;
 import spengergasse.at.sj2425scherzerrabar.persistence.AuthorRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookEmbeddedMongoRepository;
 import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 @Service
 @Transactional(readOnly=true)
@@ -25,14 +40,32 @@ public class AuthorService {
     private final AuthorRepository authorRepository;  // JPA Repository
     private final AuthorMongoRepository mongoRepository;  // MongoDB Repository
     private final AuthorMapper mapper;
+    private final MongoOutboxService outboxService;
+    private final MongoResyncService resyncService;
+    private final BookEmbeddedMongoRepository embeddedMongoRepository;
+    private final BookEmbeddedMapper embeddedMapper;
+    private final BookReadRouter readRouter;
+    private final Cache authorsCache;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
     public AuthorService(AuthorRepository authorRepository,
                          AuthorMongoRepository mongoRepository,
-                         AuthorMapper mapper) {
+                         AuthorMapper mapper,
+                         MongoOutboxService outboxService,
+                         MongoResyncService resyncService,
+                         BookEmbeddedMongoRepository embeddedMongoRepository,
+                         BookEmbeddedMapper embeddedMapper,
+                         BookReadRouter readRouter,
+                         CacheManager cacheManager) {
         this.authorRepository = authorRepository;
         this.mongoRepository = mongoRepository;
         this.mapper = mapper;
+        this.outboxService = outboxService;
+        this.resyncService = resyncService;
+        this.embeddedMongoRepository = embeddedMongoRepository;
+        this.embeddedMapper = embeddedMapper;
+        this.readRouter = readRouter;
+        this.authorsCache = cacheManager.getCache(EntityCaches.AUTHORS);
     }
 
     // ==================== CREATE METHODS ====================
@@ -100,15 +133,10 @@ public class AuthorService {
         // 2. In PostgreSQL speichern (Primary Database)
         Author savedAuthor = authorRepository.save(author);
 
-        // 3. In MongoDB speichern (Secondary Database)
-        try {
-            AuthorDocument mongoDoc = mapper.toMongoDocument(savedAuthor);
-            mongoRepository.save(mongoDoc);
-            logger.debug("Author also saved to MongoDB: {}", savedAuthor.getAuthorApiKey().apiKey());
-        } catch (Exception e) {
-            logger.error("Failed to save author to MongoDB", e);
-            // PostgreSQL bleibt als Primary - MongoDB-Fehler werden geloggt aber nicht geworfen
-        }
+        // 3. MongoDB (Secondary Database) über die Outbox - gleiche Transaktion wie PostgreSQL,
+        //    der MongoOutboxRelay überträgt die Änderung mit Retries
+        outboxService.authorChanged(savedAuthor);
+        logger.debug("Author saved, MongoDB sync queued: {}", savedAuthor.getAuthorApiKey().apiKey());
 
         return AuthorDto.authorDtoFromAuthor(savedAuthor);
     }
@@ -120,6 +148,7 @@ public class AuthorService {
      * STANDARD-METHODE für Controller
      */
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.AUTHORS)
     public void deleteAuthor(String apiKey) {
         logger.debug("entered deleteAuthor (ALL)");
 
@@ -128,14 +157,9 @@ public class AuthorService {
                 .orElseThrow(() -> AuthorServiceException.noAuthorForApiKey(apiKey));
         authorRepository.delete(author);
 
-        // 2. Aus MongoDB löschen
-        try {
-            mongoRepository.findByApiKey(apiKey)
-                    .ifPresent(doc -> mongoRepository.deleteById(doc.getId()));
-            logger.debug("Author also deleted from MongoDB: {}", apiKey);
-        } catch (Exception e) {
-            logger.error("Failed to delete author from MongoDB", e);
-        }
+        // 2. Aus MongoDB löschen (über die Outbox)
+        outboxService.authorDeleted(author);
+        logger.debug("Author deleted, MongoDB delete queued: {}", apiKey);
     }
 
     // ==================== UPDATE METHODS ====================
@@ -144,6 +168,11 @@ public class AuthorService {
      * Update Author NUR in JPA/PostgreSQL
      */
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EntityCaches.AUTHORS, key = "#command.apiKey()"),
+            // BookDto2 enthält die Pennames der Autoren
+            @CacheEvict(cacheNames = EntityCaches.BOOKS_2, allEntries = true)
+    })
     public AuthorDto updateAuthorJpaOnly(AuthorCommand command) {
         logger.debug("entered updateAuthorJpaOnly");
 
@@ -166,6 +195,11 @@ public class AuthorService {
      * Update Author in JPA + MongoDB
      */
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EntityCaches.AUTHORS, key = "#command.apiKey()"),
+            // BookDto2 enthält die Pennames der Autoren
+            @CacheEvict(cacheNames = EntityCaches.BOOKS_2, allEntries = true)
+    })
     public AuthorDto updateAuthorWithMongo(AuthorCommand command) {
         logger.debug("entered updateAuthorWithMongo");
 
@@ -208,6 +242,11 @@ public class AuthorService {
      * STANDARD-METHODE für Controller
      */
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EntityCaches.AUTHORS, key = "#command.apiKey()"),
+            // BookDto2 enthält die Pennames der Autoren
+            @CacheEvict(cacheNames = EntityCaches.BOOKS_2, allEntries = true)
+    })
     public AuthorDto updateAuthor(AuthorCommand command) {
         logger.debug("entered updateAuthor (ALL)");
 
@@ -223,26 +262,9 @@ public class AuthorService {
 
         Author savedAuthor = authorRepository.save(author);
 
-        // 2. In MongoDB aktualisieren
-        try {
-            mongoRepository.findByApiKey(command.apiKey())
-                    .ifPresent(doc -> {
-                        doc.setFirstName(command.firstname());
-                        doc.setLastName(command.lastname());
-                        doc.setPenname(command.penname());
-                        doc.setEmail(command.emailAddress());
-                        doc.setAddresses(
-                                command.address().stream()
-                                        .map(Address::addressFromString)
-                                        .map(AuthorDocument.AddressMongo::fromAddress)
-                                        .toList()
-                        );
-                        mongoRepository.save(doc);
-                    });
-            logger.debug("Author also updated in MongoDB: {}", command.apiKey());
-        } catch (Exception e) {
-            logger.error("Failed to update author in MongoDB", e);
-        }
+        // 2. In MongoDB aktualisieren (über die Outbox)
+        outboxService.authorChanged(savedAuthor);
+        logger.debug("Author updated, MongoDB sync queued: {}", command.apiKey());
 
         logger.debug("updated author: {}", author.getAuthorApiKey().apiKey());
         return AuthorDto.authorDtoFromAuthor(savedAuthor);
@@ -250,11 +272,26 @@ public class AuthorService {
 
     // ==================== READ METHODS ====================
 
+    /**
+     * Liest aus PostgreSQL oder aus den eingebetteten Kopien in books_with_embedded_authors (BookReadRouter);
+     * Authors ohne Book gibt es nur in PostgreSQL
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public AuthorDto getAuthor(String apiKey) {
         logger.debug("entered getAuthor");
-        // Lesen aus PostgreSQL (Primary Database)
-        return authorRepository.findProjectedAuthorByAuthorApiKey(apiKey)
-                .orElseThrow(() -> AuthorServiceException.noAuthorForApiKey(apiKey));
+        AuthorDto cached = authorsCache.get(apiKey, AuthorDto.class);
+        if (cached != null) return cached;
+        // Nur PostgreSQL-Ergebnisse cachen, die eingebetteten Kopien können hinterherhinken
+        return readRouter.read(BookReadRouter.ReadQuery.AUTHOR_BY_API_KEY,
+                () -> embeddedAuthor(embeddedMongoRepository.findFirstByAuthorsApiKey(apiKey),
+                        // eingebettete Authors ohne version (vor dem Resync geschrieben) liefern kein ETag
+                        author -> apiKey.equals(author.getApiKey()) && author.getVersion() != null),
+                () -> {
+                    AuthorDto author = authorRepository.findProjectedAuthorByAuthorApiKey(apiKey)
+                            .orElseThrow(() -> AuthorServiceException.noAuthorForApiKey(apiKey));
+                    authorsCache.put(apiKey, author);
+                    return author;
+                });
     }
 
     public List<AuthorDto> getAuthors() {
@@ -263,41 +300,77 @@ public class AuthorService {
         return authorRepository.findAllProjected();
     }
 
+    /**
+     * Typeahead: höchstens limit Authors, deren Penname oder Nachname mit q beginnt oder q ähnlich ist; unter
+     * SuggestTerm.MIN_LENGTH Zeichen keine Abfrage
+     */
+    public List<Suggestion> suggestAuthors(String q, int limit) {
+        logger.debug("entered suggestAuthors");
+        SuggestTerm term = SuggestTerm.of(q);
+        if (term == null) return List.of();
+        return authorRepository.findSuggestions(term, SuggestTerm.limit(limit));
+    }
+
+    public KeysetPage<AuthorDto> getAuthorsPage(String after, Integer limit) {
+        logger.debug("entered getAuthorsPage");
+        return KeysetPage.fetch(after, limit,
+                (afterId, pageLimit) -> authorRepository.findAuthorIdsAfter(afterId, Long.MAX_VALUE, pageLimit),
+                authorRepository::findProjectedByIds);
+    }
+
+    public CollectionExportService.Source<AuthorDto> exportAuthors() {
+        logger.debug("entered exportAuthors");
+        return new CollectionExportService.Source<>(
+                (afterId, chunkLimit) -> authorRepository.findAuthorIdsAfter(afterId, Long.MAX_VALUE, chunkLimit),
+                authorRepository::findProjectedByIds);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public AuthorDto getAuthorByPenname(String penname) {
         logger.debug("entered getAuthorByPenname");
-        return authorRepository.findProjectedAuthorByPenname(penname)
-                .orElseThrow(() -> AuthorServiceException.noAuthorForPenname(penname));
+        return readRouter.read(BookReadRouter.ReadQuery.AUTHOR_BY_PENNAME,
+                () -> embeddedAuthor(embeddedMongoRepository.findFirstByAuthorsPenname(penname),
+                        author -> penname.equals(author.getPenname())),
+                () -> authorRepository.findProjectedAuthorByPenname(penname)
+                        .orElseThrow(() -> AuthorServiceException.noAuthorForPenname(penname)));
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public AuthorDto getAuthorByEmailAddress(String emailAddress) {
         logger.debug("entered getAuthorByEmailAddress");
-        return authorRepository.findProjectedAuthorByEmailAddress_Email(emailAddress)
-                .orElseThrow(() -> AuthorServiceException.noAuthorForEmail(emailAddress));
+        return readRouter.read(BookReadRouter.ReadQuery.AUTHOR_BY_EMAIL,
+                () -> embeddedAuthor(embeddedMongoRepository.findFirstByAuthorsEmail(emailAddress),
+                        author -> emailAddress.equals(author.getEmail())),
+                () -> authorRepository.findProjectedAuthorByEmailAddress_Email(emailAddress)
+                        .orElseThrow(() -> AuthorServiceException.noAuthorForEmail(emailAddress)));
+    }
+
+    /**
+     * Das Book enthält alle seine Authors - der gesuchte wird über dasselbe Kriterium wie die Query ausgewählt
+     */
+    private Optional<AuthorDto> embeddedAuthor(Optional<BookDocumentEmbedded> book,
+                                               Predicate<BookDocumentEmbedded.EmbeddedAuthor> matches) {
+        return book.flatMap(b -> b.getAuthors().stream().filter(matches).findFirst())
+                .map(embeddedMapper::toAuthorDto);
+    }
+
+    // ==================== ETAG (CONDITIONAL GET) ====================
+
+    public String getAuthorsPageETag(String after, Integer limit) {
+        logger.debug("entered getAuthorsPageETag");
+        return KeysetPage.etag(after, limit, authorRepository::findAuthorVersionsAfter);
     }
 
     // ==================== SYNC METHODS ====================
 
     /**
      * Synchronisiert alle Autoren von PostgreSQL zu MongoDB
-     * Nützlich bei Inkonsistenzen oder Initial-Setup
+     * Nützlich bei Inkonsistenzen oder Initial-Setup - partitioniert und fortsetzbar (MongoResyncService)
      */
-    @Transactional
-    public void syncAllToMongo() {
-        logger.info("Starting sync from PostgreSQL to MongoDB");
-        List<Author> allAuthors = authorRepository.findAll();
-
-        int synced = 0;
-        for (Author author : allAuthors) {
-            try {
-                AuthorDocument doc = mapper.toMongoDocument(author);
-                mongoRepository.save(doc);
-                synced++;
-            } catch (Exception e) {
-                logger.error("Failed to sync author: {}", author.getAuthorApiKey().apiKey(), e);
-            }
-        }
-
-        logger.info("Synced {} of {} authors to MongoDB", synced, allAuthors.size());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public MongoResyncProgress syncAllToMongo() {
+        logger.info("Starting resync from PostgreSQL to MongoDB");
+        return resyncService.start(MongoOutboxEvent.AggregateType.AUTHOR, false);
     }
 
     // ==================== EXCEPTION CLASS ====================
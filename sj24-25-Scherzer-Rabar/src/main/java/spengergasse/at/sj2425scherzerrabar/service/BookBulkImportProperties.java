@@ -0,0 +1,10 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "books.bulk")
+public record BookBulkImportProperties(@DefaultValue("1000") int chunkSize,
+                                       @DefaultValue("10000") int maxChunkSize,
+                                       @DefaultValue("1000") int maxReportedErrors) {
+}
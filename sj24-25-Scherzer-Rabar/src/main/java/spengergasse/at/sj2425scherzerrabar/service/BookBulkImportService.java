@@ -0,0 +1,356 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spengergasse.at.sj2425scherzerrabar.commands.BookCommand;
+import spengergasse.at.sj2425scherzerrabar.domain.BookGenre;
+import spengergasse.at.sj2425scherzerrabar.domain.BookType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.dtos.BulkImportReport;
+import spengergasse.at.sj2425scherzerrabar.persistence.AuthorRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming Bulk-Import für Books (NDJSON oder CSV).
+ * Die Eingabe wird zeilenweise gelesen und in Chunks verarbeitet:
+ * pro Chunk eine IN-Query für alle Author-Keys, eine Transaktion mit JDBC-Batching
+ * und danach ein ungeordneter bulkWrite nach MongoDB.
+ */
+@Service
+public class BookBulkImportService {
+
+    /** Trennzeichen für mehrwertige CSV-Spalten (types, authorIds, genre) */
+    static final String CSV_LIST_SEPARATOR = "|";
+    static final List<String> CSV_COLUMNS = List.of(
+            "name", "releaseDate", "availableOnline", "types", "wordCount", "description", "authorIds", "genre");
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final MongoProjectionWriter projectionWriter;
+    private final MongoOutboxService outboxService;
+    private final BookBulkImportProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ObjectReader commandReader;
+    private final MeterRegistry meterRegistry;
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public BookBulkImportService(BookRepository bookRepository,
+                                 AuthorRepository authorRepository,
+                                 MongoProjectionWriter projectionWriter,
+                                 MongoOutboxService outboxService,
+                                 BookBulkImportProperties properties,
+                                 PlatformTransactionManager transactionManager,
+                                 EntityManager entityManager,
+                                 Validator validator,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.projectionWriter = projectionWriter;
+        this.outboxService = outboxService;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.commandReader = objectMapper.readerFor(BookCommand.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    public BulkImportReport importBooks(Reader input, Format format, Integer chunkSize) throws IOException {
+        int effectiveChunkSize = chunkSize == null ? properties.chunkSize() : chunkSize;
+        if (effectiveChunkSize < 1 || effectiveChunkSize > properties.maxChunkSize())
+            throw BookBulkImportServiceException.invalidChunkSize(effectiveChunkSize, properties.maxChunkSize());
+        logger.debug("entered importBooks ({}, chunk size {})", format, effectiveChunkSize);
+
+        ImportRun run = new ImportRun(properties.maxReportedErrors());
+        BufferedReader reader = input instanceof BufferedReader buffered ? buffered : new BufferedReader(input);
+        Function<String, BookCommand> rowParser = format == Format.CSV
+                ? csvRowParser(reader.readLine())
+                : this::parseNdjsonRow;
+        long lineNumber = format == Format.CSV ? 1 : 0;
+
+        List<Row> chunk = new ArrayList<>(effectiveChunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            run.rowsRead++;
+            try {
+                chunk.add(new Row(lineNumber, rowParser.apply(line)));
+            } catch (RuntimeException e) {
+                run.rowError(lineNumber, "Unparseable row: " + e.getMessage());
+            }
+            if (chunk.size() == effectiveChunkSize) {
+                importChunk(chunk, run);
+                chunk = new ArrayList<>(effectiveChunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) importChunk(chunk, run);
+
+        BulkImportReport report = run.report();
+        logger.info("Bulk import finished: {} of {} rows imported in {} ms ({} rows/s)",
+                report.rowsImported(), report.rowsRead(), report.durationMillis(), Math.round(report.rowsPerSecond()));
+        return report;
+    }
+
+    // ==================== CHUNK PROCESSING ====================
+
+    private void importChunk(List<Row> rows, ImportRun run) {
+        run.chunks++;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ChunkResult result;
+        try {
+            result = transactionTemplate.execute(status -> persistChunk(rows));
+        } catch (RuntimeException e) {
+            // Ganzer Chunk wurde zurückgerollt (z.B. Unique-Constraint) - alle Zeilen als Fehler melden
+            logger.warn("Bulk import chunk {} rolled back", run.chunks, e);
+            rows.forEach(row -> run.rowError(row.line(), "Chunk rolled back: " + e.getMessage()));
+            return;
+        } finally {
+            sample.stop(meterRegistry.timer("books.bulk.chunk.duration"));
+        }
+        if (result == null) return;
+
+        result.errors().forEach(error -> run.rowError(error.row(), error.message()));
+        if (result.saved().isEmpty()) return;
+        run.rowsImported += result.saved().size();
+        meterRegistry.counter("books.bulk.rows.imported").increment(result.saved().size());
+
+        writeToMongo(result.saved());
+    }
+
+    private ChunkResult persistChunk(List<Row> rows) {
+        Set<String> authorKeys = rows.stream()
+                .flatMap(row -> nullSafe(row.command().authorIds()).stream())
+                .collect(Collectors.toSet());
+        // Eine IN-Query pro Chunk statt findAuthorByAuthorApiKey pro Author-Id
+        Map<String, Author> authorsByKey = authorKeys.isEmpty()
+                ? Map.of()
+                : authorRepository.findAuthorsWithAddressesByApiKeys(authorKeys).stream()
+                    .collect(Collectors.toMap(a -> a.getAuthorApiKey().apiKey(), Function.identity()));
+
+        List<Book> books = new ArrayList<>(rows.size());
+        List<BulkImportReport.RowError> errors = new ArrayList<>();
+        for (Row row : rows) {
+            try {
+                books.add(toBook(row.command(), authorsByKey));
+            } catch (RuntimeException e) {
+                errors.add(new BulkImportReport.RowError(row.line(), e.getMessage()));
+            }
+        }
+
+        // saveAll + hibernate.jdbc.batch_size: INSERTs gehen gebündelt an PostgreSQL
+        List<Book> saved = bookRepository.saveAll(books);
+        entityManager.flush();
+        // Persistence Context leeren, sonst wächst er bei Open-Session-In-View über alle Chunks
+        entityManager.clear();
+        return new ChunkResult(saved, errors);
+    }
+
+    private Book toBook(BookCommand command, Map<String, Author> authorsByKey) {
+        List<String> unknownAuthors = nullSafe(command.authorIds()).stream()
+                .filter(key -> !authorsByKey.containsKey(key))
+                .toList();
+        if (!unknownAuthors.isEmpty())
+            throw BookBulkImportServiceException.unknownAuthors(unknownAuthors);
+        if (nullSafe(command.authorIds()).isEmpty())
+            throw BookBulkImportServiceException.noAuthors();
+
+        Book book = new Book(
+                command.name(), command.releaseDate(), command.availableOnline(), command.wordCount(),
+                nullSafe(command.genre()).stream().map(BookGenre::valueOf).toList(),
+                command.authorIds().stream().distinct().map(authorsByKey::get).toList(),
+                nullSafe(command.types()).stream().map(BookType::valueOf).toList(),
+                command.description()
+        );
+
+        Set<ConstraintViolation<Book>> violations = validator.validate(book);
+        if (!violations.isEmpty())
+            throw BookBulkImportServiceException.invalidBook(violations);
+        return book;
+    }
+
+    /**
+     * Schreibt den committeten Chunk direkt per bulkWrite nach MongoDB.
+     * Schlägt das fehl, übernimmt die Outbox (MongoOutboxRelay) mit Retries.
+     */
+    private void writeToMongo(List<Book> books) {
+        try {
+            projectionWriter.writeBooks(books, List.of());
+        } catch (RuntimeException e) {
+            logger.warn("Bulk MongoDB write failed for {} books, falling back to outbox", books.size(), e);
+            transactionTemplate.executeWithoutResult(status -> books.forEach(outboxService::bookChanged));
+        }
+    }
+
+    // ==================== PARSING ====================
+
+    private BookCommand parseNdjsonRow(String line) {
+        try {
+            return commandReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getOriginalMessage(), e);
+        }
+    }
+
+    private Function<String, BookCommand> csvRowParser(String headerLine) {
+        if (headerLine == null)
+            throw BookBulkImportServiceException.missingCsvHeader();
+        List<String> header = parseCsvLine(headerLine);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim(), i);
+        }
+        if (!columns.keySet().containsAll(CSV_COLUMNS))
+            throw BookBulkImportServiceException.missingCsvHeader();
+
+        return line -> {
+            List<String> values = parseCsvLine(line);
+            Function<String, String> column = name -> {
+                int index = columns.get(name);
+                return index < values.size() && !values.get(index).isEmpty() ? values.get(index) : null;
+            };
+            return new BookCommand(
+                    null,
+                    column.apply("name"),
+                    Optional.ofNullable(column.apply("releaseDate")).map(LocalDate::parse).orElse(null),
+                    Optional.ofNullable(column.apply("availableOnline")).map(Boolean::valueOf).orElse(null),
+                    splitList(column.apply("types")),
+                    Optional.ofNullable(column.apply("wordCount")).map(Integer::valueOf).orElse(null),
+                    column.apply("description"),
+                    splitList(column.apply("authorIds")),
+                    splitList(column.apply("genre"))
+            );
+        };
+    }
+
+    /**
+     * Minimaler RFC-4180 Parser für eine Zeile: Komma-getrennt, Felder optional in "..." mit "" als Escape
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static List<String> splitList(String value) {
+        if (value == null) return List.of();
+        return Arrays.stream(value.split("\\" + CSV_LIST_SEPARATOR))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+
+    private static List<String> nullSafe(List<String> values) {
+        return values == null ? List.of() : values;
+    }
+
+    private record Row(long line, BookCommand command) {}
+
+    private record ChunkResult(List<Book> saved, List<BulkImportReport.RowError> errors) {}
+
+    private static class ImportRun {
+        private final long startNanos = System.nanoTime();
+        private final int maxReportedErrors;
+        private final List<BulkImportReport.RowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long rowsImported;
+        private long rowsFailed;
+        private int chunks;
+
+        ImportRun(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void rowError(long line, String message) {
+            rowsFailed++;
+            if (errors.size() < maxReportedErrors) errors.add(new BulkImportReport.RowError(line, message));
+        }
+
+        BulkImportReport report() {
+            long durationMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+            return new BulkImportReport(rowsRead, rowsImported, rowsFailed, chunks, durationMillis,
+                    rowsImported * 1000.0 / durationMillis, List.copyOf(errors), rowsFailed > errors.size());
+        }
+    }
+
+    // ==================== EXCEPTION CLASS ====================
+
+    public static class BookBulkImportServiceException extends RuntimeException {
+        public BookBulkImportServiceException(String message) {
+            super(message);
+        }
+
+        public static BookBulkImportServiceException invalidChunkSize(int chunkSize, int maxChunkSize) {
+            return new BookBulkImportServiceException("Chunk size (%d) must be between 1 and %d".formatted(chunkSize, maxChunkSize));
+        }
+
+        public static BookBulkImportServiceException missingCsvHeader() {
+            return new BookBulkImportServiceException("CSV header must contain the columns %s".formatted(CSV_COLUMNS));
+        }
+
+        public static BookBulkImportServiceException unknownAuthors(List<String> apiKeys) {
+            return new BookBulkImportServiceException("Author with api key (%s) not existent".formatted(String.join(", ", apiKeys)));
+        }
+
+        public static BookBulkImportServiceException noAuthors() {
+            return new BookBulkImportServiceException("No Authors for Book");
+        }
+
+        public static BookBulkImportServiceException invalidBook(Set<? extends ConstraintViolation<?>> violations) {
+            return new BookBulkImportServiceException(violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+}
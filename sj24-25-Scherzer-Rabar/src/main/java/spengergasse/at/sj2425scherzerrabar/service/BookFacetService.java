@@ -0,0 +1,171 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookFacets;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookFilter;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookFacets.FacetCount;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.foundation.KeysetCursor;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Katalog-Facetten über books_with_embedded_authors in einem Round-Trip: ein $match mit dem Filter
+ * (idx_book_emb_genres, _types, _available, _release_date, _author_apikey), danach ein $facet mit der Seite
+ * (Keyset über _id) und den Zählungen je Genre, Typ und Erscheinungsjahr.
+ * Wie die Suche hängt das Ergebnis am Read-Model und ist höchstens um den Outbox-Lag hinter PostgreSQL.
+ */
+@Service
+public class BookFacetService {
+
+    private static final String PAGE = "page";
+    private static final String GENRES = "genres";
+    private static final String TYPES = "types";
+    private static final String RELEASE_YEARS = "releaseYears";
+
+    private final MongoTemplate mongoTemplate;
+    private final BookEmbeddedMapper bookEmbeddedMapper;
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public BookFacetService(MongoTemplate mongoTemplate, BookEmbeddedMapper bookEmbeddedMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.bookEmbeddedMapper = bookEmbeddedMapper;
+    }
+
+    public BookFacets facets(BookFilter filter, String after, Integer limit) {
+        logger.debug("entered facets");
+        if (filter.invalidRange() != null) {
+            throw BookFacetServiceException.invalidFilter(filter.invalidRange());
+        }
+        int pageSize = KeysetCursor.limit(limit);
+        String lastId = KeysetCursor.decodeDocumentId(after);
+        if (lastId != null && !ObjectId.isValid(lastId)) {
+            throw KeysetCursor.KeysetCursorException.invalidCursor(after);
+        }
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        Criteria criteria = filterCriteria(filter);
+        if (criteria != null) {
+            stages.add(Aggregation.match(criteria));
+        }
+        stages.add(Aggregation.facet(pageStages(lastId, pageSize)).as(PAGE)
+                .and(countEach("$genres")).as(GENRES)
+                .and(countEach("$book_types")).as(TYPES)
+                .and(countReleaseYears()).as(RELEASE_YEARS));
+
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(stages),
+                mongoTemplate.getCollectionName(BookDocumentEmbedded.class), Document.class).getUniqueMappedResult();
+        if (result == null) {
+            result = new Document();
+        }
+
+        List<Document> rows = result.getList(PAGE, Document.class, List.of());
+        boolean hasNext = rows.size() > pageSize;
+        List<BookDocumentEmbedded> pageDocuments = (hasNext ? rows.subList(0, pageSize) : rows).stream()
+                .map(row -> mongoTemplate.getConverter().read(BookDocumentEmbedded.class, row))
+                .toList();
+        List<BookDto> books = pageDocuments.stream().map(bookEmbeddedMapper::toBookDto).toList();
+        String nextCursor = hasNext ? KeysetCursor.encodeDocumentId(pageDocuments.getLast().getId()) : null;
+
+        return new BookFacets(new KeysetPage<>(books, pageSize, nextCursor, null),
+                counts(result, GENRES), counts(result, TYPES), counts(result, RELEASE_YEARS));
+    }
+
+    /**
+     * @return null ohne Einschränkung, sonst alle gesetzten Felder UND-verknüpft
+     */
+    static Criteria filterCriteria(BookFilter filter) {
+        List<Criteria> conditions = new ArrayList<>();
+        if (filter.genre() != null) {
+            conditions.add(Criteria.where("genres").is(filter.genre().name()));
+        }
+        if (filter.type() != null) {
+            conditions.add(Criteria.where("book_types").is(filter.type().name()));
+        }
+        if (filter.availableOnline() != null) {
+            conditions.add(Criteria.where("available_online").is(filter.availableOnline()));
+        }
+        if (filter.minWordCount() != null || filter.maxWordCount() != null) {
+            Criteria wordCount = Criteria.where("word_count");
+            if (filter.minWordCount() != null) wordCount = wordCount.gte(filter.minWordCount());
+            if (filter.maxWordCount() != null) wordCount = wordCount.lte(filter.maxWordCount());
+            conditions.add(wordCount);
+        }
+        if (filter.releasedFrom() != null || filter.releasedTo() != null) {
+            Criteria releaseDate = Criteria.where("release_date");
+            if (filter.releasedFrom() != null) releaseDate = releaseDate.gte(filter.releasedFrom());
+            if (filter.releasedTo() != null) releaseDate = releaseDate.lte(filter.releasedTo());
+            conditions.add(releaseDate);
+        }
+        if (filter.author() != null && !filter.author().isBlank()) {
+            conditions.add(Criteria.where("authors.api_key").is(filter.author()));
+        }
+        if (conditions.isEmpty()) return null;
+        return conditions.size() == 1 ? conditions.getFirst() : new Criteria().andOperator(conditions);
+    }
+
+    private static AggregationOperation[] pageStages(String lastId, int pageSize) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (lastId != null) {
+            stages.add(Aggregation.match(Criteria.where("_id").gt(new ObjectId(lastId))));
+        }
+        stages.add(Aggregation.sort(Sort.by(Sort.Order.asc("_id"))));
+        stages.add(Aggregation.limit(pageSize + 1L));
+        return stages.toArray(AggregationOperation[]::new);
+    }
+
+    /**
+     * Anzahl der Books je Wert eines Array-Felds, häufigste zuerst
+     */
+    private static AggregationOperation[] countEach(String arrayField) {
+        return new AggregationOperation[]{
+                context -> new Document("$unwind", arrayField),
+                context -> new Document("$sortByCount", arrayField)};
+    }
+
+    /**
+     * Anzahl der Books je Erscheinungsjahr, aufsteigend. LocalDate wird in der Zeitzone der Anwendung
+     * als Mitternacht gespeichert, deshalb wird das Jahr auch in dieser Zone bestimmt.
+     */
+    private static AggregationOperation[] countReleaseYears() {
+        Document year = new Document("$year", new Document("date", "$release_date")
+                .append("timezone", TimeZone.getDefault().getID()));
+        return new AggregationOperation[]{
+                context -> new Document("$match", new Document("release_date", new Document("$ne", null))),
+                context -> new Document("$group", new Document("_id", year).append("count", new Document("$sum", 1))),
+                context -> new Document("$sort", new Document("_id", 1))};
+    }
+
+    private static List<FacetCount> counts(Document result, String facet) {
+        return result.getList(facet, Document.class, List.of()).stream()
+                .map(row -> new FacetCount(String.valueOf(row.get("_id")), ((Number) row.get("count")).longValue()))
+                .toList();
+    }
+
+    // ==================== EXCEPTION CLASS ====================
+
+    public static class BookFacetServiceException extends RuntimeException {
+        public BookFacetServiceException(String message) {
+            super(message);
+        }
+
+        public static BookFacetServiceException invalidFilter(String reason) {
+            return new BookFacetServiceException("Invalid filter: " + reason);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookFilter;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookFilterSpecifications;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+/**
+ * Dynamischer Filter über PostgreSQL: BookFilter wird zu einer Specification, die Seite läuft per Keyset über die Id.
+ * Anders als /api/books/facets immer aktuell, dafür ohne Zählungen.
+ */
+@Service
+@Transactional(readOnly=true)
+public class BookFilterService {
+
+    private final BookRepository bookRepository;
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public BookFilterService(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    public KeysetPage<BookDto> filter(BookFilter filter, String after, Integer limit) {
+        logger.debug("entered filter");
+        if (filter.invalidRange() != null) {
+            throw BookFilterServiceException.invalidFilter(filter.invalidRange());
+        }
+        var spec = BookFilterSpecifications.matching(filter);
+        return KeysetPage.fetch(after, limit,
+                (afterId, pageLimit) -> bookRepository.findBookIdsMatching(spec, afterId, pageLimit),
+                bookRepository::findProjectedByIds);
+    }
+
+    // ==================== EXCEPTION CLASS ====================
+
+    public static class BookFilterServiceException extends RuntimeException {
+        public BookFilterServiceException(String message) {
+            super(message);
+        }
+
+        public static BookFilterServiceException invalidFilter(String reason) {
+            return new BookFilterServiceException("Invalid filter: " + reason);
+        }
+    }
+}
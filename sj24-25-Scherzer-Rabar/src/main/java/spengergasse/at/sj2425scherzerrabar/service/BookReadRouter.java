@@ -0,0 +1,164 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import spengergasse.at.sj2425scherzerrabar.MongoDBIndexConfiguration;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Verteilt Book/Author-Reads auf PostgreSQL (JPA) oder das Read-Model books_with_embedded_authors.
+ * MongoDB kommt nur in Frage, solange die Projektion gesund ist: die Indizes sind gebaut, kein Resync der Books läuft, der
+ * Outbox-Lag (ältestes offenes Event in PostgreSQL, inkl. der Wächter laufender Author-Propagationen - gilt damit für alle
+ * Instanzen) liegt unter maxLag und der letzte MongoDB-Fehler ist länger als errorCooldown her.
+ * Dann gewinnt pro Query-Typ der Store mit der niedrigeren geglätteten Latenz (EWMA); jeder exploreEvery-te
+ * Read geht an den anderen Store, damit dessen Messwert nicht veraltet. Fehlt das Document in MongoDB
+ * (noch nicht übertragen) oder wirft MongoDB, wird aus PostgreSQL gelesen.
+ * Metriken: book.reads (Timer je query/store), book.reads.fallback (query/reason), book.reads.mongo.healthy.
+ */
+@Service
+public class BookReadRouter {
+
+    public enum ReadQuery {
+        BOOK_BY_API_KEY, BOOKS_BY_AUTHOR, AUTHOR_BY_API_KEY, AUTHOR_BY_PENNAME, AUTHOR_BY_EMAIL
+    }
+
+    public enum Store {
+        JPA, MONGO
+    }
+
+    /** Gewicht der neuesten Messung im gleitenden Mittel */
+    private static final double SMOOTHING = 0.2;
+
+    private final BookReadRouterProperties properties;
+    private final MongoOutboxRelay outboxRelay;
+    private final MongoResyncService resyncService;
+    private final MongoDBIndexConfiguration indexConfiguration;
+    private final MeterRegistry meterRegistry;
+    private final Map<ReadQuery, Route> routes = new EnumMap<>(ReadQuery.class);
+    private volatile Instant mongoBlockedUntil = Instant.MIN;
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public BookReadRouter(BookReadRouterProperties properties,
+                          MongoOutboxRelay outboxRelay,
+                          MongoResyncService resyncService,
+                          MongoDBIndexConfiguration indexConfiguration,
+                          MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.outboxRelay = outboxRelay;
+        this.resyncService = resyncService;
+        this.indexConfiguration = indexConfiguration;
+        this.meterRegistry = meterRegistry;
+        for (ReadQuery query : ReadQuery.values()) {
+            routes.put(query, new Route());
+        }
+        Gauge.builder("book.reads.mongo.healthy", this, router -> router.unhealthyReason() == null ? 1 : 0)
+                .description("1 solange Reads aus books_with_embedded_authors bedient werden dürfen")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param mongo liest aus dem Read-Model, leer wenn das Document (noch) fehlt
+     * @param jpa   liest aus PostgreSQL, wirft wie bisher, wenn es nichts gibt
+     */
+    public <T> T read(ReadQuery query, Supplier<Optional<T>> mongo, Supplier<T> jpa) {
+        String reason = unhealthyReason();
+        if (reason != null) {
+            if (properties.enabled()) fallback(query, reason);
+            return timed(query, Store.JPA, jpa);
+        }
+        if (choose(query) == Store.JPA) {
+            return timed(query, Store.JPA, jpa);
+        }
+
+        Optional<T> result;
+        try {
+            result = timed(query, Store.MONGO, mongo);
+        } catch (RuntimeException e) {
+            mongoBlockedUntil = Instant.now().plus(properties.errorCooldown());
+            logger.warn("MongoDB read {} failed, reading from PostgreSQL for {}", query, properties.errorCooldown(), e);
+            fallback(query, "error");
+            return timed(query, Store.JPA, jpa);
+        }
+        if (result.isPresent()) return result.get();
+        fallback(query, "missing");
+        return timed(query, Store.JPA, jpa);
+    }
+
+    /**
+     * @return warum MongoDB gerade nicht gelesen wird, null wenn es gelesen werden darf
+     */
+    public String unhealthyReason() {
+        if (!properties.enabled()) return "disabled";
+        if (Instant.now().isBefore(mongoBlockedUntil)) return "error";
+        if (!indexConfiguration.isReady()) return "indexes";
+        if (resyncService.isRunning(AggregateType.BOOK)) return "resync";
+        if (outboxRelay.getLag().compareTo(properties.maxLag()) > 0) return "lag";
+        return null;
+    }
+
+    // ==================== LATENCY ====================
+
+    Store choose(ReadQuery query) {
+        return routes.get(query).choose(properties.exploreEvery());
+    }
+
+    void recordLatency(ReadQuery query, Store store, long nanos) {
+        routes.get(query).record(store, nanos);
+        meterRegistry.timer("book.reads", "query", tag(query), "store", tag(store)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private <T> T timed(ReadQuery query, Store store, Supplier<T> read) {
+        long start = System.nanoTime();
+        try {
+            return read.get();
+        } finally {
+            recordLatency(query, store, System.nanoTime() - start);
+        }
+    }
+
+    private void fallback(ReadQuery query, String reason) {
+        meterRegistry.counter("book.reads.fallback", "query", tag(query), "reason", reason).increment();
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Geglättete Latenz beider Stores für einen Query-Typ; NaN solange ein Store noch nie gemessen wurde
+     */
+    private static final class Route {
+        private final double[] latencyNanos = {Double.NaN, Double.NaN};
+        private long reads;
+
+        synchronized Store choose(int exploreEvery) {
+            reads++;
+            double jpa = latencyNanos[Store.JPA.ordinal()];
+            double mongo = latencyNanos[Store.MONGO.ordinal()];
+            if (Double.isNaN(mongo)) return Store.MONGO;
+            if (Double.isNaN(jpa)) return Store.JPA;
+            Store faster = mongo < jpa ? Store.MONGO : Store.JPA;
+            if (exploreEvery > 0 && reads % exploreEvery == 0) {
+                return faster == Store.MONGO ? Store.JPA : Store.MONGO;
+            }
+            return faster;
+        }
+
+        synchronized void record(Store store, long nanos) {
+            double current = latencyNanos[store.ordinal()];
+            latencyNanos[store.ordinal()] = Double.isNaN(current) ? nanos : current + SMOOTHING * (nanos - current);
+        }
+    }
+}
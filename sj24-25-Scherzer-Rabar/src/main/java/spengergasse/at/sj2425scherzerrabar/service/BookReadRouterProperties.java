@@ -0,0 +1,19 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled       false liest alles aus PostgreSQL
+ * @param maxLag        maximaler Outbox-Lag (inkl. laufender Author-Propagationen), bis zu dem MongoDB noch gelesen wird
+ * @param errorCooldown so lange nach einem MongoDB-Fehler wird nur aus PostgreSQL gelesen
+ * @param exploreEvery  jeder n-te Read geht an den langsameren Store, damit seine Latenz aktuell bleibt
+ */
+@ConfigurationProperties(prefix = "books.read-router")
+public record BookReadRouterProperties(@DefaultValue("true") boolean enabled,
+                                       @DefaultValue("5s") Duration maxLag,
+                                       @DefaultValue("30s") Duration errorCooldown,
+                                       @DefaultValue("50") int exploreEvery) {
+}
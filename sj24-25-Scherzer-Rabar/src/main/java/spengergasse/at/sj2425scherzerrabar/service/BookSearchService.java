@@ -0,0 +1,122 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.stereotype.Service;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookSearchHit;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.foundation.KeysetCursor;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Volltextsuche über books_with_embedded_authors (Text-Index idx_book_emb_text_search: name, authors.penname,
+ * description). Sortiert nach textScore, bei gleichem Score nach _id; die nächste Seite setzt per Keyset
+ * (score, _id) beim letzten Treffer an statt mit $skip. Liest nur die Felder des Treffers, nicht das ganze Document.
+ * Der Keyset spart nur das $skip, nicht die Suche: textScore steht in keinem Index, $text bewertet bei jeder Seite
+ * alle Treffer neu, der Cursor-Filter greift erst danach und der Sort läuft über alle Treffer hinter dem Cursor.
+ * Eine Seite kostet also O(Treffer) statt O(limit); wer bis Seite n blättert, hat n volle Suchen bezahlt.
+ * Die Suche hängt am Read-Model und ist damit höchstens um den Outbox-Lag hinter PostgreSQL.
+ */
+@Service
+public class BookSearchService {
+
+    private static final String SCORE = "score";
+
+    private final MongoTemplate mongoTemplate;
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public BookSearchService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Projektion eines Treffers; die Felder heißen wie im Document
+     */
+    record SearchRow(@Id String id,
+                     @Field("api_key") String apiKey,
+                     @Field("name") String name,
+                     @Field("release_date") LocalDate releaseDate,
+                     @Field("pennames") List<String> pennames,
+                     @Field(SCORE) double score) {
+    }
+
+    /**
+     * @param query Suchbegriffe in der Syntax von $text: Wörter werden ODER-verknüpft, "..." sucht eine Phrase,
+     *              -wort schließt aus
+     */
+    public KeysetPage<BookSearchHit> search(String query, String after, Integer limit) {
+        logger.debug("entered search");
+        if (query == null || query.isBlank()) {
+            throw BookSearchServiceException.emptyQuery();
+        }
+        int pageSize = KeysetCursor.limit(limit);
+        KeysetCursor.Scored last = KeysetCursor.decodeScored(after);
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(TextCriteria.forDefaultLanguage().matching(query)));
+        stages.add(context -> new Document("$project", new Document("api_key", 1)
+                .append("name", 1)
+                .append("release_date", 1)
+                .append("pennames", "$authors.penname")
+                .append(SCORE, new Document("$meta", "textScore"))));
+        if (last != null) {
+            stages.add(Aggregation.match(afterCursor(last, after)));
+        }
+        stages.add(Aggregation.sort(Sort.by(Sort.Order.desc(SCORE), Sort.Order.asc("_id"))));
+        stages.add(Aggregation.limit(pageSize + 1L));
+
+        List<SearchRow> rows = mongoTemplate.aggregate(Aggregation.newAggregation(stages),
+                mongoTemplate.getCollectionName(BookDocumentEmbedded.class), SearchRow.class).getMappedResults();
+
+        boolean hasNext = rows.size() > pageSize;
+        List<SearchRow> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+        List<BookSearchHit> hits = pageRows.stream()
+                .map(row -> new BookSearchHit(row.apiKey(), row.name(), row.releaseDate(),
+                        row.pennames() == null ? List.of() : row.pennames(), row.score()))
+                .toList();
+        String nextCursor = hasNext
+                ? KeysetCursor.encode(new KeysetCursor.Scored(pageRows.getLast().score(), pageRows.getLast().id()))
+                : null;
+        return new KeysetPage<>(hits, pageSize, nextCursor, null);
+    }
+
+    /**
+     * Treffer hinter dem letzten der vorherigen Seite: kleinerer Score, oder gleicher Score und größere _id
+     */
+    private static Criteria afterCursor(KeysetCursor.Scored last, String cursor) {
+        if (!ObjectId.isValid(last.id())) {
+            throw KeysetCursor.KeysetCursorException.invalidCursor(cursor);
+        }
+        ObjectId lastId = new ObjectId(last.id());
+        return new Criteria().orOperator(
+                Criteria.where(SCORE).lt(last.score()),
+                Criteria.where(SCORE).is(last.score()).and("_id").gt(lastId));
+    }
+
+    // ==================== EXCEPTION CLASS ====================
+
+    public static class BookSearchServiceException extends RuntimeException {
+        public BookSearchServiceException(String message) {
+            super(message);
+        }
+
+        public static BookSearchServiceException emptyQuery() {
+            return new BookSearchServiceException("Search query must not be empty");
+        }
+    }
+}
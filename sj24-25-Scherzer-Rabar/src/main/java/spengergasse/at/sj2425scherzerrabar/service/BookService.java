@@ -2,17 +2,27 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.commands.BookCommand;
 import spengergasse.at.sj2425scherzerrabar.commands.BookCommand2;
 import spengergasse.at.sj2425scherzerrabar.domain.*;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocument;
 import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
 import spengergasse.at.sj2425scherzerrabar.dtos.BookDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.dtos.BookDto2;
+import spengergasse.at.sj2425scherzerrabar.dtos.MongoResyncProgress;
+import spengergasse.at.sj2425scherzerrabar.dtos.Suggestion;
+import spengergasse.at.sj2425scherzerrabar.foundation.SuggestTerm;
 import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
 import spengergasse.at.sj2425scherzerrabar.mapper.BookMapper;
 import spengergasse.at.sj2425scherzerrabar.persistence.AuthorRepository;
@@ -21,9 +31,9 @@ import spengergasse.at.sj2425scherzerrabar.persistence.BookMongoRepository;
 import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
 import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -35,6 +45,10 @@ public class BookService {
     private final AuthorRepository authorRepository;
     private final BookMapper mapper;
     private final BookEmbeddedMapper embeddedMapper;
+    private final MongoBookWriteDispatcher mongoWriteDispatcher;
+    private final MongoResyncService resyncService;
+    private final BookReadRouter readRouter;
+    private final Cache booksCache;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
     public BookService(BookRepository bookRepository,
@@ -42,13 +56,21 @@ public class BookService {
                        BookEmbeddedMongoRepository embeddedMongoRepository,
                        AuthorRepository authorRepository,
                        BookMapper mapper,
-                       BookEmbeddedMapper embeddedMapper) {
+                       BookEmbeddedMapper embeddedMapper,
+                       MongoBookWriteDispatcher mongoWriteDispatcher,
+                       MongoResyncService resyncService,
+                       BookReadRouter readRouter,
+                       CacheManager cacheManager) {
         this.bookRepository = bookRepository;
         this.mongoRepository = mongoRepository;
         this.embeddedMongoRepository = embeddedMongoRepository;
         this.authorRepository = authorRepository;
         this.mapper = mapper;
         this.embeddedMapper = embeddedMapper;
+        this.mongoWriteDispatcher = mongoWriteDispatcher;
+        this.resyncService = resyncService;
+        this.readRouter = readRouter;
+        this.booksCache = cacheManager.getCache(EntityCaches.BOOKS);
     }
 
     // ==================== BATCH CREATE METHODS (PERFORMANCE FIX) ====================
@@ -56,22 +78,7 @@ public class BookService {
     @Transactional
     public List<String> createBooksBatchJpaOnly(List<BookCommand> commands) {
         logger.debug("entered createBooksBatchJpaOnly with {} books", commands.size());
-        List<Book> books = new ArrayList<>();
-
-        for (BookCommand command : commands) {
-            List<Author> authors = command.authorIds().stream()
-                    .map(ApiKey::new)
-                    .map(authorRepository::findAuthorByAuthorApiKey)
-                    .flatMap(Optional::stream)
-                    .toList();
-
-            books.add(new Book(
-                    command.name(), command.releaseDate(), command.availableOnline(), command.wordCount(),
-                    command.genre().stream().map(BookGenre::valueOf).toList(),
-                    authors, command.types().stream().map(BookType::valueOf).toList(),
-                    command.description()
-            ));
-        }
+        List<Book> books = booksFromCommands(commands);
 
         // JPA Batch Insert (saveAll utilizes Hibernate JDBC batching)
         List<Book> savedBooks = bookRepository.saveAll(books);
@@ -81,22 +88,8 @@ public class BookService {
     @Transactional
     public List<String> createBooksBatchReferencing(List<BookCommand> commands) {
         logger.debug("entered createBooksBatchReferencing with {} books", commands.size());
-        List<Book> books = new ArrayList<>();
-
         // 1. Prepare Entities
-        for (BookCommand command : commands) {
-            List<Author> authors = command.authorIds().stream()
-                    .map(ApiKey::new)
-                    .map(authorRepository::findAuthorByAuthorApiKey)
-                    .flatMap(Optional::stream)
-                    .toList();
-            books.add(new Book(
-                    command.name(), command.releaseDate(), command.availableOnline(), command.wordCount(),
-                    command.genre().stream().map(BookGenre::valueOf).toList(),
-                    authors, command.types().stream().map(BookType::valueOf).toList(),
-                    command.description()
-            ));
-        }
+        List<Book> books = booksFromCommands(commands);
 
         // 2. JPA Batch Save
         List<Book> savedBooks = bookRepository.saveAll(books);
@@ -117,22 +110,8 @@ public class BookService {
     @Transactional
     public List<String> createBooksBatchEmbedding(List<BookCommand> commands) {
         logger.debug("entered createBooksBatchEmbedding with {} books", commands.size());
-        List<Book> books = new ArrayList<>();
-
         // 1. Prepare Entities
-        for (BookCommand command : commands) {
-            List<Author> authors = command.authorIds().stream()
-                    .map(ApiKey::new)
-                    .map(authorRepository::findAuthorByAuthorApiKey)
-                    .flatMap(Optional::stream)
-                    .toList();
-            books.add(new Book(
-                    command.name(), command.releaseDate(), command.availableOnline(), command.wordCount(),
-                    command.genre().stream().map(BookGenre::valueOf).toList(),
-                    authors, command.types().stream().map(BookType::valueOf).toList(),
-                    command.description()
-            ));
-        }
+        List<Book> books = booksFromCommands(commands);
 
         // 2. JPA Batch Save
         List<Book> savedBooks = bookRepository.saveAll(books);
@@ -150,6 +129,34 @@ public class BookService {
         return savedBooks.stream().map(b -> b.getBookApiKey().apiKey()).toList();
     }
 
+    /**
+     * Lädt die Authors aller Commands mit einem IN-Query statt einer Abfrage pro Book und Author
+     */
+    private List<Book> booksFromCommands(List<BookCommand> commands) {
+        Set<String> authorApiKeys = commands.stream()
+                .flatMap(command -> command.authorIds().stream())
+                .collect(Collectors.toSet());
+        Map<String, Author> authorsByApiKey = authorApiKeys.isEmpty()
+                ? Map.of()
+                : authorRepository.findAuthorsByApiKeys(authorApiKeys).stream()
+                        .collect(Collectors.toMap(author -> author.getAuthorApiKey().apiKey(), Function.identity()));
+
+        List<Book> books = new ArrayList<>(commands.size());
+        for (BookCommand command : commands) {
+            List<Author> authors = command.authorIds().stream()
+                    .map(authorsByApiKey::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            books.add(new Book(
+                    command.name(), command.releaseDate(), command.availableOnline(), command.wordCount(),
+                    command.genre().stream().map(BookGenre::valueOf).toList(),
+                    authors, command.types().stream().map(BookType::valueOf).toList(),
+                    command.description()
+            ));
+        }
+        return books;
+    }
+
     // ==================== CREATE METHODS ====================
 
     /**
@@ -245,6 +252,7 @@ public class BookService {
 
     /**
      * Erstellt Book ÜBERALL (JPA + MongoDB Referencing + MongoDB Embedding)
+     * MongoDB wird je nach mongo.write.consistency synchron oder asynchron befüllt
      * STANDARD-METHODE für Controller
      */
     @Transactional
@@ -266,23 +274,9 @@ public class BookService {
 
         Book savedBook = bookRepository.save(book);
 
-        // Save to MongoDB (Referencing)
-        try {
-            BookDocument docRef = mapper.toMongoDocument(savedBook);
-            mongoRepository.save(docRef);
-            logger.debug("Book saved to MongoDB (referencing): {}", savedBook.getBookApiKey().apiKey());
-        } catch (Exception e) {
-            logger.error("Failed to save book to MongoDB (referencing)", e);
-        }
-
-        // Save to MongoDB (Embedding)
-        try {
-            BookDocumentEmbedded docEmb = embeddedMapper.toMongoDocument(savedBook);
-            embeddedMongoRepository.save(docEmb);
-            logger.debug("Book saved to MongoDB (embedding): {}", savedBook.getBookApiKey().apiKey());
-        } catch (Exception e) {
-            logger.error("Failed to save book to MongoDB (embedding)", e);
-        }
+        // MongoDB (Referencing + Embedding) je nach mongo.write.consistency (Outbox und/oder parallel nach Commit)
+        mongoWriteDispatcher.bookChanged(savedBook);
+        logger.debug("Book saved, MongoDB write dispatched: {}", savedBook.getBookApiKey().apiKey());
 
         return BookDto.bookDtoFromBook(savedBook);
     }
@@ -379,6 +373,7 @@ public class BookService {
 
     /**
      * Erstellt Book ÜBERALL (JPA + MongoDB Referencing + MongoDB Embedding) mit Pennames
+     * MongoDB wird je nach mongo.write.consistency synchron oder asynchron befüllt
      * STANDARD-METHODE für Controller
      */
     @Transactional
@@ -399,23 +394,9 @@ public class BookService {
 
         Book savedBook = bookRepository.save(book);
 
-        // Save to MongoDB (Referencing)
-        try {
-            BookDocument docRef = mapper.toMongoDocument(savedBook);
-            mongoRepository.save(docRef);
-            logger.debug("Book saved to MongoDB (referencing): {}", savedBook.getBookApiKey().apiKey());
-        } catch (Exception e) {
-            logger.error("Failed to save book to MongoDB (referencing)", e);
-        }
-
-        // Save to MongoDB (Embedding)
-        try {
-            BookDocumentEmbedded docEmb = embeddedMapper.toMongoDocument(savedBook);
-            embeddedMongoRepository.save(docEmb);
-            logger.debug("Book saved to MongoDB (embedding): {}", savedBook.getBookApiKey().apiKey());
-        } catch (Exception e) {
-            logger.error("Failed to save book to MongoDB (embedding)", e);
-        }
+        // MongoDB (Referencing + Embedding) je nach mongo.write.consistency (Outbox und/oder parallel nach Commit)
+        mongoWriteDispatcher.bookChanged(savedBook);
+        logger.debug("Book saved, MongoDB write dispatched: {}", savedBook.getBookApiKey().apiKey());
 
         return BookDto.bookDtoFromBook(savedBook);
     }
@@ -427,34 +408,22 @@ public class BookService {
      * STANDARD-METHODE für Controller
      */
     @Transactional
+    @CacheEvict(cacheNames = {EntityCaches.BOOKS, EntityCaches.BOOKS_2})
     public void deleteBook(String apiKey) {
         logger.debug("entered deleteBook (ALL)");
         Book book = bookRepository.findBookByBookApiKey(new ApiKey(apiKey))
                 .orElseThrow(() -> BookServiceException.noBookForApiKey(apiKey));
         bookRepository.delete(book);
 
-        // Delete from MongoDB (Referencing)
-        try {
-            mongoRepository.findByApiKey(apiKey)
-                    .ifPresent(doc -> mongoRepository.deleteById(doc.getId()));
-            logger.debug("Book deleted from MongoDB (referencing): {}", apiKey);
-        } catch (Exception e) {
-            logger.error("Failed to delete book from MongoDB (referencing)", e);
-        }
-
-        // Delete from MongoDB (Embedding)
-        try {
-            embeddedMongoRepository.findByApiKey(apiKey)
-                    .ifPresent(doc -> embeddedMongoRepository.deleteById(doc.getId()));
-            logger.debug("Book deleted from MongoDB (embedding): {}", apiKey);
-        } catch (Exception e) {
-            logger.error("Failed to delete book from MongoDB (embedding)", e);
-        }
+        // Delete from MongoDB (Referencing + Embedding) je nach mongo.write.consistency
+        mongoWriteDispatcher.bookDeleted(book);
+        logger.debug("Book deleted, MongoDB delete dispatched: {}", apiKey);
     }
 
     // ==================== UPDATE METHODS ====================
 
     @Transactional
+    @CacheEvict(cacheNames = {EntityCaches.BOOKS, EntityCaches.BOOKS_2}, key = "#command.apiKey()")
     public BookDto updateBook(BookCommand command) {
         logger.debug("entered updateBook (ALL)");
 
@@ -484,47 +453,15 @@ public class BookService {
 
         Book savedBook = bookRepository.save(book);
 
-        // Update MongoDB (Referencing)
-        try {
-            mongoRepository.findByApiKey(command.apiKey()).ifPresent(doc -> {
-                doc.setName(command.name());
-                doc.setAvailableOnline(command.availableOnline());
-                doc.setDescription(command.description());
-                doc.setReleaseDate(command.releaseDate());
-                doc.setGenres(new ArrayList<>(command.genre()));
-                doc.setBookTypes(new ArrayList<>(command.types()));
-                doc.setAuthorApiKeys(authors.stream()
-                        .map(a -> a.getAuthorApiKey().apiKey())
-                        .toList());
-                mongoRepository.save(doc);
-            });
-            logger.debug("Book updated in MongoDB (referencing): {}", command.apiKey());
-        } catch (Exception e) {
-            logger.error("Failed to update book in MongoDB (referencing)", e);
-        }
-
-        // Update MongoDB (Embedding)
-        try {
-            embeddedMongoRepository.findByApiKey(command.apiKey()).ifPresent(doc -> {
-                BookDocumentEmbedded updated = embeddedMapper.toMongoDocument(savedBook);
-                doc.setName(updated.getName());
-                doc.setAvailableOnline(updated.getAvailableOnline());
-                doc.setDescription(updated.getDescription());
-                doc.setReleaseDate(updated.getReleaseDate());
-                doc.setGenres(new ArrayList<>(updated.getGenres()));
-                doc.setBookTypes(new ArrayList<>(updated.getBookTypes()));
-                doc.setAuthors(new ArrayList<>(updated.getAuthors()));
-                embeddedMongoRepository.save(doc);
-            });
-            logger.debug("Book updated in MongoDB (embedding): {}", command.apiKey());
-        } catch (Exception e) {
-            logger.error("Failed to update book in MongoDB (embedding)", e);
-        }
+        // Update MongoDB (Referencing + Embedding) je nach mongo.write.consistency
+        mongoWriteDispatcher.bookChanged(savedBook);
+        logger.debug("Book updated, MongoDB write dispatched: {}", command.apiKey());
 
         return BookDto.bookDtoFromBook(savedBook);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {EntityCaches.BOOKS, EntityCaches.BOOKS_2}, key = "#command.apiKey()")
     public BookDto updateBook2(BookCommand2 command) {
         logger.debug("entered updateBook2 (ALL)");
 
@@ -553,42 +490,9 @@ public class BookService {
 
         Book savedBook = bookRepository.save(book);
 
-        // Update MongoDB (Referencing)
-        try {
-            mongoRepository.findByApiKey(command.apiKey()).ifPresent(doc -> {
-                doc.setName(command.name());
-                doc.setAvailableOnline(command.availableOnline());
-                doc.setDescription(command.description());
-                doc.setReleaseDate(command.releaseDate());
-                doc.setGenres(new ArrayList<>(command.genre()));
-                doc.setBookTypes(new ArrayList<>(command.types()));
-                doc.setAuthorApiKeys(authors.stream()
-                        .map(a -> a.getAuthorApiKey().apiKey())
-                        .toList());
-                mongoRepository.save(doc);
-            });
-            logger.debug("Book updated in MongoDB (referencing): {}", command.apiKey());
-        } catch (Exception e) {
-            logger.error("Failed to update book in MongoDB (referencing)", e);
-        }
-
-        // Update MongoDB (Embedding)
-        try {
-            embeddedMongoRepository.findByApiKey(command.apiKey()).ifPresent(doc -> {
-                BookDocumentEmbedded updated = embeddedMapper.toMongoDocument(savedBook);
-                doc.setName(updated.getName());
-                doc.setAvailableOnline(updated.getAvailableOnline());
-                doc.setDescription(updated.getDescription());
-                doc.setReleaseDate(updated.getReleaseDate());
-                doc.setGenres(new ArrayList<>(updated.getGenres()));
-                doc.setBookTypes(new ArrayList<>(updated.getBookTypes()));
-                doc.setAuthors(new ArrayList<>(updated.getAuthors()));
-                embeddedMongoRepository.save(doc);
-            });
-            logger.debug("Book updated in MongoDB (embedding): {}", command.apiKey());
-        } catch (Exception e) {
-            logger.error("Failed to update book in MongoDB (embedding)", e);
-        }
+        // Update MongoDB (Referencing + Embedding) je nach mongo.write.consistency
+        mongoWriteDispatcher.bookChanged(savedBook);
+        logger.debug("Book updated, MongoDB write dispatched: {}", command.apiKey());
 
         return BookDto.bookDtoFromBook(savedBook);
     }
@@ -596,24 +500,63 @@ public class BookService {
 
     // ==================== READ METHODS ====================
 
+    /**
+     * SUPPORTS: wird aus MongoDB gelesen, soll dafür keine PostgreSQL-Connection belegt werden
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BookDto getBook(String apiKey) {
         logger.debug("entered getBook");
-        return bookRepository.findProjectedBookByBookApiKey(apiKey)
-                .orElseThrow(() -> BookServiceException.noBookForApiKey(apiKey));
+        BookDto cached = booksCache.get(apiKey, BookDto.class);
+        if (cached != null) return cached;
+        // Nur PostgreSQL-Ergebnisse cachen: das Read-Model darf bis zu maxLag hinterherhinken, gecacht würde
+        // ein alter Stand die TTL lang ausgeliefert
+        return readRouter.read(BookReadRouter.ReadQuery.BOOK_BY_API_KEY,
+                // Documents ohne version (vor dem Resync geschrieben) liefern kein ETag -> PostgreSQL
+                () -> embeddedMongoRepository.findByApiKey(apiKey)
+                        .filter(doc -> doc.getVersion() != null)
+                        .map(embeddedMapper::toBookDto),
+                () -> {
+                    BookDto book = bookRepository.findProjectedBookByBookApiKey(apiKey)
+                            .orElseThrow(() -> BookServiceException.noBookForApiKey(apiKey));
+                    booksCache.put(apiKey, book);
+                    return book;
+                });
     }
 
+    @Cacheable(cacheNames = EntityCaches.BOOKS_2)
     public BookDto2 getBook2(String apiKey) {
         logger.debug("entered getBook2");
         return bookRepository.findProjectedBookByBookApiKey2(apiKey)
                 .orElseThrow(() -> BookServiceException.noBookForApiKey(apiKey));
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<BookDto> getBooks(String authorApiKey) {
         logger.debug("entered getBooks");
         if (authorApiKey == null) return bookRepository.findAllProjected();
-        var author = authorRepository.findProjectedAuthorByAuthorApiKey(authorApiKey)
-                .orElseThrow(() -> BookServiceException.noAuthorForApikey(authorApiKey));
-        return bookRepository.findProjectedBooksByAuthorsContains(author.apiKey());
+        return readRouter.read(BookReadRouter.ReadQuery.BOOKS_BY_AUTHOR,
+                () -> Optional.of(embeddedMongoRepository.findByEmbeddedAuthorApiKey(authorApiKey))
+                        .filter(books -> !books.isEmpty())
+                        .map(books -> books.stream().map(embeddedMapper::toBookDto).toList()),
+                () -> {
+                    var author = authorRepository.findProjectedAuthorByAuthorApiKey(authorApiKey)
+                            .orElseThrow(() -> BookServiceException.noAuthorForApikey(authorApiKey));
+                    return bookRepository.findProjectedBooksByAuthorsContains(author.apiKey());
+                });
+    }
+
+    public KeysetPage<BookDto> getBooksPage(String after, Integer limit) {
+        logger.debug("entered getBooksPage");
+        return KeysetPage.fetch(after, limit,
+                (afterId, pageLimit) -> bookRepository.findBookIdsAfter(afterId, Long.MAX_VALUE, pageLimit),
+                bookRepository::findProjectedByIds);
+    }
+
+    public CollectionExportService.Source<BookDto> exportBooks() {
+        logger.debug("entered exportBooks");
+        return new CollectionExportService.Source<>(
+                (afterId, chunkLimit) -> bookRepository.findBookIdsAfter(afterId, Long.MAX_VALUE, chunkLimit),
+                bookRepository::findProjectedByIds);
     }
 
     public List<BookDto2> getBooks2() {
@@ -621,29 +564,34 @@ public class BookService {
         return bookRepository.findAllProjected2();
     }
 
+    /**
+     * Typeahead: höchstens limit Books, deren Name mit q beginnt oder q ähnlich ist; unter
+     * SuggestTerm.MIN_LENGTH Zeichen keine Abfrage
+     */
+    public List<Suggestion> suggestBooks(String q, int limit) {
+        logger.debug("entered suggestBooks");
+        SuggestTerm term = SuggestTerm.of(q);
+        if (term == null) return List.of();
+        return bookRepository.findSuggestions(term, SuggestTerm.limit(limit));
+    }
+
+    // ==================== ETAG (CONDITIONAL GET) ====================
+
+    public String getBooksPageETag(String after, Integer limit) {
+        logger.debug("entered getBooksPageETag");
+        return KeysetPage.etag(after, limit, bookRepository::findBookVersionsAfter);
+    }
+
     // ==================== SYNC METHODS ====================
 
-    @Transactional
-    public void syncAllToMongo() {
-        logger.info("Starting sync from PostgreSQL to MongoDB (both collections)");
-        List<Book> allBooks = bookRepository.findAll();
-        int synced = 0;
-        for (Book book : allBooks) {
-            try {
-                // Sync to Referencing
-                BookDocument docRef = mapper.toMongoDocument(book);
-                mongoRepository.save(docRef);
-
-                // Sync to Embedding
-                BookDocumentEmbedded docEmb = embeddedMapper.toMongoDocument(book);
-                embeddedMongoRepository.save(docEmb);
-
-                synced++;
-            } catch (Exception e) {
-                logger.error("Failed to sync book: {}", book.getBookApiKey().apiKey(), e);
-            }
-        }
-        logger.info("Synced {} of {} books to MongoDB (both collections)", synced, allBooks.size());
+    /**
+     * Startet den partitionierten, fortsetzbaren Resync (books + books_with_embedded_authors).
+     * NOT_SUPPORTED: der Resync verwaltet seine Transaktionen pro Seite selbst.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public MongoResyncProgress syncAllToMongo() {
+        logger.info("Starting resync from PostgreSQL to MongoDB (both collections)");
+        return resyncService.start(MongoOutboxEvent.AggregateType.BOOK, false);
     }
 
     // ==================== EXCEPTION CLASS ====================
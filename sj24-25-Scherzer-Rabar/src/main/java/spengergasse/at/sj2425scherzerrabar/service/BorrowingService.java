@@ -2,16 +2,21 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.commands.BorrowingCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.*;
 import spengergasse.at.sj2425scherzerrabar.dtos.BorrowingDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.persistence.BorrowingRepository;
 import spengergasse.at.sj2425scherzerrabar.persistence.CopyRepository;
 import spengergasse.at.sj2425scherzerrabar.persistence.CustomerRepository;
 import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,34 +26,47 @@ public class BorrowingService {
     private final BorrowingRepository borrowingRepository;
     private final CustomerRepository customerRepository;
     private final CopyRepository copyRepository;
+    private final ApiKeyResolver apiKeyResolver;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
-    public BorrowingService(BorrowingRepository borrowingRepository, CustomerRepository customerRepository, CopyRepository copyRepository) {
+    public BorrowingService(BorrowingRepository borrowingRepository, CustomerRepository customerRepository, CopyRepository copyRepository, ApiKeyResolver apiKeyResolver) {
         this.borrowingRepository = borrowingRepository;
         this.customerRepository = customerRepository;
         this.copyRepository = copyRepository;
+        this.apiKeyResolver = apiKeyResolver;
     }
 
     @Transactional
     public BorrowingDto createBorrowing(BorrowingCommand command) {
         logger.debug("entered createBorrowing");
-        Optional<Customer> customer = customerRepository.findCustomerByCustomerApiKey(new ApiKey(command.customerApiKey()));
+        Optional<Customer> customer = apiKeyResolver.reference(Customer.class, command.customerApiKey());
         if(customer.isEmpty()) {
             throw BorrowingServiceException.noCustomerForApikey(command.customerApiKey());
         }
-        List<Copy> copies = command.copyApiKeys().stream()
-                .map(ApiKey::new)
-                .map(copyRepository::findCopyByCopyApiKey)
-                .flatMap(Optional::stream)
-                .toList();
+        // unbekannte Copies werden wie bisher ausgelassen, im DTO stehen nur die verknüpften
+        List<Copy> copies = new ArrayList<>();
+        List<String> copyApiKeys = new ArrayList<>();
+        for (String copyApiKey : command.copyApiKeys()) {
+            apiKeyResolver.reference(Copy.class, copyApiKey).ifPresent(copy -> {
+                copies.add(copy);
+                copyApiKeys.add(copyApiKey);
+            });
+        }
         if (copies.isEmpty()) {
             throw BorrowingServiceException.noCopies();
         }
-        return BorrowingDto.borrowingDtoFromBorrowing( borrowingRepository.save(new Borrowing(customer.get(),copies, command.fromDate(),0)));
+        Borrowing borrowing = borrowingRepository.save(new Borrowing(customer.get(),copies, command.fromDate(),0));
+        return new BorrowingDto(borrowing.getBorrowingApiKey().apiKey(), command.customerApiKey(), copyApiKeys,
+                borrowing.getFromDate(), borrowing.getExtendedByDays());
     }
 
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EntityCaches.BORROWINGS),
+            // Borrowing.copies ist CascadeType.ALL, die Copies werden mitgelöscht
+            @CacheEvict(cacheNames = EntityCaches.COPIES, allEntries = true)
+    })
     public void deleteBorrowing(String borrowingApiKey) {
         logger.debug("entered deleteBorrowing");
         Borrowing borrowing = borrowingRepository.findBorrowingByBorrowingApiKey(new ApiKey(borrowingApiKey))
@@ -57,6 +75,7 @@ public class BorrowingService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.BORROWINGS, key = "#command.apiKey()")
     public BorrowingDto updateBorrowing(BorrowingCommand command) {
         logger.debug("entered updateBorrowing");
         return borrowingRepository.findBorrowingByBorrowingApiKey(new ApiKey(command.apiKey()))
@@ -90,6 +109,18 @@ public class BorrowingService {
         return borrowingRepository.findAllProjected();
     }
 
+    public KeysetPage<BorrowingDto> getBorrowingsPage(String after, Integer limit) {
+        logger.debug("entered getBorrowingsPage");
+        return KeysetPage.fetch(after, limit,
+                borrowingRepository::findBorrowingIdsAfter,
+                borrowingRepository::findProjectedByIds);
+    }
+
+    public CollectionExportService.Source<BorrowingDto> exportBorrowings() {
+        logger.debug("entered exportBorrowings");
+        return new CollectionExportService.Source<>(borrowingRepository::findBorrowingIdsAfter, borrowingRepository::findProjectedByIds);
+    }
+
     public List<BorrowingDto> getBorrowingsByCustomer(String customerApiKey) {
         logger.debug("entered getBorrowingsByCustomer");
         var customer = customerRepository.findProjectedCustomerByCustomerApiKey(customerApiKey)
@@ -105,6 +136,7 @@ public class BorrowingService {
         return borrowingRepository.findProjectedBorrowingsByCopiesContains(copy.apiKey());
     }
 
+    @Cacheable(cacheNames = EntityCaches.BORROWINGS)
     public BorrowingDto getBorrowingByApiKey(String borrowingApiKey) {
         logger.debug("entered getBorrowingByApiKey");
         return borrowingRepository.findProjectedBorrowingByBorrowingApiKey(borrowingApiKey)
@@ -2,13 +2,17 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.commands.BranchCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.Branch;
+import spengergasse.at.sj2425scherzerrabar.domain.Library;
 import spengergasse.at.sj2425scherzerrabar.dtos.BranchDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.persistence.BranchRepository;
 import spengergasse.at.sj2425scherzerrabar.persistence.LibraryRepository;
 import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
@@ -21,24 +25,27 @@ public class BranchService {
 
     private final BranchRepository branchRepository;
     private final LibraryRepository libraryRepository;
+    private final ApiKeyResolver apiKeyResolver;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
 
-    public BranchService(BranchRepository branchRepository, LibraryRepository libraryRepository) {
+    public BranchService(BranchRepository branchRepository, LibraryRepository libraryRepository, ApiKeyResolver apiKeyResolver) {
         this.branchRepository = branchRepository;
         this.libraryRepository = libraryRepository;
+        this.apiKeyResolver = apiKeyResolver;
     }
 
     @Transactional
     public BranchDto createBranch(BranchCommand branchDto) {
         logger.debug("entered createBranch");
-        var library = libraryRepository.findLibraryByLibraryApiKey(new ApiKey(branchDto.libraryApiKey()))
+        var library = apiKeyResolver.reference(Library.class, branchDto.libraryApiKey())
                 .orElseThrow(()-> BranchServiceException.noLibraryForApikey(branchDto.libraryApiKey()));
-        return BranchDto.branchDtoFromBranch(
-                branchRepository.save(new Branch(library, Address.addressFromString(branchDto.address()))));
+        Branch branch = branchRepository.save(new Branch(library, Address.addressFromString(branchDto.address())));
+        return new BranchDto(branch.getBranchApiKey().apiKey(), branchDto.libraryApiKey(), branch.getAddress().toString());
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.BRANCHES, key = "#command.apiKey()")
     public BranchDto updateBranch(BranchCommand command) {
         logger.debug("entered updateBranch");
         Branch branch = branchRepository.findBranchByBranchApiKey(new ApiKey(command.apiKey()))
@@ -55,6 +62,7 @@ public class BranchService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.BRANCHES)
     public void deleteBranch(String branchApiKey) {
         logger.debug("entered deleteBranch");
         Branch branch = branchRepository.findBranchByBranchApiKey(new ApiKey(branchApiKey))
@@ -67,6 +75,19 @@ public class BranchService {
         return branchRepository.findAllProjected();
     }
 
+    public KeysetPage<BranchDto> getBranchesPage(String after, Integer limit) {
+        logger.debug("entered getBranchesPage");
+        return KeysetPage.fetch(after, limit,
+                branchRepository::findBranchIdsAfter,
+                branchRepository::findProjectedByIds);
+    }
+
+    public CollectionExportService.Source<BranchDto> exportBranches() {
+        logger.debug("entered exportBranches");
+        return new CollectionExportService.Source<>(branchRepository::findBranchIdsAfter, branchRepository::findProjectedByIds);
+    }
+
+    @Cacheable(cacheNames = EntityCaches.BRANCHES)
     public BranchDto getBranchByApiKey(String branchApiKey) {
         logger.debug("entered getBranchByApiKey");
         return branchRepository.findProjectedBranchByBranchApiKey(branchApiKey)
@@ -2,11 +2,15 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.commands.BuyableBookCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.*;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
 import spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
 import spengergasse.at.sj2425scherzerrabar.persistence.BuyableBookRepository;
 import spengergasse.at.sj2425scherzerrabar.persistence.PublisherRepository;
@@ -22,29 +26,34 @@ public class BuyableBookService {
     private final BuyableBookRepository buyableBookRepository;
     private final PublisherRepository publisherRepository;
     private final BookRepository bookRepository;
+    private final ApiKeyResolver apiKeyResolver;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
 
-    public BuyableBookService(BuyableBookRepository buyableBookRepository, PublisherRepository publisherRepository, BookRepository bookRepository) {
+    public BuyableBookService(BuyableBookRepository buyableBookRepository, PublisherRepository publisherRepository, BookRepository bookRepository, ApiKeyResolver apiKeyResolver) {
         this.buyableBookRepository = buyableBookRepository;
         this.publisherRepository = publisherRepository;
         this.bookRepository = bookRepository;
+        this.apiKeyResolver = apiKeyResolver;
     }
 
     @Transactional
     public BuyableBookDto createBuyableBook(BuyableBookCommand command) {
         logger.debug("entered createBuyableBook");
-        var book = bookRepository.findBookByBookApiKey(new ApiKey(command.bookApiKey()))
+        var book = apiKeyResolver.reference(Book.class, command.bookApiKey())
                 .orElseThrow(() -> BuyableBookServiceException.noBuyableBookForApiKey(command.bookApiKey()));
 
-        var publisher = publisherRepository.findPublisherByPublisherApiKey(new ApiKey(command.publisherApiKey()))
+        var publisher = apiKeyResolver.reference(Publisher.class, command.publisherApiKey())
                 .orElseThrow(()-> BuyableBookServiceException.noPublisherForApikey(command.publisherApiKey()));
 
-        return BuyableBookDto.buyableBookDtoFromBuyableBook(
-                buyableBookRepository.save(new BuyableBook(publisher, BookType.valueOf(command.bookType()), command.pageCount(),book,command.price())));
+        BuyableBook buyableBook = buyableBookRepository.save(
+                new BuyableBook(publisher, BookType.valueOf(command.bookType()), command.pageCount(),book,command.price()));
+        return new BuyableBookDto(buyableBook.getBuyableBookApiKey().apiKey(), command.price(), command.publisherApiKey(),
+                command.bookType(), command.pageCount(), command.bookApiKey());
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.BUYABLE_BOOKS, key = "#command.buyableBookApiKey()")
     public BuyableBookDto updateBuyableBook(BuyableBookCommand command) {
         logger.debug("entered updateBuyableBook");
         BuyableBook buyableBook = buyableBookRepository.findBuyableBookByBuyableBookApiKey(new ApiKey(command.buyableBookApiKey()))
@@ -67,6 +76,7 @@ public class BuyableBookService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.BUYABLE_BOOKS)
     public void deleteBuyableBook(String buyableBookApiKey) {
         logger.debug("entered deleteBuyableBook");
         BuyableBook buyableBook = buyableBookRepository.findBuyableBookByBuyableBookApiKey(new ApiKey(buyableBookApiKey))
@@ -79,6 +89,19 @@ public class BuyableBookService {
         return buyableBookRepository.findAllProjected();
     }
 
+    public KeysetPage<BuyableBookDto> getBuyableBooksPage(String after, Integer limit) {
+        logger.debug("entered getBuyableBooksPage");
+        return KeysetPage.fetch(after, limit,
+                buyableBookRepository::findBuyableBookIdsAfter,
+                buyableBookRepository::findProjectedByIds);
+    }
+
+    public CollectionExportService.Source<BuyableBookDto> exportBuyableBooks() {
+        logger.debug("entered exportBuyableBooks");
+        return new CollectionExportService.Source<>(buyableBookRepository::findBuyableBookIdsAfter, buyableBookRepository::findProjectedByIds);
+    }
+
+    @Cacheable(cacheNames = EntityCaches.BUYABLE_BOOKS)
     public BuyableBookDto getBuyableBookByApiKey(String apiKey) {
         logger.debug("entered getBuyableBookByApiKey");
         return buyableBookRepository.findProjectedBuyableBookByBuyableBookApiKey(apiKey)
@@ -0,0 +1,16 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param chunkSize      Anzahl Ids, die pro Chunk (eigene read-only Transaktion) geladen und geschrieben werden
+ * @param requestTimeout Async-Timeout nur für NDJSON-Antworten; alle anderen asynchronen Requests behalten
+ *                       den Default des Containers
+ */
+@ConfigurationProperties(prefix = "collections.export")
+public record CollectionExportProperties(@DefaultValue("500") int chunkSize,
+                                         @DefaultValue("30m") Duration requestTimeout) {
+}
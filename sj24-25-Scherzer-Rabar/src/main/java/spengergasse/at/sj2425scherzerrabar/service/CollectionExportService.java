@@ -0,0 +1,96 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Streamt ganze Collections als NDJSON (ein DTO pro Zeile), ohne sie als List zu materialisieren.
+ * Die Ids werden per Keyset (id > letzte Id) chunkweise gelesen; jeder Chunk lädt Ids und DTOs in einer
+ * eigenen kurzen read-only Transaktion, geschrieben wird erst danach. Ein langsamer Client hält damit
+ * weder Connection noch Snapshot offen, und der Persistence Context wird nach jedem Chunk geleert.
+ */
+@Service
+public class CollectionExportService {
+
+    private static final byte[] LINE_SEPARATOR = {'\n'};
+
+    private final CollectionExportProperties properties;
+    private final TransactionTemplate readTransaction;
+    private final EntityManager entityManager;
+    private final ObjectWriter lineWriter;
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public CollectionExportService(CollectionExportProperties properties,
+                                   PlatformTransactionManager transactionManager,
+                                   EntityManager entityManager,
+                                   ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.entityManager = entityManager;
+        this.lineWriter = objectMapper.writer();
+    }
+
+    /**
+     * Quelle eines Exports: die nächsten Ids nach afterId (aufsteigend, wie bei den Keyset-Seiten) und die
+     * Projektion für einen Chunk davon, in derselben Reihenfolge
+     */
+    public record Source<T>(BiFunction<Long, Limit, List<Long>> idsAfter, Function<List<Long>, List<T>> projectedByIds) {
+    }
+
+    /**
+     * @return Anzahl der geschriebenen Zeilen
+     */
+    public <T> long writeNdjson(Source<T> source, OutputStream out) throws IOException {
+        logger.debug("entered writeNdjson (chunk size {})", properties.chunkSize());
+        long lines = 0;
+        long afterId = 0L;
+        while (true) {
+            Chunk<T> chunk = readChunk(source, afterId);
+            if (chunk.ids().isEmpty()) {
+                return lines;
+            }
+            for (T item : chunk.items()) {
+                out.write(lineWriter.writeValueAsBytes(item));
+                out.write(LINE_SEPARATOR);
+            }
+            out.flush();
+            lines += chunk.items().size();
+            if (chunk.ids().size() < properties.chunkSize()) {
+                return lines;
+            }
+            afterId = chunk.ids().getLast();
+        }
+    }
+
+    private record Chunk<T>(List<Long> ids, List<T> items) {
+    }
+
+    private <T> Chunk<T> readChunk(Source<T> source, long afterId) {
+        Chunk<T> chunk = readTransaction.execute(status -> {
+            List<Long> ids = source.idsAfter().apply(afterId, Limit.of(properties.chunkSize()));
+            if (ids.isEmpty()) {
+                return new Chunk<T>(ids, List.of());
+            }
+            List<T> items = source.projectedByIds().apply(ids);
+            // Entities des Chunks freigeben, bevor der nächste geladen wird
+            entityManager.clear();
+            return new Chunk<>(ids, items);
+        });
+        return chunk == null ? new Chunk<>(List.of(), List.of()) : chunk;
+    }
+}
@@ -2,13 +2,19 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.commands.CopyCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.BookType;
+import spengergasse.at.sj2425scherzerrabar.domain.Branch;
 import spengergasse.at.sj2425scherzerrabar.domain.Copy;
+import spengergasse.at.sj2425scherzerrabar.domain.Publisher;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
 import spengergasse.at.sj2425scherzerrabar.dtos.CopyDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
 import spengergasse.at.sj2425scherzerrabar.persistence.BranchRepository;
 import spengergasse.at.sj2425scherzerrabar.persistence.CopyRepository;
@@ -25,36 +31,42 @@ public class CopyService {
     private final BookRepository bookRepository;
     private final PublisherRepository publisherRepository;
     private final BranchRepository branchRepository;
+    private final ApiKeyResolver apiKeyResolver;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
-    public CopyService(CopyRepository copyRepository, BookRepository bookRepository, PublisherRepository publisherRepository, BranchRepository branchRepository) {
+    public CopyService(CopyRepository copyRepository, BookRepository bookRepository, PublisherRepository publisherRepository, BranchRepository branchRepository, ApiKeyResolver apiKeyResolver) {
         this.copyRepository = copyRepository;
         this.bookRepository = bookRepository;
         this.publisherRepository = publisherRepository;
         this.branchRepository = branchRepository;
+        this.apiKeyResolver = apiKeyResolver;
     }
 
     @Transactional
     public CopyDto createCopy(CopyCommand command) {
         logger.debug("entered createCopy");
-        var book = bookRepository.findBookByBookApiKey(new ApiKey(command.bookApiKey()));
+        // nur Referenzen: Book, Publisher und Branch werden für den Insert nicht geladen
+        var book = apiKeyResolver.reference(Book.class, command.bookApiKey());
         if(book.isEmpty()) {
             throw CopyServiceException.noBookForApikey(command.bookApiKey());
         }
-        var publisher = publisherRepository.findPublisherByPublisherApiKey(new ApiKey(command.publisherApiKey()));
+        var publisher = apiKeyResolver.reference(Publisher.class, command.publisherApiKey());
         if(publisher.isEmpty()) {
             throw CopyServiceException.noPublisherForApikey(command.publisherApiKey());
         }
-        var branch = branchRepository.findBranchByBranchApiKey(new ApiKey(command.branchApiKey()));
+        var branch = apiKeyResolver.reference(Branch.class, command.branchApiKey());
         if(branch.isEmpty()) {
             throw CopyServiceException.noBranchForApikey(command.branchApiKey());
         }
         Copy copy = new Copy(publisher.get(), command.bookType(),command.pageCount(),book.get(),branch.get());
         copyRepository.save(copy);
-        return CopyDto.copyDtoFromCopy(copy);
+        // DTO aus den Command-Keys, ein Getter auf den Proxies würde die Zeilen doch nachladen
+        return new CopyDto(copy.getCopyApiKey().apiKey(), command.publisherApiKey(), command.bookType(),
+                command.pageCount(), command.bookApiKey(), command.branchApiKey(), copy.getVersion());
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.COPIES)
     public void deleteCopy(String apiKey) {
         logger.debug("entered deleteCopy");
         Copy copy = copyRepository.findCopyByCopyApiKey(new ApiKey(apiKey))
@@ -63,6 +75,7 @@ public class CopyService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.COPIES, key = "#command.apiKey()")
     public CopyDto updateCopy(CopyCommand command) {
         logger.debug("entered updateCopy");
        Copy copy = copyRepository.findCopyByCopyApiKey(new ApiKey(command.apiKey())).map((Copy c)->{
@@ -85,6 +98,7 @@ public class CopyService {
        return CopyDto.copyDtoFromCopy(copy);
     }
 
+    @Cacheable(cacheNames = EntityCaches.COPIES)
     public CopyDto getCopy(String apiKey) {
         logger.debug("entered getCopy");
         return copyRepository.findProjectedByCopyApiKey(apiKey)
@@ -96,6 +110,23 @@ public class CopyService {
         return copyRepository.findAllProjected();
     }
 
+    public KeysetPage<CopyDto> getCopiesPage(String after, Integer limit) {
+        logger.debug("entered getCopiesPage");
+        return KeysetPage.fetch(after, limit,
+                copyRepository::findCopyIdsAfter,
+                copyRepository::findProjectedByIds);
+    }
+
+    public String getCopiesPageETag(String after, Integer limit) {
+        logger.debug("entered getCopiesPageETag");
+        return KeysetPage.etag(after, limit, copyRepository::findCopyVersionsAfter);
+    }
+
+    public CollectionExportService.Source<CopyDto> exportCopies() {
+        logger.debug("entered exportCopies");
+        return new CollectionExportService.Source<>(copyRepository::findCopyIdsAfter, copyRepository::findProjectedByIds);
+    }
+
     public List<CopyDto> getCopiesByBook(String bookApiKey) {
         logger.debug("entered getCopiesByBook");
         var book = bookRepository.findProjectedBookByBookApiKey(bookApiKey)
@@ -2,6 +2,8 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.commands.CustomerCommand;
@@ -10,6 +12,7 @@ import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.Customer;
 import spengergasse.at.sj2425scherzerrabar.domain.EmailAddress;
 import spengergasse.at.sj2425scherzerrabar.dtos.CustomerDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.persistence.CustomerRepository;
 import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
 
@@ -37,6 +40,7 @@ public class CustomerService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.CUSTOMERS)
     public void deleteCustomer(String apiKey) {
         logger.debug("entered deleteCustomer");
         var customer = customerRepository.findCustomerByCustomerApiKey(new ApiKey(apiKey))
@@ -45,6 +49,7 @@ public class CustomerService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.CUSTOMERS, key = "#command.apiKey()")
     public CustomerDto updateCustomer(CustomerCommand command) {
         logger.debug("entered updateCustomer");
        Customer customer = customerRepository.findCustomerByCustomerApiKey(new ApiKey(command.apiKey())).map((Customer c)->{
@@ -70,6 +75,19 @@ public class CustomerService {
         return customerRepository.findAllProjected();
     }
 
+    public KeysetPage<CustomerDto> getCustomersPage(String after, Integer limit) {
+        logger.debug("entered getCustomersPage");
+        return KeysetPage.fetch(after, limit,
+                customerRepository::findCustomerIdsAfter,
+                customerRepository::findProjectedByIds);
+    }
+
+    public CollectionExportService.Source<CustomerDto> exportCustomers() {
+        logger.debug("entered exportCustomers");
+        return new CollectionExportService.Source<>(customerRepository::findCustomerIdsAfter, customerRepository::findProjectedByIds);
+    }
+
+    @Cacheable(cacheNames = EntityCaches.CUSTOMERS)
     public CustomerDto getCustomer(String apiKey) {
         logger.debug("entered getCustomer");
         return customerRepository.findProjectedCustomerByCustomerApiKey(apiKey)
@@ -0,0 +1,15 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maximumSize maximale Anzahl DTOs pro Cache, darüber verdrängt Caffeine selten gelesene Einträge
+ * @param timeToLive  Obergrenze für die Lebensdauer eines Eintrags, falls eine Änderung am Service vorbei passiert
+ */
+@ConfigurationProperties(prefix = "entities.cache")
+public record EntityCacheProperties(@DefaultValue("10000") int maximumSize,
+                                    @DefaultValue("10m") Duration timeToLive) {
+}
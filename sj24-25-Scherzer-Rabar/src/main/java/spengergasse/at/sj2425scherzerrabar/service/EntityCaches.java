@@ -0,0 +1,29 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import java.util.List;
+
+/**
+ * Namen der Read-Through Caches für die projizierten Einzel-Lookups (Key = ApiKey).
+ * Jede update/delete-Methode im Service evictet ihren Key; Caches, deren DTOs Daten anderer
+ * Entities enthalten, werden von deren Änderungen komplett geleert (siehe jeweiliges @CacheEvict).
+ */
+public final class EntityCaches {
+
+    public static final String AUTHORS = "authors";
+    public static final String BOOKS = "books";
+    public static final String BOOKS_2 = "books2";
+    public static final String BORROWINGS = "borrowings";
+    public static final String BRANCHES = "branches";
+    public static final String BUYABLE_BOOKS = "buyableBooks";
+    public static final String COPIES = "copies";
+    public static final String CUSTOMERS = "customers";
+    public static final String LIBRARIES = "libraries";
+    public static final String ORDERS = "orders";
+    public static final String PUBLISHERS = "publishers";
+
+    public static final List<String> ALL = List.of(AUTHORS, BOOKS, BOOKS_2, BORROWINGS, BRANCHES,
+            BUYABLE_BOOKS, COPIES, CUSTOMERS, LIBRARIES, ORDERS, PUBLISHERS);
+
+    private EntityCaches() {
+    }
+}
@@ -0,0 +1,13 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param largeTableRows ab so vielen Zeilen (pg_stat_user_tables.n_live_tup) wird ein Seq Scan gemeldet
+ * @param maxStatements  so viele unterschiedliche SELECTs merkt sich der SelectStatementRecorder höchstens
+ */
+@ConfigurationProperties(prefix = "index-advisor")
+public record IndexAdvisorProperties(@DefaultValue("10000") long largeTableRows,
+                                     @DefaultValue("500") int maxStatements) {
+}
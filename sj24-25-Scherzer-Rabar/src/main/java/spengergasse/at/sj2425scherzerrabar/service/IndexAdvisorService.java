@@ -0,0 +1,105 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import spengergasse.at.sj2425scherzerrabar.dtos.IndexAdvisorReport;
+import spengergasse.at.sj2425scherzerrabar.dtos.IndexAdvisorReport.Failure;
+import spengergasse.at.sj2425scherzerrabar.dtos.IndexAdvisorReport.SeqScan;
+import spengergasse.at.sj2425scherzerrabar.persistence.QueryPlans;
+import spengergasse.at.sj2425scherzerrabar.persistence.SelectStatementRecorder;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sucht fehlende Indizes: jedes SELECT, das Hibernate seit dem Start abgesetzt hat (SelectStatementRecorder),
+ * wird mit EXPLAIN (GENERIC_PLAN, FORMAT JSON) geplant; gemeldet wird jeder Seq Scan auf einer Tabelle mit
+ * mindestens largeTableRows lebenden Zeilen, zusammen mit dem Filter, den er pro Zeile prüft.
+ * Kein ANALYZE - die Queries werden nicht ausgeführt, der Plan gilt für beliebige Parameterwerte.
+ */
+@Service
+public class IndexAdvisorService {
+
+    private final SelectStatementRecorder recorder;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final IndexAdvisorProperties properties;
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public IndexAdvisorService(SelectStatementRecorder recorder,
+                               JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper,
+                               IndexAdvisorProperties properties) {
+        this.recorder = recorder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    public IndexAdvisorReport report() {
+        logger.debug("entered report");
+        Map<String, Long> liveRows = liveRows();
+        List<String> statements = recorder.statements();
+        List<SeqScan> seqScans = new ArrayList<>();
+        List<Failure> failures = new ArrayList<>();
+
+        for (String sql : statements) {
+            try {
+                String plan = jdbcTemplate.queryForObject(
+                        "explain (generic_plan, format json) " + QueryPlans.numberedParameters(sql), String.class);
+                for (SeqScan scan : seqScans(plan, sql)) {
+                    long rows = liveRows.getOrDefault(scan.relation(), 0L);
+                    if (rows >= properties.largeTableRows()) {
+                        seqScans.add(new SeqScan(scan.relation(), rows, scan.filter(), sql));
+                    }
+                }
+            } catch (DataAccessException | JsonProcessingException e) {
+                failures.add(new Failure(sql, e.getMessage()));
+            }
+        }
+        seqScans.sort(Comparator.comparingLong(SeqScan::liveRows).reversed().thenComparing(SeqScan::relation));
+        logger.info("Index advisor checked {} statements: {} seq scans on large tables, {} failures",
+                statements.size(), seqScans.size(), failures.size());
+        return new IndexAdvisorReport(statements.size(), properties.largeTableRows(), seqScans, failures);
+    }
+
+    private Map<String, Long> liveRows() {
+        Map<String, Long> rows = new HashMap<>();
+        jdbcTemplate.query("select relname, n_live_tup from pg_stat_user_tables where schemaname = current_schema()",
+                rs -> {
+                    rows.put(rs.getString(1), rs.getLong(2));
+                });
+        return rows;
+    }
+
+    /**
+     * Alle Seq-Scan-Knoten eines Plans in FORMAT JSON; liveRows ist hier noch 0
+     */
+    List<SeqScan> seqScans(String planJson, String sql) throws JsonProcessingException {
+        List<SeqScan> scans = new ArrayList<>();
+        for (JsonNode root : objectMapper.readTree(planJson)) {
+            collectSeqScans(root.path("Plan"), sql, scans);
+        }
+        return scans;
+    }
+
+    private static void collectSeqScans(JsonNode node, String sql, List<SeqScan> scans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            scans.add(new SeqScan(node.path("Relation Name").asText(), 0,
+                    node.hasNonNull("Filter") ? node.get("Filter").asText() : null, sql));
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, sql, scans);
+        }
+    }
+}
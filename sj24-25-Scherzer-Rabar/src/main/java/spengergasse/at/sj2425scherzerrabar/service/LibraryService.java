@@ -2,6 +2,8 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.commands.LibraryCommand;
@@ -9,6 +11,7 @@ import spengergasse.at.sj2425scherzerrabar.domain.*;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
 import spengergasse.at.sj2425scherzerrabar.dtos.LibraryDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
 import spengergasse.at.sj2425scherzerrabar.persistence.LibraryRepository;
 import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
@@ -56,6 +59,7 @@ public class LibraryService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.LIBRARIES)
     public void deleteLibrary(String libraryApiKey) {
         logger.debug("entered deleteLibrary");
         Library library = libraryRepository.findLibraryByLibraryApiKey(new ApiKey(libraryApiKey))
@@ -64,6 +68,7 @@ public class LibraryService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.LIBRARIES, key = "#command.apiKey()")
     public LibraryDto updateLibrary(LibraryCommand command) {
         logger.debug("entered updateLibrary");
         Library library = libraryRepository.findLibraryByLibraryApiKey(new ApiKey(command.apiKey()))
@@ -97,6 +102,19 @@ public class LibraryService {
         return libraryRepository.findAllProjected();
     }
 
+    public KeysetPage<LibraryDto> getLibrariesPage(String after, Integer limit) {
+        logger.debug("entered getLibrariesPage");
+        return KeysetPage.fetch(after, limit,
+                libraryRepository::findLibraryIdsAfter,
+                libraryRepository::findProjectedByIds);
+    }
+
+    public CollectionExportService.Source<LibraryDto> exportLibraries() {
+        logger.debug("entered exportLibraries");
+        return new CollectionExportService.Source<>(libraryRepository::findLibraryIdsAfter, libraryRepository::findProjectedByIds);
+    }
+
+    @Cacheable(cacheNames = EntityCaches.LIBRARIES)
     public LibraryDto getLibrary(String libraryApiKey) {
         logger.debug("entered getLibrary");
         return libraryRepository.findProjectedByLibraryApiKey(libraryApiKey)
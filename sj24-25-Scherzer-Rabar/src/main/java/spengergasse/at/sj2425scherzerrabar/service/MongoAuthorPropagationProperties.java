@@ -0,0 +1,23 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param inlineThreshold bis zu so vielen betroffenen Books wird direkt im Relay geschrieben,
+ *                        darüber (populäre Authors) gedrosselt im Hintergrund
+ * @param throttle        Pause zwischen zwei Chunks eines Hintergrund-Jobs
+ * @param lease           so lange bleibt das Wächter-Event eines Hintergrund-Jobs in der Outbox zurückgestellt;
+ *                        wird während des Jobs verlängert und erst danach vom Relay wieder aufgegriffen
+ */
+@ConfigurationProperties(prefix = "mongo.author-propagation")
+public record MongoAuthorPropagationProperties(@DefaultValue("500") int chunkSize,
+                                               @DefaultValue("1000") long inlineThreshold,
+                                               @DefaultValue("100ms") Duration throttle,
+                                               @DefaultValue("2") int maxConcurrentJobs,
+                                               @DefaultValue("5") int maxAttempts,
+                                               @DefaultValue("2s") Duration retryBackoff,
+                                               @DefaultValue("2m") Duration lease) {
+}
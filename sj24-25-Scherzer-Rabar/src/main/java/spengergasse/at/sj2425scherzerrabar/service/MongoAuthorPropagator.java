@@ -0,0 +1,426 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.dtos.AuthorPropagationProgress;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Überträgt Author-Änderungen in die eingebetteten Authors von books_with_embedded_authors.
+ * Statt updateMulti mit "authors.$" über alle Books wird in Chunks über _id gearbeitet: pro Chunk
+ * ein updateMany mit arrayFilters (ersetzt den ganzen eingebetteten Author), bzw. $pull beim Löschen.
+ * Wenige betroffene Books werden direkt geschrieben, populäre Authors laufen gedrosselt im Hintergrund.
+ * Kommt während eines Jobs eine neuere Änderung desselben Authors, wird sie danach von vorne angewendet.
+ * Jeder Hintergrund-Job hält ein zurückgestelltes Wächter-Event in der Outbox (Lease, pro Chunk verlängert),
+ * damit der Lag für alle Instanzen an der Outbox ablesbar ist und ein abgebrochener Job nach Ablauf der Lease
+ * vom Relay erneut übertragen wird. Scheitert ein Job nach maxAttempts (oder wird die Anwendung beendet), wird
+ * der Wächter fällig gestellt - der Relay überträgt den Author dann später erneut.
+ */
+@Service
+public class MongoAuthorPropagator {
+
+    private static final String AUTHOR_API_KEY = "authors.api_key";
+
+    private final MongoTemplate mongoTemplate;
+    private final BookEmbeddedMapper embeddedMapper;
+    private final MongoOutboxService outboxService;
+    private final MongoAuthorPropagationProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final String collection;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Semaphore backgroundSlots;
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public MongoAuthorPropagator(MongoTemplate mongoTemplate,
+                                 BookEmbeddedMapper embeddedMapper,
+                                 MongoOutboxService outboxService,
+                                 MongoAuthorPropagationProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.embeddedMapper = embeddedMapper;
+        this.outboxService = outboxService;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.collection = mongoTemplate.getCollectionName(BookDocumentEmbedded.class);
+        this.backgroundSlots = new Semaphore(Math.max(1, properties.maxConcurrentJobs()));
+
+        Gauge.builder("mongo.author.propagation.active", jobs, Map::size)
+                .description("Laufende oder wartende Hintergrund-Jobs für populäre Authors")
+                .register(meterRegistry);
+        Gauge.builder("mongo.author.propagation.lag", this, propagator -> propagator.getLag().toMillis())
+                .description("Alter der ältesten noch nicht vollständig übertragenen Author-Änderung")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    // ==================== ENTRY POINTS ====================
+
+    /**
+     * Muss mit geladenen Addresses aufgerufen werden (Mapping passiert sofort, geschrieben wird ggf. später)
+     */
+    public void authorsChanged(Collection<Author> authors) {
+        for (Author author : authors) {
+            Document embedded = new Document();
+            mongoTemplate.getConverter().write(embeddedMapper.toEmbeddedAuthor(author), embedded);
+            embedded.remove("_class");
+            propagate(new Change(Operation.UPDATE, author.getPersonId().id(), author.getAuthorApiKey().apiKey(), embedded, Instant.now()));
+        }
+    }
+
+    /**
+     * @param apiKeysById Id und API-Key der gelöschten Authors
+     */
+    public void authorsDeleted(Map<Long, String> apiKeysById) {
+        apiKeysById.forEach((authorId, apiKey) -> propagate(new Change(Operation.DELETE, authorId, apiKey, null, Instant.now())));
+    }
+
+    private void propagate(Change change) {
+        if (jobs.containsKey(change.apiKey())) {
+            enqueue(change);
+            return;
+        }
+
+        long affected = mongoTemplate.count(byAuthor(change.apiKey()), collection);
+        if (affected == 0) {
+            return;
+        }
+        if (affected > properties.inlineThreshold()) {
+            logger.info("Author {} is embedded in {} books, propagating {} in the background",
+                    change.apiKey(), affected, change.operation());
+            enqueue(change);
+            return;
+        }
+
+        meterRegistry.timer("mongo.author.propagation.duration", "mode", "inline", "operation", change.operation().name())
+                .record(() -> applyInChunks(change, Duration.ZERO, null));
+    }
+
+    // ==================== BACKGROUND JOBS ====================
+
+    private void enqueue(Change change) {
+        Job running = jobs.computeIfPresent(change.apiKey(), (apiKey, job) -> {
+            job.pending = change;
+            return job;
+        });
+        if (running != null) {
+            return;
+        }
+        // Wächter vor dem Start schreiben: der Relay löscht das ursprüngliche Event erst nach diesem Aufruf
+        Job job = new Job(change);
+        job.guard = guard(job, change);
+        if (jobs.putIfAbsent(change.apiKey(), job) != null) {
+            release(job);
+            enqueue(change);
+            return;
+        }
+        virtualThreads.execute(() -> run(job));
+    }
+
+    private void run(Job job) {
+        try {
+            backgroundSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            while (job.current != null && !Thread.currentThread().isInterrupted()) {
+                runAttempt(job);
+                // Atomar: entweder gibt es eine neuere Änderung, oder der Job wird entfernt
+                jobs.compute(job.current.apiKey(), (apiKey, self) -> {
+                    if (job.pending == null) {
+                        job.current = null;
+                        return null;
+                    }
+                    job.current = job.pending;
+                    job.pending = null;
+                    job.attempt = 0;
+                    return self;
+                });
+                if (job.current == null) {
+                    release(job);
+                } else if (job.guard == null) {
+                    job.guard = guard(job, job.current);
+                }
+            }
+        } finally {
+            backgroundSlots.release();
+        }
+    }
+
+    private void runAttempt(Job job) {
+        Change change = job.current;
+        while (true) {
+            job.attempt++;
+            job.startedAt = Instant.now();
+            job.processed = 0;
+            job.total = mongoTemplate.count(byAuthor(change.apiKey()), collection);
+            try {
+                meterRegistry.timer("mongo.author.propagation.duration", "mode", "background", "operation", change.operation().name())
+                        .record(() -> applyInChunks(change, properties.throttle(), job));
+                job.error = null;
+                logger.info("Propagated {} of author {} to {} embedded books", change.operation(), change.apiKey(), job.processed);
+                return;
+            } catch (RuntimeException e) {
+                job.error = e.getMessage();
+                meterRegistry.counter("mongo.author.propagation.failed", "operation", change.operation().name()).increment();
+                if (job.attempt >= properties.maxAttempts()) {
+                    logger.error("Giving up propagating {} of author {} after {} attempts",
+                            change.operation(), change.apiKey(), job.attempt, e);
+                    retryLater(job, change, Instant.now().plus(properties.retryBackoff().multipliedBy(job.attempt)));
+                    return;
+                }
+                logger.warn("Propagating {} of author {} failed (attempt {}), retrying",
+                        change.operation(), change.apiKey(), job.attempt, e);
+                if (!pause(properties.retryBackoff().multipliedBy(job.attempt))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // ==================== CHUNKED UPDATE ====================
+
+    /**
+     * Keyset über _id: pro Chunk werden die _ids der betroffenen Books gelesen und mit einem updateMany geschrieben
+     */
+    private void applyInChunks(Change change, Duration throttle, Job job) {
+        Object lastId = null;
+        while (true) {
+            Query page = byAuthor(change.apiKey());
+            if (lastId != null) {
+                page.addCriteria(where("_id").gt(lastId));
+            }
+            page.with(Sort.by("_id")).limit(properties.chunkSize());
+            page.fields().include("_id");
+            List<Object> ids = mongoTemplate.find(page, Document.class, collection).stream()
+                    .map(document -> document.get("_id"))
+                    .toList();
+            if (ids.isEmpty()) {
+                return;
+            }
+
+            long modified = mongoTemplate.updateMulti(
+                    Query.query(where("_id").in(ids).and(AUTHOR_API_KEY).is(change.apiKey())),
+                    change.update(), collection).getModifiedCount();
+            meterRegistry.counter("mongo.author.propagation.documents", "operation", change.operation().name())
+                    .increment(modified);
+            if (job != null) {
+                job.processed += ids.size();
+                renewLease(job);
+            }
+
+            if (ids.size() < properties.chunkSize() || !pause(throttle)) {
+                return;
+            }
+            lastId = ids.getLast();
+        }
+    }
+
+    // ==================== OUTBOX GUARD ====================
+
+    /**
+     * @return das zurückgestellte Outbox-Event für die Dauer des Jobs, null wenn es nicht geschrieben werden konnte
+     */
+    private MongoOutboxEvent guard(Job job, Change change) {
+        Instant now = Instant.now();
+        try {
+            MongoOutboxEvent guard = outboxService.retryAuthor(change.authorId(), change.apiKey(), change.outboxOperation(),
+                    now.plus(properties.lease()));
+            job.leaseRenewAt = now.plus(properties.lease().dividedBy(2));
+            return guard;
+        } catch (RuntimeException e) {
+            logger.warn("Could not write outbox guard for {} of author {}", change.operation(), change.apiKey(), e);
+            return null;
+        }
+    }
+
+    private void renewLease(Job job) {
+        MongoOutboxEvent guard = job.guard;
+        Instant now = Instant.now();
+        if (guard == null || job.leaseRenewAt == null || now.isBefore(job.leaseRenewAt)) {
+            return;
+        }
+        try {
+            outboxService.deferUntil(guard, now.plus(properties.lease()));
+            job.leaseRenewAt = now.plus(properties.lease().dividedBy(2));
+        } catch (RuntimeException e) {
+            logger.warn("Could not renew outbox guard of author {}", guard.getApiKey(), e);
+        }
+    }
+
+    /**
+     * Job ist durch - der Wächter wird nicht mehr gebraucht
+     */
+    private void release(Job job) {
+        MongoOutboxEvent guard = job.guard;
+        job.guard = null;
+        if (guard == null) {
+            return;
+        }
+        try {
+            outboxService.completed(guard);
+        } catch (RuntimeException e) {
+            // Der Relay überträgt den Author nach Ablauf der Lease noch einmal - unnötig, aber harmlos
+            logger.warn("Could not remove outbox guard of author {}", guard.getApiKey(), e);
+        }
+    }
+
+    /**
+     * Stellt den Wächter (bzw. ein neues Outbox-Event) auf notBefore fällig. Der Relay lädt den Author dann neu
+     * aus PostgreSQL (oder löscht ihn, falls es ihn nicht mehr gibt) und propagiert ihn erneut.
+     */
+    private void retryLater(Job job, Change change, Instant notBefore) {
+        MongoOutboxEvent guard = job.guard;
+        job.guard = null;
+        try {
+            if (guard != null) {
+                outboxService.deferUntil(guard, notBefore);
+            } else {
+                outboxService.retryAuthor(change.authorId(), change.apiKey(), change.outboxOperation(), notBefore);
+            }
+            meterRegistry.counter("mongo.author.propagation.requeued", "operation", change.operation().name()).increment();
+        } catch (RuntimeException e) {
+            logger.error("Could not re-enqueue {} of author {}, a resync is required", change.operation(), change.apiKey(), e);
+        }
+    }
+
+    private static boolean pause(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return true;
+        }
+        try {
+            Thread.sleep(duration);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Query byAuthor(String apiKey) {
+        return Query.query(where(AUTHOR_API_KEY).is(apiKey));
+    }
+
+    // ==================== PROGRESS ====================
+
+    public List<AuthorPropagationProgress> progress() {
+        return jobs.values().stream()
+                .map(Job::progress)
+                .sorted(Comparator.comparing(AuthorPropagationProgress::requestedAt))
+                .toList();
+    }
+
+    /**
+     * Alter der ältesten Änderung, die noch nicht in allen eingebetteten Books angekommen ist - nur die Jobs
+     * dieser Instanz; instanzübergreifend zählen die Wächter-Events im Outbox-Lag
+     */
+    public Duration getLag() {
+        Instant now = Instant.now();
+        return jobs.values().stream()
+                .map(Job::requestedAt)
+                .min(Comparator.naturalOrder())
+                .map(oldest -> Duration.between(oldest, now))
+                .orElse(Duration.ZERO);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        virtualThreads.shutdownNow();
+        // Nicht (vollständig) übertragene Änderungen überleben den Neustart in der Outbox
+        Instant now = Instant.now();
+        for (Job job : jobs.values()) {
+            Change pending = job.pending;
+            Change change = pending != null ? pending : job.current;
+            if (change != null) {
+                retryLater(job, change, now);
+            }
+        }
+        jobs.clear();
+    }
+
+    // ==================== INTERNALS ====================
+
+    private enum Operation {
+        UPDATE, DELETE
+    }
+
+    private record Change(Operation operation, Long authorId, String apiKey, Document embeddedAuthor, Instant requestedAt) {
+
+        MongoOutboxEvent.Operation outboxOperation() {
+            return operation == Operation.DELETE ? MongoOutboxEvent.Operation.DELETE : MongoOutboxEvent.Operation.UPSERT;
+        }
+
+        /**
+         * UPDATE ersetzt den eingebetteten Author über arrayFilters, DELETE entfernt ihn per $pull.
+         * Der content_hash stimmt danach nicht mehr und wird entfernt.
+         */
+        Update update() {
+            Update update = operation == Operation.DELETE
+                    ? new Update().pull("authors", new Document("api_key", apiKey))
+                    : new Update().set("authors.$[author]", embeddedAuthor)
+                            .filterArray(Criteria.where("author.api_key").is(apiKey));
+            return update.unset(MongoProjectionWriter.CONTENT_HASH);
+        }
+    }
+
+    private static final class Job {
+        private volatile Change current;
+        private volatile Change pending;
+        private volatile MongoOutboxEvent guard;
+        private volatile Instant leaseRenewAt;
+        private volatile Instant startedAt;
+        private volatile long total;
+        private volatile long processed;
+        private volatile int attempt;
+        private volatile String error;
+
+        Job(Change change) {
+            this.current = change;
+        }
+
+        /** Zeitpunkt der Änderung, die gerade übertragen wird */
+        Instant requestedAt() {
+            Change change = current;
+            return change == null ? Instant.now() : change.requestedAt();
+        }
+
+        AuthorPropagationProgress progress() {
+            Change change = current;
+            long done = processed;
+            return new AuthorPropagationProgress(
+                    change == null ? null : change.apiKey(),
+                    change == null ? null : change.operation().name(),
+                    total, done, total == 0 ? 0.0 : Math.min(100.0, done * 100.0 / total),
+                    requestedAt(), startedAt, attempt, pending != null, error);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookMapper;
+import spengergasse.at.sj2425scherzerrabar.persistence.MongoOutboxRepository;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Schreibt Book-Änderungen immer in die Outbox und je nach MongoWriteConsistency zusätzlich direkt und
+ * parallel in books + books_with_embedded_authors (nach dem Commit). Das Outbox-Event wird erst nach
+ * bestätigtem Direkt-Write entfernt, sonst überträgt es der Relay.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class MongoBookWriteDispatcher {
+
+    private final MongoOutboxService outboxService;
+    private final MongoOutboxRepository outboxRepository;
+    private final MongoProjectionWriter projectionWriter;
+    private final BookMapper mapper;
+    private final BookEmbeddedMapper embeddedMapper;
+    private final MongoWriteProperties properties;
+    private final TransactionTemplate requiresNew;
+    private final MeterRegistry meterRegistry;
+    private final EntityManager entityManager;
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public MongoBookWriteDispatcher(MongoOutboxService outboxService,
+                                    MongoOutboxRepository outboxRepository,
+                                    MongoProjectionWriter projectionWriter,
+                                    BookMapper mapper,
+                                    BookEmbeddedMapper embeddedMapper,
+                                    MongoWriteProperties properties,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    EntityManager entityManager) {
+        this.outboxService = outboxService;
+        this.outboxRepository = outboxRepository;
+        this.projectionWriter = projectionWriter;
+        this.mapper = mapper;
+        this.embeddedMapper = embeddedMapper;
+        this.properties = properties;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.entityManager = entityManager;
+    }
+
+    public void bookChanged(Book book) {
+        MongoOutboxEvent event = deferToDirectWrite(outboxService.bookChanged(book));
+        if (properties.consistency() == MongoWriteConsistency.SYNC_PRIMARY) return;
+
+        // Erst flushen: das UPDATE erhöht @Version, sonst trägt das Document neuen Inhalt mit der alten Version (ETag)
+        entityManager.flush();
+        // Mapping hier, solange die Hibernate-Session offen ist - die Virtual Threads sehen nur fertige Documents
+        List<BookDocument> referencing = List.of(mapper.toMongoDocument(book));
+        List<BookDocumentEmbedded> embedding = List.of(embeddedMapper.toMongoDocument(book));
+        afterCommit(event, () -> projectionWriter.writeBookDocuments(referencing, embedding, List.of()));
+    }
+
+    public void bookDeleted(Book book) {
+        MongoOutboxEvent event = deferToDirectWrite(outboxService.bookDeleted(book));
+        if (properties.consistency() == MongoWriteConsistency.SYNC_PRIMARY) return;
+
+        List<String> removed = List.of(book.getBookApiKey().apiKey());
+        afterCommit(event, () -> projectionWriter.writeBookDocuments(List.of(), List.of(), removed));
+    }
+
+    /**
+     * Bei direkten Writes übernimmt der Relay das Event erst, wenn der Write nicht innerhalb von sync-timeout
+     * bestätigt wurde. Bis dahin zählt es im Outbox-Lag mit.
+     */
+    private MongoOutboxEvent deferToDirectWrite(MongoOutboxEvent event) {
+        if (properties.consistency() != MongoWriteConsistency.SYNC_PRIMARY)
+            event.deferUntil(event.getCreatedAt().plus(properties.syncTimeout()));
+        return event;
+    }
+
+    private void afterCommit(MongoOutboxEvent event, Supplier<CompletableFuture<Void>> write) {
+        MongoWriteConsistency consistency = properties.consistency();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                CompletableFuture<Void> future = write.get()
+                        .whenComplete((ignored, error) -> sample.stop(meterRegistry.timer("mongo.write.latency",
+                                "mode", consistency.name(), "outcome", error == null ? "success" : "failure")));
+                if (consistency == MongoWriteConsistency.SYNC_ALL) {
+                    awaitAndAcknowledge(future, event);
+                } else {
+                    future.whenComplete((ignored, error) -> {
+                        if (error == null) acknowledge(event);
+                        else logger.warn("Fire-and-forget MongoDB write failed, outbox relay will retry", error);
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * SYNC_ALL: wartet auf beide Collections und entfernt danach das Outbox-Event.
+     * Bei Fehler/Timeout bleibt das Event stehen und der MongoOutboxRelay übernimmt.
+     */
+    private void awaitAndAcknowledge(CompletableFuture<Void> future, MongoOutboxEvent event) {
+        try {
+            future.get(properties.syncTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for MongoDB write, outbox relay will retry");
+            return;
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            logger.warn("Synchronous MongoDB write failed, outbox relay will retry", e);
+            return;
+        }
+        acknowledge(event);
+    }
+
+    /**
+     * Entfernt das Outbox-Event nach bestätigtem Write; schlägt das fehl, schreibt der Relay das Book noch einmal
+     */
+    private void acknowledge(MongoOutboxEvent event) {
+        try {
+            requiresNew.executeWithoutResult(status -> outboxRepository.deleteAllByIdInBatch(List.of(event.getId())));
+        } catch (RuntimeException e) {
+            logger.warn("Could not remove acknowledged outbox event {}, outbox relay will rewrite it", event.getApiKey(), e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "mongo.delta")
+public record MongoDeltaSyncProperties(@DefaultValue("true") boolean enabled,
+                                       @DefaultValue("500") int batchSize) {
+}
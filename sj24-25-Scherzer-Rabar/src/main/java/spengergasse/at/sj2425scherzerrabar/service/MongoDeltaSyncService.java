@@ -0,0 +1,167 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoSyncWatermark;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.dtos.ChangeMarker;
+import spengergasse.at.sj2425scherzerrabar.mapper.AuthorMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookMapper;
+import spengergasse.at.sj2425scherzerrabar.persistence.AuthorRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.MongoSyncWatermarkRepository;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Inkrementeller Sync PostgreSQL -> MongoDB über change_xid (Transaktions-Id der letzten Änderung).
+ * Überträgt periodisch nur Zeilen, die seit der gespeicherten Watermark geändert wurden, und
+ * überspringt Documents, deren content_hash in MongoDB bereits stimmt. Damit werden auch Änderungen
+ * nachgezogen, die nicht über die Outbox gelaufen sind (JPA-only Batches, SQL).
+ * Löschungen sind in change_xid nicht sichtbar - die laufen weiterhin über die Outbox.
+ * <p>
+ * Gelesen werden nur Änderungen von Transaktionen unterhalb der ältesten noch laufenden (pg_snapshot_xmin).
+ * Die sind alle beendet - eine Transaktion, die früh schreibt, aber spät committet, hält die Grenze zurück,
+ * statt hinter der Watermark zu landen. Ein Zeitstempel (Schreibzeit) hätte diese Garantie nicht.
+ */
+@Service
+public class MongoDeltaSyncService {
+
+    private final MongoSyncWatermarkRepository watermarkRepository;
+    private final MongoDeltaSyncProperties properties;
+    private final TransactionTemplate readTransaction;
+    private final MeterRegistry meterRegistry;
+    private final Map<AggregateType, DeltaSource> sources;
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public MongoDeltaSyncService(MongoSyncWatermarkRepository watermarkRepository,
+                                 BookRepository bookRepository,
+                                 AuthorRepository authorRepository,
+                                 BookMapper bookMapper,
+                                 BookEmbeddedMapper embeddedMapper,
+                                 AuthorMapper authorMapper,
+                                 MongoProjectionWriter projectionWriter,
+                                 MongoDeltaSyncProperties properties,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.watermarkRepository = watermarkRepository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+
+        this.sources = Map.of(
+                AggregateType.BOOK, new DeltaSource(
+                        (afterXid, afterId, belowXid, limit) -> bookRepository.findBooksChangedSince(afterXid, afterId, belowXid, Limit.of(limit)),
+                        ids -> {
+                            List<Book> books = bookRepository.findAllWithAllCollectionsByIds(ids);
+                            List<BookDocument> referencing = books.stream().map(bookMapper::toMongoDocument).toList();
+                            List<BookDocumentEmbedded> embedding = books.stream().map(embeddedMapper::toMongoDocument).toList();
+                            return () -> projectionWriter.writeChangedBookDocuments(referencing, embedding).join();
+                        }),
+                AggregateType.AUTHOR, new DeltaSource(
+                        (afterXid, afterId, belowXid, limit) -> authorRepository.findAuthorsChangedSince(afterXid, afterId, belowXid, Limit.of(limit)),
+                        ids -> {
+                            List<Author> authors = authorRepository.findAuthorsWithAddressesByIds(ids);
+                            List<AuthorDocument> documents = authors.stream().map(authorMapper::toMongoDocument).toList();
+                            return () -> projectionWriter.writeChangedAuthorDocuments(documents);
+                        }));
+    }
+
+    @Scheduled(fixedDelayString = "${mongo.delta.poll-interval-ms:2000}")
+    public void syncChanges() {
+        if (!properties.enabled()) {
+            return;
+        }
+        for (AggregateType type : AggregateType.values()) {
+            try {
+                int synced = syncChanges(type);
+                if (synced > 0) {
+                    logger.debug("Delta sync moved {} changed {} rows to MongoDB", synced, type);
+                }
+            } catch (RuntimeException e) {
+                logger.error("MongoDB delta sync of {} failed, retrying from the last watermark", type, e);
+            }
+        }
+    }
+
+    /**
+     * Überträgt alle Änderungen beendeter Transaktionen in Batches und schiebt die Watermark nach jedem Batch weiter
+     * @return Anzahl der geänderten Zeilen (inklusive der per Hash übersprungenen)
+     */
+    public int syncChanges(AggregateType type) {
+        long belowXid = readTransaction.execute(status -> watermarkRepository.findOldestRunningXid());
+        MongoSyncWatermark watermark = watermarkRepository.findById(new MongoSyncWatermark.MongoSyncWatermarkId(type))
+                // Der Initialbestand ist Aufgabe des Full-Resync, der Delta-Sync beginnt beim ersten Lauf
+                .orElseGet(() -> watermarkRepository.save(new MongoSyncWatermark(type, belowXid)));
+
+        int total = 0;
+        int batchSize;
+        do {
+            batchSize = syncBatch(type, watermark, belowXid);
+            total += batchSize;
+        } while (batchSize == properties.batchSize());
+        return total;
+    }
+
+    private int syncBatch(AggregateType type, MongoSyncWatermark watermark, long belowXid) {
+        DeltaSource source = sources.get(type);
+        Batch batch = readTransaction.execute(status -> {
+            List<ChangeMarker> changes = source.changedSince()
+                    .find(watermark.getLastXid(), watermark.getLastId(), belowXid, properties.batchSize());
+            return new Batch(changes, changes.isEmpty() ? null : source.load().prepare(changes.stream().map(ChangeMarker::id).toList()));
+        });
+        if (batch.changes().isEmpty()) {
+            return 0;
+        }
+
+        int unchanged = batch.write().getAsInt();
+        ChangeMarker last = batch.changes().getLast();
+        watermark.advance(last.changeXid(), last.id());
+        watermarkRepository.save(watermark);
+
+        Instant syncedAt = Instant.now();
+        String aggregate = type.name();
+        meterRegistry.counter("mongo.delta.changed", "type", aggregate).increment(batch.changes().size());
+        meterRegistry.counter("mongo.delta.unchanged", "type", aggregate).increment(unchanged);
+        batch.changes().forEach(change -> meterRegistry.timer("mongo.delta.propagation.delay", "type", aggregate)
+                .record(Duration.between(change.lastModified(), syncedAt)));
+        return batch.changes().size();
+    }
+
+    // ==================== INTERNALS ====================
+
+    @FunctionalInterface
+    private interface ChangeQuery {
+        List<ChangeMarker> find(long afterXid, long afterId, long belowXid, int limit);
+    }
+
+    @FunctionalInterface
+    private interface BatchLoader {
+        /** Lädt und mappt die Zeilen innerhalb der Lese-Transaktion, liefert den MongoDB-Write (Anzahl übersprungener Documents) */
+        IntSupplier prepare(List<Long> ids);
+    }
+
+    private record DeltaSource(ChangeQuery changedSince, BatchLoader load) {}
+
+    private record Batch(List<ChangeMarker> changes, IntSupplier write) {}
+}
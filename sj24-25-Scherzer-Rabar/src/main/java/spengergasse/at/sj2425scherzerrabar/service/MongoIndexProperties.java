@@ -0,0 +1,29 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param buildInBackground false baut die Indizes synchron im ApplicationReadyEvent (Tests)
+ * @param dropUndeclared    Indizes mit Präfix idx_ löschen, die nicht (mehr) in MongoDBIndexConfiguration deklariert
+ *                          sind; Indizes ohne das Präfix (von Hand oder von anderen Anwendungen angelegt) bleiben immer
+ * @param initialBackoff    Wartezeit vor dem ersten neuen Versuch, wenn der Abgleich fehlschlägt
+ * @param maxBackoff        Obergrenze der Wartezeit; versucht wird so lange, bis die Indizes stehen
+ */
+@ConfigurationProperties(prefix = "mongo.indexes")
+public record MongoIndexProperties(@DefaultValue("true") boolean buildInBackground,
+                                   @DefaultValue("false") boolean dropUndeclared,
+                                   @DefaultValue("5s") Duration initialBackoff,
+                                   @DefaultValue("5m") Duration maxBackoff) {
+
+    /**
+     * Exponentielles Backoff: initialBackoff * 2^(attempt-1), begrenzt durch maxBackoff
+     */
+    public Duration backoffFor(int attempt) {
+        int exponent = Math.min(Math.max(attempt - 1, 0), 20);
+        Duration backoff = initialBackoff.multipliedBy(1L << exponent);
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+}
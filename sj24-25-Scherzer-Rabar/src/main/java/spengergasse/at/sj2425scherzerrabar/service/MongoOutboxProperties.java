@@ -0,0 +1,23 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "mongo.outbox")
+public record MongoOutboxProperties(@DefaultValue("true") boolean relayEnabled,
+                                    @DefaultValue("200") int batchSize,
+                                    @DefaultValue("10") int maxAttempts,
+                                    @DefaultValue("1s") Duration initialBackoff,
+                                    @DefaultValue("5m") Duration maxBackoff) {
+
+    /**
+     * Exponentielles Backoff: initialBackoff * 2^(attempt-1), begrenzt durch maxBackoff
+     */
+    public Duration backoffFor(int attempt) {
+        int exponent = Math.min(Math.max(attempt - 1, 0), 20);
+        Duration backoff = initialBackoff.multipliedBy(1L << exponent);
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+}
@@ -0,0 +1,241 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.MongoOutboxEventId;
+import spengergasse.at.sj2425scherzerrabar.persistence.AuthorRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.MongoOutboxRepository;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Überträgt die Outbox-Events nach MongoDB.
+ * Pro Durchlauf wird ein Batch gesperrt, der aktuelle Stand der betroffenen Books/Authors
+ * aus PostgreSQL geladen und per bulkWrite geschrieben. Mehrere Events für dasselbe
+ * Aggregat werden dabei zusammengefasst; existiert das Aggregat nicht mehr, wird es gelöscht.
+ */
+@Service
+public class MongoOutboxRelay {
+
+    private final MongoOutboxRepository outboxRepository;
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final MongoProjectionWriter projectionWriter;
+    private final MongoAuthorPropagator authorPropagator;
+    private final MongoOutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate failureTransaction;
+
+    private final Counter relayedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+    private final Timer propagationDelay;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong deadEvents = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public MongoOutboxRelay(MongoOutboxRepository outboxRepository,
+                            BookRepository bookRepository,
+                            AuthorRepository authorRepository,
+                            MongoProjectionWriter projectionWriter,
+                            MongoAuthorPropagator authorPropagator,
+                            MongoOutboxProperties properties,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.projectionWriter = projectionWriter;
+        this.authorPropagator = authorPropagator;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.failureTransaction = new TransactionTemplate(transactionManager);
+        this.failureTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.relayedCounter = meterRegistry.counter("mongo.outbox.relayed");
+        this.failedCounter = meterRegistry.counter("mongo.outbox.failed");
+        this.batchTimer = meterRegistry.timer("mongo.outbox.batch.duration");
+        this.propagationDelay = meterRegistry.timer("mongo.outbox.propagation.delay");
+        Gauge.builder("mongo.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Outbox-Events, die noch nach MongoDB übertragen werden müssen")
+                .register(meterRegistry);
+        Gauge.builder("mongo.outbox.dead", deadEvents, AtomicLong::get)
+                .description("Outbox-Events, die maxAttempts überschritten haben")
+                .register(meterRegistry);
+        Gauge.builder("mongo.outbox.lag", lagMillis, AtomicLong::get)
+                .description("Alter des ältesten offenen Outbox-Events")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${mongo.outbox.poll-interval-ms:500}")
+    public void relay() {
+        if (!properties.relayEnabled()) {
+            // Der BookReadRouter braucht den Lag auch auf Instanzen ohne Relay
+            refreshLagMetrics();
+            return;
+        }
+        try {
+            int processed;
+            do {
+                processed = relayBatch();
+            } while (processed == properties.batchSize());
+        } catch (RuntimeException e) {
+            logger.error("MongoDB outbox relay run failed", e);
+        } finally {
+            refreshLagMetrics();
+        }
+    }
+
+    /**
+     * Verarbeitet einen Batch in einer eigenen Transaktion (FOR UPDATE SKIP LOCKED).
+     * Schlägt der Batch fehl, wird seine Transaktion zurückgerollt: ein JPA-Fehler hat sie ohnehin rollback-only
+     * markiert, und PostgreSQL nimmt danach keine Statements mehr an. Die Events werden dann einzeln in je einer
+     * neuen Transaktion wiederholt, Fehlversuche in einer weiteren eigenen Transaktion gezählt, damit ein
+     * Poison-Event nach maxAttempts liegen bleibt statt endlos wiederholt zu werden.
+     * @return Anzahl der gesperrten Events (erfolgreich oder neu eingeplant)
+     */
+    int relayBatch() {
+        Instant now = Instant.now();
+        List<MongoOutboxEventId> retry = new ArrayList<>();
+        Map<MongoOutboxEventId, RuntimeException> failures = new LinkedHashMap<>();
+
+        int locked = Objects.requireNonNullElse(transactionTemplate.execute(status -> {
+            List<MongoOutboxEvent> events = outboxRepository.lockNextBatch(properties.maxAttempts(), now, properties.batchSize());
+            if (events.isEmpty()) {
+                return 0;
+            }
+
+            Timer.Sample sample = Timer.start();
+            try {
+                propagate(events);
+                relayed(events);
+            } catch (RuntimeException e) {
+                status.setRollbackOnly();
+                if (events.size() == 1) {
+                    failures.put(events.getFirst().getId(), e);
+                } else {
+                    // Ein einzelnes fehlerhaftes Event (z.B. Mapping-Fehler) soll den Rest des Batches nicht mitreißen
+                    logger.warn("Failed to relay batch of {} outbox events to MongoDB, retrying them one by one", events.size(), e);
+                    events.forEach(event -> retry.add(event.getId()));
+                }
+            } finally {
+                sample.stop(batchTimer);
+            }
+            return events.size();
+        }), 0);
+
+        for (MongoOutboxEventId id : retry) {
+            RuntimeException failure = relayOne(id);
+            if (failure != null) {
+                failures.put(id, failure);
+            }
+        }
+        failures.forEach((id, e) -> failed(id, e, now));
+        return locked;
+    }
+
+    /**
+     * @return der Fehler, falls das Event nicht übertragen werden konnte
+     */
+    private RuntimeException relayOne(MongoOutboxEventId id) {
+        return transactionTemplate.execute(status -> {
+            Optional<MongoOutboxEvent> event = outboxRepository.lockById(id.id());
+            if (event.isEmpty()) {
+                // inzwischen von einer anderen Relay-Instanz übernommen
+                return null;
+            }
+            try {
+                propagate(List.of(event.get()));
+                relayed(List.of(event.get()));
+                return null;
+            } catch (RuntimeException e) {
+                status.setRollbackOnly();
+                return e;
+            }
+        });
+    }
+
+    private void relayed(List<MongoOutboxEvent> events) {
+        outboxRepository.deleteAllInBatch(events);
+
+        Instant relayedAt = Instant.now();
+        events.forEach(event -> propagationDelay.record(Duration.between(event.getCreatedAt(), relayedAt)));
+        relayedCounter.increment(events.size());
+        logger.debug("Relayed {} outbox events to MongoDB", events.size());
+    }
+
+    private void failed(MongoOutboxEventId id, RuntimeException e, Instant now) {
+        failedCounter.increment();
+        try {
+            failureTransaction.executeWithoutResult(status -> outboxRepository.lockById(id.id()).ifPresent(event -> {
+                logger.warn("Failed to relay outbox event {} {} to MongoDB, scheduling retry", event.getAggregateType(), event.getApiKey(), e);
+                event.failed(e.getMessage(), now.plus(properties.backoffFor(event.getAttempts() + 1)));
+            }));
+        } catch (RuntimeException recordingFailed) {
+            logger.error("Could not record failed attempt for outbox event {}", id.id(), recordingFailed);
+        }
+    }
+
+    private void propagate(List<MongoOutboxEvent> events) {
+        Map<Long, String> books = new LinkedHashMap<>();
+        Map<Long, String> authors = new LinkedHashMap<>();
+        for (MongoOutboxEvent event : events) {
+            (event.getAggregateType() == AggregateType.BOOK ? books : authors)
+                    .put(event.getAggregateId(), event.getApiKey());
+        }
+
+        if (!books.isEmpty()) {
+            List<Book> current = bookRepository.findAllWithAllCollectionsByIds(new ArrayList<>(books.keySet()));
+            current.forEach(book -> books.remove(book.getBookId().id()));
+            projectionWriter.writeBooks(current, books.values());
+        }
+        if (!authors.isEmpty()) {
+            List<Author> current = authorRepository.findAuthorsWithAddressesByIds(new ArrayList<>(authors.keySet()));
+            current.forEach(author -> authors.remove(author.getPersonId().id()));
+            projectionWriter.writeAuthors(current, authors.values());
+            // Eingebettete Kopien in books_with_embedded_authors (populäre Authors im Hintergrund)
+            authorPropagator.authorsChanged(current);
+            authorPropagator.authorsDeleted(authors);
+        }
+    }
+
+    private void refreshLagMetrics() {
+        try {
+            pendingEvents.set(outboxRepository.countByAttemptsLessThan(properties.maxAttempts()));
+            deadEvents.set(outboxRepository.countByAttemptsGreaterThanEqual(properties.maxAttempts()));
+            lagMillis.set(outboxRepository.findOldestPendingCreatedAt(properties.maxAttempts())
+                    .map(oldest -> Duration.between(oldest, Instant.now()).toMillis())
+                    .orElse(0L));
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh MongoDB outbox metrics", e);
+        }
+    }
+
+    public long getPendingEvents() {
+        return pendingEvents.get();
+    }
+
+    public Duration getLag() {
+        return Duration.ofMillis(lagMillis.get());
+    }
+}
@@ -0,0 +1,71 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.Operation;
+import spengergasse.at.sj2425scherzerrabar.persistence.MongoOutboxRepository;
+
+import java.time.Instant;
+
+/**
+ * Schreibt Änderungen an Books/Authors in die Outbox.
+ * MANDATORY: das Event muss in derselben Transaktion wie die JPA-Änderung landen.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class MongoOutboxService {
+
+    private final MongoOutboxRepository outboxRepository;
+
+    public MongoOutboxService(MongoOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    public MongoOutboxEvent bookChanged(Book book) {
+        return enqueue(AggregateType.BOOK, book.getBookId().id(), book.getBookApiKey().apiKey(), Operation.UPSERT);
+    }
+
+    public MongoOutboxEvent bookDeleted(Book book) {
+        return enqueue(AggregateType.BOOK, book.getBookId().id(), book.getBookApiKey().apiKey(), Operation.DELETE);
+    }
+
+    public MongoOutboxEvent authorChanged(Author author) {
+        return enqueue(AggregateType.AUTHOR, author.getPersonId().id(), author.getAuthorApiKey().apiKey(), Operation.UPSERT);
+    }
+
+    public MongoOutboxEvent authorDeleted(Author author) {
+        return enqueue(AggregateType.AUTHOR, author.getPersonId().id(), author.getAuthorApiKey().apiKey(), Operation.DELETE);
+    }
+
+    /**
+     * Author-Event, das erst ab notBefore fällig wird: Wächter eines laufenden Hintergrund-Jobs bzw. neuer
+     * Versuch einer aufgegebenen Propagation in die eingebetteten Authors.
+     * Läuft im Hintergrund ohne umgebende Transaktion, daher REQUIRES_NEW.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public MongoOutboxEvent retryAuthor(Long authorId, String apiKey, Operation operation, Instant notBefore) {
+        return outboxRepository.save(new MongoOutboxEvent(AggregateType.AUTHOR, authorId, apiKey, operation).deferUntil(notBefore));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void deferUntil(MongoOutboxEvent event, Instant notBefore) {
+        outboxRepository.findById(event.getId()).ifPresent(stored -> stored.deferUntil(notBefore));
+    }
+
+    /**
+     * Entfernt ein Event, das außerhalb des Relays abgearbeitet wurde; fehlt es schon, passiert nichts
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void completed(MongoOutboxEvent event) {
+        outboxRepository.deleteById(event.getId());
+    }
+
+    private MongoOutboxEvent enqueue(AggregateType type, Long aggregateId, String apiKey, Operation operation) {
+        return outboxRepository.save(new MongoOutboxEvent(type, aggregateId, apiKey, operation));
+    }
+}
@@ -0,0 +1,292 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.mapper.AuthorMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookMapper;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Schreibt die MongoDB-Projektionen (books, books_with_embedded_authors, authors)
+ * als ungeordnete Bulk-Operationen. Upsert erfolgt über postgres_id, damit
+ * wiederholte Zustellungen idempotent sind. Das Document wird dabei komplett ersetzt:
+ * der Converter lässt null-Felder weg, ein $set würde in PostgreSQL gelöschte Werte stehen lassen.
+ * Books werden nur ersetzt, solange MongoDB keinen neueren @Version-Stand hat (Direkt-Write vs. Relay).
+ * Die beiden Book-Collections werden parallel auf Virtual Threads geschrieben.
+ */
+@Service
+public class MongoProjectionWriter {
+
+    /** Hash des Document-Inhalts, damit unveränderte Documents nicht neu geschrieben werden */
+    static final String CONTENT_HASH = "content_hash";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final BookMapper bookMapper;
+    private final BookEmbeddedMapper embeddedMapper;
+    private final AuthorMapper authorMapper;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public MongoProjectionWriter(MongoTemplate mongoTemplate,
+                                 BookMapper bookMapper,
+                                 BookEmbeddedMapper embeddedMapper,
+                                 AuthorMapper authorMapper,
+                                 MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.bookMapper = bookMapper;
+        this.embeddedMapper = embeddedMapper;
+        this.authorMapper = authorMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Upsert der übergebenen Books und Löschen der entfernten API-Keys in beiden Book-Collections.
+     * Blockiert, bis beide Collections geschrieben sind.
+     */
+    public void writeBooks(Collection<Book> upserts, Collection<String> removedApiKeys) {
+        List<BookDocument> referencing = upserts.stream().map(bookMapper::toMongoDocument).toList();
+        List<BookDocumentEmbedded> embedding = upserts.stream().map(embeddedMapper::toMongoDocument).toList();
+        try {
+            writeBookDocuments(referencing, embedding, removedApiKeys).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Schreibt bereits gemappte Documents; referencing und embedding laufen gleichzeitig.
+     * Das Mapping muss vorher (im Thread mit offener Hibernate-Session) passiert sein.
+     */
+    public CompletableFuture<Void> writeBookDocuments(List<BookDocument> referencing,
+                                                      List<BookDocumentEmbedded> embedding,
+                                                      Collection<String> removedApiKeys) {
+        return writeBookCollections(referencing, embedding, removedApiKeys, false).thenApply(unchanged -> null);
+    }
+
+    /**
+     * Wie writeBookDocuments, überspringt aber Documents, deren content_hash in MongoDB bereits stimmt.
+     * @return Anzahl der übersprungenen Documents (beide Collections zusammen)
+     */
+    public CompletableFuture<Integer> writeChangedBookDocuments(List<BookDocument> referencing,
+                                                                List<BookDocumentEmbedded> embedding) {
+        return writeBookCollections(referencing, embedding, List.of(), true);
+    }
+
+    private CompletableFuture<Integer> writeBookCollections(List<BookDocument> referencing,
+                                                            List<BookDocumentEmbedded> embedding,
+                                                            Collection<String> removedApiKeys,
+                                                            boolean skipUnchanged) {
+        if (referencing.isEmpty() && embedding.isEmpty() && removedApiKeys.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        CompletableFuture<Integer> referencingWrite = CompletableFuture.supplyAsync(
+                () -> timed("books", () -> bulkUpsert(BookDocument.class, referencing, BookDocument::getPostgresId, removedApiKeys, skipUnchanged)),
+                virtualThreads);
+        CompletableFuture<Integer> embeddingWrite = CompletableFuture.supplyAsync(
+                () -> timed("books_with_embedded_authors", () -> bulkUpsert(BookDocumentEmbedded.class, embedding, BookDocumentEmbedded::getPostgresId, removedApiKeys, skipUnchanged)),
+                virtualThreads);
+        return referencingWrite.thenCombine(embeddingWrite, Integer::sum);
+    }
+
+    /**
+     * Upsert der übergebenen Authors und Löschen der entfernten API-Keys in der authors Collection
+     */
+    public void writeAuthors(Collection<Author> upserts, Collection<String> removedApiKeys) {
+        writeAuthorDocuments(upserts.stream().map(authorMapper::toMongoDocument).toList(), removedApiKeys);
+    }
+
+    public void writeAuthorDocuments(List<AuthorDocument> documents, Collection<String> removedApiKeys) {
+        timed("authors", () -> bulkUpsert(AuthorDocument.class, documents, AuthorDocument::getPostgresId, removedApiKeys, false));
+    }
+
+    /**
+     * @return Anzahl der übersprungenen (unveränderten) Documents
+     */
+    public int writeChangedAuthorDocuments(List<AuthorDocument> documents) {
+        return timed("authors", () -> bulkUpsert(AuthorDocument.class, documents, AuthorDocument::getPostgresId, List.of(), true));
+    }
+
+    /**
+     * @return Anzahl der Documents, die wegen gleichem content_hash nicht geschrieben wurden
+     */
+    private <T> int bulkUpsert(Class<T> documentType, List<T> documents,
+                               Function<T, Long> postgresId,
+                               Collection<String> removedApiKeys,
+                               boolean skipUnchanged) {
+        if (documents.isEmpty() && removedApiKeys.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Document> converted = new LinkedHashMap<>();
+        for (T document : documents) {
+            converted.put(postgresId.apply(document), toHashedDocument(document));
+        }
+        Map<Long, String> existingHashes = skipUnchanged
+                ? findContentHashes(documentType, converted.keySet())
+                : Map.of();
+
+        List<Long> replaced = new ArrayList<>(converted.size());
+        for (Map.Entry<Long, Document> entry : converted.entrySet()) {
+            if (!entry.getValue().getString(CONTENT_HASH).equals(existingHashes.get(entry.getKey()))) {
+                replaced.add(entry.getKey());
+            }
+        }
+        int unchanged = converted.size() - replaced.size();
+        if (replaced.isEmpty() && removedApiKeys.isEmpty()) {
+            return unchanged;
+        }
+
+        List<Long> conflicting = executeBulk(documentType, replaced, converted, removedApiKeys);
+        if (!conflicting.isEmpty()) {
+            // Ein paralleler Upsert kann das Document gerade eingefügt haben; jetzt greift der Versions-Filter
+            conflicting = executeBulk(documentType, conflicting, converted, List.of());
+            if (!conflicting.isEmpty()) {
+                logger.debug("Skipped {} outdated {} documents, MongoDB already holds a newer version",
+                        conflicting.size(), documentType.getSimpleName());
+            }
+        }
+        return unchanged;
+    }
+
+    /**
+     * Ersetzt die Documents nur, wenn MongoDB keinen neueren @Version-Stand hat. Matcht der Filter deswegen nicht,
+     * scheitert der Upsert am unique Index auf api_key (E11000) statt ein zweites Document anzulegen.
+     * @return postgres_ids der Replaces, die am unique Index gescheitert sind
+     */
+    private List<Long> executeBulk(Class<?> documentType, List<Long> postgresIds,
+                                   Map<Long, Document> converted, Collection<String> removedApiKeys) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, documentType);
+        for (Long postgresId : postgresIds) {
+            Document document = converted.get(postgresId);
+            bulk.replaceOne(byPostgresIdNotNewerThan(postgresId, document.get("version")), document,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        if (!removedApiKeys.isEmpty()) {
+            bulk.remove(byApiKeys(removedApiKeys));
+        }
+        try {
+            bulk.execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            List<Long> conflicting = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY || error.getIndex() >= postgresIds.size()) {
+                    throw e;
+                }
+                conflicting.add(postgresIds.get(error.getIndex()));
+            }
+            return conflicting;
+        }
+    }
+
+    private Map<Long, String> findContentHashes(Class<?> documentType, Collection<Long> postgresIds) {
+        Query query = Query.query(where("postgres_id").in(postgresIds));
+        query.fields().include("postgres_id").include(CONTENT_HASH);
+
+        Map<Long, String> hashes = new HashMap<>();
+        for (Document existing : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(documentType))) {
+            Object hash = existing.get(CONTENT_HASH);
+            if (hash != null) {
+                hashes.put(((Number) existing.get("postgres_id")).longValue(), hash.toString());
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * postgres_ids der Documents im Bereich (afterId, upToId] - für den Abgleich mit PostgreSQL beim Resync
+     */
+    public Set<Long> findPostgresIds(Class<?> documentType, long afterId, long upToId) {
+        Query query = Query.query(where("postgres_id").gt(afterId).lte(upToId));
+        query.fields().include("postgres_id").exclude("_id");
+
+        Set<Long> ids = new HashSet<>();
+        for (Document existing : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(documentType))) {
+            ids.add(((Number) existing.get("postgres_id")).longValue());
+        }
+        return ids;
+    }
+
+    public void removeByPostgresIds(Class<?> documentType, Collection<Long> postgresIds) {
+        if (!postgresIds.isEmpty()) {
+            mongoTemplate.remove(Query.query(where("postgres_id").in(postgresIds)), documentType);
+        }
+    }
+
+    private int timed(String collection, IntSupplier write) {
+        return meterRegistry.timer("mongo.projection.write", "collection", collection).record(write::getAsInt);
+    }
+
+    private static Query byPostgresIdNotNewerThan(Long postgresId, Object version) {
+        Criteria criteria = where("postgres_id").is(postgresId);
+        if (version != null) {
+            // Documents ohne version stammen aus der Zeit vor dem Feld und dürfen immer ersetzt werden
+            criteria.orOperator(where("version").lte(version), where("version").exists(false));
+        }
+        return Query.query(criteria);
+    }
+
+    private static Query byApiKeys(Collection<String> apiKeys) {
+        return Query.query(where("api_key").in(apiKeys));
+    }
+
+    /**
+     * Konvertiert das Document über den MongoConverter (Feldnamen, LocalDate, ...) ohne _id
+     * und ergänzt den content_hash (SHA-256 über den restlichen Inhalt) für die No-Op-Erkennung.
+     */
+    private Document toHashedDocument(Object document) {
+        Document target = new Document();
+        mongoTemplate.getConverter().write(document, target);
+        target.remove("_id");
+        target.remove(CONTENT_HASH);
+        target.put(CONTENT_HASH, sha256(target.toJson()));
+        return target;
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        virtualThreads.shutdown();
+    }
+}
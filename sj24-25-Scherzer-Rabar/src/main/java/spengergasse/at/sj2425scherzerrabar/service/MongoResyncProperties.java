@@ -0,0 +1,13 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "mongo.resync")
+public record MongoResyncProperties(@DefaultValue("4") int partitions,
+                                    @DefaultValue("500") int pageSize,
+                                    @DefaultValue("true") boolean resumeOnStartup,
+                                    @DefaultValue("2m") Duration lease) {
+}
@@ -0,0 +1,413 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoResyncCheckpoint;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.dtos.MongoResyncProgress;
+import spengergasse.at.sj2425scherzerrabar.mapper.AuthorMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookMapper;
+import spengergasse.at.sj2425scherzerrabar.persistence.AuthorRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.MongoResyncCheckpointRepository;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Vollständiger Resync PostgreSQL -> MongoDB (ersetzt findAll() + save pro Document).
+ * Der Id-Bereich wird in Partitionen aufgeteilt, die parallel per Keyset-Pagination über die Id
+ * gelesen und per Bulk-Upsert (postgres_id) geschrieben werden. Jede Seite aktualisiert den
+ * Checkpoint, ein abgebrochener Resync setzt dort fort. Documents, zu denen es in PostgreSQL keine
+ * Zeile mehr gibt, werden dabei gelöscht.
+ * Eine Partition wird nur von der Instanz bearbeitet, die ihre Lease hält - beim Fortsetzen
+ * teilen sich mehrere Instanzen die offenen Partitionen (FOR UPDATE SKIP LOCKED).
+ */
+@Service
+public class MongoResyncService {
+
+    public enum Status {
+        NOT_STARTED, RUNNING, COMPLETED, FAILED, INTERRUPTED
+    }
+
+    private final MongoResyncCheckpointRepository checkpointRepository;
+    private final MongoProjectionWriter projectionWriter;
+    private final MongoResyncProperties properties;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final MeterRegistry meterRegistry;
+    private final Map<AggregateType, ResyncSource> sources;
+    private final Map<AggregateType, Run> runs = new ConcurrentHashMap<>();
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    /** Lease-Owner dieser Instanz */
+    private final String instanceId = UUID.randomUUID().toString();
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public MongoResyncService(MongoResyncCheckpointRepository checkpointRepository,
+                              BookRepository bookRepository,
+                              AuthorRepository authorRepository,
+                              BookMapper bookMapper,
+                              BookEmbeddedMapper embeddedMapper,
+                              AuthorMapper authorMapper,
+                              MongoProjectionWriter projectionWriter,
+                              MongoResyncProperties properties,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.checkpointRepository = checkpointRepository;
+        this.projectionWriter = projectionWriter;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+
+        this.sources = Map.of(
+                AggregateType.BOOK, new ResyncSource(
+                        bookRepository::findMinBookId, bookRepository::findMaxBookId, bookRepository::count,
+                        (afterId, upToId, limit) -> bookRepository.findBookIdsAfter(afterId, upToId, Limit.of(limit)),
+                        bookRepository::findExistingBookIds, List.of(BookDocument.class, BookDocumentEmbedded.class),
+                        ids -> {
+                            List<Book> books = bookRepository.findAllWithAllCollectionsByIds(ids);
+                            List<BookDocument> referencing = books.stream().map(bookMapper::toMongoDocument).toList();
+                            List<BookDocumentEmbedded> embedding = books.stream().map(embeddedMapper::toMongoDocument).toList();
+                            return () -> projectionWriter.writeBookDocuments(referencing, embedding, List.of());
+                        }),
+                AggregateType.AUTHOR, new ResyncSource(
+                        authorRepository::findMinAuthorId, authorRepository::findMaxAuthorId, authorRepository::count,
+                        (afterId, upToId, limit) -> authorRepository.findAuthorIdsAfter(afterId, upToId, Limit.of(limit)),
+                        authorRepository::findExistingAuthorIds, List.of(AuthorDocument.class),
+                        ids -> {
+                            List<Author> authors = authorRepository.findAuthorsWithAddressesByIds(ids);
+                            List<AuthorDocument> documents = authors.stream().map(authorMapper::toMongoDocument).toList();
+                            return () -> CompletableFuture.runAsync(
+                                    () -> projectionWriter.writeAuthorDocuments(documents, List.of()), virtualThreads);
+                        }));
+    }
+
+    // ==================== START / RESUME ====================
+
+    /**
+     * Startet (oder setzt fort) den Resync im Hintergrund.
+     * @param restart true verwirft vorhandene Checkpoints und beginnt von vorne
+     */
+    public MongoResyncProgress start(AggregateType type, boolean restart) {
+        Run run = new Run();
+        Run existing = runs.compute(type, (t, current) -> current != null && current.status == Status.RUNNING ? current : run);
+        if (existing != run)
+            throw MongoResyncServiceException.alreadyRunning(type);
+
+        try {
+            Partitions partitions = writeTransaction.execute(status -> prepareCheckpoints(type, restart));
+            if (partitions.all().isEmpty()) {
+                // keine Zeilen in PostgreSQL - es bleibt nur das Aufräumen in MongoDB
+                CompletableFuture.runAsync(() -> removeOrphans(type, Long.MIN_VALUE, Long.MAX_VALUE, List.of()), virtualThreads)
+                        .whenComplete((ignored, error) -> run.finish(type, error));
+                return progress(type);
+            }
+            if (partitions.claimed().isEmpty()) {
+                runs.remove(type, run);
+                logger.info("All open partitions of the MongoDB resync of {} are leased by another instance", type);
+                return progress(type);
+            }
+            logger.info("Starting MongoDB resync of {} with {} of {} partitions ({} rows already synced)", type,
+                    partitions.claimed().size(), partitions.all().size(),
+                    partitions.all().stream().mapToLong(MongoResyncCheckpoint::getSyncedCount).sum());
+
+            long lastRangeEnd = partitions.all().getLast().getRangeEnd();
+            CompletableFuture<?>[] running = partitions.claimed().stream()
+                    .map(checkpoint -> CompletableFuture.runAsync(() -> syncPartition(type, checkpoint,
+                            checkpoint.getId().partitionNo() == 0, checkpoint.getRangeEnd() == lastRangeEnd, run), virtualThreads))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(running).whenComplete((ignored, error) -> run.finish(type, error));
+        } catch (RuntimeException e) {
+            run.finish(type, e);
+            throw e;
+        }
+        return progress(type);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRuns() {
+        if (!properties.resumeOnStartup()) return;
+        for (AggregateType type : AggregateType.values()) {
+            Instant now = Instant.now();
+            // offene Partitionen ohne gültige Lease - deren Instanz wurde beendet
+            if (checkpointRepository.findByAggregateType(type).stream().anyMatch(c -> !c.getCompleted() && !c.isLeasedAt(now))) {
+                logger.info("Resuming interrupted MongoDB resync of {}", type);
+                start(type, false);
+            }
+        }
+    }
+
+    private Partitions prepareCheckpoints(AggregateType type, boolean restart) {
+        Instant now = Instant.now();
+        List<MongoResyncCheckpoint> existing = checkpointRepository.findByAggregateType(type);
+        boolean resumable = !existing.isEmpty() && existing.stream().anyMatch(c -> !c.getCompleted());
+        if (resumable && !restart) {
+            List<MongoResyncCheckpoint> claimed = checkpointRepository.lockClaimable(type.name(), now);
+            claimed.forEach(checkpoint -> checkpoint.lease(instanceId, leaseUntil()));
+            return new Partitions(existing, claimed);
+        }
+        if (existing.stream().anyMatch(c -> !c.getCompleted() && c.isLeasedAt(now)))
+            throw MongoResyncServiceException.alreadyRunning(type);
+
+        checkpointRepository.deleteByAggregateType(type);
+        ResyncSource source = sources.get(type);
+        Optional<Long> min = source.minId().get();
+        Optional<Long> max = source.maxId().get();
+        if (min.isEmpty() || max.isEmpty()) {
+            return new Partitions(List.of(), List.of());
+        }
+
+        long lowerBound = min.get() - 1;
+        long span = max.get() - lowerBound;
+        long partitionSize = Math.max(1, (span + properties.partitions() - 1) / properties.partitions());
+        List<MongoResyncCheckpoint> checkpoints = new ArrayList<>();
+        for (int partition = 0; lowerBound < max.get(); partition++) {
+            long upperBound = Math.min(lowerBound + partitionSize, max.get());
+            MongoResyncCheckpoint checkpoint = new MongoResyncCheckpoint(type, partition, lowerBound, upperBound);
+            checkpoint.lease(instanceId, leaseUntil());
+            checkpoints.add(checkpoint);
+            lowerBound = upperBound;
+        }
+        List<MongoResyncCheckpoint> saved = checkpointRepository.saveAll(checkpoints);
+        return new Partitions(saved, saved);
+    }
+
+    private Instant leaseUntil() {
+        return Instant.now().plus(properties.lease());
+    }
+
+    // ==================== PARTITION LOOP ====================
+
+    /**
+     * Jede Seite wird nur gespeichert, solange diese Instanz die Lease noch hält; ist sie abgelaufen und
+     * die Partition von einer anderen Instanz übernommen, bricht der Lauf ab (FAILED).
+     * Ein Interrupt (shutdown) beendet den Lauf als INTERRUPTED, der Checkpoint bleibt offen.
+     * @param first erste Partition - räumt auch Documents unterhalb des Id-Bereichs auf
+     * @param last letzte Partition - räumt auch Documents oberhalb des Id-Bereichs auf
+     */
+    private void syncPartition(AggregateType type, MongoResyncCheckpoint checkpoint, boolean first, boolean last, Run run) {
+        ResyncSource source = sources.get(type);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long afterId = checkpoint.getLastSyncedId();
+                long orphansAfterId = first && afterId == checkpoint.getRangeStart() ? Long.MIN_VALUE : afterId;
+                Page page = readTransaction.execute(status -> {
+                    List<Long> ids = source.idsAfter().find(afterId, checkpoint.getRangeEnd(), properties.pageSize());
+                    return new Page(ids, ids.isEmpty() ? null : source.load().prepare(ids));
+                });
+
+                if (page.ids().isEmpty()) {
+                    removeOrphans(type, orphansAfterId, last ? Long.MAX_VALUE : checkpoint.getRangeEnd(), List.of());
+                    requireLease(type, checkpoint, writeTransaction.execute(status ->
+                            checkpointRepository.completeLeased(checkpoint.getId(), instanceId, Instant.now())));
+                    checkpoint.complete();
+                    return;
+                }
+
+                page.write().get().join();
+                removeOrphans(type, orphansAfterId, page.ids().getLast(), page.ids());
+                checkpoint.advance(page.ids().getLast(), page.ids().size());
+                checkpoint.lease(instanceId, leaseUntil());
+                requireLease(type, checkpoint, writeTransaction.execute(status -> checkpointRepository.advanceLeased(
+                        checkpoint.getId(), instanceId, checkpoint.getLastSyncedId(), checkpoint.getSyncedCount(),
+                        checkpoint.getLeaseUntil(), Instant.now())));
+                run.synced.addAndGet(page.ids().size());
+                meterRegistry.counter("mongo.resync.synced", "type", type.name()).increment(page.ids().size());
+            }
+        } catch (RuntimeException e) {
+            // JDBC/MongoDB-Fehler durch den Interrupt sind kein Fehlschlag des Resyncs
+            if (!Thread.currentThread().isInterrupted()) throw e;
+            throw interrupted(type, checkpoint, e);
+        }
+        throw interrupted(type, checkpoint, null);
+    }
+
+    private void requireLease(AggregateType type, MongoResyncCheckpoint checkpoint, Integer updated) {
+        if (updated == null || updated == 0)
+            throw MongoResyncServiceException.leaseLost(type, checkpoint.getId().partitionNo());
+    }
+
+    private static CancellationException interrupted(AggregateType type, MongoResyncCheckpoint checkpoint, Throwable cause) {
+        CancellationException interrupted = new CancellationException(
+                "Resync of %s partition %d was interrupted".formatted(type, checkpoint.getId().partitionNo()));
+        interrupted.initCause(cause);
+        return interrupted;
+    }
+
+    /**
+     * Löscht Documents im Bereich (afterId, upToId], deren Zeile es in PostgreSQL nicht mehr gibt.
+     * Kandidaten werden vor dem Löschen nochmals geprüft: seit dem Lesen der Seite eingefügte Zeilen
+     * (pooled Sequences vergeben Ids nicht streng aufsteigend) bleiben stehen.
+     */
+    private void removeOrphans(AggregateType type, long afterId, long upToId, List<Long> synced) {
+        ResyncSource source = sources.get(type);
+        Set<Long> candidates = new HashSet<>();
+        for (Class<?> documentType : source.documentTypes()) {
+            candidates.addAll(projectionWriter.findPostgresIds(documentType, afterId, upToId));
+        }
+        synced.forEach(candidates::remove);
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<Long> existing = readTransaction.execute(status -> source.existingIds().apply(candidates));
+        existing.forEach(candidates::remove);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        for (Class<?> documentType : source.documentTypes()) {
+            projectionWriter.removeByPostgresIds(documentType, candidates);
+        }
+        meterRegistry.counter("mongo.resync.removed", "type", type.name()).increment(candidates.size());
+        logger.debug("Removed {} {} documents without a PostgreSQL row", candidates.size(), type);
+    }
+
+    // ==================== PROGRESS ====================
+
+    public List<MongoResyncProgress> progress() {
+        return Arrays.stream(AggregateType.values()).map(this::progress).toList();
+    }
+
+    /**
+     * Ohne Datenbankzugriff - für Entscheidungen pro Request (BookReadRouter)
+     */
+    public boolean isRunning(AggregateType type) {
+        Run run = runs.get(type);
+        return run != null && run.status == Status.RUNNING;
+    }
+
+    public MongoResyncProgress progress(AggregateType type) {
+        List<MongoResyncCheckpoint> checkpoints = checkpointRepository.findByAggregateType(type);
+        Run run = runs.get(type);
+        Status status = status(type, checkpoints);
+
+        long total = sources.get(type).count().get();
+        long synced = checkpoints.stream().mapToLong(MongoResyncCheckpoint::getSyncedCount).sum();
+        double percent = total == 0 ? 100.0 : Math.min(100.0, synced * 100.0 / total);
+
+        double rowsPerSecond = 0;
+        Long etaSeconds = null;
+        if (run != null) {
+            double elapsedSeconds = Math.max(0.001, Duration.between(run.startedAt, Instant.now()).toMillis() / 1000.0);
+            rowsPerSecond = run.synced.get() / elapsedSeconds;
+            if (status == Status.RUNNING && rowsPerSecond > 0)
+                etaSeconds = Math.round(Math.max(0, total - synced) / rowsPerSecond);
+        }
+
+        Instant startedAt = checkpoints.stream().map(MongoResyncCheckpoint::getStartedAt).min(Comparator.naturalOrder()).orElse(null);
+        List<MongoResyncProgress.PartitionProgress> partitions = checkpoints.stream()
+                .map(c -> new MongoResyncProgress.PartitionProgress(c.getId().partitionNo(), c.getRangeStart(),
+                        c.getRangeEnd(), c.getLastSyncedId(), c.getSyncedCount(), c.getCompleted()))
+                .toList();
+        return new MongoResyncProgress(type.name(), status.name(), total, synced, percent, rowsPerSecond, etaSeconds,
+                startedAt, run == null ? null : run.error, partitions);
+    }
+
+    private Status status(AggregateType type, List<MongoResyncCheckpoint> checkpoints) {
+        Run run = runs.get(type);
+        if (run != null && run.status != Status.COMPLETED) return run.status;
+        if (checkpoints.isEmpty()) return run == null ? Status.NOT_STARTED : Status.COMPLETED;
+        if (checkpoints.stream().allMatch(MongoResyncCheckpoint::getCompleted)) return Status.COMPLETED;
+        // offene Partitionen mit gültiger Lease laufen auf einer anderen Instanz
+        Instant now = Instant.now();
+        return checkpoints.stream().anyMatch(c -> !c.getCompleted() && c.isLeasedAt(now)) ? Status.RUNNING : Status.INTERRUPTED;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Laufende Partitionen abbrechen - die Checkpoints bleiben stehen und werden beim nächsten Start fortgesetzt
+        virtualThreads.shutdownNow();
+    }
+
+    // ==================== INTERNALS ====================
+
+    @FunctionalInterface
+    private interface IdPageQuery {
+        List<Long> find(long afterId, long upToId, int limit);
+    }
+
+    @FunctionalInterface
+    private interface PageLoader {
+        /** Lädt und mappt die Zeilen innerhalb der Lese-Transaktion, liefert den MongoDB-Write */
+        Supplier<CompletableFuture<Void>> prepare(List<Long> ids);
+    }
+
+    private record ResyncSource(Supplier<Optional<Long>> minId, Supplier<Optional<Long>> maxId, Supplier<Long> count,
+                                IdPageQuery idsAfter, Function<Collection<Long>, List<Long>> existingIds,
+                                List<Class<?>> documentTypes, PageLoader load) {}
+
+    /** alle Partitionen des Resyncs und die davon von dieser Instanz übernommenen */
+    private record Partitions(List<MongoResyncCheckpoint> all, List<MongoResyncCheckpoint> claimed) {}
+
+    private record Page(List<Long> ids, Supplier<CompletableFuture<Void>> write) {}
+
+    private class Run {
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong synced = new AtomicLong();
+        private volatile Status status = Status.RUNNING;
+        private volatile String error;
+
+        void finish(AggregateType type, Throwable failure) {
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            if (failure == null) {
+                status = Status.COMPLETED;
+                logger.info("MongoDB resync of {} completed: {} rows in this run", type, synced.get());
+            } else if (cause instanceof CancellationException) {
+                status = Status.INTERRUPTED;
+                error = cause.getMessage();
+                logger.info("MongoDB resync of {} interrupted after {} rows, resume with restart=false", type, synced.get());
+            } else {
+                status = Status.FAILED;
+                error = failure.getMessage();
+                logger.error("MongoDB resync of {} failed after {} rows, resume with restart=false", type, synced.get(), failure);
+            }
+        }
+    }
+
+    // ==================== EXCEPTION CLASS ====================
+
+    public static class MongoResyncServiceException extends RuntimeException {
+        public MongoResyncServiceException(String message) {
+            super(message);
+        }
+
+        public static MongoResyncServiceException alreadyRunning(AggregateType type) {
+            return new MongoResyncServiceException("Resync of %s is already running".formatted(type));
+        }
+
+        public static MongoResyncServiceException leaseLost(AggregateType type, int partitionNo) {
+            return new MongoResyncServiceException("Lease on partition %d of the %s resync expired, it is continued by another instance"
+                    .formatted(partitionNo, type));
+        }
+
+        public static MongoResyncServiceException unknownType(String type) {
+            return new MongoResyncServiceException("Unknown resync type (%s), expected one of %s"
+                    .formatted(type, Arrays.toString(AggregateType.values())));
+        }
+    }
+}
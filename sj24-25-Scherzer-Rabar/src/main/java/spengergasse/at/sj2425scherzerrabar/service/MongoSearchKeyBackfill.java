@@ -0,0 +1,137 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.foundation.SearchKey;
+import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Ergänzt die Suchschlüssel (SearchKey) in Documents, die vor ihrer Einführung geschrieben wurden: name_key,
+ * authors.penname_key und authors.addresses.cityKey in books_with_embedded_authors, pen_name_key und
+ * addresses.cityKey in authors. Neue Documents bekommen sie von BookEmbeddedMapper/AuthorMapper.
+ * Seitenweise über _id, nur Documents ohne Key. Jedes Update setzt nur die Key-Felder und nur, solange der
+ * Originalwert noch derselbe ist - eine parallele Änderung (Outbox, Author-Propagation) schreibt die Keys selbst.
+ */
+@Service
+public class MongoSearchKeyBackfill {
+
+    public record Result(long books, long authors) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoSearchKeyProperties properties;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    Logger logger = LoggerFactory.getLogger(LoggingController.class);
+
+    public MongoSearchKeyBackfill(MongoTemplate mongoTemplate, MongoSearchKeyProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAfterStartup() {
+        if (properties.backfillOnStartup()) {
+            virtualThreads.execute(this::backfill);
+        }
+    }
+
+    /**
+     * @return Anzahl der geänderten Documents, 0/0 wenn bereits ein Backfill läuft
+     */
+    public Result backfill() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Search key backfill is already running");
+            return new Result(0, 0);
+        }
+        try {
+            long books = backfill(mongoTemplate.getCollectionName(BookDocumentEmbedded.class), "name_key",
+                    new Document("name", 1).append("authors.penname", 1).append("authors.addresses.city", 1),
+                    MongoSearchKeyBackfill::bookUpdate);
+            long authors = backfill(mongoTemplate.getCollectionName(AuthorDocument.class), "pen_name_key",
+                    new Document("pen_name", 1).append("addresses.city", 1),
+                    MongoSearchKeyBackfill::authorUpdate);
+            logger.info("Search key backfill done: {} books, {} authors updated", books, authors);
+            return new Result(books, authors);
+        } catch (RuntimeException e) {
+            logger.error("Search key backfill failed", e);
+            throw e;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long backfill(String collectionName, String keyField, Document projection,
+                          Function<Document, UpdateOneModel<Document>> update) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(collectionName);
+        Object lastId = null;
+        long modified = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            Document filter = new Document(keyField, new Document("$exists", false));
+            if (lastId != null) {
+                filter.append("_id", new Document("$gt", lastId));
+            }
+            List<Document> page = collection.find(filter)
+                    .projection(projection)
+                    .sort(new Document("_id", 1))
+                    .limit(properties.batchSize())
+                    .into(new ArrayList<>());
+            if (page.isEmpty()) break;
+
+            List<WriteModel<Document>> writes = page.stream().<WriteModel<Document>>map(update::apply).toList();
+            modified += collection.bulkWrite(writes, new BulkWriteOptions().ordered(false)).getModifiedCount();
+            lastId = page.getLast().get("_id");
+        }
+        return modified;
+    }
+
+    // ==================== UPDATES ====================
+
+    static UpdateOneModel<Document> bookUpdate(Document book) {
+        Document filter = new Document("_id", book.get("_id")).append("name", book.getString("name"));
+        Document set = new Document("name_key", SearchKey.of(book.getString("name")));
+        List<Document> authors = book.getList("authors", Document.class, List.of());
+        for (int i = 0; i < authors.size(); i++) {
+            String path = "authors." + i;
+            String penname = authors.get(i).getString("penname");
+            filter.append(path + ".penname", penname);
+            set.append(path + ".penname_key", SearchKey.of(penname));
+            addressKeys(authors.get(i), path + ".addresses", filter, set);
+        }
+        return new UpdateOneModel<>(filter, new Document("$set", set));
+    }
+
+    static UpdateOneModel<Document> authorUpdate(Document author) {
+        Document filter = new Document("_id", author.get("_id")).append("pen_name", author.getString("pen_name"));
+        Document set = new Document("pen_name_key", SearchKey.of(author.getString("pen_name")));
+        addressKeys(author, "addresses", filter, set);
+        return new UpdateOneModel<>(filter, new Document("$set", set));
+    }
+
+    private static void addressKeys(Document owner, String path, Document filter, Document set) {
+        List<Document> addresses = owner.getList("addresses", Document.class, List.of());
+        for (int j = 0; j < addresses.size(); j++) {
+            String city = addresses.get(j).getString("city");
+            filter.append(path + "." + j + ".city", city);
+            set.append(path + "." + j + ".cityKey", SearchKey.of(city));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param backfillOnStartup Documents ohne Suchschlüssel nach dem Start im Hintergrund ergänzen
+ * @param batchSize         Documents pro Seite/bulkWrite
+ */
+@ConfigurationProperties(prefix = "mongo.search-keys")
+public record MongoSearchKeyProperties(@DefaultValue("true") boolean backfillOnStartup,
+                                       @DefaultValue("500") int batchSize) {
+}
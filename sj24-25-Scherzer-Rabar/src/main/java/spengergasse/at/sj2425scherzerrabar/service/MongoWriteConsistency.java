@@ -0,0 +1,13 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+/**
+ * Wie lange createBook/updateBook/deleteBook auf die MongoDB-Projektionen warten
+ */
+public enum MongoWriteConsistency {
+    /** Wartet nach dem Commit auf beide Collections (books + books_with_embedded_authors) */
+    SYNC_ALL,
+    /** Wartet nur auf PostgreSQL, MongoDB wird asynchron über die Outbox nachgezogen */
+    SYNC_PRIMARY,
+    /** Schreibt nach dem Commit asynchron nach MongoDB ohne zu warten; schlägt das fehl, übernimmt die Outbox */
+    FIRE_AND_FORGET
+}
@@ -0,0 +1,11 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "mongo.write")
+public record MongoWriteProperties(@DefaultValue("SYNC_PRIMARY") MongoWriteConsistency consistency,
+                                   @DefaultValue("5s") Duration syncTimeout) {
+}
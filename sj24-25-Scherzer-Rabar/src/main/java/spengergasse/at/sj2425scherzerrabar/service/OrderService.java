@@ -2,11 +2,14 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.commands.OrderCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.*;
 import spengergasse.at.sj2425scherzerrabar.dtos.OrderDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.persistence.*;
 import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
 
@@ -20,32 +23,36 @@ public class OrderService {
     private final CustomerRepository customerRepository;
     private final BuyableBookRepository buyableBookRepository;
     private final LibrarySubscriptionRepository librarySubscriptionRepository;
+    private final ApiKeyResolver apiKeyResolver;
     Logger logger = LoggerFactory.getLogger(LoggingController.class);
 
-    public OrderService(OrderRepository orderRepository,CustomerRepository CustomerRepository,BuyableBookRepository buyableBookRepository,LibrarySubscriptionRepository librarySubscriptionRepository) {
+    public OrderService(OrderRepository orderRepository,CustomerRepository CustomerRepository,BuyableBookRepository buyableBookRepository,LibrarySubscriptionRepository librarySubscriptionRepository,ApiKeyResolver apiKeyResolver) {
         this.orderRepository = orderRepository;
         this.customerRepository = CustomerRepository;
         this.buyableBookRepository = buyableBookRepository;
         this.librarySubscriptionRepository = librarySubscriptionRepository;
+        this.apiKeyResolver = apiKeyResolver;
     }
 
     @Transactional
     public OrderDto createOrder(OrderCommand command) {
         logger.debug("entered createOrder");
-        var customer = customerRepository.findCustomerByCustomerApiKey(new ApiKey(command.customerApikey()))
+        var customer = apiKeyResolver.reference(Customer.class, command.customerApikey())
                 .orElseThrow(()-> OrderServiceException.noCustomerForApikey(command.customerApikey()));
        var subscriptions = command.subscriptionsApiKeys().stream()
-                .map(s -> librarySubscriptionRepository.findLibrarySubscriptionByLibrarySubscriptionApiKey(s)
+                .map(s -> apiKeyResolver.reference(LibrarySubscription.class, s)
                         .orElseThrow(()->OrderServiceException.noLibrarySubscriptionForApikey(s))).toList();
 
-       var buyablebooks = command.booksApiKeys().stream().map(bb-> buyableBookRepository.findBuyableBookByBuyableBookApiKey(new ApiKey(bb))
+       var buyablebooks = command.booksApiKeys().stream().map(bb-> apiKeyResolver.reference(BuyableBook.class, bb)
                .orElseThrow(()-> OrderServiceException.noBuyableBookForApiKey(bb))).toList();
        Order order = new Order(customer,subscriptions,command.date(),buyablebooks);
        orderRepository.save(order);
-       return OrderDto.orderDtoFromOrder(order);
+       return new OrderDto(order.getOrderApiKey().apiKey(), command.customerApikey(),
+               command.subscriptionsApiKeys(), order.getDate(), command.booksApiKeys());
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.ORDERS, key = "#command.apiKey()")
     public OrderDto updateOrder(OrderCommand command) {
         logger.debug("entered updateOrder");
         Order order = orderRepository.findOrderByOrderApiKey(new ApiKey(command.apiKey()))
@@ -70,6 +77,7 @@ public class OrderService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.ORDERS)
     public void deleteOrder(String orderApiKey) {
         logger.debug("entered deleteOrder");
         Order order = orderRepository.findOrderByOrderApiKey(new ApiKey(orderApiKey))
@@ -82,6 +90,19 @@ public class OrderService {
         return orderRepository.findAllProjected();
     }
 
+    public KeysetPage<OrderDto> getOrdersPage(String after, Integer limit) {
+        logger.debug("entered getOrdersPage");
+        return KeysetPage.fetch(after, limit,
+                orderRepository::findOrderIdsAfter,
+                orderRepository::findProjectedByIds);
+    }
+
+    public CollectionExportService.Source<OrderDto> exportOrders() {
+        logger.debug("entered exportOrders");
+        return new CollectionExportService.Source<>(orderRepository::findOrderIdsAfter, orderRepository::findProjectedByIds);
+    }
+
+    @Cacheable(cacheNames = EntityCaches.ORDERS)
     public OrderDto getOrderByApiKey(String apiKey) {
         logger.debug("entered getOrderByApiKey");
         return orderRepository.findProjectedByOrderApiKey(apiKey)
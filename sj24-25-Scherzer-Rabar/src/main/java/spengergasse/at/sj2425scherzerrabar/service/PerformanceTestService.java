@@ -2,6 +2,7 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
@@ -361,6 +362,7 @@ public class PerformanceTestService {
     // ==================== UPDATE TEST ====================
 
     @Transactional
+    @CacheEvict(cacheNames = {EntityCaches.BOOKS, EntityCaches.BOOKS_2}, allEntries = true)
     public TestResults runUpdateTest() {
         logger.info("Running update test");
         TestResults results = new TestResults("Update 10 Random Books");
@@ -413,6 +415,7 @@ public class PerformanceTestService {
     // ==================== DELETE TEST ====================
 
     @Transactional
+    @CacheEvict(cacheNames = {EntityCaches.BOOKS, EntityCaches.BOOKS_2}, allEntries = true)
     public TestResults runDeleteTest() {
         logger.info("Running delete test");
         TestResults results = new TestResults("Delete 10 Random Books");
@@ -491,6 +494,7 @@ public class PerformanceTestService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = {EntityCaches.AUTHORS, EntityCaches.BOOKS, EntityCaches.BOOKS_2}, allEntries = true)
     public void cleanDatabases() {
         logger.info("Cleaning databases...");
         bookRepository.deleteAll();
@@ -502,9 +506,9 @@ public class PerformanceTestService {
     }
 
     private void createPostgresIndexes() {
-        logger.info("PostgreSQL indexes are managed by JPA annotations");
-        // Indexes are defined in entity classes with @Index annotation
-        // This method is placeholder for documentation
+        logger.info("PostgreSQL indexes are managed by Flyway migrations");
+        // Indexes are created by db/migration (e.g. V1_3_7_0__BookFilterIndexes, V1_3_8_0__MissingIndexes);
+        // /actuator/indexadvisor reports seq scans that still need one
     }
 
     // ==================== RESULT CLASSES ====================
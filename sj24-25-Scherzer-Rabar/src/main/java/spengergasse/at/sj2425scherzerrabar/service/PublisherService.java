@@ -2,6 +2,8 @@ package spengergasse.at.sj2425scherzerrabar.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import spengergasse.at.sj2425scherzerrabar.commands.PublisherCommand;
@@ -9,6 +11,7 @@ import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.Publisher;
 import spengergasse.at.sj2425scherzerrabar.dtos.PublisherDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.persistence.PublisherRepository;
 import spengergasse.at.sj2425scherzerrabar.presentation.RestController.LoggingController;
 
@@ -33,6 +36,7 @@ public class PublisherService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.PUBLISHERS)
     public void deletePublisherByApiKey(String apiKey) {
         logger.debug("entered deletePublisherByApiKey");
         Publisher publisher = publisherRepository.findPublisherByPublisherApiKey(new ApiKey(apiKey))
@@ -41,6 +45,7 @@ public class PublisherService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = EntityCaches.PUBLISHERS, key = "#command.apiKey()")
     public PublisherDto updatePublisher(PublisherCommand command) {
         logger.debug("entered updatePublisher");
         Publisher publisher = publisherRepository.findPublisherByPublisherApiKey(new ApiKey(command.apiKey()))
@@ -58,6 +63,19 @@ public class PublisherService {
         return publisherRepository.findAllProjected();
     }
 
+    public KeysetPage<PublisherDto> getPublishersPage(String after, Integer limit) {
+        logger.debug("entered getPublishersPage");
+        return KeysetPage.fetch(after, limit,
+                publisherRepository::findPublisherIdsAfter,
+                publisherRepository::findProjectedByIds);
+    }
+
+    public CollectionExportService.Source<PublisherDto> exportPublishers() {
+        logger.debug("entered exportPublishers");
+        return new CollectionExportService.Source<>(publisherRepository::findPublisherIdsAfter, publisherRepository::findProjectedByIds);
+    }
+
+    @Cacheable(cacheNames = EntityCaches.PUBLISHERS)
     public PublisherDto getPublisherByApiKey(String apiKey) {
         logger.debug("entered getPublisherByApiKey");
         return publisherRepository.findProjectedByPublisherApiKey(apiKey)
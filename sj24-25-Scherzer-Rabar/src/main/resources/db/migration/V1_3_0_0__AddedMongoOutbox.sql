@@ -0,0 +1,23 @@
+create sequence mongo_outbox_seq start with 1 increment by 50;
+
+create table mongo_outbox
+(
+    id              bigint                      not null,
+    aggregate_type  varchar(20)                 not null,
+    aggregate_id    bigint                      not null,
+    api_key         varchar(60)                 not null,
+    operation       varchar(20)                 not null,
+    created_at      timestamp(6) with time zone not null,
+    attempts        integer                     not null,
+    next_attempt_at timestamp(6) with time zone not null,
+    last_error      varchar(1000),
+    primary key (id)
+);
+
+alter table if exists mongo_outbox
+    add constraint CK_mongo_outbox_aggregate_type check (aggregate_type in ('BOOK', 'AUTHOR'));
+
+alter table if exists mongo_outbox
+    add constraint CK_mongo_outbox_operation check (operation in ('UPSERT', 'DELETE'));
+
+create index idx_mongo_outbox_pending on mongo_outbox (next_attempt_at, id);
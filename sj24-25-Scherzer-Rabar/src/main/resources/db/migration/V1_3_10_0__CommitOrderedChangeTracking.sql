@@ -0,0 +1,32 @@
+-- last_modified ist der Zeitpunkt des Schreibens, nicht des Commits: eine Transaktion, die vor der Watermark
+-- schreibt, aber erst danach committet, würde vom Delta-Sync nie gesehen.
+-- change_xid ist die Transaktions-Id der letzten Änderung. Der Delta-Sync liest nur Zeilen unterhalb von
+-- pg_snapshot_xmin(pg_current_snapshot()) - alle diese Transaktionen sind beendet, ihre Änderungen sichtbar.
+alter table book
+    add column change_xid bigint not null default 0;
+
+alter table author
+    add column change_xid bigint not null default 0;
+
+create or replace function set_last_modified() returns trigger as
+$$
+begin
+    new.last_modified := clock_timestamp();
+    new.change_xid := pg_current_xact_id()::text::bigint;
+    return new;
+end;
+$$ language plpgsql;
+
+drop index if exists idx_book_last_modified;
+drop index if exists idx_author_last_modified;
+create index idx_book_change_xid on book (change_xid, id);
+create index idx_author_change_xid on author (change_xid, id);
+
+-- Bestehende Watermarks beginnen bei 0: der erste Lauf liest jede Zeile einmal,
+-- unveränderte Documents werden dabei über den content_hash übersprungen.
+alter table mongo_sync_watermark
+    drop column last_modified,
+    add column last_xid bigint not null default 0;
+
+update mongo_sync_watermark
+set last_id = 0;
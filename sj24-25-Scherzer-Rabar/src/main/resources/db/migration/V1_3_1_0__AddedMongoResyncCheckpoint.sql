@@ -0,0 +1,16 @@
+create table mongo_resync_checkpoint
+(
+    aggregate_type varchar(20)                 not null,
+    partition_no   integer                     not null,
+    range_start    bigint                      not null,
+    range_end      bigint                      not null,
+    last_synced_id bigint                      not null,
+    synced_count   bigint                      not null,
+    completed      boolean                     not null,
+    started_at     timestamp(6) with time zone not null,
+    updated_at     timestamp(6) with time zone not null,
+    primary key (aggregate_type, partition_no)
+);
+
+alter table if exists mongo_resync_checkpoint
+    add constraint CK_mongo_resync_checkpoint_aggregate_type check (aggregate_type in ('BOOK', 'AUTHOR'));
@@ -0,0 +1,44 @@
+alter table book
+    add column version       bigint                      not null default 0,
+    add column last_modified timestamp(6) with time zone not null default clock_timestamp();
+
+alter table author
+    add column version       bigint                      not null default 0,
+    add column last_modified timestamp(6) with time zone not null default clock_timestamp();
+
+-- last_modified wird von der Datenbank gepflegt, damit auch Updates außerhalb von Hibernate erfasst werden.
+-- Änderungen an Collections (authors_of_book, genres, ...) erhöhen über @Version die Zeile und damit den Zeitstempel.
+create or replace function set_last_modified() returns trigger as
+$$
+begin
+    new.last_modified := clock_timestamp();
+    return new;
+end;
+$$ language plpgsql;
+
+create trigger trg_book_last_modified
+    before insert or update
+    on book
+    for each row
+execute function set_last_modified();
+
+create trigger trg_author_last_modified
+    before insert or update
+    on author
+    for each row
+execute function set_last_modified();
+
+create index idx_book_last_modified on book (last_modified, id);
+create index idx_author_last_modified on author (last_modified, id);
+
+create table mongo_sync_watermark
+(
+    aggregate_type varchar(20)                 not null,
+    last_modified  timestamp(6) with time zone not null,
+    last_id        bigint                      not null,
+    updated_at     timestamp(6) with time zone not null,
+    primary key (aggregate_type)
+);
+
+alter table if exists mongo_sync_watermark
+    add constraint CK_mongo_sync_watermark_aggregate_type check (aggregate_type in ('BOOK', 'AUTHOR'));
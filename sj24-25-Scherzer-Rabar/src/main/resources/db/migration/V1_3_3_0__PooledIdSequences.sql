@@ -0,0 +1,16 @@
+-- Größerer Block pro nextval für den pooled Optimizer von Hibernate: weniger Round Trips beim Batch-Insert.
+-- Hibernate übernimmt die Schrittweite aus der Datenbank (hibernate.id.sequence.increment_size_mismatch_strategy=fix),
+-- die Allocation Size wird also hier über spring.flyway.placeholders.id_allocation_size festgelegt.
+alter sequence author_seq increment by ${id_allocation_size};
+alter sequence book_seq increment by ${id_allocation_size};
+alter sequence borrowing_seq increment by ${id_allocation_size};
+alter sequence branch_seq increment by ${id_allocation_size};
+alter sequence buyable_book_seq increment by ${id_allocation_size};
+alter sequence copy_seq increment by ${id_allocation_size};
+alter sequence customer_seq increment by ${id_allocation_size};
+alter sequence library_seq increment by ${id_allocation_size};
+alter sequence libraryorder_seq increment by ${id_allocation_size};
+alter sequence librarysubscription_seq increment by ${id_allocation_size};
+alter sequence publisher_seq increment by ${id_allocation_size};
+alter sequence review_seq increment by ${id_allocation_size};
+alter sequence mongo_outbox_seq increment by ${id_allocation_size};
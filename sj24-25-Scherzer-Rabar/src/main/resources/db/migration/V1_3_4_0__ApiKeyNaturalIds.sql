@@ -0,0 +1,8 @@
+-- ApiKeys der Referenz-Entities sind jetzt @NaturalId (Second-Level Cache, Natural-Id Cache).
+-- Bei einem Cache-Miss löst Hibernate den ApiKey per Query auf - ohne Index wäre das ein Seq Scan.
+create unique index if not exists uq_author_api_key on author (author_api_key);
+create unique index if not exists uq_branch_api_key on branch (branch_api_key);
+create unique index if not exists uq_buyable_book_api_key on buyable_book (buyablebook_api_key);
+create unique index if not exists uq_library_api_key on library (library_api_key);
+create unique index if not exists uq_librarysubscription_api_key on librarysubscription (librarysubscription_api_key);
+create unique index if not exists uq_publisher_api_key on publisher (publisher_api_key);
@@ -0,0 +1,11 @@
+-- Conditional GET (ETag / If-None-Match): das ETag einer Ressource ist ihre @Version.
+-- copy hatte bisher keine Versionsspalte.
+alter table copy
+    add column version bigint not null default 0;
+
+-- Version per ApiKey nachschlagen, ohne die Zeile zu lesen (Index-Only Scan über include)
+create unique index if not exists uq_book_api_key on book (book_api_key) include (version);
+create unique index if not exists uq_copy_api_key on copy (copy_api_key) include (version);
+
+drop index if exists uq_author_api_key;
+create unique index uq_author_api_key on author (author_api_key) include (version);
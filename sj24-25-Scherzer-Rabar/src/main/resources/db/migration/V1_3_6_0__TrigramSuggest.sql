@@ -0,0 +1,8 @@
+-- Typeahead (/www/authors/suggest, /www/books/suggest): Präfix- und Tippfehler-Suche über Trigramme.
+-- GIN mit gin_trgm_ops bedient sowohl LIKE 'abc%' als auch word_similarity (<%).
+-- Die Queries vergleichen immer lower(...), deshalb sind die Indizes auf dem Ausdruck angelegt.
+create extension if not exists pg_trgm;
+
+create index if not exists ix_author_penname_trgm on author using gin (lower(penname) gin_trgm_ops);
+create index if not exists ix_author_last_name_trgm on author using gin (lower(last_name) gin_trgm_ops);
+create index if not exists ix_book_name_trgm on book using gin (lower(name) gin_trgm_ops);
@@ -0,0 +1,21 @@
+-- Indizes für /api/books/filter (BookFilterSpecifications). Alle Filter enden mit id > :after ORDER BY id LIMIT n.
+-- id an zweiter Stelle liefert nur bei Gleichheit auf der ersten Spalte (available_online = ?) die Zeilen in
+-- id-Reihenfolge, der Scan kann dann nach n Zeilen aufhören. Bei Bereichen (word_count, release_date) kommen sie
+-- nach (Wert, id) sortiert: alle Treffer werden gelesen und nach id sortiert. id im Index spart dort nur den
+-- Heap-Zugriff für id und prüft id > :after schon im Index.
+
+-- Genre/Typ: selektiver Filter startet bei der Collection-Tabelle (Wert -> book_id),
+-- sonst prüft die Semi-Join-Probe pro Book (book_id, Wert) nur im Index
+create index if not exists ix_genres_of_book_genre on genres_of_book (genre_code, book_id);
+create index if not exists ix_genres_of_book_book on genres_of_book (book_id, genre_code);
+create index if not exists ix_book_types_type on book_types (book_types, book_id);
+create index if not exists ix_book_types_book on book_types (book_id, book_types);
+
+-- Author: api key -> author.id (uq_author_api_key) -> book_id; umgekehrt für Joins von book aus
+create index if not exists ix_authors_of_book_author on authors_of_book (author_id, book_id);
+create index if not exists ix_authors_of_book_book on authors_of_book (book_id, author_id);
+
+-- Bereiche und Verfügbarkeit auf book
+create index if not exists ix_book_available_online on book (available_online, id);
+create index if not exists ix_book_word_count on book (word_count, id);
+create index if not exists ix_book_release_date on book (release_date, id);
@@ -0,0 +1,33 @@
+-- Indizes, die /actuator/indexadvisor als Seq Scan gemeldet hat. PostgreSQL legt für Foreign Keys keinen Index an;
+-- ohne ihn ist jeder Join bzw. jede Suche "alle X zu einem Y" ein Seq Scan über die Tabelle mit dem Foreign Key.
+
+-- Api-Key-Lookups (die übrigen Tabellen haben ihren Index seit V1_3_4_0/V1_3_5_0)
+create unique index if not exists uq_borrowing_api_key on borrowing (borrowing_api_key);
+create unique index if not exists uq_customer_api_key on customer (customer_api_key);
+create unique index if not exists uq_libraryorder_api_key on libraryorder (libraryorder_api_key);
+create unique index if not exists uq_review_api_key on review (review_api_key);
+
+-- Foreign Keys
+create index if not exists ix_addresses_in_authors_author on addresses_in_authors (author_id);
+create index if not exists ix_addresses_in_customers_customer on addresses_in_customers (customer_id);
+create index if not exists ix_book_in_order_order on book_in_order (order_id);
+create index if not exists ix_book_in_order_book on book_in_order (book_id);
+create index if not exists ix_books_in_library_library on books_in_library (library_id);
+create index if not exists ix_books_in_library_book on books_in_library (book_id);
+create index if not exists ix_borrowing_customer on borrowing (customer_borrowing);
+create index if not exists ix_branch_library on branch (library_id);
+create index if not exists ix_buyable_book_book on buyable_book (book_id);
+create index if not exists ix_buyable_book_publisher on buyable_book (publisher_id);
+-- Copies eines Books in einer Branch; book_id allein nutzt denselben Index
+create index if not exists ix_copy_book_branch on copy (book_id, branch_id);
+create index if not exists ix_copy_branch on copy (branch_id);
+create index if not exists ix_copy_publisher on copy (publisher_id);
+create index if not exists ix_copy_borrowing on copy (copies_borrowed);
+create index if not exists ix_libraryorder_customer on libraryorder (customer_id);
+create index if not exists ix_librarysubscription_library on librarysubscription (library_id);
+create index if not exists ix_review_book on review (book_id);
+create index if not exists ix_review_branch on review (branch_id);
+create index if not exists ix_review_customer on review (customer_id);
+create index if not exists ix_review_publisher on review (publisher_id);
+create index if not exists ix_subscriptions_in_order_order on subscriptions_in_order (order_id);
+create index if not exists ix_subscriptions_in_order_subscription on subscriptions_in_order (subscription_id);
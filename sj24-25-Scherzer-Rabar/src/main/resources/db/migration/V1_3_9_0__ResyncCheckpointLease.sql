@@ -0,0 +1,3 @@
+alter table if exists mongo_resync_checkpoint
+    add column lease_owner varchar(100),
+    add column lease_until timestamp(6) with time zone;
@@ -0,0 +1,29 @@
+// Autorenauswahl für books/create und books/edit: Vorschläge kommen per htmx aus authors/suggest
+function addAuthor(penname) {
+    const selected = document.getElementById('selected-authors');
+    const exists = Array.from(selected.querySelectorAll('input[name="authors"]'))
+        .some(input => input.value === penname);
+    if (!exists) {
+        const badge = document.createElement('span');
+        badge.className = 'badge text-bg-secondary d-flex align-items-center gap-1';
+        const label = document.createElement('span');
+        label.textContent = penname;
+        const input = document.createElement('input');
+        input.type = 'hidden';
+        input.name = 'authors';
+        input.value = penname;
+        const remove = document.createElement('button');
+        remove.type = 'button';
+        remove.className = 'btn-close btn-close-white';
+        remove.setAttribute('aria-label', 'Remove');
+        remove.onclick = () => removeAuthor(remove);
+        badge.append(label, input, remove);
+        selected.appendChild(badge);
+    }
+    document.getElementById('author-search').value = '';
+    document.getElementById('author-suggestions').innerHTML = '';
+}
+
+function removeAuthor(button) {
+    button.closest('.badge').remove();
+}
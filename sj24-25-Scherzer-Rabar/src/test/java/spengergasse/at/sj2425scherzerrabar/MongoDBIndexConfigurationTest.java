@@ -0,0 +1,114 @@
+package spengergasse.at.sj2425scherzerrabar;
+
+import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import spengergasse.at.sj2425scherzerrabar.service.MongoIndexProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class MongoDBIndexConfigurationTest {
+
+    private static final IndexDefinition API_KEY =
+            new Index().on("api_key", Sort.Direction.ASC).unique().named("idx_api_key");
+    private static final IndexDefinition FULLNAME = new Index()
+            .on("first_name", Sort.Direction.ASC).on("last_name", Sort.Direction.ASC).named("idx_fullname");
+    private static final IndexDefinition TEXT = new TextIndexDefinition.TextIndexDefinitionBuilder()
+            .onField("name", 10F).onField("description", 1F).withDefaultLanguage("none").named("idx_text").build();
+
+    @Test
+    void creates_only_missing_indexes() {
+        var plan = MongoDBIndexConfiguration.plan(List.of(
+                        existing("_id_", new Document("_id", 1)),
+                        existing("idx_api_key", new Document("api_key", 1)).append("unique", true)),
+                List.of(API_KEY, FULLNAME), true);
+
+        assertThat(plan.drop()).isEmpty();
+        assertThat(plan.create()).containsExactly(FULLNAME);
+    }
+
+    @Test
+    void drops_only_undeclared_idx_indexes() {
+        var existing = List.of(
+                existing("_id_", new Document("_id", 1)),
+                existing("api_key_1", new Document("api_key", 1)),
+                existing("idx_old_name", new Document("name", 1)),
+                existing("idx_api_key", new Document("api_key", 1)).append("unique", true));
+
+        assertThat(MongoDBIndexConfiguration.plan(existing, List.of(API_KEY), true).drop()).containsExactly("idx_old_name");
+        assertThat(MongoDBIndexConfiguration.plan(existing, List.of(API_KEY), false).drop()).isEmpty();
+    }
+
+    @Test
+    void recreates_indexes_declared_differently() {
+        var plan = MongoDBIndexConfiguration.plan(List.of(
+                        existing("idx_api_key", new Document("api_key", 1)),
+                        existing("idx_fullname", new Document("last_name", 1).append("first_name", 1))),
+                List.of(API_KEY, FULLNAME), true);
+
+        assertThat(plan.drop()).containsExactly("idx_api_key", "idx_fullname");
+        assertThat(plan.create()).containsExactly(API_KEY, FULLNAME);
+    }
+
+    @Test
+    void compares_text_indexes_by_weights() {
+        Document text = existing("idx_text", new Document("_fts", "text").append("_ftsx", 1))
+                .append("weights", new Document("description", 1).append("name", 10))
+                .append("default_language", "none")
+                .append("language_override", "language")
+                .append("textIndexVersion", 3);
+        Document reweighted = Document.parse(text.toJson()).append("weights", new Document("description", 1).append("name", 5));
+
+        assertThat(MongoDBIndexConfiguration.plan(List.of(text), List.of(TEXT), true).create()).isEmpty();
+        assertThat(MongoDBIndexConfiguration.plan(List.of(reweighted), List.of(TEXT), true).create()).containsExactly(TEXT);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failed_synchronization_is_retried_until_ready() throws InterruptedException {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        ListIndexesIterable<Document> indexes = mock(ListIndexesIterable.class);
+        when(mongoTemplate.indexOps(any(Class.class)))
+                .thenThrow(new IllegalStateException("mongo down"))
+                .thenThrow(new IllegalStateException("mongo down"))
+                .thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.getCollection(any())).thenReturn(collection);
+        when(collection.listIndexes()).thenReturn(indexes);
+        when(indexes.into(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        var configuration = new MongoDBIndexConfiguration(mongoTemplate,
+                new MongoIndexProperties(false, false, Duration.ofMillis(1), Duration.ofMillis(10)));
+
+        configuration.buildIndexesAfterStartup();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!configuration.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(configuration.isReady()).isTrue();
+        assertThat(configuration.getError()).isNull();
+        // two failed attempts, then one call per collection
+        verify(mongoTemplate, times(5)).indexOps(any(Class.class));
+        configuration.shutdown();
+    }
+
+    private static Document existing(String name, Document key) {
+        return new Document("v", 2).append("key", key).append("name", name);
+    }
+}
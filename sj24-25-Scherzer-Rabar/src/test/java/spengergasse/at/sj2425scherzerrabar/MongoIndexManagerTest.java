@@ -0,0 +1,64 @@
+package spengergasse.at.sj2425scherzerrabar;
+
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class MongoIndexManagerTest {
+
+    @Test
+    void flags_index_whose_key_prefixes_a_compound_index() {
+        var redundant = MongoIndexManager.redundantIndexes(List.of(
+                index("_id_", new Document("_id", 1)),
+                index("idx_book_available", new Document("available_online", 1)),
+                index("idx_book_available_genre", new Document("available_online", 1).append("genres", 1)),
+                index("idx_book_genres", new Document("genres", 1))));
+
+        assertThat(redundant).containsOnly(entry("idx_book_available", "idx_book_available_genre"));
+    }
+
+    @Test
+    void keeps_the_unique_index_of_two_with_the_same_key() {
+        var redundant = MongoIndexManager.redundantIndexes(List.of(
+                index("api_key", new Document("api_key", 1)),
+                index("idx_book_emb_api_key", new Document("api_key", 1)).append("unique", true)));
+
+        assertThat(redundant).containsOnlyKeys("api_key");
+    }
+
+    @Test
+    void accepts_inverted_directions_but_not_mixed_ones() {
+        var inverted = MongoIndexManager.redundantIndexes(List.of(
+                index("by_date", new Document("release_date", -1)),
+                index("by_date_name", new Document("release_date", 1).append("name", 1))));
+        var mixed = MongoIndexManager.redundantIndexes(List.of(
+                index("by_date_name", new Document("release_date", 1).append("name", -1)),
+                index("by_date_name_id", new Document("release_date", 1).append("name", 1).append("_id", 1))));
+
+        assertThat(inverted).containsOnlyKeys("by_date");
+        assertThat(mixed).isEmpty();
+    }
+
+    @Test
+    void ignores_text_sparse_and_partial_indexes() {
+        var redundant = MongoIndexManager.redundantIndexes(List.of(
+                index("text", new Document("_fts", "text").append("_ftsx", 1)),
+                index("sparse_name", new Document("name", 1)).append("sparse", true),
+                index("partial_name", new Document("name", 1))
+                        .append("partialFilterExpression", new Document("name", new Document("$exists", true))),
+                index("name_date", new Document("name", 1).append("release_date", 1))));
+
+        assertThat(redundant).isEmpty();
+    }
+
+    private static Document index(String name, Document key) {
+        return new Document("name", name).append("key", key);
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
 
@@ -89,4 +90,44 @@ class AddressTest {
             );
         }
     }
+
+    @Nested
+    public class test_address_from_string{
+
+        @Test
+        public void parses_street_city_and_zip(){
+            Address address = Address.addressFromString("spengergasse 20-Vienna-1050");
+
+            assertThat(address.streetAndNumber()).isEqualTo("spengergasse 20");
+            assertThat(address.city()).isEqualTo("Vienna");
+            assertThat(address.zip()).isEqualTo(1050);
+        }
+
+        @Test
+        public void round_trips_to_string(){
+            Address address = FixturesFactory.libraryAddress();
+
+            assertThat(Address.addressFromString(address.toString()).toString()).isEqualTo(address.toString());
+        }
+
+        @Test
+        public void ignores_parts_after_the_zip(){
+            assertThat(Address.addressFromString("Gasse 1-Wien-1010-Stiege 2").zip()).isEqualTo(1010);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"Gasse 1", "Gasse 1-Wien", "Gasse 1-Wien-", "Gasse 1-Wien-10x0"})
+        void rejects_malformed_strings(String value){
+            assertThatThrownBy(() -> Address.addressFromString(value))
+                    .isInstanceOf(Address.AddressException.class)
+                    .hasMessageContaining("invalid");
+        }
+
+        @Test
+        public void rejects_empty_parts(){
+            assertThatThrownBy(() -> Address.addressFromString("-Wien-1010"))
+                    .isInstanceOf(Address.AddressException.class)
+                    .hasMessageContaining("null");
+        }
+    }
 }
\ No newline at end of file
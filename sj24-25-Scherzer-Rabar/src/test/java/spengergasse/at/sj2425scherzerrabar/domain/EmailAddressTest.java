@@ -4,6 +4,10 @@ import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.DisplayNameGenerator;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.regex.Pattern;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -30,5 +34,14 @@ class EmailAddressTest {
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"a@b.co", "first.last+tag@sub.mail.com", "x_y%z@host-1.at", "a@b.c.de", "a@-.de", ".@..de",
+            "@b.co", "a@.co", "a@b.c", "a@b.c1", "a@@b.co", "a@b@c.co", "a b@c.co", "ä@b.co", "a@b.co.", "a@b", "a@b.co\n", "a.b.co"})
+    void validation_matches_the_former_regex(String email) {
+        assertThat(EmailAddress.isValid(email)).isEqualTo(FORMER_REGEX.matcher(email).matches());
+    }
+
+    private static final Pattern FORMER_REGEX = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
+
 
 }
\ No newline at end of file
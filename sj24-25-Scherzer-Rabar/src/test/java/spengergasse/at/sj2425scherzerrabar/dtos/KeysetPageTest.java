@@ -0,0 +1,48 @@
+package spengergasse.at.sj2425scherzerrabar.dtos;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class KeysetPageTest {
+
+    private static BiFunction<Long, Limit, List<RowVersion>> rows(RowVersion... rows) {
+        return (afterId, limit) -> List.of(rows).stream()
+                .filter(row -> row.id() > afterId)
+                .limit(limit.max())
+                .toList();
+    }
+
+    @Test
+    void etag_is_strong_and_stable() {
+        String etag = KeysetPage.etag(null, 2, rows(new RowVersion(1L, 0L), new RowVersion(2L, 0L)));
+
+        assertThat(etag).matches("\"[0-9a-f]{32}\"");
+        assertThat(KeysetPage.etag(null, 2, rows(new RowVersion(1L, 0L), new RowVersion(2L, 0L)))).isEqualTo(etag);
+    }
+
+    @Test
+    void etag_changes_when_a_row_on_the_page_changes() {
+        String before = KeysetPage.etag(null, 2, rows(new RowVersion(1L, 0L), new RowVersion(2L, 0L)));
+        String after = KeysetPage.etag(null, 2, rows(new RowVersion(1L, 0L), new RowVersion(2L, 1L)));
+
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    @Test
+    void etag_ignores_rows_after_the_page_but_not_whether_there_are_any() {
+        String lastPage = KeysetPage.etag(null, 2, rows(new RowVersion(1L, 0L), new RowVersion(2L, 0L)));
+        String withNext = KeysetPage.etag(null, 2, rows(new RowVersion(1L, 0L), new RowVersion(2L, 0L), new RowVersion(3L, 0L)));
+        String nextChanged = KeysetPage.etag(null, 2, rows(new RowVersion(1L, 0L), new RowVersion(2L, 0L), new RowVersion(3L, 7L)));
+
+        assertThat(withNext).isNotEqualTo(lastPage);
+        assertThat(nextChanged).isEqualTo(withNext);
+    }
+}
@@ -0,0 +1,47 @@
+package spengergasse.at.sj2425scherzerrabar.foundation;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ApiKeyFactoryTest {
+
+    private static final String BASE58 = "123456789abcdefghijkmnopqrstuvwxyzABCDEFGHJKLMNPQRSTUVWXYZ";
+
+    @Test
+    void generates_base58_keys_of_the_requested_length() {
+        assertThat(ApiKeyFactory.newApiKey().apiKey()).hasSize(ApiKeyFactory.DEFAULT_LENGTH);
+        assertThat(new ApiKeyFactory().generate(7).apiKey()).hasSize(7);
+        assertThat(ApiKeyFactory.randomKey(1_000).chars().allMatch(c -> BASE58.indexOf(c) >= 0)).isTrue();
+    }
+
+    @Test
+    void uses_every_character_of_the_alphabet_about_equally_often() {
+        Map<Character, Integer> counts = new HashMap<>();
+        String sample = ApiKeyFactory.randomKey(58 * 2_000);
+        for (char c : sample.toCharArray()) {
+            counts.merge(c, 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(58);
+        // Erwartungswert 2000 je Zeichen; das frühere Alphabet hatte Q doppelt und kein Y
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(1_700, 2_300));
+    }
+
+    @Test
+    void keys_do_not_repeat() {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            keys.add(ApiKeyFactory.newApiKey().apiKey());
+        }
+        assertThat(keys).hasSize(10_000);
+    }
+}
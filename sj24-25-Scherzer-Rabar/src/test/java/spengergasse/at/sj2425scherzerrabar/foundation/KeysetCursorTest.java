@@ -0,0 +1,45 @@
+package spengergasse.at.sj2425scherzerrabar.foundation;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class KeysetCursorTest {
+
+    @Test
+    void scored_cursor_keeps_the_exact_score() {
+        KeysetCursor.Scored last = new KeysetCursor.Scored(1.0 / 3.0, "65f1c0ffee0000000000beef");
+
+        assertThat(KeysetCursor.decodeScored(KeysetCursor.encode(last))).isEqualTo(last);
+    }
+
+    @Test
+    void scored_cursor_is_empty_on_the_first_page() {
+        assertThat(KeysetCursor.decodeScored(null)).isNull();
+        assertThat(KeysetCursor.decodeScored(" ")).isNull();
+    }
+
+    @Test
+    void id_cursor_is_no_scored_cursor() {
+        String idCursor = KeysetCursor.encode(42L);
+
+        assertThatThrownBy(() -> KeysetCursor.decodeScored(idCursor))
+                .isInstanceOf(KeysetCursor.KeysetCursorException.class);
+        assertThatThrownBy(() -> KeysetCursor.decodeScored("%%%"))
+                .isInstanceOf(KeysetCursor.KeysetCursorException.class);
+    }
+
+    @Test
+    void document_id_cursor_round_trips() {
+        String cursor = KeysetCursor.encodeDocumentId("65f1c0ffee0000000000beef");
+
+        assertThat(KeysetCursor.decodeDocumentId(cursor)).isEqualTo("65f1c0ffee0000000000beef");
+        assertThat(KeysetCursor.decodeDocumentId(null)).isNull();
+        assertThatThrownBy(() -> KeysetCursor.decodeDocumentId(KeysetCursor.encode(42L)))
+                .isInstanceOf(KeysetCursor.KeysetCursorException.class);
+    }
+}
@@ -0,0 +1,31 @@
+package spengergasse.at.sj2425scherzerrabar.foundation;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class SearchKeyTest {
+
+    @Test
+    void folds_case_accents_and_whitespace() {
+        assertThat(SearchKey.of("  Wien-Döbling ")).isEqualTo("wien-dobling");
+        assertThat(SearchKey.of("São   Paulo")).isEqualTo("sao paulo");
+        assertThat(SearchKey.of("GROSSE Straße")).isEqualTo("grosse strasse");
+        assertThat(SearchKey.of("ŁÓDŹ")).isEqualTo(SearchKey.of("łódź"));
+        assertThat(SearchKey.of(null)).isNull();
+    }
+
+    @Test
+    void prefix_regex_is_anchored_and_escaped() {
+        String regex = SearchKey.prefixRegex("St. Pölten (NÖ)");
+
+        assertThat(regex).isEqualTo("^st\\. polten \\(no\\)");
+        assertThat(Pattern.compile(regex).matcher(SearchKey.of("St. Pölten (NÖ) Stadt")).find()).isTrue();
+        assertThat(Pattern.compile(regex).matcher("stx polten (no)").find()).isFalse();
+    }
+}
@@ -0,0 +1,32 @@
+package spengergasse.at.sj2425scherzerrabar.foundation;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class SuggestTermTest {
+
+    @Test
+    void ignores_input_shorter_than_min_length() {
+        assertThat(SuggestTerm.of(null)).isNull();
+        assertThat(SuggestTerm.of(" a ")).isNull();
+    }
+
+    @Test
+    void lowercases_and_escapes_like_wildcards() {
+        SuggestTerm term = SuggestTerm.of("  50%_Off\\ ");
+
+        assertThat(term.term()).isEqualTo("50%_off\\");
+        assertThat(term.prefix()).isEqualTo("50\\%\\_off\\\\%");
+    }
+
+    @Test
+    void clamps_limit() {
+        assertThat(SuggestTerm.limit(0)).isEqualTo(1);
+        assertThat(SuggestTerm.limit(10)).isEqualTo(10);
+        assertThat(SuggestTerm.limit(1_000)).isEqualTo(SuggestTerm.MAX_LIMIT);
+    }
+}
@@ -0,0 +1,127 @@
+package spengergasse.at.sj2425scherzerrabar.performance;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
+import spengergasse.at.sj2425scherzerrabar.domain.BookGenre;
+import spengergasse.at.sj2425scherzerrabar.domain.BookType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.foundation.ApiKeyFactory;
+
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: Durchsatz beim Laden von Books über Hibernate (Default-Konstruktor pro Zeile, darf keinen Key erzeugen) und
+ * beim Anlegen, dazu ApiKeys/s mit dem früheren Verfahren (ein gemeinsamer SecureRandom, nextInt pro Zeichen) gegen
+ * ApiKeyFactory. hydration braucht Docker (PostgreSQL- und MongoDB-Testcontainer), die anderen nicht.
+ * Nicht Teil von mvn test. Start über main (IDE) oder nach
+ * mvn test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=cp.txt
+ * mit -t 1 und -t 8 für einen und acht Threads:
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main ApiKeyGenerationBenchmark -t 8
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiKeyGenerationBenchmark {
+
+    static final int ROWS = 1_000;
+
+    private static final char[] ALPHABET = "123456789abcdefghijkmnopqrstuvwxyzABCDEFGHJKLMNPQRSTUVWXYZ".toCharArray();
+    private static final SecureRandom SHARED = new SecureRandom();
+
+    /**
+     * Anwendung gegen Testcontainer mit ROWS Books; nur für hydration
+     */
+    @State(Scope.Benchmark)
+    public static class Database {
+        ConfigurableApplicationContext context;
+        EntityManagerFactory entityManagerFactory;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = BenchmarkApplication.start();
+            entityManagerFactory = context.getBean(EntityManagerFactory.class);
+
+            Book first = newBook();
+            new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+                EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+                entityManager.persist(first);
+                for (int i = 1; i < ROWS; i++) {
+                    entityManager.persist(newBook());
+                }
+            });
+
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            try {
+                ApiKey loaded = entityManager.find(Book.class, first.getBookId().id()).getBookApiKey();
+                if (!first.getBookApiKey().equals(loaded)) {
+                    throw new IllegalStateException("hydration replaced the stored key " + first.getBookApiKey() + " by " + loaded);
+                }
+            } finally {
+                entityManager.close();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    /**
+     * Ein Select über ROWS Books in einem frischen Persistence Context, Ergebnis pro Zeile
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Book> hydration(Database database) {
+        EntityManager entityManager = database.entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.createQuery("select b from Book b", Book.class)
+                    .setMaxResults(ROWS)
+                    .getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public Book creation() {
+        return newBook();
+    }
+
+    @Benchmark
+    public String sharedSecureRandom() {
+        char[] result = new char[ApiKeyFactory.DEFAULT_LENGTH];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ALPHABET[SHARED.nextInt(ALPHABET.length)];
+        }
+        return new String(result);
+    }
+
+    @Benchmark
+    public ApiKey apiKeyFactory() {
+        return ApiKeyFactory.newApiKey();
+    }
+
+    private static Book newBook() {
+        return new Book("Benchmark", LocalDate.of(2020, 1, 1), true, 1_000, List.of(BookGenre.FANTASY), List.of(),
+                List.of(BookType.EBOOK), "ApiKey benchmark");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ApiKeyGenerationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package spengergasse.at.sj2425scherzerrabar.performance;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import spengergasse.at.sj2425scherzerrabar.commands.AuthorCommand;
+import spengergasse.at.sj2425scherzerrabar.commands.BookCommand;
+import spengergasse.at.sj2425scherzerrabar.domain.BookGenre;
+import spengergasse.at.sj2425scherzerrabar.domain.BookType;
+import spengergasse.at.sj2425scherzerrabar.service.AuthorService;
+import spengergasse.at.sj2425scherzerrabar.service.BookService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: Insert-Durchsatz für Books, einzeln (createBookJpaOnly pro Zeile) gegen createBooksBatchJpaOnly
+ * (ein IN-Query für die Authors, JDBC-Batching), jeweils mit Allocation Size 1 (ein nextval pro Zeile)
+ * und 100 (pooled Sequence). Jeder Trial startet eigene Testcontainer, Flyway setzt die Schrittweite der
+ * Sequences über den Placeholder id_allocation_size.
+ * Am Ende eines Trials werden JDBC-Statements und nextval-Aufrufe auf book_seq pro Zeile ausgegeben.
+ * Braucht Docker, nicht Teil von mvn test; Start wie ApiKeyGenerationBenchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchInsertBenchmark {
+
+    static final int ROWS = 500;
+    private static final int AUTHORS = 10;
+
+    @Param({"1", "100"})
+    public int allocationSize;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private JdbcTemplate jdbcTemplate;
+    private Statistics statistics;
+    private final List<String> authorApiKeys = new ArrayList<>();
+    private long sequenceValueBefore;
+    private long rows;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(
+                "--spring.flyway.placeholders.id_allocation_size=" + allocationSize,
+                "--spring.jpa.properties.hibernate.generate_statistics=true");
+        bookService = context.getBean(BookService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        AuthorService authorService = context.getBean(AuthorService.class);
+        for (int i = 0; i < AUTHORS; i++) {
+            authorApiKeys.add(authorService.createAuthorJpaOnly(new AuthorCommand(
+                    null, "batchpen_" + i, List.of("123-TestSt-1010"),
+                    "Batch" + i, "Author" + i, "batch" + i + "@test.com")).apiKey());
+        }
+
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        sequenceValueBefore = bookSequenceValue();
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        long sequenceCalls = (bookSequenceValue() - sequenceValueBefore) / allocationSize;
+        System.out.printf("allocationSize=%d: %d rows, %.3f JDBC statements and %.3f nextval calls per row%n",
+                allocationSize, rows, statistics.getPrepareStatementCount() / (double) rows,
+                sequenceCalls / (double) rows);
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<String> batch() {
+        return bookService.createBooksBatchJpaOnly(commands());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int single() {
+        commands().forEach(bookService::createBookJpaOnly);
+        return ROWS;
+    }
+
+    private List<BookCommand> commands() {
+        List<BookCommand> commands = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++, rows++) {
+            commands.add(new BookCommand(
+                    null, "Book_" + rows, LocalDate.now().minusDays(i),
+                    i % 2 == 0, List.of(BookType.HARDCOVER.name()), 1000 + i,
+                    "Description " + i, List.of(authorApiKeys.get(i % authorApiKeys.size())),
+                    List.of(BookGenre.FANTASY.name())));
+        }
+        return commands;
+    }
+
+    private long bookSequenceValue() {
+        return jdbcTemplate.queryForObject("select last_value from book_seq", Long.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BatchInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
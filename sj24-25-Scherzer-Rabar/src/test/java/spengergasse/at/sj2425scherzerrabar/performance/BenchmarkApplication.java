@@ -0,0 +1,30 @@
+package spengergasse.at.sj2425scherzerrabar.performance;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import spengergasse.at.sj2425scherzerrabar.MongoTestContainerConfig;
+import spengergasse.at.sj2425scherzerrabar.Sj2425ScherzerRabarApplication;
+import spengergasse.at.sj2425scherzerrabar.TestcontainersConfiguration;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Startet die Anwendung für die JMH-Benchmarks gegen PostgreSQL- und MongoDB-Testcontainer (braucht Docker),
+ * ohne Webserver und ohne Outbox-Relay. Zusätzliche Argumente überschreiben Properties.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        String[] arguments = Stream.concat(
+                Stream.of("--spring.main.web-application-type=none", "--mongo.outbox.relay-enabled=false"),
+                Arrays.stream(args)).toArray(String[]::new);
+        return SpringApplication.from(Sj2425ScherzerRabarApplication::main)
+                .with(TestcontainersConfiguration.class, MongoTestContainerConfig.class)
+                .run(arguments)
+                .getApplicationContext();
+    }
+}
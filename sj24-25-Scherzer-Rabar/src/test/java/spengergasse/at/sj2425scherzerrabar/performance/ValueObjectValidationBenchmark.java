@@ -0,0 +1,81 @@
+package spengergasse.at.sj2425scherzerrabar.performance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import spengergasse.at.sj2425scherzerrabar.domain.EmailAddress;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Address;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: Zeit pro Aufruf für EmailAddress (läuft beim Laden jedes Authors/Customers) und Address.addressFromString
+ * (jedes Command), jeweils gegen das frühere Verfahren (String.matches bzw. split("-") + Integer.parseInt).
+ * Allokation pro Aufruf über -prof gc (gc.alloc.rate.norm). Ohne Datenbank, nicht Teil von mvn test.
+ * main startet den GC-Profiler und bricht ab, wenn EmailAddress 64 oder Address 256 Bytes pro Aufruf erreicht.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValueObjectValidationBenchmark {
+
+    private static final String EMAIL_REGEX = "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
+    // Regex-Kompilierung allein allokiert mehrere hundert Bytes; übrig bleiben nur die Value Objects selbst
+    private static final Map<String, Double> MAX_BYTES_PER_CALL = Map.of(
+            "emailAddress", 64.0,
+            "addressFromString", 256.0);
+
+    // nicht final, damit JIT die Eingaben nicht als Konstanten faltet
+    String email = "first.last+library@mail.spengergasse.at";
+    String address = "spengergasse 20-Vienna-1050";
+
+    @Benchmark
+    public boolean stringMatches() {
+        return email.matches(EMAIL_REGEX);
+    }
+
+    @Benchmark
+    public EmailAddress emailAddress() {
+        return new EmailAddress(email);
+    }
+
+    @Benchmark
+    public Address splitParseInt() {
+        String[] parts = address.split("-");
+        return new Address(parts[0], parts[1], Integer.parseInt(parts[2]));
+    }
+
+    @Benchmark
+    public Address addressFromString() {
+        return Address.addressFromString(address);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        var results = new Runner(new OptionsBuilder()
+                .include(ValueObjectValidationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            String name = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            Double limit = MAX_BYTES_PER_CALL.get(name);
+            if (limit == null) {
+                continue;
+            }
+            Result<?> allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            if (allocation == null || allocation.getScore() >= limit) {
+                throw new IllegalStateException("%s allocates %s bytes per call, limit is %.0f"
+                        .formatted(name, allocation == null ? "?" : "%.1f".formatted(allocation.getScore()), limit));
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import spengergasse.at.sj2425scherzerrabar.MongoTestContainerConfig;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataMongoTest
+@Import(MongoTestContainerConfig.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class AuthorMongoRepositoryTest {
+
+    @Autowired
+    private AuthorMongoRepository repository;
+
+    @Test
+    void renamed_author_is_found_by_the_new_penname_prefix() {
+        repository.save(new AuthorDocument(1L, "Franz", "Kafka", "Kafka", "kafka@mail.com", "renamed-author"));
+
+        // wie updateAuthorWithMongo: Document laden, Penname setzen, speichern
+        AuthorDocument document = repository.findByApiKey("renamed-author").orElseThrow();
+        document.setPenname("Émile");
+        repository.save(document);
+
+        assertThat(repository.findByPennamePrefix("emi"))
+                .extracting(AuthorDocument::getApiKey)
+                .containsExactly("renamed-author");
+        assertThat(repository.findByPennamePrefix("kaf")).isEmpty();
+    }
+}
@@ -0,0 +1,184 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
+import spengergasse.at.sj2425scherzerrabar.TestcontainersConfiguration;
+import spengergasse.at.sj2425scherzerrabar.domain.BookGenre;
+import spengergasse.at.sj2425scherzerrabar.domain.BookType;
+import spengergasse.at.sj2425scherzerrabar.domain.EmailAddress;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookFilter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * BookFilterSpecifications gegen PostgreSQL: liefert die richtigen Books, und die häufigen Kombinationen
+ * lassen sich ohne Seq Scan ausführen (EXPLAIN (GENERIC_PLAN) des von Hibernate erzeugten SQL, enable_seqscan = off).
+ * Bei leeren Testtabellen wählt der Planer sonst immer den Seq Scan, deshalb wird nur geprüft, dass ein Index
+ * den Plan tragen kann - dass er bei echten Datenmengen gewählt wird, entscheidet die Statistik.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "spengergasse.at.sj2425scherzerrabar.persistence.BookFilterRepositoryTest$LastSelect")
+@Import(TestcontainersConfiguration.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class BookFilterRepositoryTest {
+
+    private static final Limit PAGE = Limit.of(51);
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private BookRepository bookRepository;
+
+    private Author author;
+    private Book romance;
+    private Book fantasy;
+    private Book thriller;
+
+    @BeforeEach
+    void setUp() {
+        author = entityManager.persist(new Author("Max", "Mustermann", List.of(FixturesFactory.address2()),
+                new EmailAddress("filter@mail.com"), "filterpen"));
+        Author other = entityManager.persist(new Author("Erika", "Musterfrau", List.of(FixturesFactory.address2()),
+                new EmailAddress("other@mail.com"), "otherpen"));
+        romance = entityManager.persist(new Book("Romance", LocalDate.of(1990, 5, 1), true, 1_000,
+                List.of(BookGenre.ROMANCE), List.of(author), List.of(BookType.EBOOK), "r"));
+        fantasy = entityManager.persist(new Book("Fantasy", LocalDate.of(2005, 5, 1), false, 90_000,
+                List.of(BookGenre.FANTASY, BookGenre.ROMANCE), List.of(author), List.of(BookType.HARDCOVER), "f"));
+        thriller = entityManager.persist(new Book("Thriller", LocalDate.of(2020, 5, 1), true, 50_000,
+                List.of(BookGenre.THRILLER), List.of(other), List.of(BookType.EBOOK, BookType.PAPERBACK), "t"));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // ==================== RESULTS ====================
+
+    @Test
+    void filters_by_genre() {
+        assertThat(idsMatching(new BookFilter(BookGenre.ROMANCE, null, null, null, null, null, null, null)))
+                .containsExactly(id(romance), id(fantasy));
+    }
+
+    @Test
+    void filters_by_type_and_availability() {
+        assertThat(idsMatching(new BookFilter(null, BookType.EBOOK, true, null, null, null, null, null)))
+                .containsExactly(id(romance), id(thriller));
+    }
+
+    @Test
+    void filters_by_open_and_closed_ranges() {
+        assertThat(idsMatching(new BookFilter(null, null, null, 10_000, null, null, null, null)))
+                .containsExactly(id(fantasy), id(thriller));
+        assertThat(idsMatching(new BookFilter(null, null, null, 10_000, 60_000, LocalDate.of(2000, 1, 1),
+                LocalDate.of(2030, 1, 1), null)))
+                .containsExactly(id(thriller));
+    }
+
+    @Test
+    void filters_by_author() {
+        assertThat(idsMatching(new BookFilter(BookGenre.ROMANCE, null, null, null, null, null, null,
+                author.getAuthorApiKey().apiKey())))
+                .containsExactly(id(romance), id(fantasy));
+    }
+
+    @Test
+    void empty_filter_pages_over_all_books() {
+        var all = new BookFilter(null, null, null, null, null, null, null, null);
+
+        assertThat(bookRepository.findBookIdsMatching(BookFilterSpecifications.matching(all), 0L, Limit.of(2)))
+                .containsExactly(id(romance), id(fantasy));
+        assertThat(bookRepository.findBookIdsMatching(BookFilterSpecifications.matching(all), id(fantasy), Limit.of(2)))
+                .containsExactly(id(thriller));
+    }
+
+    // ==================== PLANS ====================
+
+    @Test
+    void genre_filter_is_index_backed() {
+        assertIndexBacked(new BookFilter(BookGenre.FANTASY, null, null, null, null, null, null, null),
+                "ix_genres_of_book_genre", "ix_genres_of_book_book");
+    }
+
+    @Test
+    void genre_and_availability_filter_is_index_backed() {
+        assertIndexBacked(new BookFilter(BookGenre.FANTASY, null, true, null, null, null, null, null),
+                "ix_book_available_online");
+    }
+
+    @Test
+    void type_and_word_count_filter_is_index_backed() {
+        assertIndexBacked(new BookFilter(null, BookType.EBOOK, null, 10_000, 100_000, null, null, null),
+                "ix_book_word_count");
+    }
+
+    @Test
+    void release_range_and_author_filter_is_index_backed() {
+        assertIndexBacked(new BookFilter(null, null, null, null, null, LocalDate.of(2000, 1, 1),
+                LocalDate.of(2010, 1, 1), author.getAuthorApiKey().apiKey()),
+                "ix_book_release_date");
+    }
+
+    @Test
+    void all_criteria_filter_is_index_backed() {
+        assertIndexBacked(new BookFilter(BookGenre.ROMANCE, BookType.EBOOK, true, 500, 100_000,
+                LocalDate.of(1980, 1, 1), LocalDate.of(2030, 1, 1), author.getAuthorApiKey().apiKey()),
+                "ix_book_available_online", "ix_book_word_count", "ix_book_release_date");
+    }
+
+    private List<Long> idsMatching(BookFilter filter) {
+        return bookRepository.findBookIdsMatching(BookFilterSpecifications.matching(filter), 0L, PAGE);
+    }
+
+    /**
+     * @param expectedIndexes Indizes aus V1_3_7_0, von denen der Plan mindestens einen benutzen muss - ein Index Scan
+     *                        über book_pkey mit Filter auf alle Zeilen würde sonst auch als "index-backed" durchgehen
+     */
+    private void assertIndexBacked(BookFilter filter, String... expectedIndexes) {
+        LastSelect.sql = null;
+        idsMatching(filter);
+        String sql = LastSelect.sql;
+        assertThat(sql).isNotNull();
+
+        entityManager.getEntityManager().createNativeQuery("set local enable_seqscan = off").executeUpdate();
+        @SuppressWarnings("unchecked")
+        List<String> plan = entityManager.getEntityManager()
+                .createNativeQuery("explain (generic_plan) " + QueryPlans.numberedParameters(sql))
+                .getResultList();
+        String text = plan.stream().collect(Collectors.joining("\n"));
+
+        assertThat(text).as("plan of %s", sql).doesNotContain("Seq Scan").containsAnyOf(expectedIndexes);
+    }
+
+    private static long id(Book book) {
+        return book.getBookId().id();
+    }
+
+    /**
+     * Merkt sich das letzte SELECT, das Hibernate absetzt
+     */
+    public static class LastSelect implements StatementInspector {
+        static volatile String sql;
+
+        @Override
+        public String inspect(String statement) {
+            if (statement.stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+                sql = statement;
+            }
+            return statement;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.TestcontainersConfiguration;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
@@ -91,4 +92,16 @@ class BookRepositoryTest  {
         softly.assertAll();
     }
 
-}
\ No newline at end of file
+    @Test
+    void can_page_book_ids_with_keyset() {
+        var second = bookRepository.saveAndFlush(FixturesFactory.book(book.getAuthors().getFirst()));
+        long maxId = bookRepository.findMaxBookId().orElseThrow();
+
+        var firstPage = bookRepository.findBookIdsAfter(0L, maxId, Limit.of(1));
+        var nextPage = bookRepository.findBookIdsAfter(book.getBookId().id(), maxId, Limit.of(10));
+
+        assertThat(firstPage).hasSize(1);
+        assertThat(nextPage).contains(second.getBookId().id()).doesNotContain(book.getBookId().id());
+    }
+
+}
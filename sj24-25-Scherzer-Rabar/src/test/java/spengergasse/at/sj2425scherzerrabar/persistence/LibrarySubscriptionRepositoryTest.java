@@ -39,6 +39,17 @@ class LibrarySubscriptionRepositoryTest {
         assertNotNull(savedLibrarySubscription);
     }
 
+    @Test
+    void can_find_by_api_key() {
+        var saved = librarySubscriptionRepository.saveAndFlush(librarySubscription);
+
+        var found = librarySubscriptionRepository.findLibrarySubscriptionByLibrarySubscriptionApiKey(
+                saved.getLibrarySubscriptionApiKey().apiKey());
+
+        assertTrue(found.isPresent());
+        assertEquals(saved.getLibrarySubscriptionApiKey(), found.get().getLibrarySubscriptionApiKey());
+    }
+
     @Test
     void default_constr(){
         LibrarySubscription defaultconstructed = new LibrarySubscription();
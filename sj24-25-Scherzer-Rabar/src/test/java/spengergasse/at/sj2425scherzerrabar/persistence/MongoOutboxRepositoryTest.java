@@ -0,0 +1,70 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import spengergasse.at.sj2425scherzerrabar.TestcontainersConfiguration;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.Operation;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TestcontainersConfiguration.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class MongoOutboxRepositoryTest {
+
+    @Autowired
+    private MongoOutboxRepository repository;
+
+    @Test
+    void can_save() {
+        var saved = repository.saveAndFlush(new MongoOutboxEvent(AggregateType.BOOK, 1L, "bookKey", Operation.UPSERT));
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(saved.getAttempts()).isZero();
+    }
+
+    @Test
+    void lock_next_batch_returns_due_events_in_insert_order() {
+        var first = repository.save(new MongoOutboxEvent(AggregateType.BOOK, 1L, "bookKey", Operation.UPSERT));
+        var second = repository.save(new MongoOutboxEvent(AggregateType.AUTHOR, 2L, "authorKey", Operation.DELETE));
+        repository.flush();
+
+        var batch = repository.lockNextBatch(10, Instant.now().plusSeconds(1), 10);
+
+        assertThat(batch).extracting(MongoOutboxEvent::getId).containsExactly(first.getId(), second.getId());
+    }
+
+    @Test
+    void lock_next_batch_skips_events_waiting_for_retry_and_dead_events() {
+        var retry = new MongoOutboxEvent(AggregateType.BOOK, 1L, "bookKey", Operation.UPSERT);
+        retry.failed("mongo down", Instant.now().plus(1, ChronoUnit.HOURS));
+        var dead = new MongoOutboxEvent(AggregateType.BOOK, 2L, "otherKey", Operation.UPSERT);
+        dead.failed("mongo down", Instant.now());
+        repository.saveAllAndFlush(List.of(retry, dead));
+
+        assertThat(repository.lockNextBatch(1, Instant.now().plusSeconds(1), 10)).isEmpty();
+        assertThat(repository.countByAttemptsGreaterThanEqual(1)).isEqualTo(2);
+        assertThat(repository.findOldestPendingCreatedAt(1)).isEmpty();
+    }
+
+    @Test
+    void lock_by_id_finds_pending_events_and_nothing_once_they_are_deleted() {
+        var event = repository.saveAndFlush(new MongoOutboxEvent(AggregateType.BOOK, 1L, "bookKey", Operation.UPSERT));
+
+        assertThat(repository.lockById(event.getId().id())).contains(event);
+
+        repository.delete(event);
+        repository.flush();
+        assertThat(repository.lockById(event.getId().id())).isEmpty();
+    }
+}
@@ -0,0 +1,95 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import spengergasse.at.sj2425scherzerrabar.TestcontainersConfiguration;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoResyncCheckpoint;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TestcontainersConfiguration.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class MongoResyncCheckpointRepositoryTest {
+
+    @Autowired
+    private MongoResyncCheckpointRepository repository;
+
+    @Test
+    void can_save_and_advance() {
+        var checkpoint = new MongoResyncCheckpoint(AggregateType.BOOK, 0, 1L, 100L);
+        checkpoint.advance(50L, 50);
+        repository.saveAndFlush(checkpoint);
+
+        var found = repository.findById(checkpoint.getId()).orElseThrow();
+        assertThat(found.getLastSyncedId()).isEqualTo(50L);
+        assertThat(found.getSyncedCount()).isEqualTo(50L);
+        assertThat(found.getCompleted()).isFalse();
+    }
+
+    @Test
+    void find_by_aggregate_type_returns_partitions_in_order() {
+        repository.save(new MongoResyncCheckpoint(AggregateType.BOOK, 1, 51L, 100L));
+        repository.save(new MongoResyncCheckpoint(AggregateType.BOOK, 0, 1L, 50L));
+        repository.save(new MongoResyncCheckpoint(AggregateType.AUTHOR, 0, 1L, 10L));
+        repository.flush();
+
+        assertThat(repository.findByAggregateType(AggregateType.BOOK))
+                .extracting(c -> c.getId().partitionNo())
+                .containsExactly(0, 1);
+    }
+
+    @Test
+    void lock_claimable_skips_completed_and_validly_leased_partitions() {
+        Instant now = Instant.now();
+        var free = new MongoResyncCheckpoint(AggregateType.BOOK, 0, 0L, 10L);
+        var expired = new MongoResyncCheckpoint(AggregateType.BOOK, 1, 10L, 20L);
+        expired.lease("crashed-instance", now.minusSeconds(60));
+        var leased = new MongoResyncCheckpoint(AggregateType.BOOK, 2, 20L, 30L);
+        leased.lease("other-instance", now.plusSeconds(60));
+        var completed = new MongoResyncCheckpoint(AggregateType.BOOK, 3, 30L, 40L);
+        completed.complete();
+        repository.saveAll(List.of(free, expired, leased, completed));
+        repository.flush();
+
+        assertThat(repository.lockClaimable(AggregateType.BOOK.name(), now))
+                .extracting(c -> c.getId().partitionNo())
+                .containsExactly(0, 1);
+    }
+
+    @Test
+    void delete_by_aggregate_type_keeps_other_types() {
+        repository.save(new MongoResyncCheckpoint(AggregateType.BOOK, 0, 1L, 50L));
+        repository.save(new MongoResyncCheckpoint(AggregateType.AUTHOR, 0, 1L, 10L));
+        repository.flush();
+
+        repository.deleteByAggregateType(AggregateType.BOOK);
+
+        assertThat(repository.findByAggregateType(AggregateType.BOOK)).isEmpty();
+        assertThat(repository.findByAggregateType(AggregateType.AUTHOR)).hasSize(1);
+    }
+
+    @Test
+    void checkpoint_updates_only_apply_while_the_owner_holds_a_valid_lease() {
+        Instant now = Instant.now();
+        var owned = new MongoResyncCheckpoint(AggregateType.BOOK, 0, 0L, 10L);
+        owned.lease("this-instance", now.plusSeconds(60));
+        var expired = new MongoResyncCheckpoint(AggregateType.BOOK, 1, 10L, 20L);
+        expired.lease("this-instance", now.minusSeconds(60));
+        repository.saveAllAndFlush(List.of(owned, expired));
+
+        assertThat(repository.advanceLeased(owned.getId(), "this-instance", 5L, 5L, now.plusSeconds(120), now)).isEqualTo(1);
+        assertThat(repository.advanceLeased(owned.getId(), "other-instance", 6L, 6L, now.plusSeconds(120), now)).isZero();
+        assertThat(repository.advanceLeased(expired.getId(), "this-instance", 15L, 5L, now.plusSeconds(120), now)).isZero();
+        assertThat(repository.completeLeased(expired.getId(), "this-instance", now)).isZero();
+        assertThat(repository.completeLeased(owned.getId(), "this-instance", now)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,333 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
+import spengergasse.at.sj2425scherzerrabar.TestcontainersConfiguration;
+import spengergasse.at.sj2425scherzerrabar.domain.*;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Die Listen-Projektionen dürfen nicht pro Zeile nachladen (N+1):
+ * die Anzahl der JDBC-Statements muss gleich bleiben, wenn die Tabelle wächst
+ * (solange weniger Zeilen als hibernate.default_batch_fetch_size = 100 gelesen werden).
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(TestcontainersConfiguration.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ProjectionStatementCountTest {
+
+    private static final int FEW = 2;
+    private static final int MANY = 20;
+    private static final Limit ALL_IDS = Limit.of(100);
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+    @Autowired
+    private BuyableBookRepository buyableBookRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private LibraryRepository libraryRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Statistics statistics;
+    private int sequence = 0;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    // ==================== AUTHOR ====================
+
+    @Test
+    void author_find_all_projected_needs_constant_statements() {
+        persist(FEW, this::author);
+        long few = statementsFor(authorRepository::findAllProjected);
+        persist(MANY, this::author);
+        assertThat(statementsFor(authorRepository::findAllProjected)).isEqualTo(few);
+    }
+
+    @Test
+    void author_find_projected_by_ids_needs_constant_statements() {
+        persist(FEW, this::author);
+        long few = statementsFor(() -> authorRepository.findProjectedByIds(
+                authorRepository.findAuthorIdsAfter(0L, Long.MAX_VALUE, ALL_IDS)));
+        persist(MANY, this::author);
+        assertThat(statementsFor(() -> authorRepository.findProjectedByIds(
+                authorRepository.findAuthorIdsAfter(0L, Long.MAX_VALUE, ALL_IDS)))).isEqualTo(few);
+    }
+
+    // ==================== BOOK ====================
+
+    @Test
+    void book_find_all_projected_needs_constant_statements() {
+        persist(FEW, this::book);
+        long few = statementsFor(bookRepository::findAllProjected);
+        persist(MANY, this::book);
+        assertThat(statementsFor(bookRepository::findAllProjected)).isEqualTo(few);
+    }
+
+    @Test
+    void book_find_all_projected2_needs_constant_statements() {
+        persist(FEW, this::book);
+        long few = statementsFor(bookRepository::findAllProjected2);
+        persist(MANY, this::book);
+        assertThat(statementsFor(bookRepository::findAllProjected2)).isEqualTo(few);
+    }
+
+    @Test
+    void book_find_projected_by_author_needs_constant_statements() {
+        Author author = entityManager.persist(author());
+        String apiKey = author.getAuthorApiKey().apiKey();
+
+        persist(FEW, () -> FixturesFactory.book(author));
+        long few = statementsFor(() -> bookRepository.findProjectedBooksByAuthorsContains(apiKey));
+        persist(MANY, () -> FixturesFactory.book(author));
+        assertThat(statementsFor(() -> bookRepository.findProjectedBooksByAuthorsContains(apiKey))).isEqualTo(few);
+    }
+
+    @Test
+    void book_find_projected_by_ids_needs_constant_statements() {
+        persist(FEW, this::book);
+        long few = statementsFor(() -> bookRepository.findProjectedByIds(
+                bookRepository.findBookIdsAfter(0L, Long.MAX_VALUE, ALL_IDS)));
+        persist(MANY, this::book);
+        assertThat(statementsFor(() -> bookRepository.findProjectedByIds(
+                bookRepository.findBookIdsAfter(0L, Long.MAX_VALUE, ALL_IDS)))).isEqualTo(few);
+    }
+
+    // ==================== BORROWING ====================
+
+    @Test
+    void borrowing_find_all_projected_needs_constant_statements() {
+        persist(FEW, () -> borrowing(customer(), 2));
+        long few = statementsFor(borrowingRepository::findAllProjected);
+        persist(MANY, () -> borrowing(customer(), 2));
+        assertThat(statementsFor(borrowingRepository::findAllProjected)).isEqualTo(few);
+    }
+
+    @Test
+    void borrowing_find_projected_by_customer_needs_constant_statements() {
+        Customer customer = entityManager.persist(customer());
+        String apiKey = customer.getCustomerApiKey().apiKey();
+
+        persist(FEW, () -> borrowing(customer, 2));
+        long few = statementsFor(() -> borrowingRepository.findProjectedBorrowingsByCustomerByCustomer(apiKey));
+        persist(MANY, () -> borrowing(customer, 2));
+        assertThat(statementsFor(() -> borrowingRepository.findProjectedBorrowingsByCustomerByCustomer(apiKey)))
+                .isEqualTo(few);
+    }
+
+    @Test
+    void borrowing_find_projected_by_copy_needs_constant_statements() {
+        Borrowing small = entityManager.persist(borrowing(customer(), FEW));
+        Borrowing large = entityManager.persist(borrowing(customer(), MANY));
+
+        long few = statementsFor(() -> borrowingRepository.findProjectedBorrowingsByCopiesContains(
+                small.getCopies().getFirst().getCopyApiKey().apiKey()));
+        assertThat(statementsFor(() -> borrowingRepository.findProjectedBorrowingsByCopiesContains(
+                large.getCopies().getFirst().getCopyApiKey().apiKey()))).isEqualTo(few);
+    }
+
+    @Test
+    void borrowing_find_projected_by_ids_needs_constant_statements() {
+        persist(FEW, () -> borrowing(customer(), 2));
+        long few = statementsFor(() -> borrowingRepository.findProjectedByIds(
+                borrowingRepository.findBorrowingIdsAfter(0L, ALL_IDS)));
+        persist(MANY, () -> borrowing(customer(), 2));
+        assertThat(statementsFor(() -> borrowingRepository.findProjectedByIds(
+                borrowingRepository.findBorrowingIdsAfter(0L, ALL_IDS)))).isEqualTo(few);
+    }
+
+    // ==================== BUYABLE BOOK ====================
+
+    @Test
+    void buyable_book_find_all_projected_needs_constant_statements() {
+        persist(FEW, this::buyableBook);
+        long few = statementsFor(buyableBookRepository::findAllProjected);
+        persist(MANY, this::buyableBook);
+        assertThat(statementsFor(buyableBookRepository::findAllProjected)).isEqualTo(few);
+    }
+
+    @Test
+    void buyable_book_find_projected_by_book_type_needs_constant_statements() {
+        persist(FEW, this::buyableBook);
+        long few = statementsFor(() -> buyableBookRepository.findProjectedByBookType(BookType.EBOOK));
+        persist(MANY, this::buyableBook);
+        assertThat(statementsFor(() -> buyableBookRepository.findProjectedByBookType(BookType.EBOOK))).isEqualTo(few);
+    }
+
+    // ==================== CUSTOMER ====================
+
+    @Test
+    void customer_find_all_projected_needs_constant_statements() {
+        persist(FEW, this::customer);
+        long few = statementsFor(customerRepository::findAllProjected);
+        persist(MANY, this::customer);
+        assertThat(statementsFor(customerRepository::findAllProjected)).isEqualTo(few);
+    }
+
+    @Test
+    void customer_find_projected_by_ids_needs_constant_statements() {
+        persist(FEW, this::customer);
+        long few = statementsFor(() -> customerRepository.findProjectedByIds(
+                customerRepository.findCustomerIdsAfter(0L, ALL_IDS)));
+        persist(MANY, this::customer);
+        assertThat(statementsFor(() -> customerRepository.findProjectedByIds(
+                customerRepository.findCustomerIdsAfter(0L, ALL_IDS)))).isEqualTo(few);
+    }
+
+    // ==================== LIBRARY ====================
+
+    @Test
+    void library_find_all_projected_needs_constant_statements() {
+        persist(FEW, this::library);
+        long few = statementsFor(libraryRepository::findAllProjected);
+        persist(MANY, this::library);
+        assertThat(statementsFor(libraryRepository::findAllProjected)).isEqualTo(few);
+    }
+
+    @Test
+    void library_find_projected_by_ids_needs_constant_statements() {
+        persist(FEW, this::library);
+        long few = statementsFor(() -> libraryRepository.findProjectedByIds(
+                libraryRepository.findLibraryIdsAfter(0L, ALL_IDS)));
+        persist(MANY, this::library);
+        assertThat(statementsFor(() -> libraryRepository.findProjectedByIds(
+                libraryRepository.findLibraryIdsAfter(0L, ALL_IDS)))).isEqualTo(few);
+    }
+
+    // ==================== ORDER ====================
+
+    @Test
+    void order_find_all_projected_needs_constant_statements() {
+        persist(FEW, () -> order(customer()));
+        long few = statementsFor(orderRepository::findAllProjected);
+        persist(MANY, () -> order(customer()));
+        assertThat(statementsFor(orderRepository::findAllProjected)).isEqualTo(few);
+    }
+
+    @Test
+    void order_find_projected_by_customer_needs_constant_statements() {
+        Customer customer = entityManager.persist(customer());
+        String apiKey = customer.getCustomerApiKey().apiKey();
+
+        persist(FEW, () -> order(customer));
+        long few = statementsFor(() -> orderRepository.findAllProjectedByCustomerApiKey(apiKey));
+        persist(MANY, () -> order(customer));
+        assertThat(statementsFor(() -> orderRepository.findAllProjectedByCustomerApiKey(apiKey))).isEqualTo(few);
+    }
+
+    @Test
+    void order_find_projected_by_date_needs_constant_statements() {
+        LocalDate date = LocalDate.of(2025, 2, 5);
+
+        persist(FEW, () -> order(customer()));
+        long few = statementsFor(() -> orderRepository.findAllProjectedByDate(date));
+        persist(MANY, () -> order(customer()));
+        assertThat(statementsFor(() -> orderRepository.findAllProjectedByDate(date))).isEqualTo(few);
+    }
+
+    @Test
+    void order_find_projected_by_ids_needs_constant_statements() {
+        persist(FEW, () -> order(customer()));
+        long few = statementsFor(() -> orderRepository.findProjectedByIds(
+                orderRepository.findOrderIdsAfter(0L, ALL_IDS)));
+        persist(MANY, () -> order(customer()));
+        assertThat(statementsFor(() -> orderRepository.findProjectedByIds(
+                orderRepository.findOrderIdsAfter(0L, ALL_IDS)))).isEqualTo(few);
+    }
+
+    // ==================== HELPER ====================
+
+    /**
+     * Leert den Persistence Context (sonst kommt alles aus dem 1st-Level-Cache) und zählt die
+     * JDBC-Statements der Projektion inklusive aller nachgeladenen Collections
+     */
+    private long statementsFor(Supplier<? extends Collection<?>> projection) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        assertThat(projection.get()).isNotEmpty();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void persist(int count, Supplier<?> entity) {
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(entity.get());
+        }
+    }
+
+    // penname und email sind unique
+    private Author author() {
+        int n = ++sequence;
+        return new Author("Max", "Mustermann", List.of(FixturesFactory.address2()),
+                new EmailAddress("author" + n + "@mail.com"), "penname" + n);
+    }
+
+    private Customer customer() {
+        int n = ++sequence;
+        return new Customer("Max", "Mustermann", new EmailAddress("customer" + n + "@mail.com"),
+                List.of(FixturesFactory.libraryAddress()));
+    }
+
+    private Book book() {
+        return FixturesFactory.book(author());
+    }
+
+    private Library library() {
+        return FixturesFactory.thalia(FixturesFactory.address2(), List.of(FixturesFactory.libBook(book())));
+    }
+
+    private BuyableBook buyableBook() {
+        return new BuyableBook(FixturesFactory.publisher(FixturesFactory.address2()), BookType.EBOOK, 500, book(), 4.5f);
+    }
+
+    private Copy copy() {
+        return new Copy(FixturesFactory.publisher(FixturesFactory.address2()), BookType.PAPERBACK, 244, book(),
+                new Branch(library(), FixturesFactory.address2()));
+    }
+
+    private Borrowing borrowing(Customer customer, int copies) {
+        List<Copy> borrowed = new ArrayList<>();
+        for (int i = 0; i < copies; i++) {
+            borrowed.add(copy());
+        }
+        return FixturesFactory.borrowing(customer, borrowed);
+    }
+
+    private Order order(Customer customer) {
+        var subscription = new LibrarySubscription("Premium", "dadasdasdsa", 25.5, library());
+        return new Order(customer, List.of(subscription), LocalDate.of(2025, 2, 5),
+                List.of(buyableBook(), buyableBook()));
+    }
+}
@@ -1,16 +1,21 @@
 package spengergasse.at.sj2425scherzerrabar.persistence;
 
 import org.assertj.core.api.SoftAssertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.DisplayNameGenerator;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.context.annotation.Import;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.TestcontainersConfiguration;
 import spengergasse.at.sj2425scherzerrabar.domain.Publisher;
+import spengergasse.at.sj2425scherzerrabar.dtos.PublisherDto;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,6 +27,8 @@ class PublisherRepositoryTest {
 
     @Autowired
     private PublisherRepository publisherRepository;
+    @Autowired
+    private TestEntityManager entityManager;
     private Publisher publisher;
     private boolean isInitialized = false;
 
@@ -88,4 +95,35 @@ class PublisherRepositoryTest {
         assertThat(publisherRepository.findProjectedByName("Name not existent")).isNotPresent();
     }
 
-}
\ No newline at end of file
+    @Test
+    void can_page_publishers_with_keyset() {
+        var ids = publisherRepository.findPublisherIdsAfter(0L, Limit.of(10));
+        var page = publisherRepository.findProjectedByIds(ids);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(ids).isNotEmpty().isSorted();
+        softly.assertThat(page).extracting(PublisherDto::apiKey).contains(publisher.getPublisherApiKey().apiKey());
+        softly.assertThat(publisherRepository.findPublisherIdsAfter(ids.getLast(), Limit.of(10))).isEmpty();
+        softly.assertAll();
+    }
+
+    @Test
+    void resolves_api_key_from_second_level_cache() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        publisherRepository.findPublisherByPublisherApiKey(publisher.getPublisherApiKey());
+        entityManager.clear();
+        statistics.clear();
+
+        var found = publisherRepository.findPublisherByPublisherApiKey(publisher.getPublisherApiKey());
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(found).map(Publisher::getName).contains(publisher.getName());
+        softly.assertThat(statistics.getPrepareStatementCount()).isZero();
+        softly.assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+        softly.assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        softly.assertAll();
+    }
+
+}
@@ -0,0 +1,101 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.assertj.core.api.SoftAssertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
+import spengergasse.at.sj2425scherzerrabar.TestcontainersConfiguration;
+import spengergasse.at.sj2425scherzerrabar.domain.Branch;
+import spengergasse.at.sj2425scherzerrabar.domain.Publisher;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Second-Level Cache für die Referenzen, die createCopy per ApiKey auflöst (Publisher, Branch samt Library):
+ * mit warmem Cache ohne JDBC-Statement, nach evictAll wieder aus der Datenbank.
+ */
+@DataJpaTest
+@Import(TestcontainersConfiguration.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private PublisherRepository publisherRepository;
+    @Autowired
+    private BranchRepository branchRepository;
+
+    private Publisher publisher;
+    private Branch branch;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        publisher = entityManager.persist(FixturesFactory.publisher(FixturesFactory.address2()));
+        branch = entityManager.persist(new Branch(FixturesFactory.thalia(FixturesFactory.address2(), List.of()),
+                FixturesFactory.address2()));
+        entityManager.flush();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        evictAll();
+    }
+
+    private void evictAll() {
+        entityManager.getEntityManager().getEntityManagerFactory().getCache().evictAll();
+    }
+
+    /**
+     * Löst beide Referenzen in einem leeren Persistence Context auf, wie ein neuer Request
+     */
+    private void resolveReferences() {
+        entityManager.clear();
+        assertThat(publisherRepository.findPublisherByPublisherApiKey(publisher.getPublisherApiKey())).isPresent();
+        assertThat(branchRepository.findBranchByBranchApiKey(branch.getBranchApiKey()))
+                .map(found -> found.getLibrary().getName())
+                .contains(branch.getLibrary().getName());
+    }
+
+    @Test
+    void warm_cache_resolves_the_references_without_statements() {
+        resolveReferences();
+        statistics.clear();
+
+        resolveReferences();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(statistics.getPrepareStatementCount()).isZero();
+        softly.assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(2);
+        softly.assertThat(statistics.getNaturalIdCacheMissCount()).isZero();
+        // Publisher, Branch und die Library des Branch
+        softly.assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(3);
+        softly.assertAll();
+    }
+
+    @Test
+    void evicted_references_are_read_from_the_database_again() {
+        resolveReferences();
+        evictAll();
+        statistics.clear();
+
+        resolveReferences();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(statistics.getPrepareStatementCount()).isPositive();
+        softly.assertThat(statistics.getNaturalIdCacheHitCount()).isZero();
+        softly.assertThat(statistics.getNaturalIdCacheMissCount()).isEqualTo(2);
+        softly.assertThat(statistics.getSecondLevelCacheHitCount()).isZero();
+        softly.assertAll();
+    }
+}
@@ -0,0 +1,107 @@
+package spengergasse.at.sj2425scherzerrabar.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
+import spengergasse.at.sj2425scherzerrabar.TestcontainersConfiguration;
+import spengergasse.at.sj2425scherzerrabar.domain.BookGenre;
+import spengergasse.at.sj2425scherzerrabar.domain.BookType;
+import spengergasse.at.sj2425scherzerrabar.domain.EmailAddress;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.dtos.Suggestion;
+import spengergasse.at.sj2425scherzerrabar.foundation.SuggestTerm;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Typeahead-Queries (native, pg_trgm) gegen PostgreSQL: Präfix-Treffer zuerst, Tippfehler über word_similarity
+ */
+@DataJpaTest
+@Import(TestcontainersConfiguration.class)
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class SuggestQueryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    private Book prefixed;
+    private Book similar;
+
+    @BeforeEach
+    void setUp() {
+        Author kafka = entityManager.persist(new Author("Franz", "Kafka", List.of(FixturesFactory.address2()),
+                new EmailAddress("kafka@mail.com"), "kafka"));
+        entityManager.persist(new Author("Max", "Kafkaesk", List.of(FixturesFactory.address2()),
+                new EmailAddress("kafkaesk@mail.com"), "maxi"));
+        entityManager.persist(new Author("Erika", "Musterfrau", List.of(FixturesFactory.address2()),
+                new EmailAddress("erika@mail.com"), "erika"));
+        similar = entityManager.persist(book("Der Prozess", kafka));
+        prefixed = entityManager.persist(book("Prozessakten", kafka));
+        entityManager.persist(book("Das Schloss", kafka));
+        entityManager.flush();
+    }
+
+    private static Book book(String name, Author author) {
+        return new Book(name, LocalDate.of(1925, 4, 26), true, 90_000, List.of(BookGenre.THRILLER),
+                List.of(author), List.of(BookType.EBOOK), "Josef K.");
+    }
+
+    private static Suggestion suggestion(Book book) {
+        return new Suggestion(book.getBookApiKey().apiKey(), book.getName());
+    }
+
+    @Test
+    void book_prefix_matches_come_before_similar_names() {
+        assertThat(bookRepository.findSuggestions(SuggestTerm.of("Prozess"), 10))
+                .containsExactly(suggestion(prefixed), suggestion(similar));
+    }
+
+    @Test
+    void book_names_with_a_typo_are_found_by_word_similarity() {
+        // "der prozess" beginnt nicht mit "prozes", der Treffer kommt aus word_similarity
+        assertThat(bookRepository.findSuggestions(SuggestTerm.of("Prozes"), 10))
+                .contains(suggestion(similar))
+                .extracting(Suggestion::label)
+                .doesNotContain("Das Schloss");
+    }
+
+    @Test
+    void book_suggestions_are_limited() {
+        assertThat(bookRepository.findSuggestions(SuggestTerm.of("Prozess"), 1))
+                .containsExactly(suggestion(prefixed));
+    }
+
+    @Test
+    void like_wildcards_in_the_input_are_matched_literally() {
+        assertThat(bookRepository.findSuggestions(SuggestTerm.of("%%"), 10)).isEmpty();
+        assertThat(bookRepository.findSuggestions(SuggestTerm.of("__"), 10)).isEmpty();
+    }
+
+    @Test
+    void authors_are_found_by_penname_or_last_name_prefix() {
+        assertThat(authorRepository.findSuggestions(SuggestTerm.of("kaf"), 10))
+                .extracting(Suggestion::label)
+                .containsExactly("kafka (Franz Kafka)", "maxi (Max Kafkaesk)");
+    }
+
+    @Test
+    void authors_with_a_typo_are_found_by_word_similarity() {
+        assertThat(authorRepository.findSuggestions(SuggestTerm.of("Mustrfrau"), 10))
+                .extracting(Suggestion::value)
+                .containsExactly("erika");
+    }
+}
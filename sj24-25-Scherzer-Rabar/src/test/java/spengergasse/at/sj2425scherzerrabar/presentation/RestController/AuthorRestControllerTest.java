@@ -17,7 +17,9 @@ import org.springframework.web.context.WebApplicationContext;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
 import spengergasse.at.sj2425scherzerrabar.dtos.AuthorDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
 import spengergasse.at.sj2425scherzerrabar.commands.AuthorCommand;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.AuthorService;
 
 import java.util.List;
@@ -30,6 +32,8 @@ import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.docu
 import static org.springframework.restdocs.payload.PayloadDocumentation.*;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.restdocs.request.RequestDocumentation.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -51,11 +55,16 @@ class AuthorRestControllerTest {
     @MockitoBean
     private AuthorService authorService;
 
+    @MockitoBean
+    private CollectionExportService collectionExportService;
+
     @Test
     public void should_return_author_when_author_exists() throws Exception {
         // Setup test data
         Author author = FixturesFactory.author();
-        AuthorDto dto = AuthorDto.authorDtoFromAuthor(author);
+        AuthorDto unsaved = AuthorDto.authorDtoFromAuthor(author);
+        AuthorDto dto = new AuthorDto(unsaved.apiKey(), unsaved.penname(), unsaved.address(), unsaved.firstname(),
+                unsaved.lastname(), unsaved.emailAddress(), 3L);
 
         // Mock service call
         when(authorService.getAuthor(any())).thenReturn(dto);
@@ -64,6 +73,7 @@ class AuthorRestControllerTest {
         mockMvc.perform(get("/api/authors/author").param("apiKey","ValidApiKey")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.apiKey").value(dto.apiKey()))
                 .andExpect(jsonPath("$.penname").value(dto.penname()))
@@ -166,28 +176,38 @@ class AuthorRestControllerTest {
         AuthorDto dto = AuthorDto.authorDtoFromAuthor(author);
 
         // Mock service call
-        when(authorService.getAuthors()).thenReturn(List.of(dto));
+        when(authorService.getAuthorsPageETag(any(), any())).thenReturn("\"5d41402abc4b2a76\"");
+        when(authorService.getAuthorsPage(any(), any())).thenReturn(new KeysetPage<>(List.of(dto), 50, "bmV4dA", null));
 
         // Perform GET request and validate response
-        mockMvc.perform(get("/api/authors")
+        mockMvc.perform(get("/api/authors").param("limit", "50")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].apiKey").value(dto.apiKey()))
-                .andExpect(jsonPath("$[0].penname").value(dto.penname()))
-                .andExpect(jsonPath("$[0].firstname").value(dto.firstname()))
-                .andExpect(jsonPath("$[0].lastname").value(dto.lastname()))
-                .andExpect(jsonPath("$[0].emailAddress").value(dto.emailAddress()))
-                .andExpect(jsonPath("$[0].address").isArray())
-                .andExpect(jsonPath("$[0].address[0]").value(dto.address().getFirst()))
+                .andExpect(jsonPath("$.items[0].apiKey").value(dto.apiKey()))
+                .andExpect(jsonPath("$.items[0].penname").value(dto.penname()))
+                .andExpect(jsonPath("$.items[0].firstname").value(dto.firstname()))
+                .andExpect(jsonPath("$.items[0].lastname").value(dto.lastname()))
+                .andExpect(jsonPath("$.items[0].emailAddress").value(dto.emailAddress()))
+                .andExpect(jsonPath("$.items[0].address").isArray())
+                .andExpect(jsonPath("$.items[0].address[0]").value(dto.address().getFirst()))
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(header().string("Link", containsString("after=bmV4dA")))
                 .andDo(document("authors/get-all",
+                        queryParameters(
+                                parameterWithName("limit").description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
                         responseFields(
-                                fieldWithPath("[].apiKey").description("The API key of the author"),
-                                fieldWithPath("[].penname").description("The pen name of the author"),
-                                fieldWithPath("[].firstname").description("The author's first name"),
-                                fieldWithPath("[].lastname").description("The author's last name"),
-                                fieldWithPath("[].emailAddress").description("The author's email address"),
-                                fieldWithPath("[].address").description("List of author address")
+                                fieldWithPath("items[].apiKey").description("The API key of the author"),
+                                fieldWithPath("items[].penname").description("The pen name of the author"),
+                                fieldWithPath("items[].firstname").description("The author's first name"),
+                                fieldWithPath("items[].lastname").description("The author's last name"),
+                                fieldWithPath("items[].emailAddress").description("The author's email address"),
+                                fieldWithPath("items[].address").description("List of author address"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
                         )));
 
     }
@@ -199,8 +219,8 @@ class AuthorRestControllerTest {
     @Test
     public void should_create_author() throws Exception {
         AuthorCommand command = new AuthorCommand("newApiKey", "PenName", List.of("123 Main St"), "First", "Last", "author@example.com");
-        AuthorDto dto = new AuthorDto("newApiKey", "PenName", List.of("123 Main St"), "First", "Last", "author@example.com");
-        Link expectedSelfLink = linkTo(methodOn(AuthorRestController.class).getAuthor(Optional.of(dto.apiKey()),null,null)).withSelfRel();
+        AuthorDto dto = new AuthorDto("newApiKey", "PenName", List.of("123 Main St"), "First", "Last", "author@example.com", 1L);
+        Link expectedSelfLink = linkTo(methodOn(AuthorRestController.class).getAuthor(Optional.of(dto.apiKey()),null,null,null)).withSelfRel();
         String expectedLocation = expectedSelfLink.toUri().toString();
 
         // Mock service to return created author
@@ -246,7 +266,7 @@ class AuthorRestControllerTest {
     @Test
     public void should_update_author() throws Exception {
         AuthorCommand command = new AuthorCommand("updatedApiKey", "UpdatedPenName", List.of("456 Other St"), "UpdatedFirst", "UpdatedLast", "updated@example.com");
-        AuthorDto dto = new AuthorDto("updatedApiKey", "UpdatedPenName", List.of("456 Other St"), "UpdatedFirst", "UpdatedLast", "updated@example.com");
+        AuthorDto dto = new AuthorDto("updatedApiKey", "UpdatedPenName", List.of("456 Other St"), "UpdatedFirst", "UpdatedLast", "updated@example.com", 1L);
 
         // Mock service to update author
         when(authorService.updateAuthor(any())).thenReturn(dto);
@@ -344,4 +364,18 @@ class AuthorRestControllerTest {
                                 fieldWithPath("instance").description("the url used for the request")
                         )));
     }
+
+    @Test
+    public void should_return_not_modified_when_author_is_unchanged() throws Exception {
+        when(authorService.getAuthor(any())).thenReturn(
+                new AuthorDto("ValidApiKey", "PenName", List.of("123 Main St"), "First", "Last", "author@example.com", 3L));
+
+        mockMvc.perform(get("/api/authors/author").param("apiKey","ValidApiKey")
+                        .header("If-None-Match", "\"2\", \"3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(authorService, times(1)).getAuthor(any());
+    }
 }
@@ -16,9 +16,22 @@ import org.springframework.test.web.servlet.MockMvc;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
 import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.domain.BookGenre;
+import spengergasse.at.sj2425scherzerrabar.domain.BookType;
 import spengergasse.at.sj2425scherzerrabar.dtos.BookDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookFacets;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookFilter;
+import spengergasse.at.sj2425scherzerrabar.dtos.BookSearchHit;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.dtos.BulkImportReport;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
+import spengergasse.at.sj2425scherzerrabar.service.BookBulkImportService;
+import spengergasse.at.sj2425scherzerrabar.service.BookFacetService;
+import spengergasse.at.sj2425scherzerrabar.service.BookFilterService;
+import spengergasse.at.sj2425scherzerrabar.service.BookSearchService;
 import spengergasse.at.sj2425scherzerrabar.service.BookService;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.hamcrest.Matchers.containsString;
@@ -29,6 +42,9 @@ import static org.springframework.restdocs.payload.PayloadDocumentation.*;
 
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.restdocs.request.RequestDocumentation.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -46,12 +62,29 @@ class BookRestControllerTest {
     @MockitoBean
     private BookService bookService;
 
+    @MockitoBean
+    private CollectionExportService collectionExportService;
+
+    @MockitoBean
+    private BookBulkImportService bulkImportService;
+
+    @MockitoBean
+    private BookSearchService bookSearchService;
+
+    @MockitoBean
+    private BookFacetService bookFacetService;
+
+    @MockitoBean
+    private BookFilterService bookFilterService;
+
 
     @Test
     public void should_return_book_when_book_exists() throws Exception {
         Author author = FixturesFactory.author();
         Book book = FixturesFactory.book(author);
-        BookDto dto = BookDto.bookDtoFromBook(book);
+        BookDto unsaved = BookDto.bookDtoFromBook(book);
+        BookDto dto = new BookDto(unsaved.apiKey(), unsaved.name(), unsaved.releaseDate(), unsaved.availableOnline(),
+                unsaved.types(), unsaved.wordCount(), unsaved.description(), unsaved.authorIds(), unsaved.genres(), 3L);
 
         when(bookService.getBook(any())).thenReturn(dto);
 
@@ -59,6 +92,7 @@ class BookRestControllerTest {
                         .param("apiKey","ValidApiKeyForBook")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.apiKey").value(dto.apiKey()))
                 .andExpect(jsonPath("$.name").value(dto.name()))
@@ -141,46 +175,202 @@ class BookRestControllerTest {
         Author author = FixturesFactory.author();
         Book book = FixturesFactory.book(author);
         BookDto dto = BookDto.bookDtoFromBook(book);
-        when(bookService.getBooks(null)).thenReturn(List.of(dto));
+        when(bookService.getBooksPageETag(any(), any())).thenReturn("\"5d41402abc4b2a76\"");
+        when(bookService.getBooksPage(any(), any())).thenReturn(new KeysetPage<>(List.of(dto), 50, "bmV4dA", null));
 
-        mockMvc.perform(get("/api/books")
+        mockMvc.perform(get("/api/books").param("limit", "50")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].apiKey").value(dto.apiKey()))
-                .andExpect(jsonPath("$[0].name").value(dto.name()))
-                .andExpect(jsonPath("$[0].releaseDate").value(dto.releaseDate().toString()))
-                .andExpect(jsonPath("$[0].availableOnline").value(dto.availableOnline()))
-                .andExpect(jsonPath("$[0].types").isArray())
-                .andExpect(jsonPath("$[0].types[0]").value(dto.types().getFirst()))
-                .andExpect(jsonPath("$[0].wordCount").value(dto.wordCount()))
-                .andExpect(jsonPath("$[0].description").value(dto.description()))
-                .andExpect(jsonPath("$[0].authorIds").isArray())
-                .andExpect(jsonPath("$[0].authorIds[0]").value(dto.authorIds().getFirst()))
-                .andExpect(jsonPath("$[0].genres").isArray())
-                .andExpect(jsonPath("$[0].genres[0]").value(dto.genres().getFirst()))
+                .andExpect(jsonPath("$.items[0].apiKey").value(dto.apiKey()))
+                .andExpect(jsonPath("$.items[0].name").value(dto.name()))
+                .andExpect(jsonPath("$.items[0].releaseDate").value(dto.releaseDate().toString()))
+                .andExpect(jsonPath("$.items[0].availableOnline").value(dto.availableOnline()))
+                .andExpect(jsonPath("$.items[0].types").isArray())
+                .andExpect(jsonPath("$.items[0].types[0]").value(dto.types().getFirst()))
+                .andExpect(jsonPath("$.items[0].wordCount").value(dto.wordCount()))
+                .andExpect(jsonPath("$.items[0].description").value(dto.description()))
+                .andExpect(jsonPath("$.items[0].authorIds").isArray())
+                .andExpect(jsonPath("$.items[0].authorIds[0]").value(dto.authorIds().getFirst()))
+                .andExpect(jsonPath("$.items[0].genres").isArray())
+                .andExpect(jsonPath("$.items[0].genres[0]").value(dto.genres().getFirst()))
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(header().string("Link", containsString("after=bmV4dA")))
                 .andDo(document("books/get-all",
+                        queryParameters(
+                                parameterWithName("limit").description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
                         responseFields(
-                                fieldWithPath("[].apiKey").description("The API key of the book"),
-                                fieldWithPath("[].name").description("The name of the book"),
-                                fieldWithPath("[].releaseDate").description("The release date of the book"),
-                                fieldWithPath("[].availableOnline").description("Availability status of the book"),
-                                fieldWithPath("[].types").description("List of book types"),
-                                fieldWithPath("[].wordCount").description("Total word count of the book"),
-                                fieldWithPath("[].description").description("Short description of the book"),
-                                fieldWithPath("[].authorIds").description("List of author API keys associated with the book"),
-                                fieldWithPath("[].genres").description("List of book genres")
+                                fieldWithPath("items[].apiKey").description("The API key of the book"),
+                                fieldWithPath("items[].name").description("The name of the book"),
+                                fieldWithPath("items[].releaseDate").description("The release date of the book"),
+                                fieldWithPath("items[].availableOnline").description("Availability status of the book"),
+                                fieldWithPath("items[].types").description("List of book types"),
+                                fieldWithPath("items[].wordCount").description("Total word count of the book"),
+                                fieldWithPath("items[].description").description("Short description of the book"),
+                                fieldWithPath("items[].authorIds").description("List of author API keys associated with the book"),
+                                fieldWithPath("items[].genres").description("List of book genres"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
                         )));
     }
 
 
+    @Test
+    public void should_search_books() throws Exception {
+        BookSearchHit hit = new BookSearchHit("bookApiKey", "Der Process", LocalDate.of(1925, 4, 26), List.of("Kafka"), 11.5);
+        when(bookSearchService.search(eq("process"), any(), any())).thenReturn(new KeysetPage<>(List.of(hit), 20, "c2NvcmU", null));
+
+        mockMvc.perform(get("/api/books/search").param("q", "process").param("limit", "20")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].apiKey").value(hit.apiKey()))
+                .andExpect(jsonPath("$.items[0].pennames[0]").value("Kafka"))
+                .andExpect(jsonPath("$.items[0].score").value(hit.score()))
+                .andExpect(header().string("Link", containsString("q=process")))
+                .andExpect(header().string("Link", containsString("after=c2NvcmU")))
+                .andDo(document("books/search",
+                        queryParameters(
+                                parameterWithName("q").description("Search words; \"...\" for a phrase, -word to exclude"),
+                                parameterWithName("limit").description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
+                        responseFields(
+                                fieldWithPath("items[].apiKey").description("The API key of the book"),
+                                fieldWithPath("items[].name").description("The name of the book"),
+                                fieldWithPath("items[].releaseDate").description("The release date of the book"),
+                                fieldWithPath("items[].pennames").description("Pennames of the book's authors"),
+                                fieldWithPath("items[].score").description("Relevance, higher is better"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
+                        )));
+    }
+
+    @Test
+    public void should_filter_books() throws Exception {
+        BookDto book = new BookDto("bookApiKey", "Der Process", LocalDate.of(1925, 4, 26), true, List.of("EBOOK"),
+                90000, "Josef K.", List.of("authorApiKey"), List.of("THRILLER"), 1L);
+        var filter = new BookFilter(BookGenre.THRILLER, BookType.EBOOK, null, 50000, null, null, null, "authorApiKey");
+        when(bookFilterService.filter(eq(filter), any(), any())).thenReturn(new KeysetPage<>(List.of(book), 20, "aWQ6NDI", null));
+
+        mockMvc.perform(get("/api/books/filter").param("genre", "THRILLER").param("type", "EBOOK")
+                        .param("minWordCount", "50000").param("author", "authorApiKey").param("limit", "20")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].apiKey").value(book.apiKey()))
+                .andExpect(header().string("Link", containsString("minWordCount=50000")))
+                .andExpect(header().string("Link", containsString("after=aWQ6NDI")))
+                .andDo(document("books/filter",
+                        queryParameters(
+                                parameterWithName("genre").optional().description("Only books of this genre"),
+                                parameterWithName("type").optional().description("Only books of this type"),
+                                parameterWithName("availableOnline").optional().description("Only books (not) available online"),
+                                parameterWithName("minWordCount").optional().description("At least this many words"),
+                                parameterWithName("maxWordCount").optional().description("At most this many words"),
+                                parameterWithName("releasedFrom").optional().description("Released on or after (ISO date)"),
+                                parameterWithName("releasedTo").optional().description("Released on or before (ISO date)"),
+                                parameterWithName("author").optional().description("Only books by the author with this API key"),
+                                parameterWithName("limit").description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
+                        relaxedResponseFields(
+                                fieldWithPath("items[]").description("The matching books of this page, ordered by id"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
+                        )));
+    }
+
+    @Test
+    public void should_reject_inverted_word_count_range() throws Exception {
+        var filter = new BookFilter(null, null, null, 5000, 100, null, null, null);
+        when(bookFilterService.filter(eq(filter), any(), any()))
+                .thenThrow(BookFilterService.BookFilterServiceException.invalidFilter(filter.invalidRange()));
+
+        mockMvc.perform(get("/api/books/filter").param("minWordCount", "5000").param("maxWordCount", "100")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title").value("Book Filter Error"));
+    }
+
+    @Test
+    public void should_return_book_facets() throws Exception {
+        BookDto book = new BookDto("bookApiKey", "Der Process", LocalDate.of(1925, 4, 26), true, List.of("EBOOK"),
+                90000, "Josef K.", List.of("authorApiKey"), List.of("THRILLER"), 1L);
+        var filter = new BookFilter(BookGenre.THRILLER, null, true, null, null, LocalDate.of(1900, 1, 1), null, null);
+        when(bookFacetService.facets(eq(filter), any(), any())).thenReturn(new BookFacets(
+                new KeysetPage<>(List.of(book), 20, "ZG9j", null),
+                List.of(new BookFacets.FacetCount("THRILLER", 3), new BookFacets.FacetCount("HORROR", 1)),
+                List.of(new BookFacets.FacetCount("EBOOK", 3)),
+                List.of(new BookFacets.FacetCount("1925", 3))));
+
+        mockMvc.perform(get("/api/books/facets").param("genre", "THRILLER").param("availableOnline", "true")
+                        .param("releasedFrom", "1900-01-01").param("limit", "20")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page.items[0].apiKey").value(book.apiKey()))
+                .andExpect(jsonPath("$.genres[0].value").value("THRILLER"))
+                .andExpect(jsonPath("$.genres[0].count").value(3))
+                .andExpect(jsonPath("$.releaseYears[0].value").value("1925"))
+                .andExpect(jsonPath("$.page.next", containsString("genre=THRILLER")))
+                .andExpect(header().string("Link", containsString("after=ZG9j")))
+                .andDo(document("books/facets",
+                        queryParameters(
+                                parameterWithName("genre").optional().description("Only books of this genre"),
+                                parameterWithName("type").optional().description("Only books of this type"),
+                                parameterWithName("availableOnline").optional().description("Only books (not) available online"),
+                                parameterWithName("minWordCount").optional().description("At least this many words"),
+                                parameterWithName("maxWordCount").optional().description("At most this many words"),
+                                parameterWithName("releasedFrom").optional().description("Released on or after (ISO date)"),
+                                parameterWithName("releasedTo").optional().description("Released on or before (ISO date)"),
+                                parameterWithName("author").optional().description("Only books by the author with this API key"),
+                                parameterWithName("limit").description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
+                        relaxedResponseFields(
+                                fieldWithPath("page.items[]").description("The matching books of this page"),
+                                fieldWithPath("page.limit").description("The page size"),
+                                fieldWithPath("page.nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("page.next").description("Link to the next page, null on the last page"),
+                                fieldWithPath("genres[]").description("Number of matching books per genre, most frequent first"),
+                                fieldWithPath("types[]").description("Number of matching books per book type, most frequent first"),
+                                fieldWithPath("releaseYears[]").description("Number of matching books per release year, ascending")
+                        )));
+    }
+
+    @Test
+    public void should_reject_inverted_release_range() throws Exception {
+        var filter = new BookFilter(null, null, null, null, null, LocalDate.of(2020, 1, 1), LocalDate.of(2000, 1, 1), null);
+        when(bookFacetService.facets(eq(filter), any(), any()))
+                .thenThrow(BookFacetService.BookFacetServiceException.invalidFilter(filter.invalidRange()));
+
+        mockMvc.perform(get("/api/books/facets").param("releasedFrom", "2020-01-01").param("releasedTo", "2000-01-01")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title").value("Book Facet Error"));
+    }
+
+    @Test
+    public void should_reject_empty_search_query() throws Exception {
+        when(bookSearchService.search(any(), any(), any())).thenThrow(BookSearchService.BookSearchServiceException.emptyQuery());
+
+        mockMvc.perform(get("/api/books/search").param("q", " ")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title").value("Book Search Error"))
+                .andExpect(jsonPath("$.detail").value("Search query must not be empty"));
+    }
+
     @Test
     public void should_create_book() throws Exception {
         Author author = FixturesFactory.author();
         Book book = FixturesFactory.book(author);
         BookDto dto = BookDto.bookDtoFromBook(book);
         when(bookService.createBook(any())).thenReturn(dto);
-        Link expectedSelfLink = linkTo(methodOn(BookRestController.class).getBook(dto.apiKey())).withSelfRel();
+        Link expectedSelfLink = linkTo(methodOn(BookRestController.class).getBook(dto.apiKey(), null)).withSelfRel();
         String expectedLocation = expectedSelfLink.toUri().toString();
 
         mockMvc.perform(post("/api/books")
@@ -309,6 +499,51 @@ class BookRestControllerTest {
     }
 
 
+    @Test
+    public void should_bulk_import_books() throws Exception {
+        BulkImportReport report = new BulkImportReport(2, 1, 1, 1, 12, 83.3,
+                List.of(new BulkImportReport.RowError(2, "Author with api key (unknown) not existent")), false);
+        when(bulkImportService.importBooks(any(), eq(BookBulkImportService.Format.CSV), eq(500))).thenReturn(report);
+
+        mockMvc.perform(post("/api/books/bulk").param("chunkSize", "500")
+                        .contentType("text/csv")
+                        .content("""
+                                name,releaseDate,availableOnline,types,wordCount,description,authorIds,genre
+                                Book A,2024-01-01,true,HARDCOVER|EBOOK,50000,First,author1,FANTASY
+                                Book B,2024-02-01,false,PAPERBACK,40000,Second,unknown,HORROR
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsImported").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andDo(document("books/post-bulk",
+                        queryParameters(
+                                parameterWithName("chunkSize").description("Rows per transaction (optional)")
+                        ),
+                        responseFields(
+                                fieldWithPath("rowsRead").description("Number of non-empty rows read"),
+                                fieldWithPath("rowsImported").description("Number of imported books"),
+                                fieldWithPath("rowsFailed").description("Number of rows that were rejected"),
+                                fieldWithPath("chunks").description("Number of committed chunks"),
+                                fieldWithPath("durationMillis").description("Total import duration"),
+                                fieldWithPath("rowsPerSecond").description("Import throughput"),
+                                fieldWithPath("errors[].row").description("Line number of the rejected row"),
+                                fieldWithPath("errors[].message").description("Reason the row was rejected"),
+                                fieldWithPath("errorsTruncated").description("True if more errors occurred than reported")
+                        )));
+    }
+
+    @Test
+    public void should_reject_bulk_import_with_invalid_chunk_size() throws Exception {
+        when(bulkImportService.importBooks(any(), any(), eq(0)))
+                .thenThrow(BookBulkImportService.BookBulkImportServiceException.invalidChunkSize(0, 10000));
+
+        mockMvc.perform(post("/api/books/bulk").param("chunkSize", "0")
+                        .contentType("application/x-ndjson")
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title").value("Book Bulk Import Error"));
+    }
+
     @Test
     public void should_respond_with_correct_exceptions() throws Exception {
         when(bookService.getBook(any())).thenThrow(BookService.BookServiceException.noBookForApiKey("InvalidApiKey"));
@@ -331,4 +566,17 @@ class BookRestControllerTest {
                         )));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void should_return_not_modified_when_book_is_unchanged() throws Exception {
+        when(bookService.getBook(any())).thenReturn(new BookDto("ValidApiKeyForBook", "Der Process", LocalDate.of(1925, 4, 26),
+                true, List.of("EBOOK"), 90000, "Josef K.", List.of("authorApiKey"), List.of("THRILLER"), 3L));
+
+        mockMvc.perform(get("/api/books/book").param("apiKey","ValidApiKeyForBook")
+                        .header("If-None-Match", "W/\"3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""));
+
+        verify(bookService, times(1)).getBook(any());
+    }
+}
@@ -15,6 +15,8 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import spengergasse.at.sj2425scherzerrabar.dtos.BorrowingDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.BorrowingService;
 
 import java.time.LocalDate;
@@ -44,6 +46,9 @@ class BorrowingRestControllerTest {
     @MockitoBean
     private BorrowingService borrowingService;
 
+    @MockitoBean
+    private CollectionExportService collectionExportService;
+
     @Test
     public void should_return_borrowing_when_borrowing_exists() throws Exception {
         BorrowingDto dto = new BorrowingDto("borrow123", "customer456", List.of("copy789"),
@@ -142,25 +147,34 @@ class BorrowingRestControllerTest {
         BorrowingDto dto = new BorrowingDto("borrow123", "customer456", List.of("copy789"),
                 LocalDate.of(2025, 3, 1), 7);
 
-        when(borrowingService.getAllBorrowings()).thenReturn(List.of(dto));
+        when(borrowingService.getBorrowingsPage(any(), any())).thenReturn(new KeysetPage<>(List.of(dto), 50, "bmV4dA", null));
 
-        mockMvc.perform(get("/api/borrowings")
+        mockMvc.perform(get("/api/borrowings").param("limit", "50")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].apiKey").value(dto.apiKey()))
-                .andExpect(jsonPath("$[0].customerApiKey").value(dto.customerApiKey()))
-                .andExpect(jsonPath("$[0].copyApiKeys").isArray())
-                .andExpect(jsonPath("$[0].copyApiKeys[0]").value(dto.copyApiKeys().getFirst()))
-                .andExpect(jsonPath("$[0].fromDate").value(dto.fromDate().toString()))
-                .andExpect(jsonPath("$[0].extendedByDays").value(dto.extendedByDays()))
+                .andExpect(jsonPath("$.items[0].apiKey").value(dto.apiKey()))
+                .andExpect(jsonPath("$.items[0].customerApiKey").value(dto.customerApiKey()))
+                .andExpect(jsonPath("$.items[0].copyApiKeys").isArray())
+                .andExpect(jsonPath("$.items[0].copyApiKeys[0]").value(dto.copyApiKeys().getFirst()))
+                .andExpect(jsonPath("$.items[0].fromDate").value(dto.fromDate().toString()))
+                .andExpect(jsonPath("$.items[0].extendedByDays").value(dto.extendedByDays()))
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(header().string("Link", containsString("after=bmV4dA")))
                 .andDo(document("borrowings/get-all",
+                        queryParameters(
+                                parameterWithName("limit").description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
                         responseFields(
-                                fieldWithPath("[].apiKey").description("The API key of the borrowing"),
-                                fieldWithPath("[].customerApiKey").description("API key of the customer"),
-                                fieldWithPath("[].copyApiKeys").description("List of API keys for borrowed copies"),
-                                fieldWithPath("[].fromDate").description("Start date of the borrowing"),
-                                fieldWithPath("[].extendedByDays").description("Number of days the borrowing was extended")
+                                fieldWithPath("items[].apiKey").description("The API key of the borrowing"),
+                                fieldWithPath("items[].customerApiKey").description("API key of the customer"),
+                                fieldWithPath("items[].copyApiKeys").description("List of API keys for borrowed copies"),
+                                fieldWithPath("items[].fromDate").description("Start date of the borrowing"),
+                                fieldWithPath("items[].extendedByDays").description("Number of days the borrowing was extended"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
                         )));
     }
 
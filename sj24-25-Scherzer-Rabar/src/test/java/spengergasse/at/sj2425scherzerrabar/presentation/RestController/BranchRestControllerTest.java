@@ -15,6 +15,8 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import spengergasse.at.sj2425scherzerrabar.dtos.BranchDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.BranchService;
 
 import java.util.List;
@@ -43,6 +45,9 @@ class BranchRestControllerTest {
     @MockitoBean
     private BranchService branchService;
 
+    @MockitoBean
+    private CollectionExportService collectionExportService;
+
     @Test
     public void should_return_branch_when_branch_exists() throws Exception {
         BranchDto dto = new BranchDto("branch123", "library456", "123 Main St");
@@ -71,20 +76,29 @@ class BranchRestControllerTest {
     public void should_return_all_branches() throws Exception {
         BranchDto dto = new BranchDto("branch123", "library456", "123 Main St");
 
-        when(branchService.getAllBranches()).thenReturn(List.of(dto));
+        when(branchService.getBranchesPage(any(), any())).thenReturn(new KeysetPage<>(List.of(dto), 50, "bmV4dA", null));
 
-        mockMvc.perform(get("/api/branches")
+        mockMvc.perform(get("/api/branches").param("limit", "50")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].apiKey").value(dto.apiKey()))
-                .andExpect(jsonPath("$[0].libraryApiKey").value(dto.libraryApiKey()))
-                .andExpect(jsonPath("$[0].address").value(dto.address()))
+                .andExpect(jsonPath("$.items[0].apiKey").value(dto.apiKey()))
+                .andExpect(jsonPath("$.items[0].libraryApiKey").value(dto.libraryApiKey()))
+                .andExpect(jsonPath("$.items[0].address").value(dto.address()))
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(header().string("Link", containsString("after=bmV4dA")))
                 .andDo(document("branches/get-all",
+                        queryParameters(
+                                parameterWithName("limit").description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
                         responseFields(
-                                fieldWithPath("[].apiKey").description("The API key of the branch"),
-                                fieldWithPath("[].libraryApiKey").description("API key of the associated library"),
-                                fieldWithPath("[].address").description("The address of the branch")
+                                fieldWithPath("items[].apiKey").description("The API key of the branch"),
+                                fieldWithPath("items[].libraryApiKey").description("API key of the associated library"),
+                                fieldWithPath("items[].address").description("The address of the branch"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
                         )));
     }
 
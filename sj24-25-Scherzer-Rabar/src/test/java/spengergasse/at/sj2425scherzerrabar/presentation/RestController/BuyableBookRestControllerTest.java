@@ -16,6 +16,8 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.dtos.BuyableBookDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.BuyableBookService;
 
 import java.util.List;
@@ -44,6 +46,9 @@ class BuyableBookRestControllerTest {
     @MockitoBean
     private BuyableBookService buyableBookService;
 
+    @MockitoBean
+    private CollectionExportService collectionExportService;
+
     @Test
     public void should_return_buyable_book_when_buyable_book_exists() throws Exception {
         BuyableBookDto dto = BuyableBookDto.buyableBookDtoFromBuyableBook(FixturesFactory.buyableBook());
@@ -80,28 +85,41 @@ class BuyableBookRestControllerTest {
     public void should_return_all_buyable_books() throws Exception {
         BuyableBookDto dto = BuyableBookDto.buyableBookDtoFromBuyableBook(FixturesFactory.buyableBook());
 
-        when(buyableBookService.getAllBuyableBooks()).thenReturn(List.of(dto));
+        when(buyableBookService.getBuyableBooksPage(any(), any())).thenReturn(new KeysetPage<>(List.of(dto), 50, "bmV4dA", null));
 
         mockMvc.perform(get("/api/buyableBooks", dto.buyableBookApiKey())
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].buyableBookApiKey").value(dto.buyableBookApiKey()))
-                .andExpect(jsonPath("$[0].price").value(dto.price()))
-                .andExpect(jsonPath("$[0].publisherApiKey").value(dto.publisherApiKey()))
-                .andExpect(jsonPath("$[0].bookType").value(dto.bookType()))
-                .andExpect(jsonPath("$[0].pageCount").value(dto.pageCount()))
-                .andExpect(jsonPath("$[0].bookApiKey").value(dto.bookApiKey()))
-
+                .andExpect(jsonPath("$.items[0].buyableBookApiKey").value(dto.buyableBookApiKey()))
+                .andExpect(jsonPath("$.items[0].price").value(dto.price()))
+                .andExpect(jsonPath("$.items[0].publisherApiKey").value(dto.publisherApiKey()))
+                .andExpect(jsonPath("$.items[0].bookType").value(dto.bookType()))
+                .andExpect(jsonPath("$.items[0].pageCount").value(dto.pageCount()))
+                .andExpect(jsonPath("$.items[0].bookApiKey").value(dto.bookApiKey()))
+
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(header().string("Link", containsString("after=bmV4dA")))
                 .andDo(document("buyable_books/get-all",
 
+                        queryParameters(
+
+                                parameterWithName("limit").optional().description("Page size (default 50, max 1000)"),
+
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+
+                        ),
+
                         responseFields(
-                                fieldWithPath("[].buyableBookApiKey").description("The API key of the BuyableBook "),
-                                fieldWithPath("[].price").description("The Price of the book"),
-                                fieldWithPath("[].publisherApiKey").description("API key of the associated publisher"),
-                                fieldWithPath("[].bookType").description("The Type of the book (example: Ebook)"),
-                                fieldWithPath("[].pageCount").description("The number of pages in the book"),
-                                fieldWithPath("[].bookApiKey").description("API key of the associated library Book")
+                                fieldWithPath("items[].buyableBookApiKey").description("The API key of the BuyableBook "),
+                                fieldWithPath("items[].price").description("The Price of the book"),
+                                fieldWithPath("items[].publisherApiKey").description("API key of the associated publisher"),
+                                fieldWithPath("items[].bookType").description("The Type of the book (example: Ebook)"),
+                                fieldWithPath("items[].pageCount").description("The number of pages in the book"),
+                                fieldWithPath("items[].bookApiKey").description("API key of the associated library Book"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
                         )));
     }
 
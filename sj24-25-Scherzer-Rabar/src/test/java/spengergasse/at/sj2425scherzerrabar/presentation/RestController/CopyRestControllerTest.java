@@ -14,11 +14,18 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import spengergasse.at.sj2425scherzerrabar.dtos.CopyDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.CopyService;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -26,6 +33,10 @@ import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.docu
 import static org.springframework.restdocs.payload.PayloadDocumentation.*;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.restdocs.request.RequestDocumentation.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -44,15 +55,19 @@ class CopyRestControllerTest {
     @MockitoBean
     private CopyService copyService;
 
+    @MockitoBean
+    private CollectionExportService collectionExportService;
+
     @Test
     public void should_return_copy_when_copy_exists() throws Exception {
-        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey");
+        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 3L);
 
         when(copyService.getCopy(any())).thenReturn(dto);
 
         mockMvc.perform(get("/api/copies/copy").param("apiKey","ValidApiKey")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.apiKey").value(dto.apiKey()))
                 .andExpect(jsonPath("$.publisherApiKey").value(dto.publisherApiKey()))
@@ -76,34 +91,67 @@ class CopyRestControllerTest {
 
     @Test
     public void should_return_all_copies() throws Exception {
-        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey");
+        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 3L);
 
-        when(copyService.getCopies()).thenReturn(List.of(dto));
+        when(copyService.getCopiesPageETag(any(), any())).thenReturn("\"5d41402abc4b2a76\"");
+        when(copyService.getCopiesPage(any(), any())).thenReturn(new KeysetPage<>(List.of(dto), 50, "bmV4dA", null));
 
-        mockMvc.perform(get("/api/copies")
+        mockMvc.perform(get("/api/copies").param("limit", "50")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].apiKey").value(dto.apiKey()))
-                .andExpect(jsonPath("$[0].publisherApiKey").value(dto.publisherApiKey()))
-                .andExpect(jsonPath("$[0].bookType").value(dto.bookType()))
-                .andExpect(jsonPath("$[0].pageCount").value(dto.pageCount()))
-                .andExpect(jsonPath("$[0].bookApiKey").value(dto.bookApiKey()))
-                .andExpect(jsonPath("$[0].branchApiKey").value(dto.branchApiKey()))
+                .andExpect(jsonPath("$.items[0].apiKey").value(dto.apiKey()))
+                .andExpect(jsonPath("$.items[0].publisherApiKey").value(dto.publisherApiKey()))
+                .andExpect(jsonPath("$.items[0].bookType").value(dto.bookType()))
+                .andExpect(jsonPath("$.items[0].pageCount").value(dto.pageCount()))
+                .andExpect(jsonPath("$.items[0].bookApiKey").value(dto.bookApiKey()))
+                .andExpect(jsonPath("$.items[0].branchApiKey").value(dto.branchApiKey()))
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(header().string("Link", containsString("after=bmV4dA")))
                 .andDo(document("copies/get-all",
+                        queryParameters(
+                                parameterWithName("limit").description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
                         responseFields(
-                                fieldWithPath("[].apiKey").description("The API key of the copy"),
-                                fieldWithPath("[].publisherApiKey").description("The API key of the publisher"),
-                                fieldWithPath("[].bookType").description("The type of the book (e.g., Hardcover)"),
-                                fieldWithPath("[].pageCount").description("The number of pages in the copy"),
-                                fieldWithPath("[].bookApiKey").description("The API key of the book associated with the copy"),
-                                fieldWithPath("[].branchApiKey").description("The API key of the branch where the copy is located")
+                                fieldWithPath("items[].apiKey").description("The API key of the copy"),
+                                fieldWithPath("items[].publisherApiKey").description("The API key of the publisher"),
+                                fieldWithPath("items[].bookType").description("The type of the book (e.g., Hardcover)"),
+                                fieldWithPath("items[].pageCount").description("The number of pages in the copy"),
+                                fieldWithPath("items[].bookApiKey").description("The API key of the book associated with the copy"),
+                                fieldWithPath("items[].branchApiKey").description("The API key of the branch where the copy is located"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
                         )));
     }
 
+    @Test
+    public void should_stream_all_copies_as_ndjson() throws Exception {
+        CollectionExportService.Source<CopyDto> source = new CollectionExportService.Source<>((afterId, limit) -> List.of(), ids -> List.of());
+        when(copyService.exportCopies()).thenReturn(source);
+        when(collectionExportService.writeNdjson(eq(source), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"apiKey\":\"apiKey\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/copies")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // collections.export.request-timeout gilt nur für die NDJSON-Antwort
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"apiKey\":\"apiKey\"}\n"));
+    }
+
     @Test
     public void should_return_all_copies_by_book() throws Exception {
-        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey");
+        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 3L);
 
         when(copyService.getCopiesByBook(any())).thenReturn(List.of(dto));
 
@@ -133,7 +181,7 @@ class CopyRestControllerTest {
 
     @Test
     public void should_return_all_copies_by_branch() throws Exception {
-        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey");
+        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 3L);
 
         when(copyService.getCopiesByBranch(any())).thenReturn(List.of(dto));
 
@@ -163,7 +211,7 @@ class CopyRestControllerTest {
 
     @Test
     public void should_return_all_copies_by_publisher() throws Exception {
-        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey");
+        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 3L);
 
         when(copyService.getCopiesByPublisher(any())).thenReturn(List.of(dto));
 
@@ -193,7 +241,7 @@ class CopyRestControllerTest {
 
     @Test
     public void should_return_all_copies_by_book_type() throws Exception {
-        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey");
+        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 3L);
 
         when(copyService.getCopiesByBookType(any())).thenReturn(List.of(dto));
 
@@ -223,9 +271,9 @@ class CopyRestControllerTest {
 
     @Test
     public void should_create_copy() throws Exception {
-        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey");
+        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 3L);
 
-        Link expectedSelfLink = linkTo(methodOn(CopyRestController.class).getCopy(dto.apiKey())).withSelfRel();
+        Link expectedSelfLink = linkTo(methodOn(CopyRestController.class).getCopy(dto.apiKey(), null)).withSelfRel();
         String expectedLocation = expectedSelfLink.toUri().toString();
 
         when(copyService.createCopy(any())).thenReturn(dto);
@@ -271,7 +319,7 @@ class CopyRestControllerTest {
 
     @Test
     public void should_update_copy() throws Exception {
-        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey");
+        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 3L);
 
         when(copyService.updateCopy(any())).thenReturn(dto);
 
@@ -315,7 +363,7 @@ class CopyRestControllerTest {
 
     @Test
     public void should_delete_copy() throws Exception {
-        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey");
+        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 3L);
 
         mockMvc.perform(delete("/api/copies?apiKey=ValidApiKeyToDelete"))
                 .andExpect(status().isNoContent())
@@ -346,4 +394,45 @@ class CopyRestControllerTest {
                                 fieldWithPath("instance").description("The request URL")
                         )));
     }
+
+    @Test
+    public void should_return_not_modified_when_copy_is_unchanged() throws Exception {
+        when(copyService.getCopy(any())).thenReturn(
+                new CopyDto("ValidApiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 3L));
+
+        mockMvc.perform(get("/api/copies/copy").param("apiKey","ValidApiKey")
+                        .header("If-None-Match", "\"3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(copyService, times(1)).getCopy(any());
+    }
+
+    @Test
+    public void should_return_copy_when_etag_is_outdated() throws Exception {
+        CopyDto dto = new CopyDto("apiKey", "publisherApiKey", "Hardcover", 300, "bookApiKey", "branchApiKey", 4L);
+        when(copyService.getCopy(any())).thenReturn(dto);
+
+        mockMvc.perform(get("/api/copies/copy").param("apiKey","ValidApiKey")
+                        .header("If-None-Match", "\"3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.apiKey").value(dto.apiKey()));
+    }
+
+    @Test
+    public void should_return_not_modified_when_copies_page_is_unchanged() throws Exception {
+        when(copyService.getCopiesPageETag(any(), any())).thenReturn("\"5d41402abc4b2a76\"");
+
+        mockMvc.perform(get("/api/copies").param("limit", "50")
+                        .header("If-None-Match", "\"5d41402abc4b2a76\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"5d41402abc4b2a76\""));
+
+        verify(copyService, never()).getCopiesPage(any(), any());
+    }
 }
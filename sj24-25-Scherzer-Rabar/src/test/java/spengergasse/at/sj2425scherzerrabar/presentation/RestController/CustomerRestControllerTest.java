@@ -19,6 +19,8 @@ import org.springframework.http.MediaType;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.domain.Customer;
 import spengergasse.at.sj2425scherzerrabar.dtos.CustomerDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.CustomerService;
 
 
@@ -48,6 +50,9 @@ class CustomerRestControllerTest {
     @MockitoBean
     private CustomerService customerService;
 
+    @MockitoBean
+    private CollectionExportService collectionExportService;
+
     @Test
     public void return_customer_when_existent() throws Exception {
         Customer customer = FixturesFactory.customer();
@@ -113,25 +118,34 @@ class CustomerRestControllerTest {
         Customer customer = FixturesFactory.customer();
         CustomerDto customerDto = CustomerDto.customerDtoFromCustomer(customer);
 
-        when(customerService.getCustomers()).thenReturn(List.of(customerDto));
+        when(customerService.getCustomersPage(any(), any())).thenReturn(new KeysetPage<>(List.of(customerDto), 50, "bmV4dA", null));
 
         mvc.perform(get("/api/customers")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].apiKey").value(customerDto.apiKey()))
-                .andExpect(jsonPath("$[0].addresses").isArray())
-                .andExpect(jsonPath("$[0].addresses[0]").value(customerDto.addresses().getFirst()))
-                .andExpect(jsonPath("$[0].firstName").value(customerDto.firstName()))
-                .andExpect(jsonPath("$[0].lastName").value(customerDto.lastName()))
-                .andExpect(jsonPath("$[0].emailAddress").value(customerDto.emailAddress()))
+                .andExpect(jsonPath("$.items[0].apiKey").value(customerDto.apiKey()))
+                .andExpect(jsonPath("$.items[0].addresses").isArray())
+                .andExpect(jsonPath("$.items[0].addresses[0]").value(customerDto.addresses().getFirst()))
+                .andExpect(jsonPath("$.items[0].firstName").value(customerDto.firstName()))
+                .andExpect(jsonPath("$.items[0].lastName").value(customerDto.lastName()))
+                .andExpect(jsonPath("$.items[0].emailAddress").value(customerDto.emailAddress()))
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(header().string("Link", containsString("after=bmV4dA")))
                 .andDo(document("customers/get-all",
+                        queryParameters(
+                                parameterWithName("limit").optional().description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
                         responseFields(
-                                fieldWithPath("[].apiKey").description("The API key of the customer"),
-                                fieldWithPath("[].addresses").description("List of addresses of the customer"),
-                                fieldWithPath("[].firstName").description("The firstname of the customer"),
-                                fieldWithPath("[].lastName").description("The lastname of the customer"),
-                                fieldWithPath("[].emailAddress").description("The email address of the customer")
+                                fieldWithPath("items[].apiKey").description("The API key of the customer"),
+                                fieldWithPath("items[].addresses").description("List of addresses of the customer"),
+                                fieldWithPath("items[].firstName").description("The firstname of the customer"),
+                                fieldWithPath("items[].lastName").description("The lastname of the customer"),
+                                fieldWithPath("items[].emailAddress").description("The email address of the customer"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
                         )));
     }
 
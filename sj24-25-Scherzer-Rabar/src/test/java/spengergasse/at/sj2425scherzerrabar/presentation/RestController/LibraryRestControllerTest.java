@@ -17,6 +17,8 @@ import org.springframework.http.MediaType;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.domain.Library;
 import spengergasse.at.sj2425scherzerrabar.dtos.LibraryDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.LibraryService;
 
 import java.util.List;
@@ -45,6 +47,9 @@ class LibraryRestControllerTest {
     @MockitoBean
     private LibraryService libraryService;
 
+    @MockitoBean
+    private CollectionExportService collectionExportService;
+
     @Test
     public void return_library_when_existent() throws Exception {
         Library library = FixturesFactory.thalia(FixturesFactory.address2(), List.of(FixturesFactory.libBook(FixturesFactory.book(FixturesFactory.author()))));
@@ -112,26 +117,35 @@ class LibraryRestControllerTest {
         Library library = FixturesFactory.thalia(FixturesFactory.address2(), List.of(FixturesFactory.libBook(FixturesFactory.book(FixturesFactory.author()))));
         LibraryDto libraryDto = LibraryDto.libraryDtoFromLibrary(library);
 
-        when(libraryService.getLibraries()).thenReturn(List.of(libraryDto));
+        when(libraryService.getLibrariesPage(any(), any())).thenReturn(new KeysetPage<>(List.of(libraryDto), 50, "bmV4dA", null));
 
         mvc.perform(get("/api/libraries")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].apiKey").value(libraryDto.apiKey()))
-                .andExpect(jsonPath("$[0].name").value(libraryDto.name()))
-                .andExpect(jsonPath("$[0].headquarters").value(libraryDto.headquarters()))
-                .andExpect(jsonPath("$[0].booksInLibraries").isArray())
-                .andExpect(jsonPath("$[0].booksInLibraries[0].bookApiKey").value(libraryDto.booksInLibraries().getFirst().bookApiKey()))
-                .andExpect(jsonPath("$[0].booksInLibraries[0].borrowLengthDays").value(libraryDto.booksInLibraries().getFirst().borrowLengthDays()))
+                .andExpect(jsonPath("$.items[0].apiKey").value(libraryDto.apiKey()))
+                .andExpect(jsonPath("$.items[0].name").value(libraryDto.name()))
+                .andExpect(jsonPath("$.items[0].headquarters").value(libraryDto.headquarters()))
+                .andExpect(jsonPath("$.items[0].booksInLibraries").isArray())
+                .andExpect(jsonPath("$.items[0].booksInLibraries[0].bookApiKey").value(libraryDto.booksInLibraries().getFirst().bookApiKey()))
+                .andExpect(jsonPath("$.items[0].booksInLibraries[0].borrowLengthDays").value(libraryDto.booksInLibraries().getFirst().borrowLengthDays()))
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(header().string("Link", containsString("after=bmV4dA")))
                 .andDo(document("libraries/get-all",
+                        queryParameters(
+                                parameterWithName("limit").optional().description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
                         responseFields(
-                                fieldWithPath("[].apiKey").description("The API key of the library"),
-                                fieldWithPath("[].name").description("The name of the library"),
-                                fieldWithPath("[].headquarters").description("The headquarters location of the library"),
-                                fieldWithPath("[].booksInLibraries").description("List of books available in the library"),
-                                fieldWithPath("[].booksInLibraries[].bookApiKey").description("The API key of the book in the library"),
-                                fieldWithPath("[].booksInLibraries[].borrowLengthDays").description("The days borrowed of the book in the library")
+                                fieldWithPath("items[].apiKey").description("The API key of the library"),
+                                fieldWithPath("items[].name").description("The name of the library"),
+                                fieldWithPath("items[].headquarters").description("The headquarters location of the library"),
+                                fieldWithPath("items[].booksInLibraries").description("List of books available in the library"),
+                                fieldWithPath("items[].booksInLibraries[].bookApiKey").description("The API key of the book in the library"),
+                                fieldWithPath("items[].booksInLibraries[].borrowLengthDays").description("The days borrowed of the book in the library"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
                         )));
     }
 
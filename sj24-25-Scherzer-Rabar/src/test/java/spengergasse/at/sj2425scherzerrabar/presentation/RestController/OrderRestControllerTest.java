@@ -18,6 +18,8 @@ import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 
 import spengergasse.at.sj2425scherzerrabar.domain.Order;
 import spengergasse.at.sj2425scherzerrabar.dtos.OrderDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.OrderService;
 
 import java.util.List;
@@ -45,6 +47,9 @@ class OrderRestControllerTest {
     @MockitoBean
     private OrderService orderService;
 
+    @MockitoBean
+    private CollectionExportService collectionExportService;
+
     @Test
     public void return_order_when_existent() throws Exception {
        Order order = FixturesFactory.order();
@@ -143,26 +148,35 @@ class OrderRestControllerTest {
         Order order = FixturesFactory.order();
         OrderDto orderDto = OrderDto.orderDtoFromOrder(order);
 
-        when(orderService.getAllOrders()).thenReturn(List.of(orderDto));
+        when(orderService.getOrdersPage(any(), any())).thenReturn(new KeysetPage<>(List.of(orderDto), 50, "bmV4dA", null));
 
         mvc.perform(get("/api/orders")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].apiKey").value(orderDto.apiKey()))
-                .andExpect(jsonPath("$[0].customerApiKey").value(orderDto.customerApiKey()))
-                .andExpect(jsonPath("$[0].subscriptionsApiKeys").isArray())
-                .andExpect(jsonPath("$[0].subscriptionsApiKeys[0]").value(orderDto.subscriptionsApiKeys().getFirst()))
-                .andExpect(jsonPath("$[0].date").value(orderDto.date().toString()))
-                .andExpect(jsonPath("$[0].booksApiKeys").isArray())
-                .andExpect(jsonPath("$[0].booksApiKeys[0]").value(orderDto.booksApiKeys().getFirst()))
+                .andExpect(jsonPath("$.items[0].apiKey").value(orderDto.apiKey()))
+                .andExpect(jsonPath("$.items[0].customerApiKey").value(orderDto.customerApiKey()))
+                .andExpect(jsonPath("$.items[0].subscriptionsApiKeys").isArray())
+                .andExpect(jsonPath("$.items[0].subscriptionsApiKeys[0]").value(orderDto.subscriptionsApiKeys().getFirst()))
+                .andExpect(jsonPath("$.items[0].date").value(orderDto.date().toString()))
+                .andExpect(jsonPath("$.items[0].booksApiKeys").isArray())
+                .andExpect(jsonPath("$.items[0].booksApiKeys[0]").value(orderDto.booksApiKeys().getFirst()))
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(header().string("Link", containsString("after=bmV4dA")))
                 .andDo(document("orders/get-all",
+                        queryParameters(
+                                parameterWithName("limit").optional().description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
                         responseFields(
-                                fieldWithPath("[].apiKey").description("The API key of the order"),
-                                fieldWithPath("[].customerApiKey").description("The customer of the order"),
-                                fieldWithPath("[].subscriptionsApiKeys").description("List of subscription API keys associated with the order"),
-                                fieldWithPath("[].date").description("The date of the order"),
-                                fieldWithPath("[].booksApiKeys").description("List of book API keys associated with the order")
+                                fieldWithPath("items[].apiKey").description("The API key of the order"),
+                                fieldWithPath("items[].customerApiKey").description("The customer of the order"),
+                                fieldWithPath("items[].subscriptionsApiKeys").description("List of subscription API keys associated with the order"),
+                                fieldWithPath("items[].date").description("The date of the order"),
+                                fieldWithPath("items[].booksApiKeys").description("List of book API keys associated with the order"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
                         )));
     }
 
@@ -17,6 +17,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.domain.Publisher;
 import spengergasse.at.sj2425scherzerrabar.dtos.PublisherDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.KeysetPage;
+import spengergasse.at.sj2425scherzerrabar.service.CollectionExportService;
 import spengergasse.at.sj2425scherzerrabar.service.PublisherService;
 
 import java.util.List;
@@ -46,6 +48,9 @@ class PublisherRestControllerTest {
     @MockitoBean
     private PublisherService publisherService;
 
+    @MockitoBean
+    private CollectionExportService collectionExportService;
+
     @Test
     public void return_publisher_when_existent() throws Exception {
         Publisher publisher = FixturesFactory.publisher(FixturesFactory.address2());
@@ -101,20 +106,29 @@ class PublisherRestControllerTest {
         Publisher publisher = FixturesFactory.publisher(FixturesFactory.address2());
         PublisherDto publisherDto = PublisherDto.publisherDtoFromPublisher(publisher);
 
-        when(publisherService.getAllPublishers()).thenReturn(List.of(publisherDto));
+        when(publisherService.getPublishersPage(any(), any())).thenReturn(new KeysetPage<>(List.of(publisherDto), 50, "bmV4dA", null));
 
         mvc.perform(get("/api/publishers")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].apiKey").value(publisherDto.apiKey()))
-                .andExpect(jsonPath("$[0].name").value(publisherDto.name()))
-                .andExpect(jsonPath("$[0].address").value(publisherDto.address()))
+                .andExpect(jsonPath("$.items[0].apiKey").value(publisherDto.apiKey()))
+                .andExpect(jsonPath("$.items[0].name").value(publisherDto.name()))
+                .andExpect(jsonPath("$.items[0].address").value(publisherDto.address()))
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(header().string("Link", containsString("after=bmV4dA")))
                 .andDo(document("publishers/get-all",
+                        queryParameters(
+                                parameterWithName("limit").optional().description("Page size (default 50, max 1000)"),
+                                parameterWithName("after").optional().description("Cursor of the previous page")
+                        ),
                         responseFields(
-                                fieldWithPath("[].apiKey").description("The API key of the publisher"),
-                                fieldWithPath("[].name").description("The name of the publisher"),
-                                fieldWithPath("[].address").description("The address of the publisher")
+                                fieldWithPath("items[].apiKey").description("The API key of the publisher"),
+                                fieldWithPath("items[].name").description("The name of the publisher"),
+                                fieldWithPath("items[].address").description("The address of the publisher"),
+                                fieldWithPath("limit").description("The page size"),
+                                fieldWithPath("nextCursor").description("Cursor for the next page, null on the last page"),
+                                fieldWithPath("next").description("Link to the next page, null on the last page")
                         )));
     }
 
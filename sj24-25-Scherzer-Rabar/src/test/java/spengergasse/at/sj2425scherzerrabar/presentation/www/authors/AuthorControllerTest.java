@@ -13,6 +13,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.dtos.AuthorDto;
+import spengergasse.at.sj2425scherzerrabar.dtos.Suggestion;
 import spengergasse.at.sj2425scherzerrabar.service.AuthorService;
 
 import java.util.List;
@@ -46,6 +47,18 @@ class AuthorControllerTest {
                 .andExpect(model().attributeExists("authors"));
     }
 
+    @Test
+    void should_render_author_suggestions() throws Exception {
+        var suggestion = new Suggestion("Pen", "Pen (First Last)");
+        when(authorService.suggestAuthors("pe", AuthorController.SUGGEST_LIMIT)).thenReturn(List.of(suggestion));
+
+        mockMvc.perform(get("/www/authors/suggest")
+                        .param("q", "pe"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("authors/suggest :: suggestions"))
+                .andExpect(model().attribute("suggestions", List.of(suggestion)));
+    }
+
     @Test
     void should_show_add_form() throws Exception {
         mockMvc.perform(get("/www/authors/add"))
@@ -14,7 +14,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.dtos.BookDto;
 import spengergasse.at.sj2425scherzerrabar.dtos.BookDto2;
-import spengergasse.at.sj2425scherzerrabar.service.AuthorService;
+import spengergasse.at.sj2425scherzerrabar.dtos.Suggestion;
 import spengergasse.at.sj2425scherzerrabar.service.BookService;
 
 import java.util.List;
@@ -37,9 +37,6 @@ class BookControllerTest {
     @MockitoBean
     private BookService bookService;
 
-    @MockitoBean
-    private AuthorService authorService;
-
     @Test
     void should_show_all_books() throws Exception {
         BookDto book = BookDto.bookDtoFromBook(FixturesFactory.book(FixturesFactory.author()));
@@ -144,4 +141,16 @@ class BookControllerTest {
                 .andExpect(view().name("books/show"))
                 .andExpect(model().attributeExists("book"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_render_book_suggestions() throws Exception {
+        when(bookService.suggestBooks("asy", BookController.SUGGEST_LIMIT))
+                .thenReturn(List.of(new Suggestion("123", "Asylum")));
+
+        mockMvc.perform(get("/www/books/suggest")
+                .param("q", "asy"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("books/suggest :: suggestions"))
+                .andExpect(model().attribute("suggestions", List.of(new Suggestion("123", "Asylum"))));
+    }
+}
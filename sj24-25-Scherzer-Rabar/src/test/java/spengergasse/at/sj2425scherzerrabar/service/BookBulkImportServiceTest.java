@@ -0,0 +1,126 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.persistence.AuthorRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ExtendWith(MockitoExtension.class)
+class BookBulkImportServiceTest {
+
+    private @Mock BookRepository bookRepository;
+    private @Mock AuthorRepository authorRepository;
+    private @Mock MongoProjectionWriter projectionWriter;
+    private @Mock MongoOutboxService outboxService;
+    private @Mock PlatformTransactionManager transactionManager;
+    private @Mock EntityManager entityManager;
+
+    private BookBulkImportService bulkImportService;
+    private Author author;
+
+    @BeforeEach
+    void setUp() {
+        bulkImportService = new BookBulkImportService(bookRepository, authorRepository, projectionWriter, outboxService,
+                new BookBulkImportProperties(2, 10, 100), transactionManager, entityManager,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry());
+        author = FixturesFactory.author();
+    }
+
+    @Test
+    void resolves_authors_once_per_chunk_and_reports_row_errors() throws Exception {
+        String key = author.getAuthorApiKey().apiKey();
+        when(authorRepository.findAuthorsWithAddressesByApiKeys(anyCollection())).thenReturn(List.of(author));
+        when(bookRepository.saveAll(anyList())).then(invocation -> invocation.getArgument(0));
+
+        String ndjson = """
+                {"name":"A","releaseDate":"2024-01-01","availableOnline":true,"types":["EBOOK"],"wordCount":1000,"authorIds":["%1$s"],"genre":["FANTASY"]}
+                {"name":"B","availableOnline":true,"types":["EBOOK"],"wordCount":1000,"authorIds":["unknown"],"genre":["FANTASY"]}
+
+                not json
+                {"name":"C","availableOnline":true,"types":["EBOOK"],"wordCount":1000,"authorIds":["%1$s"],"genre":["NOT_A_GENRE"]}
+                {"name":"D","availableOnline":true,"types":["EBOOK"],"wordCount":5,"authorIds":["%1$s"],"genre":["HORROR"]}
+                """.formatted(key);
+
+        var report = bulkImportService.importBooks(new StringReader(ndjson), BookBulkImportService.Format.NDJSON, null);
+
+        assertThat(report.rowsRead()).isEqualTo(5);
+        assertThat(report.rowsImported()).isEqualTo(1);
+        assertThat(report.rowsFailed()).isEqualTo(4);
+        assertThat(report.chunks()).isEqualTo(2);
+        assertThat(report.errors()).extracting(e -> e.row()).containsExactlyInAnyOrder(2L, 4L, 5L, 6L);
+        verify(authorRepository, times(2)).findAuthorsWithAddressesByApiKeys(anyCollection());
+        verify(projectionWriter).writeBooks(argThat(books -> books.size() == 1), eq(List.of()));
+    }
+
+    @Test
+    void parses_csv_with_quoted_fields_and_list_columns() throws Exception {
+        String key = author.getAuthorApiKey().apiKey();
+        when(authorRepository.findAuthorsWithAddressesByApiKeys(anyCollection())).thenReturn(List.of(author));
+        when(bookRepository.saveAll(anyList())).then(invocation -> invocation.getArgument(0));
+
+        String csv = """
+                name,releaseDate,availableOnline,types,wordCount,description,authorIds,genre
+                "Book, with comma",2024-01-01,true,EBOOK|HARDCOVER,50000,"He said ""hi""\",%s,FANTASY|HORROR
+                """.formatted(key);
+
+        var report = bulkImportService.importBooks(new StringReader(csv), BookBulkImportService.Format.CSV, 10);
+
+        assertThat(report.rowsImported()).isEqualTo(1);
+        assertThat(report.errors()).isEmpty();
+        verify(projectionWriter).writeBooks(argThat(books -> books.stream().allMatch(b ->
+                b.getName().equals("Book, with comma")
+                        && b.getDescription().equals("He said \"hi\"")
+                        && b.getBookTypes().size() == 2
+                        && b.getGenres().size() == 2)), eq(List.of()));
+    }
+
+    @Test
+    void falls_back_to_outbox_when_mongo_write_fails() throws Exception {
+        String key = author.getAuthorApiKey().apiKey();
+        when(authorRepository.findAuthorsWithAddressesByApiKeys(anyCollection())).thenReturn(List.of(author));
+        when(bookRepository.saveAll(anyList())).then(invocation -> invocation.getArgument(0));
+        doThrow(new IllegalStateException("mongo down")).when(projectionWriter).writeBooks(any(), any());
+
+        String ndjson = """
+                {"name":"A","availableOnline":true,"types":["EBOOK"],"wordCount":1000,"authorIds":["%s"],"genre":["FANTASY"]}
+                """.formatted(key);
+
+        var report = bulkImportService.importBooks(new StringReader(ndjson), BookBulkImportService.Format.NDJSON, null);
+
+        assertThat(report.rowsImported()).isEqualTo(1);
+        verify(outboxService).bookChanged(any());
+    }
+
+    @Test
+    void rejects_invalid_chunk_size_and_missing_csv_header() {
+        assertThatThrownBy(() -> bulkImportService.importBooks(new StringReader(""), BookBulkImportService.Format.NDJSON, 11))
+                .isInstanceOf(BookBulkImportService.BookBulkImportServiceException.class);
+        assertThatThrownBy(() -> bulkImportService.importBooks(new StringReader("name,wordCount\n"), BookBulkImportService.Format.CSV, null))
+                .isInstanceOf(BookBulkImportService.BookBulkImportServiceException.class);
+    }
+}
@@ -0,0 +1,122 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import spengergasse.at.sj2425scherzerrabar.MongoDBIndexConfiguration;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.service.BookReadRouter.ReadQuery;
+import spengergasse.at.sj2425scherzerrabar.service.BookReadRouter.Store;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BookReadRouterTest {
+
+    private @Mock MongoOutboxRelay outboxRelay;
+    private @Mock MongoResyncService resyncService;
+    private @Mock MongoDBIndexConfiguration indexConfiguration;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BookReadRouter router;
+
+    @BeforeEach
+    void setUp() {
+        when(outboxRelay.getLag()).thenReturn(Duration.ZERO);
+        when(indexConfiguration.isReady()).thenReturn(true);
+        router = new BookReadRouter(new BookReadRouterProperties(true, Duration.ofSeconds(5), Duration.ofSeconds(30), 4),
+                outboxRelay, resyncService, indexConfiguration, meterRegistry);
+    }
+
+    @Test
+    void reads_from_mongo_when_projection_is_healthy() {
+        String result = router.read(ReadQuery.BOOK_BY_API_KEY, () -> Optional.of("mongo"), () -> "jpa");
+
+        assertThat(result).isEqualTo("mongo");
+        assertThat(meterRegistry.get("book.reads").tag("query", "book_by_api_key").tag("store", "mongo").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reads_from_jpa_while_outbox_lags() {
+        when(outboxRelay.getLag()).thenReturn(Duration.ofSeconds(6));
+
+        String result = router.read(ReadQuery.BOOK_BY_API_KEY, () -> Optional.of("mongo"), () -> "jpa");
+
+        assertThat(result).isEqualTo("jpa");
+        assertThat(router.unhealthyReason()).isEqualTo("lag");
+        assertThat(meterRegistry.get("book.reads.fallback").tag("reason", "lag").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reads_from_jpa_while_books_are_resynced() {
+        when(resyncService.isRunning(AggregateType.BOOK)).thenReturn(true);
+
+        assertThat(router.read(ReadQuery.AUTHOR_BY_API_KEY, () -> Optional.of("mongo"), () -> "jpa")).isEqualTo("jpa");
+        assertThat(router.unhealthyReason()).isEqualTo("resync");
+    }
+
+    @Test
+    void reads_from_jpa_until_mongo_indexes_are_built() {
+        when(indexConfiguration.isReady()).thenReturn(false);
+
+        assertThat(router.read(ReadQuery.BOOK_BY_API_KEY, () -> Optional.of("mongo"), () -> "jpa")).isEqualTo("jpa");
+        assertThat(router.unhealthyReason()).isEqualTo("indexes");
+    }
+
+    @Test
+    void falls_back_to_jpa_when_document_is_missing() {
+        String result = router.read(ReadQuery.BOOK_BY_API_KEY, Optional::empty, () -> "jpa");
+
+        assertThat(result).isEqualTo("jpa");
+        assertThat(meterRegistry.get("book.reads.fallback").tag("reason", "missing").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void stops_reading_mongo_after_a_failure() {
+        String result = router.read(ReadQuery.BOOK_BY_API_KEY, () -> {
+            throw new IllegalStateException("mongo down");
+        }, () -> "jpa");
+
+        assertThat(result).isEqualTo("jpa");
+        assertThat(router.unhealthyReason()).isEqualTo("error");
+        assertThat(router.read(ReadQuery.BOOK_BY_API_KEY, () -> Optional.of("mongo"), () -> "jpa")).isEqualTo("jpa");
+    }
+
+    @Test
+    void prefers_the_faster_store_and_explores_the_other() {
+        router.recordLatency(ReadQuery.BOOKS_BY_AUTHOR, Store.MONGO, 1_000_000);
+        router.recordLatency(ReadQuery.BOOKS_BY_AUTHOR, Store.JPA, 200_000);
+
+        assertThat(router.choose(ReadQuery.BOOKS_BY_AUTHOR)).isEqualTo(Store.JPA);
+        assertThat(router.choose(ReadQuery.BOOKS_BY_AUTHOR)).isEqualTo(Store.JPA);
+        assertThat(router.choose(ReadQuery.BOOKS_BY_AUTHOR)).isEqualTo(Store.JPA);
+        assertThat(router.choose(ReadQuery.BOOKS_BY_AUTHOR)).isEqualTo(Store.MONGO);
+        // andere Query-Typen haben eigene Statistiken
+        assertThat(router.choose(ReadQuery.AUTHOR_BY_PENNAME)).isEqualTo(Store.MONGO);
+    }
+
+    @Test
+    void reacts_when_latencies_change() {
+        router.recordLatency(ReadQuery.BOOK_BY_API_KEY, Store.MONGO, 100_000);
+        router.recordLatency(ReadQuery.BOOK_BY_API_KEY, Store.JPA, 500_000);
+        assertThat(router.choose(ReadQuery.BOOK_BY_API_KEY)).isEqualTo(Store.MONGO);
+
+        for (int i = 0; i < 20; i++) {
+            router.recordLatency(ReadQuery.BOOK_BY_API_KEY, Store.MONGO, 2_000_000);
+        }
+        assertThat(router.choose(ReadQuery.BOOK_BY_API_KEY)).isEqualTo(Store.JPA);
+    }
+}
@@ -34,6 +34,7 @@ class BorrowingServiceTest {
     private @Mock BorrowingRepository borrowingRepository;
     private @Mock CustomerRepository customerRepository;
     private @Mock CopyRepository copyRepository;
+    private @Mock ApiKeyResolver apiKeyResolver;
 
     private BorrowingService borrowingService;
 
@@ -42,7 +43,7 @@ class BorrowingServiceTest {
         assumeThat(borrowingRepository).isNotNull();
         assumeThat(customerRepository).isNotNull();
         assumeThat(copyRepository).isNotNull();
-        borrowingService = new BorrowingService(borrowingRepository, customerRepository, copyRepository);
+        borrowingService = new BorrowingService(borrowingRepository, customerRepository, copyRepository, apiKeyResolver);
     }
 
     @Test
@@ -56,7 +57,7 @@ class BorrowingServiceTest {
     @Test
     void cant_create_borrowing_with_missing_copies() {
         var customer = FixturesFactory.customer();
-        when(customerRepository.findCustomerByCustomerApiKey(any())).thenReturn(Optional.of(customer));
+        when(apiKeyResolver.reference(eq(Customer.class), any())).thenReturn(Optional.of(customer));
 
         assertThatThrownBy(() -> borrowingService.createBorrowing(
                 new BorrowingCommand(new ApiKey("BorrowingApiKey").apiKey(),new ApiKey("customerApiKey").apiKey(), List.of(new ApiKey("invalidCopy").apiKey()), LocalDate.now(),0)))
@@ -69,12 +70,12 @@ class BorrowingServiceTest {
         var customer = FixturesFactory.customer();
         var copy = FixturesFactory.copy(FixturesFactory.author());
 
-        when(customerRepository.findCustomerByCustomerApiKey(any())).thenReturn(Optional.of(customer));
-        when(copyRepository.findCopyByCopyApiKey(any())).thenReturn(Optional.of(copy));
+        when(apiKeyResolver.reference(eq(Customer.class), any())).thenReturn(Optional.of(customer));
+        when(apiKeyResolver.reference(eq(Copy.class), any())).thenReturn(Optional.of(copy));
         when(borrowingRepository.save(any(Borrowing.class))).then(AdditionalAnswers.returnsFirstArg());
 
         BorrowingDto borrowing = borrowingService.createBorrowing(
-                new BorrowingCommand(new ApiKey("BorrowingApiKey").apiKey(),new ApiKey("customerApiKey").apiKey(), List.of(new ApiKey("copyApiKey").apiKey()), LocalDate.now(),0));
+                new BorrowingCommand(new ApiKey("BorrowingApiKey").apiKey(),customer.getCustomerApiKey().apiKey(), List.of(copy.getCopyApiKey().apiKey()), LocalDate.now(),0));
 
         assertThat(borrowing).isNotNull();
         assertThat(borrowing.customerApiKey()).isEqualTo(customer.getCustomerApiKey().apiKey());
@@ -12,6 +12,7 @@ import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
 import spengergasse.at.sj2425scherzerrabar.commands.BranchCommand;
 import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
 import spengergasse.at.sj2425scherzerrabar.domain.Branch;
+import spengergasse.at.sj2425scherzerrabar.domain.Library;
 import spengergasse.at.sj2425scherzerrabar.dtos.BranchDto;
 import spengergasse.at.sj2425scherzerrabar.dtos.LibraryDto;
 import spengergasse.at.sj2425scherzerrabar.persistence.BranchRepository;
@@ -29,12 +30,13 @@ import static org.mockito.Mockito.*;
 class BranchServiceTest {
     private @Mock BranchRepository branchRepository;
     private @Mock LibraryRepository libraryRepository;
+    private @Mock ApiKeyResolver apiKeyResolver;
 
     private BranchService branchService;
 
     @BeforeEach
     void setUp() {
-        branchService = new BranchService(branchRepository, libraryRepository);
+        branchService = new BranchService(branchRepository, libraryRepository, apiKeyResolver);
     }
 
 
@@ -43,7 +45,7 @@ class BranchServiceTest {
         var library = FixturesFactory.thalia(FixturesFactory.address2(), List.of(FixturesFactory.libBook(FixturesFactory.book(FixturesFactory.author()))));
         var branch = FixturesFactory.filiale();
 
-        when(libraryRepository.findLibraryByLibraryApiKey(any())).thenReturn(Optional.of(library));
+        when(apiKeyResolver.reference(eq(Library.class), any())).thenReturn(Optional.of(library));
         when(branchRepository.save(any())).then(AdditionalAnswers.returnsFirstArg());
 
         var createdBranch = branchService.createBranch(new BranchCommand(new ApiKey("BranchApiKey").apiKey(),
@@ -56,7 +58,7 @@ class BranchServiceTest {
 
     @Test
     void cant_create_branch_with_invalid_library() {
-        when(libraryRepository.findLibraryByLibraryApiKey(any())).thenReturn(Optional.empty());
+        when(apiKeyResolver.reference(eq(Library.class), any())).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> branchService.createBranch(new BranchCommand(new ApiKey("BranchApiKey").apiKey(),
                 new ApiKey("NonExistentApiKey").apiKey(),FixturesFactory.address2().toString())))
@@ -33,6 +33,7 @@ class BuyableBookServiceTest {
     private @Mock BuyableBookRepository buyableBookRepository;
     private @Mock PublisherRepository publisherRepository;
     private @Mock BookRepository bookRepository;
+    private @Mock ApiKeyResolver apiKeyResolver;
 
     private BuyableBookService buyableBookService;
 
@@ -41,7 +42,7 @@ class BuyableBookServiceTest {
         assumeThat(buyableBookRepository).isNotNull();
         assumeThat(publisherRepository).isNotNull();
         assumeThat(bookRepository).isNotNull();
-        buyableBookService = new BuyableBookService(buyableBookRepository, publisherRepository, bookRepository);
+        buyableBookService = new BuyableBookService(buyableBookRepository, publisherRepository, bookRepository, apiKeyResolver);
     }
 
     @Test
@@ -49,8 +50,8 @@ class BuyableBookServiceTest {
         var publisher = FixturesFactory.publisher(FixturesFactory.address2());
         var book = FixturesFactory.book(FixturesFactory.author());
 
-        when(publisherRepository.findPublisherByPublisherApiKey(any())).thenReturn(Optional.of(publisher));
-        when(bookRepository.findBookByBookApiKey(any())).thenReturn(Optional.of(book));
+        when(apiKeyResolver.reference(eq(Publisher.class), any())).thenReturn(Optional.of(publisher));
+        when(apiKeyResolver.reference(eq(Book.class), any())).thenReturn(Optional.of(book));
         when(buyableBookRepository.save(any(BuyableBook.class))).then(AdditionalAnswers.returnsFirstArg());
 
         BuyableBookDto buyableBook = buyableBookService.createBuyableBook(
@@ -66,7 +67,7 @@ class BuyableBookServiceTest {
     void cant_create_buyable_book_with_missing_publisher() {
         var book = FixturesFactory.book(FixturesFactory.author());
 
-        when(bookRepository.findBookByBookApiKey(any())).thenReturn(Optional.of(book));
+        when(apiKeyResolver.reference(eq(Book.class), any())).thenReturn(Optional.of(book));
 
        assertThatThrownBy(() ->buyableBookService.createBuyableBook(new BuyableBookCommand(new ApiKey("BuyableBookApiKey").apiKey(),10f,
                "invalidApiKey", BookType.HARDCOVER.name(), 100,book.getBookApiKey().apiKey())))
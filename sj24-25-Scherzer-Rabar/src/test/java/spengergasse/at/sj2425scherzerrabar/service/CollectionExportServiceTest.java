@@ -0,0 +1,126 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import spengergasse.at.sj2425scherzerrabar.dtos.PublisherDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ExtendWith(MockitoExtension.class)
+class CollectionExportServiceTest {
+
+    private @Mock PlatformTransactionManager transactionManager;
+    private @Mock EntityManager entityManager;
+
+    private CollectionExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new CollectionExportService(new CollectionExportProperties(2, Duration.ofMinutes(30)),
+                transactionManager, entityManager, new ObjectMapper());
+    }
+
+    private static List<PublisherDto> publishers(List<Long> ids) {
+        return ids.stream().map(id -> new PublisherDto("key" + id, "Publisher " + id, "Street " + id)).toList();
+    }
+
+    /** Keyset über die Ids 1..count, wie findXxxIdsAfter */
+    private static BiFunction<Long, Limit, List<Long>> idsUpTo(long count) {
+        return (afterId, limit) -> LongStream.rangeClosed(afterId + 1, count).limit(limit.max()).boxed().toList();
+    }
+
+    @Test
+    void writes_one_line_per_item_in_keyset_chunks_and_clears_the_persistence_context() throws IOException {
+        List<List<Long>> chunks = new ArrayList<>();
+        CollectionExportService.Source<PublisherDto> source = new CollectionExportService.Source<>(
+                idsUpTo(5),
+                ids -> {
+                    chunks.add(ids);
+                    return publishers(ids);
+                });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.writeNdjson(source, out);
+
+        assertThat(written).isEqualTo(5);
+        assertThat(chunks).containsExactly(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+        assertThat(out.toString(StandardCharsets.UTF_8).lines().toList())
+                .hasSize(5)
+                .first().isEqualTo("{\"apiKey\":\"key1\",\"name\":\"Publisher 1\",\"address\":\"Street 1\"}");
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void every_chunk_is_read_in_its_own_transaction_and_written_after_commit() throws IOException {
+        List<String> events = new ArrayList<>();
+        doAnswer(invocation -> events.add("commit")).when(transactionManager).commit(any());
+        CollectionExportService.Source<PublisherDto> source =
+                new CollectionExportService.Source<>(idsUpTo(4), CollectionExportServiceTest::publishers);
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void flush() {
+                events.add("flush");
+            }
+        };
+
+        exportService.writeNdjson(source, out);
+
+        // ein voller letzter Chunk braucht noch eine (leere) Abfrage
+        verify(transactionManager, times(3)).getTransaction(any());
+        assertThat(events).containsExactly("commit", "flush", "commit", "flush", "commit");
+    }
+
+    @Test
+    void writes_nothing_for_an_empty_collection() throws IOException {
+        CollectionExportService.Source<PublisherDto> source =
+                new CollectionExportService.Source<>(idsUpTo(0), CollectionExportServiceTest::publishers);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(exportService.writeNdjson(source, out)).isZero();
+        assertThat(out.size()).isZero();
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void rethrows_io_exception_of_the_client_connection() {
+        CollectionExportService.Source<PublisherDto> source =
+                new CollectionExportService.Source<>(idsUpTo(1), CollectionExportServiceTest::publishers);
+        OutputStream brokenPipe = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> exportService.writeNdjson(source, brokenPipe))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Broken pipe");
+    }
+}
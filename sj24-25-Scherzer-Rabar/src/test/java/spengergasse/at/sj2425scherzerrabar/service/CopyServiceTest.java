@@ -41,6 +41,7 @@ class CopyServiceTest {
     private @Mock BookRepository bookRepository;
     private @Mock PublisherRepository publisherRepository;
     private @Mock BranchRepository branchRepository;
+    private @Mock ApiKeyResolver apiKeyResolver;
 
     private CopyService copyService;
 
@@ -50,7 +51,7 @@ class CopyServiceTest {
         assumeThat(bookRepository).isNotNull();
         assumeThat(publisherRepository).isNotNull();
         assumeThat(branchRepository).isNotNull();
-        copyService = new CopyService(copyRepository, bookRepository, publisherRepository,branchRepository);
+        copyService = new CopyService(copyRepository, bookRepository, publisherRepository,branchRepository, apiKeyResolver);
     }
 
     @Test
@@ -58,10 +59,10 @@ class CopyServiceTest {
         Publisher publisher = FixturesFactory.publisher(FixturesFactory.address2());
         Book book = FixturesFactory.book(FixturesFactory.author());
         Branch branch = FixturesFactory.filiale();
-        when(publisherRepository.findPublisherByPublisherApiKey(any())).thenReturn(Optional.of(publisher));
-        when(bookRepository.findBookByBookApiKey(any())).thenReturn(Optional.of(book));
+        when(apiKeyResolver.reference(eq(Publisher.class), any())).thenReturn(Optional.of(publisher));
+        when(apiKeyResolver.reference(eq(Book.class), any())).thenReturn(Optional.of(book));
         when(copyRepository.save(any(Copy.class))).then(AdditionalAnswers.returnsFirstArg());
-        when(branchRepository.findBranchByBranchApiKey(any())).thenReturn(Optional.of(branch));
+        when(apiKeyResolver.reference(eq(Branch.class), any())).thenReturn(Optional.of(branch));
 
 
         var copy = copyService.createCopy(new CopyCommand(
@@ -75,7 +76,7 @@ class CopyServiceTest {
     void cant_create_copy_with_missing_publisher() {
         Book book = FixturesFactory.book(FixturesFactory.author());
 
-        when(bookRepository.findBookByBookApiKey(any())).thenReturn(Optional.of(book));
+        when(apiKeyResolver.reference(eq(Book.class), any())).thenReturn(Optional.of(book));
 
         assertThatThrownBy(()-> copyService.createCopy(new CopyCommand("apiKey", "publisherApiKey",
                 BookType.EBOOK,12,"bookApiKey",100f,"branchApiKey")))
@@ -95,8 +96,8 @@ class CopyServiceTest {
     void cant_create_copy_with_missing_branch() {
         Publisher publisher = FixturesFactory.publisher(FixturesFactory.address2());
         Book book = FixturesFactory.book(FixturesFactory.author());
-        when(publisherRepository.findPublisherByPublisherApiKey(any())).thenReturn(Optional.of(publisher));
-        when(bookRepository.findBookByBookApiKey(any())).thenReturn(Optional.of(book));
+        when(apiKeyResolver.reference(eq(Publisher.class), any())).thenReturn(Optional.of(publisher));
+        when(apiKeyResolver.reference(eq(Book.class), any())).thenReturn(Optional.of(book));
 
         assertThatThrownBy(()-> copyService.createCopy(new CopyCommand("apiKey", "publisherApiKey",
                 BookType.EBOOK,12,"bookApiKey",100f,"branchApiKey")))
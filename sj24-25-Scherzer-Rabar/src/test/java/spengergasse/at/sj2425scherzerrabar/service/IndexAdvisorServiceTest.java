@@ -0,0 +1,103 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import spengergasse.at.sj2425scherzerrabar.dtos.IndexAdvisorReport;
+import spengergasse.at.sj2425scherzerrabar.persistence.QueryPlans;
+import spengergasse.at.sj2425scherzerrabar.persistence.SelectStatementRecorder;
+
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IndexAdvisorServiceTest {
+
+    private static final String BOOK_PLAN = """
+            [{"Plan": {"Node Type": "Nested Loop", "Plans": [
+                {"Node Type": "Seq Scan", "Relation Name": "book", "Filter": "(word_count > $1)"},
+                {"Node Type": "Seq Scan", "Relation Name": "genres_of_book"}]}}]""";
+
+    private @Mock JdbcTemplate jdbcTemplate;
+
+    private final SelectStatementRecorder recorder = new SelectStatementRecorder(10);
+    private IndexAdvisorService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn("book", "genres_of_book");
+        when(rs.getLong(2)).thenReturn(50_000L, 20L);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("select relname"), any(RowCallbackHandler.class));
+        service = new IndexAdvisorService(recorder, jdbcTemplate, new ObjectMapper(), new IndexAdvisorProperties(10_000, 10));
+    }
+
+    @Test
+    void reports_seq_scans_on_large_tables_only() {
+        recorder.inspect("select b.id from book b join genres_of_book g on g.book_id = b.id where b.word_count > ?");
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class))).thenReturn(BOOK_PLAN);
+
+        IndexAdvisorReport report = service.report();
+
+        assertThat(report.statements()).isEqualTo(1);
+        assertThat(report.seqScans()).singleElement().satisfies(scan -> {
+            assertThat(scan.relation()).isEqualTo("book");
+            assertThat(scan.liveRows()).isEqualTo(50_000);
+            assertThat(scan.filter()).isEqualTo("(word_count > $1)");
+        });
+        assertThat(report.failures()).isEmpty();
+    }
+
+    @Test
+    void collects_statements_that_cannot_be_explained() {
+        recorder.inspect("select * from missing where id = ?");
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class)))
+                .thenThrow(new InvalidDataAccessResourceUsageException("relation \"missing\" does not exist"));
+
+        IndexAdvisorReport report = service.report();
+
+        assertThat(report.seqScans()).isEmpty();
+        assertThat(report.failures()).singleElement()
+                .satisfies(failure -> assertThat(failure.error()).contains("missing"));
+    }
+
+    @Test
+    void recorder_keeps_distinct_selects_with_collapsed_in_lists() {
+        recorder.inspect("select b.id from book b where b.id in (?, ?, ?)");
+        recorder.inspect("select b.id from book b where b.id in (?,?)");
+        recorder.inspect("insert into book (id) values (?)");
+
+        assertThat(recorder.statements()).containsExactly("select b.id from book b where b.id in (?)");
+    }
+
+    @Test
+    void numbers_jdbc_placeholders_outside_literals() {
+        assertThat(QueryPlans.numberedParameters("select * from book where name = '?' and id > ? and word_count < ?"))
+                .isEqualTo("select * from book where name = '?' and id > $1 and word_count < $2");
+    }
+}
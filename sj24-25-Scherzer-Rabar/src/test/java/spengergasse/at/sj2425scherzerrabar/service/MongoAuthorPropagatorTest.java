@@ -0,0 +1,142 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
+import spengergasse.at.sj2425scherzerrabar.domain.Person;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.Operation;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ExtendWith(MockitoExtension.class)
+class MongoAuthorPropagatorTest {
+
+    private static final String COLLECTION = "books_with_embedded_authors";
+
+    private @Mock MongoTemplate mongoTemplate;
+    private @Mock MongoConverter converter;
+    private @Mock BookEmbeddedMapper embeddedMapper;
+    private @Mock MongoOutboxService outboxService;
+
+    private MongoAuthorPropagator propagator;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(BookDocumentEmbedded.class)).thenReturn(COLLECTION);
+        propagator = new MongoAuthorPropagator(mongoTemplate, embeddedMapper, outboxService,
+                new MongoAuthorPropagationProperties(2, 10, Duration.ZERO, 1, 1, Duration.ZERO, Duration.ofMinutes(2)), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        propagator.shutdown();
+    }
+
+    private void stubChunks(List<Document> firstChunk, List<Document> secondChunk) {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(COLLECTION)))
+                .thenReturn(firstChunk)
+                .thenReturn(secondChunk);
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(COLLECTION)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    @Test
+    void changed_author_is_replaced_with_array_filters_in_chunks() {
+        Author author = FixturesFactory.author();
+        author.setPersonId(new Person.PersonId(7L));
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(embeddedMapper.toEmbeddedAuthor(author)).thenReturn(new BookDocumentEmbedded.EmbeddedAuthor());
+        when(mongoTemplate.count(any(Query.class), eq(COLLECTION))).thenReturn(3L);
+        stubChunks(List.of(new Document("_id", 1), new Document("_id", 2)), List.of(new Document("_id", 3)));
+
+        propagator.authorsChanged(List.of(author));
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, times(2)).updateMulti(any(Query.class), update.capture(), eq(COLLECTION));
+        Update first = (Update) update.getAllValues().getFirst();
+        assertThat(first.getUpdateObject().get("$set", Document.class)).containsKey("authors.$[author]");
+        assertThat(first.getArrayFilters()).hasSize(1);
+    }
+
+    @Test
+    void deleted_author_is_pulled_from_the_embedded_books() {
+        when(mongoTemplate.count(any(Query.class), eq(COLLECTION))).thenReturn(1L);
+        stubChunks(List.of(new Document("_id", 1)), List.of());
+
+        propagator.authorsDeleted(Map.of(7L, "authorKey"));
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).updateMulti(any(Query.class), update.capture(), eq(COLLECTION));
+        assertThat(update.getValue().getUpdateObject().get("$pull", Document.class).get("authors"))
+                .isEqualTo(new Document("api_key", "authorKey"));
+    }
+
+    @Test
+    void author_without_embedded_books_writes_nothing() {
+        when(mongoTemplate.count(any(Query.class), eq(COLLECTION))).thenReturn(0L);
+
+        propagator.authorsDeleted(Map.of(7L, "authorKey"));
+
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(UpdateDefinition.class), any(String.class));
+        assertThat(propagator.progress()).isEmpty();
+    }
+
+    @Test
+    void background_job_holds_an_outbox_guard_until_it_is_done() {
+        MongoOutboxEvent guard = new MongoOutboxEvent(AggregateType.AUTHOR, 7L, "authorKey", Operation.DELETE);
+        when(outboxService.retryAuthor(eq(7L), eq("authorKey"), eq(Operation.DELETE), any())).thenReturn(guard);
+        when(mongoTemplate.count(any(Query.class), eq(COLLECTION))).thenReturn(11L);
+        stubChunks(List.of(new Document("_id", 1)), List.of());
+
+        propagator.authorsDeleted(Map.of(7L, "authorKey"));
+
+        // Wächter steht vor dem Start in der Outbox, damit der Lag für alle Instanzen sichtbar ist
+        verify(outboxService).retryAuthor(eq(7L), eq("authorKey"), eq(Operation.DELETE), any(Instant.class));
+        verify(outboxService, timeout(2000)).completed(guard);
+        verify(outboxService, never()).deferUntil(eq(guard), any());
+    }
+
+    @Test
+    void background_job_that_gives_up_makes_its_guard_due_again() {
+        MongoOutboxEvent guard = new MongoOutboxEvent(AggregateType.AUTHOR, 7L, "authorKey", Operation.DELETE);
+        when(outboxService.retryAuthor(eq(7L), eq("authorKey"), eq(Operation.DELETE), any())).thenReturn(guard);
+        when(mongoTemplate.count(any(Query.class), eq(COLLECTION))).thenReturn(11L);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(COLLECTION))).thenReturn(List.of(new Document("_id", 1)));
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(COLLECTION)))
+                .thenThrow(new IllegalStateException("mongo down"));
+
+        propagator.authorsDeleted(Map.of(7L, "authorKey"));
+
+        verify(outboxService, timeout(2000)).deferUntil(eq(guard), any(Instant.class));
+        verify(outboxService, never()).completed(any());
+    }
+}
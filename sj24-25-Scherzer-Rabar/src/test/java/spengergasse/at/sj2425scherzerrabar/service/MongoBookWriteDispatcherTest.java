@@ -0,0 +1,159 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Book;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookMapper;
+import spengergasse.at.sj2425scherzerrabar.persistence.MongoOutboxRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ExtendWith(MockitoExtension.class)
+class MongoBookWriteDispatcherTest {
+
+    private @Mock MongoOutboxService outboxService;
+    private @Mock MongoOutboxRepository outboxRepository;
+    private @Mock MongoProjectionWriter projectionWriter;
+    private @Mock BookMapper mapper;
+    private @Mock BookEmbeddedMapper embeddedMapper;
+    private @Mock PlatformTransactionManager transactionManager;
+    private @Mock EntityManager entityManager;
+
+    private final Book book = FixturesFactory.book(FixturesFactory.author());
+
+    private static MongoOutboxEvent event() {
+        return new MongoOutboxEvent(MongoOutboxEvent.AggregateType.BOOK, 1L, "key", MongoOutboxEvent.Operation.UPSERT);
+    }
+
+    private void stubMappers() {
+        when(mapper.toMongoDocument(book)).thenReturn(new BookDocument());
+        when(embeddedMapper.toMongoDocument(book)).thenReturn(new BookDocumentEmbedded());
+    }
+
+    private MongoBookWriteDispatcher dispatcher(MongoWriteConsistency consistency) {
+        TransactionSynchronizationManager.initSynchronization();
+        return new MongoBookWriteDispatcher(outboxService, outboxRepository, projectionWriter, mapper, embeddedMapper,
+                new MongoWriteProperties(consistency, Duration.ofSeconds(1)), transactionManager, new SimpleMeterRegistry(),
+                entityManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void sync_primary_only_writes_the_outbox() {
+        MongoOutboxEvent event = event();
+        when(outboxService.bookChanged(book)).thenReturn(event);
+
+        dispatcher(MongoWriteConsistency.SYNC_PRIMARY).bookChanged(book);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        verify(outboxService).bookChanged(book);
+        verifyNoInteractions(projectionWriter);
+        assertThat(event.getNextAttemptAt()).isEqualTo(event.getCreatedAt());
+    }
+
+    @Test
+    void sync_all_writes_both_projections_after_commit_and_acknowledges_the_outbox_event() {
+        MongoOutboxEvent event = mock(MongoOutboxEvent.class);
+        when(event.getId()).thenReturn(new MongoOutboxEvent.MongoOutboxEventId(1L));
+        when(event.getCreatedAt()).thenReturn(Instant.now());
+        when(outboxService.bookChanged(book)).thenReturn(event);
+        stubMappers();
+        when(projectionWriter.writeBookDocuments(anyList(), anyList(), anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        dispatcher(MongoWriteConsistency.SYNC_ALL).bookChanged(book);
+        verifyNoInteractions(projectionWriter);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        verify(projectionWriter).writeBookDocuments(anyList(), anyList(), eq(List.of()));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(new MongoOutboxEvent.MongoOutboxEventId(1L)));
+    }
+
+    @Test
+    void sync_all_keeps_the_outbox_event_when_mongo_fails() {
+        when(outboxService.bookChanged(book)).thenReturn(event());
+        stubMappers();
+        when(projectionWriter.writeBookDocuments(anyList(), anyList(), anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("mongo down")));
+
+        dispatcher(MongoWriteConsistency.SYNC_ALL).bookChanged(book);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void the_document_is_mapped_after_the_flush_so_it_carries_the_new_version() {
+        when(outboxService.bookChanged(book)).thenReturn(event());
+        stubMappers();
+
+        dispatcher(MongoWriteConsistency.SYNC_ALL).bookChanged(book);
+
+        InOrder order = inOrder(entityManager, mapper, embeddedMapper);
+        order.verify(entityManager).flush();
+        order.verify(mapper).toMongoDocument(book);
+        order.verify(embeddedMapper).toMongoDocument(book);
+    }
+
+    @Test
+    void fire_and_forget_keeps_a_deferred_outbox_event_until_the_write_is_confirmed() {
+        Instant createdAt = Instant.now();
+        MongoOutboxEvent event = mock(MongoOutboxEvent.class);
+        when(event.getId()).thenReturn(new MongoOutboxEvent.MongoOutboxEventId(1L));
+        when(event.getCreatedAt()).thenReturn(createdAt);
+        when(outboxService.bookDeleted(book)).thenReturn(event);
+        CompletableFuture<Void> write = new CompletableFuture<>();
+        when(projectionWriter.writeBookDocuments(anyList(), anyList(), anyList())).thenReturn(write);
+
+        dispatcher(MongoWriteConsistency.FIRE_AND_FORGET).bookDeleted(book);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        verify(projectionWriter).writeBookDocuments(List.of(), List.of(), List.of(book.getBookApiKey().apiKey()));
+        verify(event).deferUntil(createdAt.plusSeconds(1));
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+
+        write.complete(null);
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(new MongoOutboxEvent.MongoOutboxEventId(1L)));
+    }
+
+    @Test
+    void fire_and_forget_failures_leave_the_event_to_the_relay() {
+        when(outboxService.bookDeleted(book)).thenReturn(event());
+        when(projectionWriter.writeBookDocuments(anyList(), anyList(), anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("mongo down")));
+
+        dispatcher(MongoWriteConsistency.FIRE_AND_FORGET).bookDeleted(book);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+    }
+}
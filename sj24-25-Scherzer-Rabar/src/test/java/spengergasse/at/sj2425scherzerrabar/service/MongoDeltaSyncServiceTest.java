@@ -0,0 +1,90 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.Author;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoSyncWatermark;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.AuthorDocument;
+import spengergasse.at.sj2425scherzerrabar.dtos.ChangeMarker;
+import spengergasse.at.sj2425scherzerrabar.mapper.AuthorMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookMapper;
+import spengergasse.at.sj2425scherzerrabar.persistence.AuthorRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.MongoSyncWatermarkRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ExtendWith(MockitoExtension.class)
+class MongoDeltaSyncServiceTest {
+
+    private @Mock MongoSyncWatermarkRepository watermarkRepository;
+    private @Mock BookRepository bookRepository;
+    private @Mock AuthorRepository authorRepository;
+    private @Mock BookMapper bookMapper;
+    private @Mock BookEmbeddedMapper embeddedMapper;
+    private @Mock AuthorMapper authorMapper;
+    private @Mock MongoProjectionWriter projectionWriter;
+    private @Mock PlatformTransactionManager transactionManager;
+
+    private static final long WATERMARK_XID = 100L;
+    private static final long OLDEST_RUNNING_XID = 200L;
+    private MongoSyncWatermark watermark;
+    private MongoDeltaSyncService deltaSync;
+
+    @BeforeEach
+    void setUp() {
+        watermark = new MongoSyncWatermark(AggregateType.AUTHOR, WATERMARK_XID);
+        deltaSync = new MongoDeltaSyncService(watermarkRepository, bookRepository, authorRepository, bookMapper,
+                embeddedMapper, authorMapper, projectionWriter,
+                new MongoDeltaSyncProperties(true, 2), transactionManager, new SimpleMeterRegistry());
+        when(watermarkRepository.findById(watermark.getId())).thenReturn(Optional.of(watermark));
+        when(watermarkRepository.findOldestRunningXid()).thenReturn(OLDEST_RUNNING_XID);
+    }
+
+    @Test
+    void nothing_changed_writes_nothing_and_keeps_the_watermark() {
+        when(authorRepository.findAuthorsChangedSince(eq(WATERMARK_XID), eq(0L), eq(OLDEST_RUNNING_XID), any())).thenReturn(List.of());
+
+        assertThat(deltaSync.syncChanges(AggregateType.AUTHOR)).isZero();
+
+        verifyNoInteractions(projectionWriter);
+        verify(watermarkRepository, never()).save(any());
+    }
+
+    @Test
+    void changed_rows_are_written_in_batches_and_advance_the_watermark() {
+        Instant now = Instant.now();
+        when(authorRepository.findAuthorsChangedSince(anyLong(), anyLong(), eq(OLDEST_RUNNING_XID), any()))
+                .thenReturn(List.of(new ChangeMarker(1L, 150L, now), new ChangeMarker(2L, 150L, now)))
+                .thenReturn(List.of(new ChangeMarker(3L, 170L, now)));
+        when(authorRepository.findAuthorsWithAddressesByIds(anyList())).thenReturn(List.of(new Author()));
+        when(authorMapper.toMongoDocument(any())).thenReturn(new AuthorDocument());
+        when(projectionWriter.writeChangedAuthorDocuments(anyList())).thenReturn(1);
+
+        assertThat(deltaSync.syncChanges(AggregateType.AUTHOR)).isEqualTo(3);
+
+        verify(authorRepository).findAuthorsChangedSince(eq(150L), eq(2L), eq(OLDEST_RUNNING_XID), any());
+        verify(projectionWriter, times(2)).writeChangedAuthorDocuments(anyList());
+        assertThat(watermark.getLastXid()).isEqualTo(170L);
+        assertThat(watermark.getLastId()).isEqualTo(3L);
+    }
+}
@@ -0,0 +1,164 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.MongoOutboxEventId;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.Operation;
+import spengergasse.at.sj2425scherzerrabar.persistence.AuthorRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.MongoOutboxRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ExtendWith(MockitoExtension.class)
+class MongoOutboxRelayTest {
+
+    private @Mock MongoOutboxRepository outboxRepository;
+    private @Mock BookRepository bookRepository;
+    private @Mock AuthorRepository authorRepository;
+    private @Mock MongoProjectionWriter projectionWriter;
+    private @Mock MongoAuthorPropagator authorPropagator;
+    private @Mock PlatformTransactionManager transactionManager;
+
+    private MongoOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new MongoOutboxRelay(outboxRepository, bookRepository, authorRepository, projectionWriter, authorPropagator,
+                new MongoOutboxProperties(true, 10, 3, Duration.ofSeconds(1), Duration.ofMinutes(1)),
+                transactionManager, new SimpleMeterRegistry());
+        lenient().when(bookRepository.findAllWithAllCollectionsByIds(anyList())).thenReturn(List.of());
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    private static MongoOutboxEvent deletedBook(long id, String apiKey) {
+        MongoOutboxEvent event = new MongoOutboxEvent(AggregateType.BOOK, id, apiKey, Operation.DELETE);
+        ReflectionTestUtils.setField(event, "id", new MongoOutboxEventId(id));
+        return event;
+    }
+
+    @Test
+    void successful_batch_is_written_and_deleted_together() {
+        List<MongoOutboxEvent> events = List.of(deletedBook(1L, "first"), deletedBook(2L, "second"));
+        when(outboxRepository.lockNextBatch(eq(3), any(Instant.class), eq(10))).thenReturn(events);
+
+        assertThat(relay.relayBatch()).isEqualTo(2);
+
+        verify(projectionWriter).writeBooks(eq(List.of()), argThat(removed -> List.copyOf(removed).equals(List.of("first", "second"))));
+        verify(outboxRepository).deleteAllInBatch(events);
+        assertThat(events).allSatisfy(event -> assertThat(event.getAttempts()).isZero());
+        assertThat(committedRollbackOnly()).containsExactly(false);
+    }
+
+    @Test
+    void poison_event_only_fails_itself_and_the_rest_of_the_batch_is_relayed() {
+        MongoOutboxEvent healthy = deletedBook(1L, "healthy");
+        MongoOutboxEvent poison = deletedBook(2L, "poison");
+        MongoOutboxEvent alsoHealthy = deletedBook(3L, "alsoHealthy");
+        when(outboxRepository.lockNextBatch(eq(3), any(Instant.class), eq(10))).thenReturn(List.of(healthy, poison, alsoHealthy));
+        lockable(healthy, poison, alsoHealthy);
+        doAnswer(invocation -> {
+            Collection<String> removed = invocation.getArgument(1);
+            if (removed.contains("poison")) {
+                throw new IllegalStateException("mapping failed");
+            }
+            return null;
+        }).when(projectionWriter).writeBooks(any(), any());
+
+        assertThat(relay.relayBatch()).isEqualTo(3);
+
+        verify(outboxRepository).deleteAllInBatch(List.of(healthy));
+        verify(outboxRepository).deleteAllInBatch(List.of(alsoHealthy));
+        verify(outboxRepository, never()).deleteAllInBatch(List.of(poison));
+        assertThat(poison.getAttempts()).isEqualTo(1);
+        assertThat(poison.getLastError()).isEqualTo("mapping failed");
+        assertThat(healthy.getAttempts()).isZero();
+        assertThat(alsoHealthy.getAttempts()).isZero();
+        // Batch, healthy, poison, alsoHealthy, Fehlversuch von poison
+        assertThat(committedRollbackOnly()).containsExactly(true, false, true, false, false);
+    }
+
+    @Test
+    void single_failing_event_is_rescheduled_with_backoff() {
+        MongoOutboxEvent poison = deletedBook(2L, "poison");
+        when(outboxRepository.lockNextBatch(eq(3), any(Instant.class), eq(10))).thenReturn(List.of(poison));
+        lockable(poison);
+        doThrow(new IllegalStateException("mongo down")).when(projectionWriter).writeBooks(any(), any());
+
+        relay.relayBatch();
+
+        verify(projectionWriter, times(1)).writeBooks(any(), any());
+        verify(outboxRepository, never()).deleteAllInBatch(any());
+        assertThat(poison.getAttempts()).isEqualTo(1);
+        assertThat(poison.getNextAttemptAt()).isAfter(poison.getCreatedAt());
+    }
+
+    @Test
+    void failed_attempt_is_recorded_although_the_batch_transaction_is_rolled_back() {
+        MongoOutboxEvent poison = deletedBook(2L, "poison");
+        when(outboxRepository.lockNextBatch(eq(3), any(Instant.class), eq(10))).thenReturn(List.of(poison));
+        lockable(poison);
+        // wie ein JPA-Fehler beim Laden des Books: die Relay-Transaktion ist danach rollback-only
+        when(bookRepository.findAllWithAllCollectionsByIds(anyList())).thenThrow(new IllegalStateException("could not execute query"));
+
+        relay.relayBatch();
+
+        assertThat(committedRollbackOnly()).containsExactly(true, false);
+        InOrder inOrder = inOrder(transactionManager, outboxRepository);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(outboxRepository).lockById(2L);
+        inOrder.verify(transactionManager).commit(any());
+        assertThat(poison.getAttempts()).isEqualTo(1);
+        assertThat(poison.getLastError()).isEqualTo("could not execute query");
+    }
+
+    @Test
+    void failed_attempt_of_an_event_taken_over_by_another_relay_is_not_recorded() {
+        MongoOutboxEvent poison = deletedBook(2L, "poison");
+        when(outboxRepository.lockNextBatch(eq(3), any(Instant.class), eq(10))).thenReturn(List.of(poison));
+        when(outboxRepository.lockById(2L)).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("mongo down")).when(projectionWriter).writeBooks(any(), any());
+
+        relay.relayBatch();
+
+        assertThat(poison.getAttempts()).isZero();
+    }
+
+    /**
+     * Der JPA-Kontext liefert in jeder neuen Transaktion dieselbe Instanz
+     */
+    private void lockable(MongoOutboxEvent... events) {
+        for (MongoOutboxEvent event : events) {
+            lenient().when(outboxRepository.lockById(event.getId().id())).thenReturn(Optional.of(event));
+        }
+    }
+
+    private List<Boolean> committedRollbackOnly() {
+        ArgumentCaptor<TransactionStatus> statuses = ArgumentCaptor.forClass(TransactionStatus.class);
+        verify(transactionManager, atLeastOnce()).commit(statuses.capture());
+        return statuses.getAllValues().stream().map(TransactionStatus::isRollbackOnly).toList();
+    }
+}
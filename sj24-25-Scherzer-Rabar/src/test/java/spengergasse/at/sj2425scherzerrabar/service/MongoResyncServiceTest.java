@@ -0,0 +1,173 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoOutboxEvent.AggregateType;
+import spengergasse.at.sj2425scherzerrabar.domain.jpa.MongoResyncCheckpoint;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocument;
+import spengergasse.at.sj2425scherzerrabar.domain.mongo.BookDocumentEmbedded;
+import spengergasse.at.sj2425scherzerrabar.mapper.AuthorMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookEmbeddedMapper;
+import spengergasse.at.sj2425scherzerrabar.mapper.BookMapper;
+import spengergasse.at.sj2425scherzerrabar.persistence.AuthorRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.BookRepository;
+import spengergasse.at.sj2425scherzerrabar.persistence.MongoResyncCheckpointRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+@ExtendWith(MockitoExtension.class)
+class MongoResyncServiceTest {
+
+    private @Mock MongoResyncCheckpointRepository checkpointRepository;
+    private @Mock BookRepository bookRepository;
+    private @Mock AuthorRepository authorRepository;
+    private @Mock BookMapper bookMapper;
+    private @Mock BookEmbeddedMapper embeddedMapper;
+    private @Mock AuthorMapper authorMapper;
+    private @Mock MongoProjectionWriter projectionWriter;
+    private @Mock PlatformTransactionManager transactionManager;
+
+    private MongoResyncService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new MongoResyncService(checkpointRepository, bookRepository, authorRepository, bookMapper, embeddedMapper,
+                authorMapper, projectionWriter, new MongoResyncProperties(1, 10, true, Duration.ofMinutes(2)),
+                transactionManager, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private void awaitFinished(AggregateType type) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.isRunning(type) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(service.isRunning(type)).isFalse();
+    }
+
+    @Test
+    void resume_only_continues_partitions_not_leased_by_another_instance() throws InterruptedException {
+        MongoResyncCheckpoint free = new MongoResyncCheckpoint(AggregateType.BOOK, 0, 0L, 10L);
+        MongoResyncCheckpoint leased = new MongoResyncCheckpoint(AggregateType.BOOK, 1, 10L, 20L);
+        leased.lease("other-instance", Instant.now().plus(Duration.ofHours(1)));
+        when(checkpointRepository.findByAggregateType(AggregateType.BOOK)).thenReturn(List.of(free, leased));
+        when(checkpointRepository.findByAggregateType(AggregateType.AUTHOR)).thenReturn(List.of());
+        when(checkpointRepository.lockClaimable(eq("BOOK"), any(Instant.class))).thenReturn(List.of(free));
+        when(bookRepository.findBookIdsAfter(eq(0L), eq(10L), any())).thenReturn(List.of());
+        when(projectionWriter.findPostgresIds(any(), anyLong(), anyLong())).thenReturn(Set.of());
+        when(checkpointRepository.completeLeased(eq(free.getId()), anyString(), any(Instant.class))).thenReturn(1);
+
+        service.resumeInterruptedRuns();
+        awaitFinished(AggregateType.BOOK);
+
+        assertThat(free.getCompleted()).isTrue();
+        assertThat(free.getLeaseOwner()).isNull();
+        assertThat(leased.getCompleted()).isFalse();
+        assertThat(leased.getLeaseOwner()).isEqualTo("other-instance");
+        verify(bookRepository, never()).findBookIdsAfter(eq(10L), anyLong(), any());
+    }
+
+    @Test
+    void resume_is_skipped_while_all_open_partitions_are_leased() {
+        MongoResyncCheckpoint leased = new MongoResyncCheckpoint(AggregateType.BOOK, 0, 0L, 10L);
+        leased.lease("other-instance", Instant.now().plus(Duration.ofHours(1)));
+        when(checkpointRepository.findByAggregateType(AggregateType.BOOK)).thenReturn(List.of(leased));
+        when(checkpointRepository.findByAggregateType(AggregateType.AUTHOR)).thenReturn(List.of());
+
+        service.resumeInterruptedRuns();
+
+        verify(checkpointRepository, never()).lockClaimable(anyString(), any());
+        assertThat(service.progress(AggregateType.BOOK).status()).isEqualTo("RUNNING");
+    }
+
+    @Test
+    void documents_without_a_postgres_row_are_removed() throws InterruptedException {
+        when(checkpointRepository.findByAggregateType(AggregateType.BOOK)).thenReturn(List.of());
+        when(bookRepository.findMinBookId()).thenReturn(Optional.of(1L));
+        when(bookRepository.findMaxBookId()).thenReturn(Optional.of(4L));
+        when(checkpointRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookRepository.findBookIdsAfter(eq(0L), eq(4L), any())).thenReturn(List.of(1L, 2L, 4L));
+        when(bookRepository.findBookIdsAfter(eq(4L), eq(4L), any())).thenReturn(List.of());
+        when(projectionWriter.writeBookDocuments(anyList(), anyList(), anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        when(projectionWriter.findPostgresIds(BookDocument.class, Long.MIN_VALUE, 4L)).thenReturn(Set.of(1L, 2L, 3L, 4L));
+        when(projectionWriter.findPostgresIds(BookDocumentEmbedded.class, Long.MIN_VALUE, 4L)).thenReturn(Set.of(1L, 2L, 4L));
+        // 7 wurde nach dem Planen eingefügt, 9 gibt es nicht mehr
+        when(projectionWriter.findPostgresIds(BookDocument.class, 4L, Long.MAX_VALUE)).thenReturn(Set.of(7L));
+        when(projectionWriter.findPostgresIds(BookDocumentEmbedded.class, 4L, Long.MAX_VALUE)).thenReturn(Set.of(7L, 9L));
+        when(bookRepository.findExistingBookIds(Set.of(3L))).thenReturn(List.of());
+        when(bookRepository.findExistingBookIds(Set.of(7L, 9L))).thenReturn(List.of(7L));
+        when(checkpointRepository.advanceLeased(any(), anyString(), eq(4L), eq(3L), any(Instant.class), any(Instant.class))).thenReturn(1);
+        when(checkpointRepository.completeLeased(any(), anyString(), any(Instant.class))).thenReturn(1);
+
+        service.start(AggregateType.BOOK, false);
+        awaitFinished(AggregateType.BOOK);
+
+        verify(projectionWriter).removeByPostgresIds(BookDocument.class, Set.of(3L));
+        verify(projectionWriter).removeByPostgresIds(BookDocumentEmbedded.class, Set.of(3L));
+        verify(projectionWriter).removeByPostgresIds(BookDocument.class, Set.of(9L));
+        verify(projectionWriter).removeByPostgresIds(BookDocumentEmbedded.class, Set.of(9L));
+        verify(projectionWriter, times(4)).removeByPostgresIds(any(), any());
+    }
+
+    private void onePageOfBooks() {
+        when(checkpointRepository.findByAggregateType(AggregateType.BOOK)).thenReturn(List.of());
+        when(bookRepository.findMinBookId()).thenReturn(Optional.of(1L));
+        when(bookRepository.findMaxBookId()).thenReturn(Optional.of(4L));
+        when(checkpointRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookRepository.findBookIdsAfter(eq(0L), eq(4L), any())).thenReturn(List.of(1L, 2L));
+    }
+
+    @Test
+    void run_stops_when_the_lease_was_taken_over_by_another_instance() throws InterruptedException {
+        onePageOfBooks();
+        when(projectionWriter.writeBookDocuments(anyList(), anyList(), anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        when(checkpointRepository.advanceLeased(any(), anyString(), eq(2L), eq(2L), any(Instant.class), any(Instant.class))).thenReturn(0);
+
+        service.start(AggregateType.BOOK, false);
+        awaitFinished(AggregateType.BOOK);
+
+        verify(bookRepository, never()).findBookIdsAfter(eq(2L), anyLong(), any());
+        verify(checkpointRepository, never()).completeLeased(any(), anyString(), any());
+        assertThat(service.progress(AggregateType.BOOK).status()).isEqualTo("FAILED");
+    }
+
+    @Test
+    void interrupted_run_is_reported_as_interrupted_and_not_completed() throws InterruptedException {
+        onePageOfBooks();
+        when(projectionWriter.writeBookDocuments(anyList(), anyList(), anyList())).thenAnswer(invocation -> {
+            // wie shutdownNow während der Seite
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(null);
+        });
+        when(checkpointRepository.advanceLeased(any(), anyString(), eq(2L), eq(2L), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+        service.start(AggregateType.BOOK, false);
+        awaitFinished(AggregateType.BOOK);
+
+        verify(checkpointRepository, never()).completeLeased(any(), anyString(), any());
+        assertThat(service.progress(AggregateType.BOOK).status()).isEqualTo("INTERRUPTED");
+    }
+}
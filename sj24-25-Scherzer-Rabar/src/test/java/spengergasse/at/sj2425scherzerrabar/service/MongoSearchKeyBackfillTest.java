@@ -0,0 +1,44 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class MongoSearchKeyBackfillTest {
+
+    @Test
+    void sets_book_author_and_city_keys_guarded_by_the_original_values() {
+        Document book = new Document("_id", 1).append("name", "Der Prozeß")
+                .append("authors", List.of(new Document("penname", "Kafka")
+                        .append("addresses", List.of(new Document("city", "Praha"), new Document("city", "Wien")))));
+
+        var update = MongoSearchKeyBackfill.bookUpdate(book);
+
+        assertThat(update.getFilter().toBsonDocument().toJson()).isEqualTo(new Document("_id", 1)
+                .append("name", "Der Prozeß")
+                .append("authors.0.penname", "Kafka")
+                .append("authors.0.addresses.0.city", "Praha")
+                .append("authors.0.addresses.1.city", "Wien").toJson());
+        assertThat(((Document) update.getUpdate()).get("$set", Document.class)).isEqualTo(new Document("name_key", "der prozess")
+                .append("authors.0.penname_key", "kafka")
+                .append("authors.0.addresses.0.cityKey", "praha")
+                .append("authors.0.addresses.1.cityKey", "wien"));
+    }
+
+    @Test
+    void sets_author_keys() {
+        Document author = new Document("_id", 2).append("pen_name", "Élise")
+                .append("addresses", List.of(new Document("city", "Zürich")));
+
+        var update = MongoSearchKeyBackfill.authorUpdate(author);
+
+        assertThat(((Document) update.getUpdate()).get("$set", Document.class)).isEqualTo(new Document("pen_name_key", "elise")
+                .append("addresses.0.cityKey", "zurich"));
+    }
+}
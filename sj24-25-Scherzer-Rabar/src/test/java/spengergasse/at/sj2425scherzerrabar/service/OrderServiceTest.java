@@ -34,6 +34,7 @@ class OrderServiceTest {
     private @Mock OrderRepository orderRepository;
     private @Mock BuyableBookRepository buyableBookRepository;
     private @Mock LibrarySubscriptionRepository librarySubscriptionRepository;
+    private @Mock ApiKeyResolver apiKeyResolver;
 
     private OrderService orderService;
 
@@ -44,7 +45,7 @@ class OrderServiceTest {
         assumeThat(buyableBookRepository).isNotNull();
         assumeThat(librarySubscriptionRepository).isNotNull();
 
-        orderService = new OrderService(orderRepository,customerRepository,buyableBookRepository,librarySubscriptionRepository);
+        orderService = new OrderService(orderRepository,customerRepository,buyableBookRepository,librarySubscriptionRepository,apiKeyResolver);
     }
 
     @Test
@@ -53,9 +54,9 @@ class OrderServiceTest {
         var buyableBook = FixturesFactory.buyableBook();
         var librarySubscription = FixturesFactory.librarySubscription();
 
-        when(customerRepository.findCustomerByCustomerApiKey(any())).thenReturn(Optional.of(customer));
-        when(librarySubscriptionRepository.findLibrarySubscriptionByLibrarySubscriptionApiKey(any())).thenReturn(Optional.of(librarySubscription));
-        when(buyableBookRepository.findBuyableBookByBuyableBookApiKey(any())).thenReturn(Optional.of(buyableBook));
+        when(apiKeyResolver.reference(eq(Customer.class), any())).thenReturn(Optional.of(customer));
+        when(apiKeyResolver.reference(eq(LibrarySubscription.class), any())).thenReturn(Optional.of(librarySubscription));
+        when(apiKeyResolver.reference(eq(BuyableBook.class), any())).thenReturn(Optional.of(buyableBook));
 
         OrderDto orderDto = orderService.createOrder(
                 new OrderCommand(new ApiKey("orderApiKey").apiKey(),customer.getCustomerApiKey().apiKey(),
@@ -74,8 +75,8 @@ class OrderServiceTest {
         var customer = FixturesFactory.customer();
         var librarySubscription = FixturesFactory.librarySubscription();
 
-        when(customerRepository.findCustomerByCustomerApiKey(any())).thenReturn(Optional.of(customer));
-        when(librarySubscriptionRepository.findLibrarySubscriptionByLibrarySubscriptionApiKey(any())).thenReturn(Optional.of(librarySubscription));
+        when(apiKeyResolver.reference(eq(Customer.class), any())).thenReturn(Optional.of(customer));
+        when(apiKeyResolver.reference(eq(LibrarySubscription.class), any())).thenReturn(Optional.of(librarySubscription));
 
         assertThatThrownBy(() ->orderService.createOrder(new OrderCommand(new ApiKey("orderApiKey").apiKey(),customer.getCustomerApiKey().apiKey(),
                 List.of(librarySubscription.getLibrarySubscriptionApiKey().apiKey(),librarySubscription.getLibrarySubscriptionApiKey().apiKey()),
@@ -89,7 +90,7 @@ class OrderServiceTest {
     void cant_create_order_with_missing_subscription() {
         var customer = FixturesFactory.customer();
 
-        when(customerRepository.findCustomerByCustomerApiKey(any())).thenReturn(Optional.of(customer));
+        when(apiKeyResolver.reference(eq(Customer.class), any())).thenReturn(Optional.of(customer));
 
         assertThatThrownBy(() ->orderService.createOrder(new OrderCommand(new ApiKey("orderApiKey").apiKey(),customer.getCustomerApiKey().apiKey(),
                 List.of("lsApiKey","lsApiKey"), LocalDate.MIN, List.of("bbApiKey","bbApiKey")
@@ -0,0 +1,177 @@
+package spengergasse.at.sj2425scherzerrabar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spengergasse.at.sj2425scherzerrabar.EntityCacheConfiguration;
+import spengergasse.at.sj2425scherzerrabar.FixturesFactory;
+import spengergasse.at.sj2425scherzerrabar.commands.PublisherCommand;
+import spengergasse.at.sj2425scherzerrabar.domain.ApiKey;
+import spengergasse.at.sj2425scherzerrabar.domain.Publisher;
+import spengergasse.at.sj2425scherzerrabar.dtos.PublisherDto;
+import spengergasse.at.sj2425scherzerrabar.persistence.PublisherRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Read-Through Cache über den echten Caffeine-CacheManager aus EntityCacheConfiguration:
+ * wiederholte Reads gehen nicht mehr ans Repository, update/delete evicten erst nach dem Commit.
+ */
+@SpringJUnitConfig
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class PublisherServiceCacheTest {
+
+    private static final String API_KEY = "publisherKey";
+    private static final PublisherDto CACHED = new PublisherDto(API_KEY, "Dornbund", "spengergasse 20-Vienna-1050");
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import(EntityCacheConfiguration.class)
+    static class Config {
+
+        @Bean
+        EntityCacheProperties entityCacheProperties() {
+            return new EntityCacheProperties(100, Duration.ofMinutes(1));
+        }
+
+        @Bean
+        PublisherService publisherService(PublisherRepository publisherRepository) {
+            return new PublisherService(publisherRepository);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new SynchronizationOnlyTransactionManager();
+        }
+    }
+
+    /**
+     * Transaktionen ohne Ressource - gebraucht wird nur die Synchronisation für afterCommit
+     */
+    static class SynchronizationOnlyTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        }
+    }
+
+    @MockitoBean
+    private PublisherRepository publisherRepository;
+    @Autowired
+    private PublisherService publisherService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Cache cache;
+    private final Publisher publisher = FixturesFactory.publisher(FixturesFactory.address2());
+    private final PublisherCommand update = new PublisherCommand(API_KEY, "Renamed", "spengergasse 20-Vienna-1050");
+
+    @BeforeEach
+    void setUp() {
+        cache = cacheManager.getCache(EntityCaches.PUBLISHERS);
+        cache.clear();
+        when(publisherRepository.findProjectedByPublisherApiKey(API_KEY)).thenReturn(Optional.of(CACHED));
+        when(publisherRepository.findPublisherByPublisherApiKey(new ApiKey(API_KEY))).thenReturn(Optional.of(publisher));
+    }
+
+    private void assertStillCachedInsideTheTransaction() {
+        assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+        assertThat(cache.get(API_KEY)).isNotNull();
+    }
+
+    @Test
+    void repeated_reads_are_served_from_the_cache() {
+        assertThat(publisherService.getPublisherByApiKey(API_KEY)).isEqualTo(CACHED);
+        assertThat(publisherService.getPublisherByApiKey(API_KEY)).isEqualTo(CACHED);
+
+        verify(publisherRepository, times(1)).findProjectedByPublisherApiKey(API_KEY);
+    }
+
+    @Test
+    void update_evicts_the_entry_after_commit() {
+        publisherService.getPublisherByApiKey(API_KEY);
+        when(publisherRepository.save(any(Publisher.class))).thenAnswer(invocation -> {
+            assertStillCachedInsideTheTransaction();
+            return invocation.getArgument(0);
+        });
+
+        publisherService.updatePublisher(update);
+
+        assertThat(cache.get(API_KEY)).isNull();
+        publisherService.getPublisherByApiKey(API_KEY);
+        verify(publisherRepository, times(2)).findProjectedByPublisherApiKey(API_KEY);
+    }
+
+    @Test
+    void delete_evicts_the_entry_after_commit() {
+        publisherService.getPublisherByApiKey(API_KEY);
+        doAnswer(invocation -> {
+            assertStillCachedInsideTheTransaction();
+            return null;
+        }).when(publisherRepository).delete(publisher);
+
+        publisherService.deletePublisherByApiKey(API_KEY);
+
+        assertThat(cache.get(API_KEY)).isNull();
+    }
+
+    @Test
+    void rolled_back_update_keeps_the_entry() {
+        publisherService.getPublisherByApiKey(API_KEY);
+        when(publisherRepository.save(any(Publisher.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            publisherService.updatePublisher(update);
+            status.setRollbackOnly();
+        });
+
+        assertThat(cache.get(API_KEY)).isNotNull();
+        publisherService.getPublisherByApiKey(API_KEY);
+        verify(publisherRepository, times(1)).findProjectedByPublisherApiKey(API_KEY);
+    }
+}